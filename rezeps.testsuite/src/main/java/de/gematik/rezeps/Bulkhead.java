@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.text.MessageFormat;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Begrenzt die Anzahl gleichzeitiger Aufrufe. Ist die Grenze erreicht, wird ein weiterer Aufruf
+ * sofort abgewiesen statt zu warten.
+ */
+public class Bulkhead {
+
+  private final String name;
+  private final int maxConcurrentCalls;
+  private final Semaphore permits;
+  private final LongAdder rejectedCalls = new LongAdder();
+
+  /**
+   * Erzeugt ein Bulkhead.
+   *
+   * @param name Name, unter dem das Bulkhead in Metriken erscheint.
+   * @param maxConcurrentCalls Maximale Anzahl gleichzeitiger Aufrufe.
+   */
+  public Bulkhead(String name, int maxConcurrentCalls) {
+    this.name = name;
+    this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+    this.permits = new Semaphore(this.maxConcurrentCalls);
+  }
+
+  /**
+   * Belegt einen Platz für einen Aufruf.
+   *
+   * @return true, falls ein Platz frei war. Dieser ist mit {@link #release()} freizugeben.
+   */
+  public boolean tryAcquire() {
+    if (permits.tryAcquire()) {
+      return true;
+    }
+    rejectedCalls.increment();
+    return false;
+  }
+
+  /** Gibt einen mit {@link #tryAcquire()} belegten Platz frei. */
+  public void release() {
+    permits.release();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  public int getActiveCalls() {
+    return maxConcurrentCalls - permits.availablePermits();
+  }
+
+  public long getRejectedCalls() {
+    return rejectedCalls.sum();
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "Bulkhead'{'name={0}, active={1}, max={2}, rejected={3}'}'",
+        name, getActiveCalls(), maxConcurrentCalls, getRejectedCalls());
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Weist Aufrufe einer Operation sofort ab, nachdem der Konnektor mehrfach hintereinander nicht
+ * geantwortet hat. Nach Ablauf der Wartezeit wird ein einzelner Probeaufruf zugelassen; ist er
+ * erfolgreich, werden wieder alle Aufrufe zugelassen, ansonsten beginnt die Wartezeit erneut.
+ */
+public class CircuitBreaker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  /** Zustand des Circuit Breakers. */
+  public enum State {
+    /** Alle Aufrufe werden zugelassen. */
+    CLOSED,
+    /** Alle Aufrufe werden abgewiesen. */
+    OPEN,
+    /** Ein einzelner Probeaufruf wird zugelassen. */
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final LongSupplier nanoClock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtNanos;
+  private boolean trialCallInFlight;
+  private long openings;
+  private long rejectedCalls;
+
+  /**
+   * Erzeugt einen Circuit Breaker.
+   *
+   * @param name Name, unter dem der Circuit Breaker in Metriken erscheint.
+   * @param failureThreshold Anzahl aufeinanderfolgender Fehler, nach der Aufrufe abgewiesen werden.
+   * @param openMillis Wartezeit bis zum nächsten Probeaufruf in Millisekunden.
+   */
+  public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+    this(name, failureThreshold, openMillis, System::nanoTime);
+  }
+
+  CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier nanoClock) {
+    this.name = name;
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Prüft, ob ein Aufruf zugelassen wird. Ein zugelassener Aufruf ist mit {@link #recordSuccess()}
+   * oder {@link #recordFailure()} abzuschließen.
+   *
+   * @return true, falls der Aufruf versendet werden darf.
+   */
+  public synchronized boolean tryAcquirePermission() {
+    if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+      state = State.HALF_OPEN;
+      trialCallInFlight = false;
+    }
+    if (state == State.CLOSED) {
+      return true;
+    }
+    if (state == State.HALF_OPEN && !trialCallInFlight) {
+      trialCallInFlight = true;
+      return true;
+    }
+    rejectedCalls++;
+    return false;
+  }
+
+  /** Erfasst einen Aufruf, auf den der Konnektor geantwortet hat. */
+  public synchronized void recordSuccess() {
+    if (state != State.CLOSED) {
+      LOGGER.info(MessageFormat.format("Circuit Breaker {0} wieder geschlossen.", name));
+    }
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialCallInFlight = false;
+  }
+
+  /** Erfasst einen Aufruf, auf den der Konnektor nicht geantwortet hat. */
+  public synchronized void recordFailure() {
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      if (state != State.OPEN) {
+        openings++;
+        LOGGER.warn(
+            MessageFormat.format(
+                "Circuit Breaker {0} nach {1} Fehlern geöffnet.", name, consecutiveFailures));
+      }
+      state = State.OPEN;
+      openedAtNanos = nanoClock.getAsLong();
+      trialCallInFlight = false;
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Liefert den aktuellen Zustand. Ist die Wartezeit eines geöffneten Circuit Breakers abgelaufen,
+   * wird HALF_OPEN gemeldet, auch wenn noch kein Probeaufruf erfolgt ist.
+   *
+   * @return Der Zustand.
+   */
+  public synchronized State getState() {
+    if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  public synchronized long getOpenings() {
+    return openings;
+  }
+
+  public synchronized long getRejectedCalls() {
+    return rejectedCalls;
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "CircuitBreaker'{'name={0}, state={1}, openings={2}, rejected={3}'}'",
+        name, getState(), getOpenings(), getRejectedCalls());
+  }
+}
@@ -21,6 +21,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,9 +56,127 @@ public class ConfigurationReader {
   private static final String IDP_CLIENT_ID = "idp_client_id";
   private static final String CATS_BASEURI = "cats_base";
 
-  private static ConfigurationReader instance;
+  private static final String KONNEKTOR_HTTP_MAX_CONNECTIONS_TOTAL =
+      "konnektor_http_max_connections_total";
+  private static final String KONNEKTOR_HTTP_MAX_CONNECTIONS_PER_ROUTE =
+      "konnektor_http_max_connections_per_route";
+  private static final String KONNEKTOR_HTTP_KEEP_ALIVE_SECONDS =
+      "konnektor_http_keep_alive_seconds";
+  private static final String KONNEKTOR_HTTP_IDLE_EVICTION_SECONDS =
+      "konnektor_http_idle_eviction_seconds";
+  private static final String KONNEKTOR_TLS_SESSION_CACHE_SIZE = "konnektor_tls_session_cache_size";
+  private static final String KONNEKTOR_TLS_SESSION_TIMEOUT_SECONDS =
+      "konnektor_tls_session_timeout_seconds";
+  private static final String KONNEKTOR_CONNECT_TIMEOUT_MILLIS = "konnektor_connect_timeout_millis";
+  private static final String KONNEKTOR_CONNECTION_REQUEST_TIMEOUT_MILLIS =
+      "konnektor_connection_request_timeout_millis";
+  private static final String KONNEKTOR_READ_TIMEOUT_MILLIS = "konnektor_read_timeout_millis";
+  private static final String KONNEKTOR_INTERACTIVE_READ_TIMEOUT_MILLIS =
+      "konnektor_interactive_read_timeout_millis";
+  private static final String FACHDIENST_TIMEOUT_MILLIS = "fachdienst_timeout_millis";
+  private static final String KONNEKTOR_SERVICE_DISCOVERY = "konnektor_service_discovery";
+  private static final String KONNEKTOR_SERVICE_DIRECTORY_PATH = "konnektor_service_directory_path";
+  private static final String KONNEKTOR_SERVICE_DIRECTORY_REFRESH_SECONDS =
+      "konnektor_service_directory_refresh_seconds";
+  private static final String KONNEKTOR_POOL = "konnektor_pool";
+  private static final String KONNEKTOR_CIRCUIT_BREAKER_FAILURE_THRESHOLD =
+      "konnektor_circuit_breaker_failure_threshold";
+  private static final String KONNEKTOR_CIRCUIT_BREAKER_OPEN_SECONDS =
+      "konnektor_circuit_breaker_open_seconds";
+  private static final String KONNEKTOR_BULKHEAD_MAX_CONCURRENT_CALLS =
+      "konnektor_bulkhead_max_concurrent_calls";
+  private static final String KONNEKTOR_INTERACTIVE_BULKHEAD_MAX_CONCURRENT_CALLS =
+      "konnektor_interactive_bulkhead_max_concurrent_calls";
+  private static final String KONNEKTOR_HEALTH_CHECK_SECONDS = "konnektor_health_check_seconds";
+  private static final String COMFORT_SIGNATURE_RESERVE_SIGNATURES =
+      "comfort_signature_reserve_signatures";
+  private static final String COMFORT_SIGNATURE_RESERVE_SECONDS =
+      "comfort_signature_reserve_seconds";
+  private static final String SIGNING_SCHEDULER_THREADS = "signing_scheduler_threads";
+  private static final String SIGNING_BATCH_MAX_DOCUMENTS = "signing_batch_max_documents";
+  private static final String JOB_NUMBER_POOL_SIZE = "job_number_pool_size";
+  private static final String JOB_NUMBER_POOL_LOW_WATERMARK = "job_number_pool_low_watermark";
+  private static final String JOB_NUMBER_MAX_AGE_SECONDS = "job_number_max_age_seconds";
+  private static final String BULK_VERIFICATION_MAX_CONCURRENT_REQUESTS =
+      "bulk_verification_max_concurrent_requests";
+  private static final String SIGNATURE_VERIFICATION_MODE = "signature_verification_mode";
+  private static final String SIGNATURE_VERIFICATION_TRUSTSTORE =
+      "signature_verification_truststore";
+  private static final String SIGNATURE_VERIFICATION_TRUSTSTORE_PASSWORD =
+      "signature_verification_truststore_password";
+  private static final String SIGNATURE_VERIFICATION_CHECK_REVOCATION =
+      "signature_verification_check_revocation";
+  private static final String VERIFICATION_CACHE_MAX_ENTRIES = "verification_cache_max_entries";
+  private static final String VERIFICATION_CACHE_TTL_SECONDS = "verification_cache_ttl_seconds";
+  private static final String VERIFICATION_CACHE_REVOCATION_FRESHNESS_SECONDS =
+      "verification_cache_revocation_freshness_seconds";
+  private static final String KONNEKTOR_MTOM_ENABLED = "konnektor_mtom_enabled";
+  private static final String EVENT_RECEIVER_ADDRESS = "event_receiver_address";
+  private static final String EVENT_SUBSCRIPTION_RENEW_AHEAD_SECONDS =
+      "event_subscription_renew_ahead_seconds";
+  private static final String EVENT_RECEIVER_TLS = "event_receiver_tls";
+  private static final String EVENT_RECEIVER_KEYSTORE = "event_receiver_keystore";
+  private static final String EVENT_RECEIVER_KEYSTORE_PASSWORD = "event_receiver_keystore_password";
+  private static final String EVENT_RECEIVER_TRUSTSTORE = "event_receiver_truststore";
+  private static final String EVENT_RECEIVER_TRUSTSTORE_PASSWORD =
+      "event_receiver_truststore_password";
+  private static final String EVENT_RECEIVER_QUEUE_CAPACITY = "event_receiver_queue_capacity";
+  private static final String CARD_TERMINAL_TOPOLOGY_MAX_AGE_SECONDS =
+      "card_terminal_topology_max_age_seconds";
+  private static final String CERTIFICATE_EXPIRATION_CHECK_INTERVAL_SECONDS =
+      "certificate_expiration_check_interval_seconds";
+  private static final String CERTIFICATE_EXPIRATION_WARN_DAYS = "certificate_expiration_warn_days";
+  private static final String WORKFLOW_EXECUTOR_MODE = "workflow_executor_mode";
+  private static final String WORKFLOW_EXECUTOR_PLATFORM_THREADS =
+      "workflow_executor_platform_threads";
+  private static final String KONNEKTOR_MAX_CONCURRENT_REQUESTS =
+      "konnektor_max_concurrent_requests";
+
+  private static final int DEFAULT_HTTP_MAX_CONNECTIONS_TOTAL = 100;
+  private static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 20;
+  private static final int DEFAULT_HTTP_KEEP_ALIVE_SECONDS = 30;
+  private static final int DEFAULT_HTTP_IDLE_EVICTION_SECONDS = 60;
+  private static final int DEFAULT_TLS_SESSION_CACHE_SIZE = 100;
+  private static final int DEFAULT_TLS_SESSION_TIMEOUT_SECONDS = 3600;
+  private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+  private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS = 10000;
+  private static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+  private static final int DEFAULT_INTERACTIVE_READ_TIMEOUT_MILLIS = 300000;
+  private static final int DEFAULT_FACHDIENST_TIMEOUT_MILLIS = 60000;
+  private static final String DEFAULT_SERVICE_DIRECTORY_PATH = "/connector.sds";
+  private static final int DEFAULT_SERVICE_DIRECTORY_REFRESH_SECONDS = 3600;
+  private static final int DEFAULT_HEALTH_CHECK_SECONDS = 30;
+  private static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+  private static final int DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS = 30;
+  private static final int DEFAULT_BULKHEAD_MAX_CONCURRENT_CALLS = 10;
+  private static final int DEFAULT_INTERACTIVE_BULKHEAD_MAX_CONCURRENT_CALLS = 10;
+  private static final int DEFAULT_COMFORT_SIGNATURE_RESERVE_SIGNATURES = 0;
+  private static final int DEFAULT_COMFORT_SIGNATURE_RESERVE_SECONDS = 60;
+  private static final int DEFAULT_SIGNING_SCHEDULER_THREADS = 4;
+  private static final int DEFAULT_SIGNING_BATCH_MAX_DOCUMENTS = 20;
+  private static final int DEFAULT_JOB_NUMBER_POOL_SIZE = 5;
+  private static final int DEFAULT_JOB_NUMBER_POOL_LOW_WATERMARK = 2;
+  private static final int DEFAULT_JOB_NUMBER_MAX_AGE_SECONDS = 300;
+  private static final int DEFAULT_BULK_VERIFICATION_MAX_CONCURRENT_REQUESTS = 8;
+  private static final boolean DEFAULT_SIGNATURE_VERIFICATION_CHECK_REVOCATION = true;
+  private static final int DEFAULT_VERIFICATION_CACHE_MAX_ENTRIES = 0;
+  private static final int DEFAULT_VERIFICATION_CACHE_TTL_SECONDS = 600;
+  private static final int DEFAULT_VERIFICATION_CACHE_REVOCATION_FRESHNESS_SECONDS = 3600;
+  private static final boolean DEFAULT_KONNEKTOR_MTOM_ENABLED = false;
+  private static final int DEFAULT_EVENT_SUBSCRIPTION_RENEW_AHEAD_SECONDS = 120;
+  private static final boolean DEFAULT_EVENT_RECEIVER_TLS = false;
+  private static final int DEFAULT_EVENT_RECEIVER_QUEUE_CAPACITY = 1000;
+  private static final int DEFAULT_CARD_TERMINAL_TOPOLOGY_MAX_AGE_SECONDS = 0;
+  private static final int DEFAULT_CERTIFICATE_EXPIRATION_CHECK_INTERVAL_SECONDS = 0;
+  private static final int DEFAULT_CERTIFICATE_EXPIRATION_WARN_DAYS = 30;
+  private static final String DEFAULT_WORKFLOW_EXECUTOR_MODE = "sequential";
+  private static final int DEFAULT_WORKFLOW_EXECUTOR_PLATFORM_THREADS = 32;
+  private static final int DEFAULT_KONNEKTOR_MAX_CONCURRENT_REQUESTS = 20;
+
+  private static volatile ConfigurationReader instance;
 
   private Properties properties = new Properties();
+  private volatile long revision;
   private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationReader.class);
 
   private ConfigurationReader() throws IOException {
@@ -87,10 +207,38 @@ public class ConfigurationReader {
    * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
    */
   public static ConfigurationReader getInstance() throws IOException {
-    if (instance == null) {
-      instance = new ConfigurationReader();
+    ConfigurationReader configurationReader = instance;
+    if (configurationReader == null) {
+      synchronized (ConfigurationReader.class) {
+        configurationReader = instance;
+        if (configurationReader == null) {
+          configurationReader = new ConfigurationReader();
+          instance = configurationReader;
+        }
+      }
     }
-    return instance;
+    return configurationReader;
+  }
+
+  /**
+   * Liefert den Stand der Konfiguration. Der Stand wird bei jeder Änderung einer Eigenschaft
+   * erhöht, so dass daraus abgeleitete Werte bei Bedarf neu bestimmt werden können.
+   *
+   * @return Revision der Konfiguration.
+   */
+  public long getRevision() {
+    return revision;
+  }
+
+  /**
+   * Ändert eine Eigenschaft der Konfiguration zur Laufzeit.
+   *
+   * @param propertyKey Name der Eigenschaft.
+   * @param propertyValue Neuer Wert der Eigenschaft.
+   */
+  public synchronized void setConfigurationProperty(String propertyKey, String propertyValue) {
+    properties.setProperty(propertyKey, propertyValue);
+    revision++;
   }
 
   public boolean konnektorUseSSL() {
@@ -132,7 +280,7 @@ public class ConfigurationReader {
   }
 
   public void setAccessTokenPrescribingEntity(String accessTokenPrescribingEntity) {
-    properties.setProperty(ACCESS_TOKEN_PRESCRIBING_ENTITY, accessTokenPrescribingEntity);
+    setConfigurationProperty(ACCESS_TOKEN_PRESCRIBING_ENTITY, accessTokenPrescribingEntity);
   }
 
   public String getAccessTokenDispensingEntity() {
@@ -140,7 +288,7 @@ public class ConfigurationReader {
   }
 
   public void setAccessTokenDispensingEntity(String accessTokenDispensingEntity) {
-    properties.setProperty(ACCESS_TOKEN_DISPENSING_ENTITY, accessTokenDispensingEntity);
+    setConfigurationProperty(ACCESS_TOKEN_DISPENSING_ENTITY, accessTokenDispensingEntity);
   }
 
   public String getKonnektorAuthSignatureServiceEndpoint() {
@@ -195,6 +343,583 @@ public class ConfigurationReader {
     return getConfigurationProperty(IDP_CLIENT_ID);
   }
 
+  /**
+   * Liefert die maximale Anzahl gleichzeitig offener Verbindungen zum Konnektor über alle Routen.
+   *
+   * @return Maximale Anzahl der Verbindungen, Vorgabe 100.
+   */
+  public int getKonnektorHttpMaxConnectionsTotal() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_HTTP_MAX_CONNECTIONS_TOTAL, DEFAULT_HTTP_MAX_CONNECTIONS_TOTAL);
+  }
+
+  /**
+   * Liefert die maximale Anzahl gleichzeitig offener Verbindungen je Route (Host und Port).
+   *
+   * @return Maximale Anzahl der Verbindungen je Route, Vorgabe 20.
+   */
+  public int getKonnektorHttpMaxConnectionsPerRoute() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_HTTP_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE);
+  }
+
+  /**
+   * Liefert die Dauer, die eine Verbindung ohne Keep-Alive-Angabe des Konnektors wiederverwendet
+   * werden darf.
+   *
+   * @return Keep-Alive-Dauer in Sekunden, Vorgabe 30.
+   */
+  public int getKonnektorHttpKeepAliveSeconds() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_HTTP_KEEP_ALIVE_SECONDS, DEFAULT_HTTP_KEEP_ALIVE_SECONDS);
+  }
+
+  /**
+   * Liefert die Dauer, nach der ungenutzte Verbindungen aus dem Pool entfernt werden.
+   *
+   * @return Leerlaufzeit in Sekunden, Vorgabe 60.
+   */
+  public int getKonnektorHttpIdleEvictionSeconds() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_HTTP_IDLE_EVICTION_SECONDS, DEFAULT_HTTP_IDLE_EVICTION_SECONDS);
+  }
+
+  /**
+   * Liefert die Anzahl der TLS-Sessions, die clientseitig für eine Wiederaufnahme vorgehalten
+   * werden.
+   *
+   * @return Größe des Session-Caches, Vorgabe 100.
+   */
+  public int getKonnektorTlsSessionCacheSize() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_TLS_SESSION_CACHE_SIZE, DEFAULT_TLS_SESSION_CACHE_SIZE);
+  }
+
+  /**
+   * Liefert die Dauer, für die eine TLS-Session wiederaufgenommen werden kann.
+   *
+   * @return Gültigkeit einer TLS-Session in Sekunden, Vorgabe 3600.
+   */
+  public int getKonnektorTlsSessionTimeoutSeconds() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_TLS_SESSION_TIMEOUT_SECONDS, DEFAULT_TLS_SESSION_TIMEOUT_SECONDS);
+  }
+
+  /**
+   * Liefert die maximale Dauer für den Aufbau einer Verbindung zum Konnektor.
+   *
+   * @return Timeout in Millisekunden, Vorgabe 10000.
+   */
+  public int getKonnektorConnectTimeoutMillis() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_CONNECT_TIMEOUT_MILLIS, DEFAULT_CONNECT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Liefert die maximale Wartezeit auf eine freie Verbindung aus dem Pool.
+   *
+   * @return Timeout in Millisekunden, Vorgabe 10000.
+   */
+  public int getKonnektorConnectionRequestTimeoutMillis() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_CONNECTION_REQUEST_TIMEOUT_MILLIS, DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Liefert die maximale Wartezeit auf die Antwort des Konnektors für Operationen ohne
+   * Benutzerinteraktion.
+   *
+   * @return Timeout in Millisekunden, Vorgabe 60000.
+   */
+  public int getKonnektorReadTimeoutMillis() {
+    return getIntConfigurationProperty(KONNEKTOR_READ_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Liefert die maximale Wartezeit auf die Antwort des Konnektors für Operationen, bei denen der
+   * Konnektor auf eine PIN-Eingabe oder das Stecken einer Karte wartet.
+   *
+   * @return Timeout in Millisekunden, Vorgabe 300000.
+   */
+  public int getKonnektorInteractiveReadTimeoutMillis() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_INTERACTIVE_READ_TIMEOUT_MILLIS, DEFAULT_INTERACTIVE_READ_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Liefert die maximale Wartezeit auf die Antwort des Konnektors für eine einzelne Operation, z.B.
+   * konnektor_read_timeout_millis.SignDocument.
+   *
+   * @param operation Name der Operation, wie er in der SOAP-Action angegeben ist.
+   * @param defaultValue Timeout, falls für die Operation nichts konfiguriert ist.
+   * @return Timeout in Millisekunden.
+   */
+  public int getKonnektorReadTimeoutMillis(String operation, int defaultValue) {
+    return getIntConfigurationProperty(
+        KONNEKTOR_READ_TIMEOUT_MILLIS + "." + operation, defaultValue);
+  }
+
+  /**
+   * Liefert die maximale Dauer eines Aufrufs beim E-Rezept-Fachdienst.
+   *
+   * @return Timeout in Millisekunden, Vorgabe 60000.
+   */
+  public int getFachdienstTimeoutMillis() {
+    return getIntConfigurationProperty(
+        FACHDIENST_TIMEOUT_MILLIS, DEFAULT_FACHDIENST_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Prüft, ob die Endpunkte der Dienste aus dem Dienstverzeichnis des Konnektors bestimmt werden
+   * sollen.
+   *
+   * @return true, falls das Dienstverzeichnis verwendet werden soll, Vorgabe false.
+   */
+  public boolean isKonnektorServiceDiscovery() {
+    return Boolean.parseBoolean(getConfigurationProperty(KONNEKTOR_SERVICE_DISCOVERY));
+  }
+
+  /**
+   * Liefert den Pfad des Dienstverzeichnisses auf dem Konnektor.
+   *
+   * @return Pfad des Dienstverzeichnisses, Vorgabe /connector.sds.
+   */
+  public String getKonnektorServiceDirectoryPath() {
+    String propertyValue = getConfigurationProperty(KONNEKTOR_SERVICE_DIRECTORY_PATH);
+    if (CommonUtils.isNullOrEmpty(propertyValue, true)) {
+      return DEFAULT_SERVICE_DIRECTORY_PATH;
+    }
+    return propertyValue.trim();
+  }
+
+  /**
+   * Liefert den Abstand, in dem das Dienstverzeichnis im Hintergrund neu gelesen wird.
+   *
+   * @return Abstand in Sekunden, Vorgabe 3600.
+   */
+  public int getKonnektorServiceDirectoryRefreshSeconds() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_SERVICE_DIRECTORY_REFRESH_SECONDS, DEFAULT_SERVICE_DIRECTORY_REFRESH_SECONDS);
+  }
+
+  /**
+   * Liefert die Adressen weiterer Konnektoren, auf die Anfragen neben dem über konnektor_ip und
+   * konnektor_port konfigurierten Konnektor verteilt werden.
+   *
+   * @return Adressen der Form host:port, Vorgabe keine.
+   */
+  public List<String> getKonnektorPool() {
+    String propertyValue = getConfigurationProperty(KONNEKTOR_POOL);
+    List<String> konnektorAddresses = new ArrayList<>();
+    if (!CommonUtils.isNullOrEmpty(propertyValue, true)) {
+      for (String konnektorAddress : propertyValue.split(",")) {
+        if (!konnektorAddress.trim().isEmpty()) {
+          konnektorAddresses.add(konnektorAddress.trim());
+        }
+      }
+    }
+    return konnektorAddresses;
+  }
+
+  /**
+   * Liefert den Abstand, in dem die Erreichbarkeit der Konnektoren im Pool geprüft wird.
+   *
+   * @return Abstand in Sekunden, Vorgabe 30.
+   */
+  public int getKonnektorHealthCheckSeconds() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_HEALTH_CHECK_SECONDS, DEFAULT_HEALTH_CHECK_SECONDS);
+  }
+
+  /**
+   * Liefert die Anzahl aufeinanderfolgender Verbindungsfehler einer Operation, nach der weitere
+   * Aufrufe dieser Operation sofort abgewiesen werden.
+   *
+   * @return Anzahl der Fehler, Vorgabe 5.
+   */
+  public int getKonnektorCircuitBreakerFailureThreshold() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_CIRCUIT_BREAKER_FAILURE_THRESHOLD, DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+  }
+
+  /**
+   * Liefert die Dauer, für die Aufrufe einer Operation nach Erreichen der Fehlerschwelle abgewiesen
+   * werden, bevor ein einzelner Probeaufruf zugelassen wird.
+   *
+   * @return Dauer in Sekunden, Vorgabe 30.
+   */
+  public int getKonnektorCircuitBreakerOpenSeconds() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_CIRCUIT_BREAKER_OPEN_SECONDS, DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS);
+  }
+
+  /**
+   * Liefert die maximale Anzahl gleichzeitiger Aufrufe einer Operation beim Konnektor. Der Wert
+   * kann über konnektor_bulkhead_max_concurrent_calls.&lt;Operation&gt; je Operation abweichend
+   * gesetzt werden.
+   *
+   * @param operation Name der Operation, z.B. "GetCards".
+   * @return Maximale Anzahl gleichzeitiger Aufrufe, Vorgabe 10.
+   */
+  public int getKonnektorBulkheadMaxConcurrentCalls(String operation) {
+    return getIntConfigurationProperty(
+        KONNEKTOR_BULKHEAD_MAX_CONCURRENT_CALLS + "." + operation,
+        getIntConfigurationProperty(
+            KONNEKTOR_BULKHEAD_MAX_CONCURRENT_CALLS, DEFAULT_BULKHEAD_MAX_CONCURRENT_CALLS));
+  }
+
+  /**
+   * Liefert die maximale Anzahl gleichzeitiger Aufrufe aller Operationen mit PIN-Eingabe oder
+   * Kartenanforderung zusammen, damit diese nicht alle Verbindungen zum Konnektor belegen.
+   *
+   * @return Maximale Anzahl gleichzeitiger Aufrufe, Vorgabe 10.
+   */
+  public int getKonnektorInteractiveBulkheadMaxConcurrentCalls() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_INTERACTIVE_BULKHEAD_MAX_CONCURRENT_CALLS,
+        DEFAULT_INTERACTIVE_BULKHEAD_MAX_CONCURRENT_CALLS);
+  }
+
+  /**
+   * Liefert die Anzahl von Komfortsignaturen, die nach einem Signaturauftrag mindestens verbleiben
+   * sollen. Reicht das Budget nicht aus, wird die Komfortsignatur vor dem Auftrag neu aktiviert.
+   *
+   * @return Anzahl der Signaturen, Vorgabe 0.
+   */
+  public int getComfortSignatureReserveSignatures() {
+    return getIntConfigurationProperty(
+        COMFORT_SIGNATURE_RESERVE_SIGNATURES, DEFAULT_COMFORT_SIGNATURE_RESERVE_SIGNATURES);
+  }
+
+  /**
+   * Liefert die Zeit, die von einer Komfortsignatur-Sitzung mindestens verbleiben soll. Läuft die
+   * Sitzung früher ab, wird die Komfortsignatur vor dem nächsten Signaturauftrag neu aktiviert.
+   *
+   * @return Zeit in Sekunden, Vorgabe 60.
+   */
+  public int getComfortSignatureReserveSeconds() {
+    return getIntConfigurationProperty(
+        COMFORT_SIGNATURE_RESERVE_SECONDS, DEFAULT_COMFORT_SIGNATURE_RESERVE_SECONDS);
+  }
+
+  /**
+   * Liefert die Anzahl der Threads, mit denen der SigningScheduler die Warteschlangen der HBAs
+   * abarbeitet. Je HBA ist höchstens ein Thread zur Zeit aktiv.
+   *
+   * @return Anzahl der Threads, Vorgabe 4.
+   */
+  public int getSigningSchedulerThreads() {
+    return getIntConfigurationProperty(
+        SIGNING_SCHEDULER_THREADS, DEFAULT_SIGNING_SCHEDULER_THREADS);
+  }
+
+  /**
+   * Liefert die maximale Anzahl von Verordnungsdatensätzen, die der SigningScheduler mit einem
+   * Aufruf von SignDocument signiert.
+   *
+   * @return Anzahl der Dokumente, Vorgabe 20.
+   */
+  public int getSigningBatchMaxDocuments() {
+    return getIntConfigurationProperty(
+        SIGNING_BATCH_MAX_DOCUMENTS, DEFAULT_SIGNING_BATCH_MAX_DOCUMENTS);
+  }
+
+  /**
+   * Liefert die Anzahl der Job-Nummern, die je Aufrufkontext vorab beim Konnektor erfragt werden.
+   * Bei 0 wird jede Job-Nummer direkt vor der Signatur erfragt.
+   *
+   * @return Anzahl der Job-Nummern, Vorgabe 5.
+   */
+  public int getJobNumberPoolSize() {
+    return getIntConfigurationProperty(JOB_NUMBER_POOL_SIZE, DEFAULT_JOB_NUMBER_POOL_SIZE);
+  }
+
+  /**
+   * Liefert die Anzahl vorrätiger Job-Nummern, bei deren Unterschreiten der Vorrat aufgefüllt wird.
+   *
+   * @return Anzahl der Job-Nummern, Vorgabe 2.
+   */
+  public int getJobNumberPoolLowWatermark() {
+    return getIntConfigurationProperty(
+        JOB_NUMBER_POOL_LOW_WATERMARK, DEFAULT_JOB_NUMBER_POOL_LOW_WATERMARK);
+  }
+
+  /**
+   * Liefert die Dauer, nach der eine vorrätige Job-Nummer verworfen wird.
+   *
+   * @return Dauer in Sekunden, Vorgabe 300.
+   */
+  public int getJobNumberMaxAgeSeconds() {
+    return getIntConfigurationProperty(
+        JOB_NUMBER_MAX_AGE_SECONDS, DEFAULT_JOB_NUMBER_MAX_AGE_SECONDS);
+  }
+
+  /**
+   * Liefert die maximale Anzahl gleichzeitiger Aufrufe von VerifyDocument bei der Prüfung mehrerer
+   * E-Rezepte. Der Wert sollte die Grenze des Überlastschutzes für VerifyDocument nicht
+   * überschreiten.
+   *
+   * @return Anzahl der Aufrufe, Vorgabe 8.
+   */
+  public int getBulkVerificationMaxConcurrentRequests() {
+    return getIntConfigurationProperty(
+        BULK_VERIFICATION_MAX_CONCURRENT_REQUESTS,
+        DEFAULT_BULK_VERIFICATION_MAX_CONCURRENT_REQUESTS);
+  }
+
+  /**
+   * Gibt an, ob CMS-Signaturen lokal statt mit VerifyDocument durch den Konnektor geprüft werden.
+   * Zulässig sind "konnektor" und "local".
+   *
+   * @return true, falls der Wert "local" konfiguriert ist, Vorgabe false.
+   */
+  public boolean isLocalSignatureVerification() {
+    String propertyValue = getConfigurationProperty(SIGNATURE_VERIFICATION_MODE);
+    return propertyValue != null && "local".equalsIgnoreCase(propertyValue.trim());
+  }
+
+  /**
+   * Liefert den Pfad zum Truststore mit den Vertrauensankern für die lokale Signaturprüfung.
+   *
+   * @return Pfad zum Truststore im Standardformat der JVM.
+   */
+  public String getSignatureVerificationTruststore() {
+    return getConfigurationProperty(SIGNATURE_VERIFICATION_TRUSTSTORE);
+  }
+
+  /**
+   * Liefert das Passwort des Truststores für die lokale Signaturprüfung.
+   *
+   * @return Das Passwort oder null.
+   */
+  public String getSignatureVerificationTruststorePassword() {
+    return getConfigurationProperty(SIGNATURE_VERIFICATION_TRUSTSTORE_PASSWORD);
+  }
+
+  /**
+   * Gibt an, ob bei der lokalen Signaturprüfung der Sperrstatus des Signaturzertifikats mit
+   * VerifyCertificate durch den Konnektor geprüft wird.
+   *
+   * @return true, falls der Sperrstatus geprüft wird, Vorgabe true.
+   */
+  public boolean isSignatureVerificationRevocationCheck() {
+    return getBooleanConfigurationProperty(
+        SIGNATURE_VERIFICATION_CHECK_REVOCATION, DEFAULT_SIGNATURE_VERIFICATION_CHECK_REVOCATION);
+  }
+
+  /**
+   * Liefert die maximale Anzahl gemerkter Ergebnisse von Signaturprüfungen. Ein Eintrag belegt
+   * unabhängig von der Größe des Rezepts nur wenige hundert Byte.
+   *
+   * @return Anzahl der Einträge, 0 schaltet den Cache ab, Vorgabe 0.
+   */
+  public int getVerificationCacheMaxEntries() {
+    return getIntConfigurationProperty(
+        VERIFICATION_CACHE_MAX_ENTRIES, DEFAULT_VERIFICATION_CACHE_MAX_ENTRIES);
+  }
+
+  /**
+   * Liefert die Dauer, für die das Ergebnis einer Signaturprüfung gemerkt wird.
+   *
+   * @return Dauer in Sekunden, Vorgabe 600.
+   */
+  public int getVerificationCacheTtlSeconds() {
+    return getIntConfigurationProperty(
+        VERIFICATION_CACHE_TTL_SECONDS, DEFAULT_VERIFICATION_CACHE_TTL_SECONDS);
+  }
+
+  /**
+   * Liefert die Dauer, für die eine Sperrstatusprüfung (OCSP) des Konnektors als aktuell gilt. Die
+   * Ergebnisse von Signaturprüfungen werden höchstens so lange gemerkt.
+   *
+   * @return Dauer in Sekunden, Vorgabe 3600.
+   */
+  public int getVerificationCacheRevocationFreshnessSeconds() {
+    return getIntConfigurationProperty(
+        VERIFICATION_CACHE_REVOCATION_FRESHNESS_SECONDS,
+        DEFAULT_VERIFICATION_CACHE_REVOCATION_FRESHNESS_SECONDS);
+  }
+
+  /**
+   * Gibt an, ob die Dokumente bei SignDocument und VerifyDocument als MTOM/XOP-Anhang statt
+   * Base64-kodiert im SOAP-Body übertragen werden. Der Konnektor muss MTOM unterstützen.
+   *
+   * @return true, falls MTOM verwendet wird, Vorgabe false.
+   */
+  public boolean isKonnektorMtomEnabled() {
+    return getBooleanConfigurationProperty(KONNEKTOR_MTOM_ENABLED, DEFAULT_KONNEKTOR_MTOM_ENABLED);
+  }
+
+  /**
+   * Liefert die Adresse, an die der Konnektor abonnierte Ereignisse sendet, z.B.
+   * cetp://10.0.0.5:8585. Ohne Adresse werden keine Ereignisse abonniert und die Kartenhandles bei
+   * jeder Suche per GetCards ermittelt.
+   *
+   * @return Adresse des Ereignisempfängers oder null, falls nicht konfiguriert.
+   */
+  public String getEventReceiverAddress() {
+    return getOptionalConfigurationProperty(EVENT_RECEIVER_ADDRESS);
+  }
+
+  /**
+   * Liefert den Vorlauf, mit dem Abonnements vor ihrem Ablauf beim Konnektor verlängert werden.
+   *
+   * @return Vorlauf in Sekunden, Vorgabe 120.
+   */
+  public int getEventSubscriptionRenewAheadSeconds() {
+    return getIntConfigurationProperty(
+        EVENT_SUBSCRIPTION_RENEW_AHEAD_SECONDS, DEFAULT_EVENT_SUBSCRIPTION_RENEW_AHEAD_SECONDS);
+  }
+
+  /**
+   * Gibt an, ob der Ereignisempfänger Verbindungen des Konnektors per TLS annimmt. Er weist sich
+   * dann mit dem Schlüssel aus event_receiver_keystore aus und verlangt vom Konnektor ein
+   * Client-Zertifikat.
+   *
+   * @return true, falls TLS verwendet wird, Vorgabe false.
+   */
+  public boolean isEventReceiverTls() {
+    return getBooleanConfigurationProperty(EVENT_RECEIVER_TLS, DEFAULT_EVENT_RECEIVER_TLS);
+  }
+
+  /**
+   * Liefert den Pfad zum PKCS#12-Schlüsselspeicher, mit dessen Schlüssel sich der Ereignisempfänger
+   * bei TLS gegenüber dem Konnektor ausweist.
+   *
+   * @return Pfad zum Schlüsselspeicher oder null, falls nicht konfiguriert.
+   */
+  public String getEventReceiverKeystore() {
+    return getOptionalConfigurationProperty(EVENT_RECEIVER_KEYSTORE);
+  }
+
+  public String getEventReceiverKeystorePassword() {
+    return getConfigurationProperty(EVENT_RECEIVER_KEYSTORE_PASSWORD);
+  }
+
+  /**
+   * Liefert den Pfad zum Truststore, dem das Client-Zertifikat des Konnektors bei TLS genügen muss.
+   *
+   * @return Pfad zum Truststore oder null, dann gilt path_to_client_truststore.
+   */
+  public String getEventReceiverTruststore() {
+    return getOptionalConfigurationProperty(EVENT_RECEIVER_TRUSTSTORE);
+  }
+
+  public String getEventReceiverTruststorePassword() {
+    return getConfigurationProperty(EVENT_RECEIVER_TRUSTSTORE_PASSWORD);
+  }
+
+  /**
+   * Liefert die Anzahl empfangener Ereignisse, die höchstens auf ihre Verarbeitung warten. Ist die
+   * Warteschlange voll, liest der Ereignisempfänger keine weiteren Daten vom Konnektor.
+   *
+   * @return Anzahl der Ereignisse, Vorgabe 1000.
+   */
+  public int getEventReceiverQueueCapacity() {
+    return getIntConfigurationProperty(
+        EVENT_RECEIVER_QUEUE_CAPACITY, DEFAULT_EVENT_RECEIVER_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Liefert die Dauer, nach der der vorgehaltene Stand der Kartenterminals per GetCardTerminals neu
+   * geladen wird. CT-Ereignisse des Konnektors lösen das Neuladen sofort aus; ohne Abonnement der
+   * Ereignisse kann ein vorgehaltener Stand bis zu dieser Dauer veraltet sein.
+   *
+   * @return Dauer in Sekunden, 0 lädt die Kartenterminals bei jedem Zugriff, Vorgabe 0.
+   */
+  public int getCardTerminalTopologyMaxAgeSeconds() {
+    return getIntConfigurationProperty(
+        CARD_TERMINAL_TOPOLOGY_MAX_AGE_SECONDS, DEFAULT_CARD_TERMINAL_TOPOLOGY_MAX_AGE_SECONDS);
+  }
+
+  /**
+   * Liefert den Abstand, in dem die Ablaufdaten der Zertifikate aller Karten und des Konnektors per
+   * CheckCertificateExpiration geprüft werden. Bei 0 findet keine Prüfung im Hintergrund statt.
+   *
+   * @return Abstand in Sekunden, Vorgabe 0.
+   */
+  public int getCertificateExpirationCheckIntervalSeconds() {
+    return getIntConfigurationProperty(
+        CERTIFICATE_EXPIRATION_CHECK_INTERVAL_SECONDS,
+        DEFAULT_CERTIFICATE_EXPIRATION_CHECK_INTERVAL_SECONDS);
+  }
+
+  /**
+   * Liefert die Anzahl Tage vor dem Ablauf eines Zertifikats, ab der vor dem Ablauf gewarnt wird.
+   *
+   * @return Anzahl Tage, Vorgabe 30.
+   */
+  public int getCertificateExpirationWarnDays() {
+    return getIntConfigurationProperty(
+        CERTIFICATE_EXPIRATION_WARN_DAYS, DEFAULT_CERTIFICATE_EXPIRATION_WARN_DAYS);
+  }
+
+  /**
+   * Liefert den Ausführungsmodus, in dem der Glue-Code Aufrufe parallel ausführt. Zulässig sind
+   * "sequential", "platform" und "virtual".
+   *
+   * @return Ausführungsmodus, Vorgabe "sequential".
+   */
+  public String getWorkflowExecutorMode() {
+    String propertyValue = getConfigurationProperty(WORKFLOW_EXECUTOR_MODE);
+    if (CommonUtils.isNullOrEmpty(propertyValue, true)) {
+      return DEFAULT_WORKFLOW_EXECUTOR_MODE;
+    }
+    return propertyValue.trim();
+  }
+
+  /**
+   * Liefert die Anzahl der Threads, die im Ausführungsmodus "platform" zur Verfügung stehen.
+   *
+   * @return Anzahl der Threads, Vorgabe 32.
+   */
+  public int getWorkflowExecutorPlatformThreads() {
+    return getIntConfigurationProperty(
+        WORKFLOW_EXECUTOR_PLATFORM_THREADS, DEFAULT_WORKFLOW_EXECUTOR_PLATFORM_THREADS);
+  }
+
+  /**
+   * Liefert die maximale Anzahl gleichzeitig laufender Aufrufe je Konnektor.
+   *
+   * @return Maximale Anzahl paralleler Aufrufe, Vorgabe 20.
+   */
+  public int getKonnektorMaxConcurrentRequests() {
+    return getIntConfigurationProperty(
+        KONNEKTOR_MAX_CONCURRENT_REQUESTS, DEFAULT_KONNEKTOR_MAX_CONCURRENT_REQUESTS);
+  }
+
+  private boolean getBooleanConfigurationProperty(String propertyKey, boolean defaultValue) {
+    String propertyValue = getConfigurationProperty(propertyKey);
+    if (CommonUtils.isNullOrEmpty(propertyValue, true)) {
+      return defaultValue;
+    }
+    return Boolean.parseBoolean(propertyValue.trim());
+  }
+
+  private int getIntConfigurationProperty(String propertyKey, int defaultValue) {
+    String propertyValue = getConfigurationProperty(propertyKey);
+    if (CommonUtils.isNullOrEmpty(propertyValue, true)) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(propertyValue.trim());
+    } catch (NumberFormatException numberFormatException) {
+      LOGGER.warn(
+          MessageFormat.format(
+              "invalid value {0} for {1}, using default {2}",
+              propertyValue, propertyKey, String.valueOf(defaultValue)));
+      return defaultValue;
+    }
+  }
+
+  private String getOptionalConfigurationProperty(String propertyKey) {
+    String propertyValue = getConfigurationProperty(propertyKey);
+    if (CommonUtils.isNullOrEmpty(propertyValue, true)) {
+      return null;
+    }
+    return propertyValue.trim();
+  }
+
   private String getConfigurationProperty(String propertyKey) {
     String propertyValue = "";
     if (properties != null) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spätester Zeitpunkt, bis zu dem ein Ablauf abgeschlossen sein muss. Eine Deadline gilt für den
+ * aktuellen Thread, solange sie über {@link #call(Callable)} gesetzt ist, und begrenzt alle in
+ * dieser Zeit ausgeführten Aufrufe beim Konnektor.
+ */
+public final class Deadline {
+
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+  private final long expiresAtNanos;
+
+  private Deadline(long expiresAtNanos) {
+    this.expiresAtNanos = expiresAtNanos;
+  }
+
+  /**
+   * Erzeugt eine Deadline, die nach der übergebenen Dauer abläuft.
+   *
+   * @param timeoutMillis Dauer in Millisekunden.
+   * @return Die Deadline.
+   */
+  public static Deadline after(long timeoutMillis) {
+    return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+  }
+
+  /**
+   * Liefert die für den aktuellen Thread gesetzte Deadline.
+   *
+   * @return Die Deadline oder null, falls keine gesetzt ist.
+   */
+  public static Deadline current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Führt einen Aufruf unter dieser Deadline aus. Ist bereits eine frühere Deadline gesetzt, bleibt
+   * diese wirksam.
+   *
+   * @param task Der auszuführende Aufruf.
+   * @param <T> Typ des Ergebnisses.
+   * @return Das Ergebnis des Aufrufes.
+   * @throws Exception Falls der Aufruf fehlschlägt.
+   */
+  public <T> T call(Callable<T> task) throws Exception {
+    Deadline previous = CURRENT.get();
+    CURRENT.set(previous != null && previous.expiresAtNanos - expiresAtNanos < 0 ? previous : this);
+    try {
+      return task.call();
+    } finally {
+      if (previous != null) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+  }
+
+  /**
+   * Liefert die verbleibende Zeit bis zum Ablauf der Deadline.
+   *
+   * @return Verbleibende Zeit in Millisekunden, mindestens 0.
+   */
+  public long getRemainingMillis() {
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+  }
+
+  public boolean isExpired() {
+    return expiresAtNanos - System.nanoTime() <= 0;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.net.Socket;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SSLConnectionSocketFactory, die jeden Handshake zum Konnektor in den {@link
+ * TlsHandshakeStatistics} erfasst. Eine Session gilt als wiederaufgenommen, wenn sie vor Beginn des
+ * Handshakes erzeugt wurde.
+ */
+class HandshakeRecordingSslConnectionSocketFactory extends SSLConnectionSocketFactory {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(HandshakeRecordingSslConnectionSocketFactory.class);
+
+  private final TlsHandshakeStatistics tlsHandshakeStatistics;
+
+  HandshakeRecordingSslConnectionSocketFactory(
+      SSLContext sslContext,
+      String[] supportedProtocols,
+      String[] supportedCipherSuites,
+      HostnameVerifier hostnameVerifier,
+      TlsHandshakeStatistics tlsHandshakeStatistics) {
+    super(sslContext, supportedProtocols, supportedCipherSuites, hostnameVerifier);
+    this.tlsHandshakeStatistics = tlsHandshakeStatistics;
+  }
+
+  @Override
+  public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+      throws IOException {
+    long startMillis = System.currentTimeMillis();
+    long startNanos = System.nanoTime();
+    Socket layeredSocket = super.createLayeredSocket(socket, target, port, context);
+    long durationNanos = System.nanoTime() - startNanos;
+    if (layeredSocket instanceof SSLSocket) {
+      SSLSession session = ((SSLSocket) layeredSocket).getSession();
+      boolean resumed = session.getCreationTime() < startMillis;
+      tlsHandshakeStatistics.recordHandshake(resumed, durationNanos);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug(
+            "TLS handshake to {}:{} ({}, {} ms, {})",
+            target,
+            port,
+            resumed ? "resumed" : "full",
+            durationNanos / 1_000_000,
+            session.getCipherSuite());
+      }
+    }
+    return layeredSocket;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import org.apache.http.HttpHost;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.ssl.SSLIOSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SSLIOSessionStrategy des nicht-blockierenden HttpClients, die wie die {@link
+ * HandshakeRecordingSslConnectionSocketFactory} jeden Handshake zum Konnektor in den {@link
+ * TlsHandshakeStatistics} erfasst. Der Handshake läuft asynchron, sein Beginn wird daher an der
+ * IOSession vermerkt und nach Abschluss in {@link #verifySession} ausgewertet.
+ */
+class HandshakeRecordingSslIOSessionStrategy extends SSLIOSessionStrategy {
+
+  static final String HANDSHAKE_START_MILLIS = "de.gematik.rezeps.tls-handshake-start-millis";
+  static final String HANDSHAKE_START_NANOS = "de.gematik.rezeps.tls-handshake-start-nanos";
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(HandshakeRecordingSslIOSessionStrategy.class);
+
+  private final TlsHandshakeStatistics tlsHandshakeStatistics;
+
+  HandshakeRecordingSslIOSessionStrategy(
+      SSLContext sslContext,
+      String[] supportedProtocols,
+      String[] supportedCipherSuites,
+      HostnameVerifier hostnameVerifier,
+      TlsHandshakeStatistics tlsHandshakeStatistics) {
+    super(sslContext, supportedProtocols, supportedCipherSuites, hostnameVerifier);
+    this.tlsHandshakeStatistics = tlsHandshakeStatistics;
+  }
+
+  @Override
+  public SSLIOSession upgrade(HttpHost host, IOSession iosession) throws IOException {
+    iosession.setAttribute(HANDSHAKE_START_MILLIS, System.currentTimeMillis());
+    iosession.setAttribute(HANDSHAKE_START_NANOS, System.nanoTime());
+    return super.upgrade(host, iosession);
+  }
+
+  @Override
+  protected void verifySession(HttpHost host, IOSession iosession, SSLSession sslsession)
+      throws SSLException {
+    super.verifySession(host, iosession, sslsession);
+    Object startMillis = iosession.getAttribute(HANDSHAKE_START_MILLIS);
+    Object startNanos = iosession.getAttribute(HANDSHAKE_START_NANOS);
+    if (!(startMillis instanceof Long) || !(startNanos instanceof Long)) {
+      return;
+    }
+    long durationNanos = System.nanoTime() - (Long) startNanos;
+    boolean resumed = sslsession.getCreationTime() < (Long) startMillis;
+    tlsHandshakeStatistics.recordHandshake(resumed, durationNanos);
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(
+          "TLS handshake to {} ({}, {} ms, {})",
+          host,
+          resumed ? "resumed" : "full",
+          durationNanos / 1_000_000,
+          sslsession.getCipherSuite());
+    }
+  }
+}
@@ -89,6 +89,27 @@ public class InvocationContext implements Serializable {
     this.user = user;
   }
 
+  /**
+   * Liefert einen Schlüssel, unter dem Daten je Aufrufkontext einschließlich des Benutzers abgelegt
+   * werden, z.B. Abonnements oder Job-Nummern.
+   *
+   * @return Schlüssel aus Mandant, ClientSystem, Arbeitsplatz und Benutzer.
+   */
+  public String determineKey() {
+    return String.join("\n", determineWorkplaceKey(), String.valueOf(user));
+  }
+
+  /**
+   * Liefert einen Schlüssel, unter dem Daten abgelegt werden, die nicht vom Benutzer abhängen, z.B.
+   * die im Aufrufkontext sichtbaren Karten und Kartenterminals.
+   *
+   * @return Schlüssel aus Mandant, ClientSystem und Arbeitsplatz.
+   */
+  public String determineWorkplaceKey() {
+    return String.join(
+        "\n", String.valueOf(mandant), String.valueOf(clientSystem), String.valueOf(workplace));
+  }
+
   /**
    * Konvertiert den Aufrufkontext in die für die SOAP-Schnittstelle benötigte Repräsentation.
    *
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+/**
+ * Zentrale Ablage der Jaxb2Marshaller für die Konnektor-Dienste. Für jeden Kontext-Pfad (und jede
+ * Kombination von Marshaller-Properties) wird genau ein Marshaller erzeugt, dessen JAXBContext erst
+ * beim ersten Aufruf aufgebaut wird. Dienste mit demselben Kontext-Pfad teilen sich so die
+ * Metadaten des JAXBContext. Marshaller mit MTOM werden getrennt von denen ohne MTOM abgelegt.
+ */
+public class JaxbMarshallerRegistry {
+
+  private static final Map<String, Jaxb2Marshaller> MARSHALLERS = new ConcurrentHashMap<>();
+  private static final String MTOM_SUFFIX = "#mtom";
+
+  private JaxbMarshallerRegistry() {}
+
+  /**
+   * Liefert den Marshaller für den übergebenen Kontext-Pfad.
+   *
+   * @param contextPath Kontext-Pfad der generierten Java-Klassen, siehe {@link WsdlContexts}.
+   * @return Der geteilte Marshaller für den Kontext-Pfad.
+   */
+  public static Jaxb2Marshaller determineMarshaller(String contextPath) {
+    return determineMarshaller(contextPath, Collections.emptyMap());
+  }
+
+  /**
+   * Liefert den Marshaller für den übergebenen Kontext-Pfad und die übergebenen
+   * Marshaller-Properties.
+   *
+   * @param contextPath Kontext-Pfad der generierten Java-Klassen, siehe {@link WsdlContexts}.
+   * @param marshallerProperties Properties, die für jeden JAXB-Marshaller gesetzt werden.
+   * @return Der geteilte Marshaller für Kontext-Pfad und Properties.
+   */
+  public static Jaxb2Marshaller determineMarshaller(
+      String contextPath, Map<String, ?> marshallerProperties) {
+    String key = contextPath + new TreeMap<>(marshallerProperties);
+    return MARSHALLERS.computeIfAbsent(
+        key, unused -> createMarshaller(contextPath, marshallerProperties, false));
+  }
+
+  /**
+   * Liefert den Marshaller für den übergebenen Kontext-Pfad, der Binärdaten (xs:base64Binary) auf
+   * Wunsch als MTOM/XOP-Anhang überträgt, statt sie Base64-kodiert in den SOAP-Body zu schreiben.
+   *
+   * @param contextPath Kontext-Pfad der generierten Java-Klassen, siehe {@link WsdlContexts}.
+   * @param mtomEnabled true, falls Binärdaten als Anhang übertragen werden.
+   * @return Der geteilte Marshaller für Kontext-Pfad und MTOM-Einstellung.
+   */
+  public static Jaxb2Marshaller determineMarshaller(String contextPath, boolean mtomEnabled) {
+    if (!mtomEnabled) {
+      return determineMarshaller(contextPath);
+    }
+    return MARSHALLERS.computeIfAbsent(
+        contextPath + MTOM_SUFFIX,
+        unused -> createMarshaller(contextPath, Collections.emptyMap(), true));
+  }
+
+  private static Jaxb2Marshaller createMarshaller(
+      String contextPath, Map<String, ?> marshallerProperties, boolean mtomEnabled) {
+    Jaxb2Marshaller marshaller = new PooledJaxb2Marshaller();
+    marshaller.setContextPath(contextPath);
+    marshaller.setMtomEnabled(mtomEnabled);
+    if (!marshallerProperties.isEmpty()) {
+      marshaller.setMarshallerProperties(marshallerProperties);
+    }
+    marshaller.setLazyInit(true);
+    return marshaller;
+  }
+}
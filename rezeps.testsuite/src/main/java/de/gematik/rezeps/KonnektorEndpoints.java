@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Unveränderliche Tabelle der Endpunkte aller Dienste eines Konnektors. Die Endpunkte werden einmal
+ * aus dem Dienstverzeichnis oder der Konfiguration bestimmt und gelten, bis sich eines von beiden
+ * ändert.
+ */
+public final class KonnektorEndpoints {
+
+  private final long configurationRevision;
+  private final ServiceDirectory serviceDirectory;
+  private final String konnektorEndpoint;
+  private final Map<KonnektorService, String> serviceEndpoints;
+
+  private KonnektorEndpoints(
+      long configurationRevision,
+      ServiceDirectory serviceDirectory,
+      String konnektorEndpoint,
+      Map<KonnektorService, String> serviceEndpoints) {
+    this.configurationRevision = configurationRevision;
+    this.serviceDirectory = serviceDirectory;
+    this.konnektorEndpoint = konnektorEndpoint;
+    this.serviceEndpoints = serviceEndpoints;
+  }
+
+  /**
+   * Bestimmt die Endpunkte aus der übergebenen Konfiguration.
+   *
+   * @param configurationReader Die Konfiguration.
+   * @return Die Endpunkte des konfigurierten Konnektors.
+   */
+  public static KonnektorEndpoints of(ConfigurationReader configurationReader) {
+    return of(configurationReader, null);
+  }
+
+  /**
+   * Bestimmt die Endpunkte aus dem Dienstverzeichnis des Konnektors. Für Dienste, die das
+   * Dienstverzeichnis nicht in einer unterstützten Version anbietet, gilt der konfigurierte Pfad.
+   *
+   * @param configurationReader Die Konfiguration.
+   * @param serviceDirectory Das Dienstverzeichnis oder null, falls keines vorliegt.
+   * @return Die Endpunkte des konfigurierten Konnektors.
+   */
+  public static KonnektorEndpoints of(
+      ConfigurationReader configurationReader, ServiceDirectory serviceDirectory) {
+    long configurationRevision = configurationReader.getRevision();
+    String konnektorEndpoint =
+        configurationReader.getProtokoll()
+            + configurationReader.getKonnektorIp()
+            + ":"
+            + configurationReader.getKonnektorPort();
+    Map<KonnektorService, String> serviceEndpoints = new EnumMap<>(KonnektorService.class);
+    boolean tls = configurationReader.konnektorUseSSL();
+    for (KonnektorService konnektorService : KonnektorService.values()) {
+      String serviceEndpoint = null;
+      if (serviceDirectory != null) {
+        serviceEndpoint =
+            serviceDirectory.determineEndpoint(
+                konnektorService.getServiceName(), konnektorService.getSupportedVersion(), tls);
+      }
+      if (serviceEndpoint == null) {
+        serviceEndpoint = konnektorEndpoint + konnektorService.readPath(configurationReader);
+      }
+      serviceEndpoints.put(konnektorService, serviceEndpoint);
+    }
+    return new KonnektorEndpoints(
+        configurationRevision,
+        serviceDirectory,
+        konnektorEndpoint,
+        Collections.unmodifiableMap(serviceEndpoints));
+  }
+
+  /**
+   * Überträgt die Endpunkte auf einen weiteren Konnektor. Die Pfade der Dienste bleiben erhalten,
+   * nur Protokoll, Host und Port werden ersetzt.
+   *
+   * @param otherKonnektorEndpoint Adresse des weiteren Konnektors, z.B. https://10.0.0.2:443.
+   * @return Die Endpunkte des weiteren Konnektors.
+   */
+  public KonnektorEndpoints rebase(String otherKonnektorEndpoint) {
+    if (konnektorEndpoint.equals(otherKonnektorEndpoint)) {
+      return this;
+    }
+    Map<KonnektorService, String> otherServiceEndpoints = new EnumMap<>(KonnektorService.class);
+    for (Map.Entry<KonnektorService, String> serviceEndpoint : serviceEndpoints.entrySet()) {
+      URI uri = URI.create(serviceEndpoint.getValue());
+      String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+      if (uri.getRawQuery() != null) {
+        path += "?" + uri.getRawQuery();
+      }
+      otherServiceEndpoints.put(serviceEndpoint.getKey(), otherKonnektorEndpoint + path);
+    }
+    return new KonnektorEndpoints(
+        configurationRevision,
+        serviceDirectory,
+        otherKonnektorEndpoint,
+        Collections.unmodifiableMap(otherServiceEndpoints));
+  }
+
+  /**
+   * Liefert den Endpunkt eines Dienstes.
+   *
+   * @param konnektorService Der Dienst.
+   * @return Vollständige URL des Dienstes.
+   */
+  public String getEndpoint(KonnektorService konnektorService) {
+    return serviceEndpoints.get(konnektorService);
+  }
+
+  /**
+   * Liefert die Adresse des Konnektors aus Protokoll, Host und Port.
+   *
+   * @return Adresse des Konnektors, z.B. https://127.0.0.1:443.
+   */
+  public String getKonnektorEndpoint() {
+    return konnektorEndpoint;
+  }
+
+  /**
+   * Liefert das Dienstverzeichnis, aus dem die Endpunkte bestimmt wurden.
+   *
+   * @return Das Dienstverzeichnis oder null, falls die Endpunkte nur aus der Konfiguration stammen.
+   */
+  public ServiceDirectory getServiceDirectory() {
+    return serviceDirectory;
+  }
+
+  /**
+   * Liefert den Stand der Konfiguration, aus dem die Endpunkte bestimmt wurden.
+   *
+   * @return Revision der Konfiguration.
+   */
+  public long getConfigurationRevision() {
+    return configurationRevision;
+  }
+}
@@ -16,19 +16,54 @@
 
 package de.gematik.rezeps;
 
+import de.gematik.rezeps.util.CommonUtils;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
 import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ws.transport.http.HttpComponentsMessageSender;
 import org.springframework.ws.transport.http.HttpComponentsMessageSender.RemoveSoapHeadersInterceptor;
 
@@ -39,6 +74,21 @@ public class KonnektorHelper {
   private static final String[] SUPPORTED_CIPHER_SUITES =
       new String[] {"TLS_DHE_RSA_WITH_AES_128_CBC_SHA", "TLS_DHE_RSA_WITH_AES_256_CBC_SHA"};
 
+  private static final TlsHandshakeStatistics TLS_HANDSHAKE_STATISTICS =
+      new TlsHandshakeStatistics();
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KonnektorHelper.class);
+
+  private static volatile KonnektorEndpoints konnektorEndpoints;
+  private static volatile ServiceDirectory serviceDirectory;
+  private static final AtomicReference<CompletableFuture<Void>> SERVICE_DIRECTORY_DISCOVERY =
+      new AtomicReference<>();
+  private static volatile KonnektorPool konnektorPool;
+  private static ScheduledExecutorService konnektorHealthChecker;
+  private static SSLContext sslContext;
+  private static HttpComponentsMessageSender httpComponentsMessageSender;
+  private static CloseableHttpAsyncClient httpAsyncClient;
+
   private KonnektorHelper() {}
 
   /**
@@ -47,18 +97,197 @@ public class KonnektorHelper {
    * @return Konnektor-Endpunkt des EventService.
    */
   public static String determineEventServiceEndpoint() throws IOException {
-    return determineKonnektorEndpoint()
-        + ConfigurationReader.getInstance().getKonnektorEventServiceEndpoint();
+    return determineKonnektorEndpoints().getEndpoint(KonnektorService.EVENT_SERVICE);
   }
 
-  private static String determineKonnektorEndpoint() throws IOException {
+  /**
+   * Liefert die Endpunkte aller Dienste des konfigurierten Konnektors. Die Endpunkte werden nur neu
+   * bestimmt, wenn sich die Konfiguration seit der letzten Bestimmung geändert hat.
+   *
+   * @return Die Endpunkte des Konnektors.
+   */
+  public static KonnektorEndpoints determineKonnektorEndpoints() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    ServiceDirectory directory = determineServiceDirectory(configurationReader);
+    KonnektorEndpoints endpoints = konnektorEndpoints;
+    if (endpoints == null
+        || endpoints.getConfigurationRevision() != configurationReader.getRevision()
+        || endpoints.getServiceDirectory() != directory) {
+      endpoints = KonnektorEndpoints.of(configurationReader, directory);
+      konnektorEndpoints = endpoints;
+    }
+    return endpoints;
+  }
+
+  /**
+   * Liefert den Pool der Konnektoren aus dem über konnektor_ip und konnektor_port konfigurierten
+   * Konnektor und den unter konnektor_pool aufgeführten weiteren Konnektoren. Der Pool wird nur neu
+   * gebildet, wenn sich die Konfiguration seit der letzten Bildung geändert hat; die Zuordnung von
+   * Kartenhandles zu weiterhin enthaltenen Konnektoren bleibt dabei erhalten.
+   *
+   * @return Der Pool der Konnektoren.
+   */
+  public static KonnektorPool determineKonnektorPool() throws IOException {
     ConfigurationReader configurationReader = ConfigurationReader.getInstance();
-    StringBuilder stringBuilder = new StringBuilder();
-    stringBuilder.append(configurationReader.getProtokoll());
-    stringBuilder.append(configurationReader.getKonnektorIp());
-    stringBuilder.append(":");
-    stringBuilder.append(configurationReader.getKonnektorPort());
-    return stringBuilder.toString();
+    KonnektorPool pool = konnektorPool;
+    if (pool == null || pool.getConfigurationRevision() != configurationReader.getRevision()) {
+      pool = createKonnektorPool(configurationReader);
+    }
+    return pool;
+  }
+
+  private static synchronized KonnektorPool createKonnektorPool(
+      ConfigurationReader configurationReader) {
+    long configurationRevision = configurationReader.getRevision();
+    KonnektorPool pool = konnektorPool;
+    if (pool != null && pool.getConfigurationRevision() == configurationRevision) {
+      return pool;
+    }
+    List<String> konnektorEndpoints = determinePoolKonnektorEndpoints(configurationReader);
+    pool =
+        pool == null
+            ? new KonnektorPool(konnektorEndpoints, configurationRevision)
+            : pool.rebuild(konnektorEndpoints, configurationRevision);
+    konnektorPool = pool;
+    if (konnektorEndpoints.size() > 1 && konnektorHealthChecker == null) {
+      int healthCheckSeconds = configurationReader.getKonnektorHealthCheckSeconds();
+      konnektorHealthChecker =
+          Executors.newSingleThreadScheduledExecutor(
+              determineDaemonThreadFactory("konnektor-health-check-"));
+      konnektorHealthChecker.scheduleWithFixedDelay(
+          () -> konnektorPool.checkHealth(KonnektorHelper::isKonnektorAvailable),
+          healthCheckSeconds,
+          healthCheckSeconds,
+          TimeUnit.SECONDS);
+    }
+    return pool;
+  }
+
+  private static List<String> determinePoolKonnektorEndpoints(
+      ConfigurationReader configurationReader) {
+    String protokoll = configurationReader.getProtokoll();
+    List<String> konnektorEndpoints = new ArrayList<>();
+    konnektorEndpoints.add(
+        protokoll
+            + configurationReader.getKonnektorIp()
+            + ":"
+            + configurationReader.getKonnektorPort());
+    for (String konnektorAddress : configurationReader.getKonnektorPool()) {
+      String konnektorEndpoint = protokoll + konnektorAddress;
+      if (!konnektorEndpoints.contains(konnektorEndpoint)) {
+        konnektorEndpoints.add(konnektorEndpoint);
+      }
+    }
+    return konnektorEndpoints;
+  }
+
+  /**
+   * Prüft, ob ein Konnektor erreichbar ist. Dazu wird sein Dienstverzeichnis abgerufen; jede
+   * HTTP-Antwort gilt als erreichbar.
+   */
+  static boolean isKonnektorAvailable(KonnektorPool.Konnektor konnektor) {
+    String uri = konnektor.getKonnektorEndpoint();
+    try {
+      uri += ConfigurationReader.getInstance().getKonnektorServiceDirectoryPath();
+      HttpClient httpClient = determineHttpComponentsMessageSender().getHttpClient();
+      HttpResponse httpResponse = httpClient.execute(new HttpGet(uri));
+      EntityUtils.consumeQuietly(httpResponse.getEntity());
+      return true;
+    } catch (IOException | GeneralSecurityException exception) {
+      LOGGER.debug(MessageFormat.format("Konnektor {0} ist nicht erreichbar.", uri), exception);
+      return false;
+    }
+  }
+
+  /**
+   * Liefert das Dienstverzeichnis des Konnektors. Es wird beim ersten Aufruf gelesen, wenn
+   * konnektor_service_discovery gesetzt ist oder für einen Dienst kein Endpunkt konfiguriert ist,
+   * und anschließend im Hintergrund regelmäßig aktualisiert.
+   *
+   * @return Das Dienstverzeichnis oder null, falls es nicht verwendet wird oder nicht gelesen
+   *     werden konnte.
+   */
+  public static ServiceDirectory determineServiceDirectory() throws IOException {
+    return determineServiceDirectory(ConfigurationReader.getInstance());
+  }
+
+  private static ServiceDirectory determineServiceDirectory(
+      ConfigurationReader configurationReader) {
+    CompletableFuture<Void> discovery = SERVICE_DIRECTORY_DISCOVERY.get();
+    if (discovery == null) {
+      CompletableFuture<Void> startedDiscovery = new CompletableFuture<>();
+      if (SERVICE_DIRECTORY_DISCOVERY.compareAndSet(null, startedDiscovery)) {
+        try {
+          startServiceDirectoryDiscovery(configurationReader);
+        } finally {
+          startedDiscovery.complete(null);
+        }
+      }
+      discovery = SERVICE_DIRECTORY_DISCOVERY.get();
+    }
+    // Gleichzeitige erste Aufrufe warten auf den ersten Abruf, ohne den Monitor von
+    // KonnektorHelper zu belegen.
+    discovery.join();
+    return serviceDirectory;
+  }
+
+  private static void startServiceDirectoryDiscovery(ConfigurationReader configurationReader) {
+    if (configurationReader.isKonnektorServiceDiscovery()
+        || isServiceEndpointMissing(configurationReader)) {
+      refreshServiceDirectory();
+      int refreshSeconds = configurationReader.getKonnektorServiceDirectoryRefreshSeconds();
+      ScheduledExecutorService serviceDirectoryRefresher =
+          Executors.newSingleThreadScheduledExecutor(
+              determineDaemonThreadFactory("konnektor-service-directory-"));
+      serviceDirectoryRefresher.scheduleWithFixedDelay(
+          KonnektorHelper::refreshServiceDirectory,
+          refreshSeconds,
+          refreshSeconds,
+          TimeUnit.SECONDS);
+    }
+  }
+
+  private static boolean isServiceEndpointMissing(ConfigurationReader configurationReader) {
+    for (KonnektorService konnektorService : KonnektorService.values()) {
+      if (CommonUtils.isNullOrEmpty(konnektorService.readPath(configurationReader), true)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void refreshServiceDirectory() {
+    try {
+      serviceDirectory = loadServiceDirectory();
+    } catch (IOException | GeneralSecurityException exception) {
+      LOGGER.warn("Das Dienstverzeichnis des Konnektors kann nicht gelesen werden.", exception);
+    }
+  }
+
+  /**
+   * Liest das Dienstverzeichnis über den geteilten HttpClient vom Konnektor.
+   *
+   * @return Das Dienstverzeichnis.
+   */
+  static ServiceDirectory loadServiceDirectory() throws IOException, GeneralSecurityException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    String uri =
+        KonnektorEndpoints.of(configurationReader).getKonnektorEndpoint()
+            + configurationReader.getKonnektorServiceDirectoryPath();
+    HttpClient httpClient = determineHttpComponentsMessageSender().getHttpClient();
+    HttpResponse httpResponse = httpClient.execute(new HttpGet(uri));
+    try {
+      int statusCode = httpResponse.getStatusLine().getStatusCode();
+      if (statusCode != HttpStatus.SC_OK || httpResponse.getEntity() == null) {
+        throw new IOException(
+            MessageFormat.format("Abruf von {0} mit Status {1} fehlgeschlagen", uri, statusCode));
+      }
+      try (InputStream inputStream = httpResponse.getEntity().getContent()) {
+        return ServiceDirectory.parse(inputStream);
+      }
+    } finally {
+      EntityUtils.consumeQuietly(httpResponse.getEntity());
+    }
   }
 
   /**
@@ -67,8 +296,7 @@ public class KonnektorHelper {
    * @return Konnektor-Endpunkt des Signaturdienstes.
    */
   public static String determineSignatureServiceEndpoint() throws IOException {
-    return determineKonnektorEndpoint()
-        + ConfigurationReader.getInstance().getKonnektorSignatureServiceEndpoint();
+    return determineKonnektorEndpoints().getEndpoint(KonnektorService.SIGNATURE_SERVICE);
   }
 
   /**
@@ -77,8 +305,7 @@ public class KonnektorHelper {
    * @return Konnektor-Endpunkt des AuthSignatureService.
    */
   public static String determineAuthSignatureServiceEndpoint() throws IOException {
-    return determineKonnektorEndpoint()
-        + ConfigurationReader.getInstance().getKonnektorAuthSignatureServiceEndpoint();
+    return determineKonnektorEndpoints().getEndpoint(KonnektorService.AUTH_SIGNATURE_SERVICE);
   }
   /**
    * Bestimmt den Konnektor-Endpunkt des CardService.
@@ -86,8 +313,7 @@ public class KonnektorHelper {
    * @return Konnektor-Endpunkt des CardService.
    */
   public static String determineCardServiceEndpoint() throws IOException {
-    return determineKonnektorEndpoint()
-        + ConfigurationReader.getInstance().getKonnektorCardServiceEndpoint();
+    return determineKonnektorEndpoints().getEndpoint(KonnektorService.CARD_SERVICE);
   }
 
   /**
@@ -97,8 +323,7 @@ public class KonnektorHelper {
    * @throws IOException, wenn dieser nicht bestimmt werden kann
    */
   public static String determineCardTerminalServiceEndpoint() throws IOException {
-    return determineKonnektorEndpoint()
-        + ConfigurationReader.getInstance().getKonnektorCardTerminalServiceEndpoint();
+    return determineKonnektorEndpoints().getEndpoint(KonnektorService.CARD_TERMINAL_SERVICE);
   }
 
   /**
@@ -107,42 +332,174 @@ public class KonnektorHelper {
    * @return Konnektor-Endpunkt des Zertifikatsdienstes.
    */
   public static String determineCertificateServiceEndpoint() throws IOException {
-    return determineKonnektorEndpoint()
-        + ConfigurationReader.getInstance().getKonnektorCertificateServiceEndpoint();
+    return determineKonnektorEndpoints().getEndpoint(KonnektorService.CERTIFICATE_SERVICE);
   }
 
   /**
-   * Konfiguriert einen HttpComponentsMessageSender für die TLS-gesicherte Kommunikation zum
-   * Konnektor mittels Zertifikats-basierter Client-Authentisierung.
+   * Liefert den HttpComponentsMessageSender für die TLS-gesicherte Kommunikation zum Konnektor
+   * mittels Zertifikats-basierter Client-Authentisierung. Alle SOAP-Clients teilen sich denselben
+   * HttpClient und damit einen gemeinsamen Verbindungs-Pool, so dass bestehende TLS-Verbindungen
+   * wiederverwendet werden, statt für jeden Aufruf einen vollständigen Handshake durchzuführen.
    *
    * @return HttpComponentsMessageSender für die TSL-gesicherte Kommunikation zum Konnektor mittels
    *     Zertifikats-basierter Client-Authentisierung.
    */
-  public static HttpComponentsMessageSender determineHttpComponentsMessageSender()
+  public static synchronized HttpComponentsMessageSender determineHttpComponentsMessageSender()
+      throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException,
+          KeyManagementException, UnrecoverableKeyException {
+    if (httpComponentsMessageSender == null) {
+      httpComponentsMessageSender = new HttpComponentsMessageSender(determinePooledHttpClient());
+    }
+    return httpComponentsMessageSender;
+  }
+
+  private static CloseableHttpClient determinePooledHttpClient()
       throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException,
           KeyManagementException, UnrecoverableKeyException {
-    HttpComponentsMessageSender httpComponentsMessageSender = new HttpComponentsMessageSender();
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
 
     // NoopHostnameVerifier essentially turns hostname verification off
     SSLConnectionSocketFactory sslConnectionSocketFacktory =
-        new SSLConnectionSocketFactory(
+        new HandshakeRecordingSslConnectionSocketFactory(
             determineSslContext(),
             SUPPORTED_PROTOCOLS,
             SUPPORTED_CIPHER_SUITES,
-            NoopHostnameVerifier.INSTANCE);
+            NoopHostnameVerifier.INSTANCE,
+            TLS_HANDSHAKE_STATISTICS);
 
-    CloseableHttpClient httpClient =
-        HttpClientBuilder.create()
-            .setSSLSocketFactory(sslConnectionSocketFacktory)
-            .addInterceptorFirst(new RemoveSoapHeadersInterceptor())
+    Registry<ConnectionSocketFactory> socketFactoryRegistry =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslConnectionSocketFacktory)
             .build();
 
-    httpComponentsMessageSender.setHttpClient(httpClient);
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+    connectionManager.setMaxTotal(configurationReader.getKonnektorHttpMaxConnectionsTotal());
+    connectionManager.setDefaultMaxPerRoute(
+        configurationReader.getKonnektorHttpMaxConnectionsPerRoute());
 
-    return httpComponentsMessageSender;
+    // Verbindungen mit Client-Zertifikat werden ansonsten als zustandsbehaftet markiert und
+    // könnten nur innerhalb desselben HttpContext wiederverwendet werden
+    return HttpClientBuilder.create()
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy(determineKeepAliveStrategy(configurationReader))
+        .evictExpiredConnections()
+        .evictIdleConnections(
+            configurationReader.getKonnektorHttpIdleEvictionSeconds(), TimeUnit.SECONDS)
+        .disableConnectionState()
+        .setDefaultRequestConfig(OperationTimeouts.determineDefaultRequestConfig())
+        .addInterceptorFirst(new RemoveSoapHeadersInterceptor())
+        .addInterceptorLast(new OperationTimeoutInterceptor())
+        .build();
+  }
+
+  /**
+   * Liefert den geteilten, nicht-blockierenden HttpClient für die TLS-gesicherte Kommunikation zum
+   * Konnektor. Es gelten dieselben Protokolle, Cipher-Suites und Pool-Grenzen wie für den
+   * blockierenden HttpClient; offene Requests belegen keinen eigenen Thread.
+   *
+   * @return Der gestartete HttpAsyncClient.
+   */
+  public static synchronized CloseableHttpAsyncClient determineHttpAsyncClient()
+      throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException,
+          KeyManagementException, UnrecoverableKeyException {
+    if (httpAsyncClient == null) {
+      httpAsyncClient = determinePooledHttpAsyncClient();
+      httpAsyncClient.start();
+    }
+    return httpAsyncClient;
   }
 
-  private static SSLContext determineSslContext()
+  private static CloseableHttpAsyncClient determinePooledHttpAsyncClient()
+      throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException,
+          KeyManagementException, UnrecoverableKeyException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+
+    Registry<SchemeIOSessionStrategy> sessionStrategyRegistry =
+        RegistryBuilder.<SchemeIOSessionStrategy>create()
+            .register("http", NoopIOSessionStrategy.INSTANCE)
+            .register(
+                "https",
+                new HandshakeRecordingSslIOSessionStrategy(
+                    determineSslContext(),
+                    SUPPORTED_PROTOCOLS,
+                    SUPPORTED_CIPHER_SUITES,
+                    NoopHostnameVerifier.INSTANCE,
+                    TLS_HANDSHAKE_STATISTICS))
+            .build();
+
+    ThreadFactory threadFactory = determineDaemonThreadFactory("konnektor-async-io-");
+    PoolingNHttpClientConnectionManager connectionManager =
+        new PoolingNHttpClientConnectionManager(
+            new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT, threadFactory),
+            sessionStrategyRegistry);
+    connectionManager.setMaxTotal(configurationReader.getKonnektorHttpMaxConnectionsTotal());
+    connectionManager.setDefaultMaxPerRoute(
+        configurationReader.getKonnektorHttpMaxConnectionsPerRoute());
+
+    return HttpAsyncClients.custom()
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy(determineKeepAliveStrategy(configurationReader))
+        .setThreadFactory(threadFactory)
+        .disableConnectionState()
+        .setDefaultRequestConfig(OperationTimeouts.determineDefaultRequestConfig())
+        .build();
+  }
+
+  private static ConnectionKeepAliveStrategy determineKeepAliveStrategy(
+      ConfigurationReader configurationReader) {
+    long keepAliveMillis =
+        TimeUnit.SECONDS.toMillis(configurationReader.getKonnektorHttpKeepAliveSeconds());
+    return (response, context) -> {
+      long keepAliveDuration =
+          DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      return keepAliveDuration > 0 ? Math.min(keepAliveDuration, keepAliveMillis) : keepAliveMillis;
+    };
+  }
+
+  /**
+   * Liefert eine ThreadFactory für Daemon-Threads, die das Beenden der JVM nicht verhindern.
+   *
+   * @param threadNamePrefix Präfix der Thread-Namen, an das eine laufende Nummer angehängt wird.
+   * @return Die ThreadFactory.
+   */
+  public static ThreadFactory determineDaemonThreadFactory(String threadNamePrefix) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Liefert die Statistik der TLS-Handshakes zum Konnektor.
+   *
+   * @return Zähler für vollständige und wiederaufgenommene Handshakes sowie deren Dauer.
+   */
+  public static TlsHandshakeStatistics getTlsHandshakeStatistics() {
+    return TLS_HANDSHAKE_STATISTICS;
+  }
+
+  /**
+   * Liefert den prozessweit geteilten SSLContext für die Kommunikation zum Konnektor. Key- und
+   * Truststore werden nur einmal geladen, der clientseitige Session-Cache steht damit allen
+   * Diensten zur Wiederaufnahme von TLS-Sessions zur Verfügung. Der Ereignisempfänger weist sich
+   * gegenüber dem Konnektor mit demselben Zertifikat aus.
+   *
+   * @return SSLContext mit Client-Zertifikat und Truststore aus der Konfiguration.
+   */
+  public static synchronized SSLContext determineSslContext()
+      throws IOException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException,
+          KeyStoreException, KeyManagementException {
+    if (sslContext == null) {
+      sslContext = createSslContext();
+    }
+    return sslContext;
+  }
+
+  private static SSLContext createSslContext()
       throws IOException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException,
           KeyStoreException, KeyManagementException {
 
@@ -153,9 +510,16 @@ public class KonnektorHelper {
     char[] clientTruststorePassword =
         configurationReader.getClientTruststorePassword().toCharArray();
 
-    return SSLContextBuilder.create()
-        .loadKeyMaterial(clientKeystore, clientKeystorePassword, clientKeystorePassword)
-        .loadTrustMaterial(clientTruststore, clientTruststorePassword)
-        .build();
+    SSLContext createdSslContext =
+        SSLContextBuilder.create()
+            .loadKeyMaterial(clientKeystore, clientKeystorePassword, clientKeystorePassword)
+            .loadTrustMaterial(clientTruststore, clientTruststorePassword)
+            .build();
+
+    SSLSessionContext clientSessionContext = createdSslContext.getClientSessionContext();
+    clientSessionContext.setSessionCacheSize(configurationReader.getKonnektorTlsSessionCacheSize());
+    clientSessionContext.setSessionTimeout(
+        configurationReader.getKonnektorTlsSessionTimeoutSeconds());
+    return createdSslContext;
   }
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import org.springframework.ws.client.WebServiceClientException;
+
+/**
+ * Zeigt an, dass ein Aufruf beim Konnektor abgewiesen wurde, ohne ihn zu versenden, weil die
+ * Operation auf diesem Konnektor überlastet oder ihr Circuit Breaker geöffnet ist. Da der Aufruf
+ * den Konnektor nicht erreicht hat, wiederholt {@link KonnektorPool#execute(String,
+ * KonnektorPool.KonnektorCall)} ihn auf einem anderen Konnektor.
+ */
+public class KonnektorOverloadedException extends WebServiceClientException {
+
+  private static final long serialVersionUID = 1L;
+
+  public KonnektorOverloadedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ws.client.WebServiceIOException;
+
+/**
+ * Verteilt Anfragen auf mehrere Konnektoren. Anfragen ohne Kartenbezug gehen an den erreichbaren
+ * Konnektor mit den wenigsten offenen Anfragen und werden bei einem nicht erreichbaren Konnektor
+ * auf dem nächsten wiederholt. Anfragen zu einem Kartenhandle oder einem Kartenterminal gehen immer
+ * an den Konnektor, der das Handle bzw. das Terminal gemeldet hat, ansonsten an den primären
+ * Konnektor.
+ */
+public final class KonnektorPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KonnektorPool.class);
+
+  private final List<Konnektor> konnektors;
+  private final Map<String, Konnektor> konnektorsByAffinityKey = new ConcurrentHashMap<>();
+  private final long configurationRevision;
+
+  /**
+   * Erzeugt einen Pool aus den übergebenen Konnektoren.
+   *
+   * @param konnektorEndpoints Adressen der Konnektoren, z.B. https://127.0.0.1:443. Die erste
+   *     Adresse ist der primäre Konnektor.
+   */
+  KonnektorPool(List<String> konnektorEndpoints) {
+    this(konnektorEndpoints, 0, null);
+  }
+
+  /**
+   * Erzeugt einen Pool aus den übergebenen Konnektoren für eine Revision der Konfiguration.
+   *
+   * @param konnektorEndpoints Adressen der Konnektoren, die erste ist der primäre Konnektor.
+   * @param configurationRevision Revision der Konfiguration, aus der die Adressen stammen.
+   */
+  KonnektorPool(List<String> konnektorEndpoints, long configurationRevision) {
+    this(konnektorEndpoints, configurationRevision, null);
+  }
+
+  private KonnektorPool(
+      List<String> konnektorEndpoints, long configurationRevision, KonnektorPool previousPool) {
+    if (konnektorEndpoints.isEmpty()) {
+      throw new IllegalArgumentException("Der Pool muss mindestens einen Konnektor enthalten.");
+    }
+    List<Konnektor> poolKonnektors = new ArrayList<>();
+    for (String konnektorEndpoint : konnektorEndpoints) {
+      Konnektor konnektor =
+          previousPool == null ? null : previousPool.findKonnektor(konnektorEndpoint);
+      poolKonnektors.add(konnektor != null ? konnektor : new Konnektor(konnektorEndpoint));
+    }
+    this.konnektors = Collections.unmodifiableList(poolKonnektors);
+    this.configurationRevision = configurationRevision;
+    if (previousPool != null) {
+      previousPool.konnektorsByAffinityKey.forEach(
+          (affinityKey, konnektor) -> {
+            if (konnektors.contains(konnektor)) {
+              konnektorsByAffinityKey.put(affinityKey, konnektor);
+            }
+          });
+    }
+  }
+
+  /**
+   * Bildet den Pool für eine neue Revision der Konfiguration. Weiterhin enthaltene Konnektoren
+   * behalten ihre offenen Anfragen, ihre Erreichbarkeit und die ihnen zugeordneten Kartenhandles.
+   *
+   * @param konnektorEndpoints Adressen der Konnektoren, die erste ist der primäre Konnektor.
+   * @param configurationRevision Revision der Konfiguration, aus der die Adressen stammen.
+   * @return Der neue Pool.
+   */
+  KonnektorPool rebuild(List<String> konnektorEndpoints, long configurationRevision) {
+    return new KonnektorPool(konnektorEndpoints, configurationRevision, this);
+  }
+
+  /**
+   * Führt einen Aufruf auf einem Konnektor des Pools aus. Ein Aufruf ohne Kartenbezug wird auf dem
+   * nächsten Konnektor wiederholt, wenn der gewählte nicht erreichbar ist oder den Aufruf über
+   * {@link OperationGuards} abweist, ohne ihn zu versenden. Ein Aufruf mit Kartenbezug kann nur der
+   * Konnektor beantworten, an dem die Karte steckt, und wird daher nicht wiederholt.
+   *
+   * @param affinityKey Kartenhandle oder Terminal-ID, auf die sich der Aufruf bezieht, oder null,
+   *     falls der Aufruf von jedem Konnektor beantwortet werden kann.
+   * @param konnektorCall Der Aufruf.
+   * @param <T> Typ der Response.
+   * @return Die Response des Konnektors.
+   * @throws IOException Falls der Aufruf fehlschlägt.
+   */
+  public <T> T execute(String affinityKey, KonnektorCall<T> konnektorCall) throws IOException {
+    if (affinityKey != null) {
+      return execute(determineKonnektor(affinityKey), konnektorCall);
+    }
+    Set<Konnektor> failedKonnektors = new HashSet<>();
+    while (true) {
+      Konnektor konnektor = selectKonnektor(failedKonnektors);
+      try {
+        return execute(konnektor, konnektorCall);
+      } catch (KonnektorOverloadedException exception) {
+        failedKonnektors.add(konnektor);
+        if (failedKonnektors.size() == konnektors.size()) {
+          throw exception;
+        }
+        LOGGER.warn(
+            MessageFormat.format(
+                "Konnektor {0} weist die Anfrage ab ({1}), Anfrage wird wiederholt.",
+                konnektor.getKonnektorEndpoint(), exception.getMessage()));
+      } catch (WebServiceIOException exception) {
+        failedKonnektors.add(konnektor);
+        if (!isUnreachable(exception) || failedKonnektors.size() == konnektors.size()) {
+          throw exception;
+        }
+        LOGGER.warn(
+            MessageFormat.format(
+                "Konnektor {0} nicht erreichbar, Anfrage wird wiederholt.",
+                konnektor.getKonnektorEndpoint()));
+      }
+    }
+  }
+
+  /**
+   * Führt einen asynchronen Aufruf auf einem Konnektor des Pools aus. Ein fehlgeschlagener Aufruf
+   * wird nicht wiederholt.
+   *
+   * @param affinityKey Kartenhandle oder Terminal-ID, auf die sich der Aufruf bezieht, oder null,
+   *     falls der Aufruf von jedem Konnektor beantwortet werden kann.
+   * @param konnektorCall Der Aufruf.
+   * @param <T> Typ der Response.
+   * @return Future mit der Response des Konnektors.
+   * @throws IOException Falls der Aufruf nicht gestartet werden kann.
+   */
+  public <T> CompletableFuture<T> executeAsync(
+      String affinityKey, KonnektorCall<CompletableFuture<T>> konnektorCall) throws IOException {
+    Konnektor konnektor =
+        affinityKey != null
+            ? determineKonnektor(affinityKey)
+            : selectKonnektor(Collections.emptySet());
+    konnektor.outstandingRequests.incrementAndGet();
+    CompletableFuture<T> response;
+    try {
+      response = konnektorCall.call(konnektor);
+    } catch (IOException | RuntimeException exception) {
+      konnektor.outstandingRequests.decrementAndGet();
+      throw exception;
+    }
+    response.whenComplete(
+        (result, throwable) -> {
+          konnektor.outstandingRequests.decrementAndGet();
+          Throwable cause =
+              throwable instanceof CompletionException || throwable instanceof ExecutionException
+                  ? throwable.getCause()
+                  : throwable;
+          if (cause instanceof WebServiceIOException && isUnreachable(cause)) {
+            markUnavailable(konnektor);
+          }
+        });
+    // das Future des Aufrufs selbst wird geliefert, damit ein Abbruch den Request erreicht
+    return response;
+  }
+
+  /**
+   * Liefert die Adresse des Konnektors, an den ein Aufruf gerichtet wird. Für Aufrufe ohne
+   * Kartenbezug ist dies der Konnektor, der zum Zeitpunkt der Abfrage gewählt würde.
+   *
+   * @param affinityKey Kartenhandle oder Terminal-ID, oder null.
+   * @return Die Adresse des Konnektors.
+   */
+  public String determineKonnektorEndpoint(String affinityKey) {
+    Konnektor konnektor =
+        affinityKey != null
+            ? determineKonnektor(affinityKey)
+            : selectKonnektor(Collections.emptySet());
+    return konnektor.getKonnektorEndpoint();
+  }
+
+  private <T> T execute(Konnektor konnektor, KonnektorCall<T> konnektorCall) throws IOException {
+    konnektor.outstandingRequests.incrementAndGet();
+    try {
+      return konnektorCall.call(konnektor);
+    } catch (WebServiceIOException exception) {
+      if (isUnreachable(exception)) {
+        markUnavailable(konnektor);
+      }
+      throw exception;
+    } finally {
+      konnektor.outstandingRequests.decrementAndGet();
+    }
+  }
+
+  private Konnektor findKonnektor(String konnektorEndpoint) {
+    for (Konnektor konnektor : konnektors) {
+      if (konnektor.getKonnektorEndpoint().equals(konnektorEndpoint)) {
+        return konnektor;
+      }
+    }
+    return null;
+  }
+
+  private Konnektor determineKonnektor(String affinityKey) {
+    return konnektorsByAffinityKey.getOrDefault(affinityKey, konnektors.get(0));
+  }
+
+  private Konnektor selectKonnektor(Set<Konnektor> excludedKonnektors) {
+    Konnektor selectedKonnektor = null;
+    for (Konnektor konnektor : konnektors) {
+      if (excludedKonnektors.contains(konnektor)) {
+        continue;
+      }
+      if (selectedKonnektor == null
+          || (konnektor.available && !selectedKonnektor.available)
+          || (konnektor.available == selectedKonnektor.available
+              && konnektor.getOutstandingRequests() < selectedKonnektor.getOutstandingRequests())) {
+        selectedKonnektor = konnektor;
+      }
+    }
+    return selectedKonnektor;
+  }
+
+  private void markUnavailable(Konnektor konnektor) {
+    if (konnektors.size() > 1 && konnektor.available) {
+      konnektor.available = false;
+      LOGGER.warn(
+          MessageFormat.format(
+              "Konnektor {0} ist nicht erreichbar und wird bis zur nächsten Prüfung übergangen.",
+              konnektor.getKonnektorEndpoint()));
+    }
+  }
+
+  /**
+   * Ein Konnektor gilt als nicht erreichbar, wenn keine Verbindung aufgebaut werden konnte. Bleibt
+   * nur die Antwort aus oder wird die Verbindung nach dem Senden abgebrochen, wurde die Anfrage
+   * womöglich bereits verarbeitet und wird nicht wiederholt. Ein Timeout beim Warten auf eine freie
+   * Verbindung des lokalen Pools sagt nichts über den Konnektor aus.
+   */
+  static boolean isUnreachable(Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConnectException) {
+        return true;
+      }
+      if (cause instanceof ConnectTimeoutException
+          && !(cause instanceof ConnectionPoolTimeoutException)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Ordnet ein Kartenhandle oder eine Terminal-ID dem Konnektor zu, der es gemeldet hat. Folgende
+   * Aufrufe zu diesem Handle werden an diesen Konnektor gerichtet.
+   *
+   * @param affinityKey Kartenhandle oder Terminal-ID.
+   * @param konnektor Der Konnektor, der das Handle gemeldet hat.
+   */
+  public void bind(String affinityKey, Konnektor konnektor) {
+    if (affinityKey != null) {
+      konnektorsByAffinityKey.put(affinityKey, konnektor);
+    }
+  }
+
+  /**
+   * Hebt die Zuordnung eines Kartenhandles oder einer Terminal-ID auf, z.B. nachdem die Karte
+   * gezogen wurde. Kartenhandles werden nicht wiederverwendet, die Zuordnung würde sonst dauerhaft
+   * gehalten.
+   *
+   * @param affinityKey Kartenhandle oder Terminal-ID.
+   */
+  public void unbind(String affinityKey) {
+    if (affinityKey != null) {
+      konnektorsByAffinityKey.remove(affinityKey);
+    }
+  }
+
+  /**
+   * Prüft die Erreichbarkeit aller Konnektoren.
+   *
+   * @param healthProbe Die Prüfung, die für jeden Konnektor ausgeführt wird.
+   */
+  public void checkHealth(HealthProbe healthProbe) {
+    for (Konnektor konnektor : konnektors) {
+      boolean available = healthProbe.isAvailable(konnektor);
+      if (available && !konnektor.available) {
+        LOGGER.info(
+            MessageFormat.format(
+                "Konnektor {0} ist wieder erreichbar.", konnektor.getKonnektorEndpoint()));
+      }
+      if (available) {
+        konnektor.available = true;
+      } else {
+        markUnavailable(konnektor);
+      }
+    }
+  }
+
+  /**
+   * Liefert die Konnektoren des Pools.
+   *
+   * @return Die Konnektoren, der primäre Konnektor zuerst.
+   */
+  public List<Konnektor> getKonnektors() {
+    return konnektors;
+  }
+
+  /**
+   * Liefert die Revision der Konfiguration, aus der der Pool gebildet wurde.
+   *
+   * @return Revision der Konfiguration.
+   */
+  public long getConfigurationRevision() {
+    return configurationRevision;
+  }
+
+  /**
+   * Liefert die Adressen der Konnektoren des Pools.
+   *
+   * @return Die Adressen, die primäre zuerst.
+   */
+  public List<String> getKonnektorEndpoints() {
+    List<String> konnektorEndpoints = new ArrayList<>();
+    for (Konnektor konnektor : konnektors) {
+      konnektorEndpoints.add(konnektor.getKonnektorEndpoint());
+    }
+    return konnektorEndpoints;
+  }
+
+  /**
+   * Ein Aufruf, der auf einem Konnektor des Pools ausgeführt wird.
+   *
+   * @param <T> Typ der Response.
+   */
+  @FunctionalInterface
+  public interface KonnektorCall<T> {
+
+    T call(Konnektor konnektor) throws IOException;
+  }
+
+  /** Prüfung der Erreichbarkeit eines Konnektors. */
+  @FunctionalInterface
+  public interface HealthProbe {
+
+    boolean isAvailable(Konnektor konnektor);
+  }
+
+  /** Ein Konnektor des Pools mit seinen offenen Anfragen und seiner Erreichbarkeit. */
+  public static final class Konnektor {
+
+    private final String konnektorEndpoint;
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+    private volatile boolean available = true;
+    private volatile KonnektorEndpoints endpoints;
+
+    private Konnektor(String konnektorEndpoint) {
+      this.konnektorEndpoint = konnektorEndpoint;
+    }
+
+    /**
+     * Bestimmt den Endpunkt eines Dienstes auf diesem Konnektor. Die Pfade der Dienste werden vom
+     * primären Konnektor übernommen.
+     *
+     * @param konnektorService Der Dienst.
+     * @return Vollständige URL des Dienstes.
+     */
+    public String determineEndpoint(KonnektorService konnektorService) throws IOException {
+      KonnektorEndpoints primaryEndpoints = KonnektorHelper.determineKonnektorEndpoints();
+      KonnektorEndpoints konnektorEndpoints = endpoints;
+      if (konnektorEndpoints == null
+          || konnektorEndpoints.getConfigurationRevision()
+              != primaryEndpoints.getConfigurationRevision()
+          || konnektorEndpoints.getServiceDirectory() != primaryEndpoints.getServiceDirectory()) {
+        konnektorEndpoints = primaryEndpoints.rebase(konnektorEndpoint);
+        endpoints = konnektorEndpoints;
+      }
+      return konnektorEndpoints.getEndpoint(konnektorService);
+    }
+
+    public String getKonnektorEndpoint() {
+      return konnektorEndpoint;
+    }
+
+    public int getOutstandingRequests() {
+      return outstandingRequests.get();
+    }
+
+    public boolean isAvailable() {
+      return available;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.util.function.Function;
+
+/**
+ * Die Dienste des Konnektors, die von der Testsuite aufgerufen werden, mit ihrem Namen im
+ * Dienstverzeichnis und der höchsten vom Client unterstützten Version.
+ */
+public enum KonnektorService {
+  EVENT_SERVICE("EventService", "7.2", ConfigurationReader::getKonnektorEventServiceEndpoint),
+  SIGNATURE_SERVICE(
+      "SignatureService", "7.5", ConfigurationReader::getKonnektorSignatureServiceEndpoint),
+  AUTH_SIGNATURE_SERVICE(
+      "AuthSignatureService", "7.4", ConfigurationReader::getKonnektorAuthSignatureServiceEndpoint),
+  CARD_SERVICE("CardService", "8.1", ConfigurationReader::getKonnektorCardServiceEndpoint),
+  CARD_TERMINAL_SERVICE(
+      "CardTerminalService", "1.1", ConfigurationReader::getKonnektorCardTerminalServiceEndpoint),
+  CERTIFICATE_SERVICE(
+      "CertificateService", "6.0", ConfigurationReader::getKonnektorCertificateServiceEndpoint);
+
+  private final String serviceName;
+  private final String supportedVersion;
+  private final Function<ConfigurationReader, String> pathReader;
+
+  KonnektorService(
+      String serviceName,
+      String supportedVersion,
+      Function<ConfigurationReader, String> pathReader) {
+    this.serviceName = serviceName;
+    this.supportedVersion = supportedVersion;
+    this.pathReader = pathReader;
+  }
+
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  public String getSupportedVersion() {
+    return supportedVersion;
+  }
+
+  /**
+   * Liest den konfigurierten Pfad des Dienstes.
+   *
+   * @param configurationReader Die Konfiguration.
+   * @return Pfad des Dienstes relativ zur Adresse des Konnektors.
+   */
+  String readPath(ConfigurationReader configurationReader) {
+    return pathReader.apply(configurationReader);
+  }
+}
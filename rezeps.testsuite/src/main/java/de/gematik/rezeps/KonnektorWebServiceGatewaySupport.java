@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.protocol.HTTP;
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+import org.springframework.ws.soap.client.core.SoapActionCallback;
+import org.springframework.ws.support.MarshallingUtils;
+import org.springframework.ws.transport.TransportInputStream;
+import org.springframework.ws.transport.TransportOutputStream;
+
+/**
+ * Basisklasse der SOAP-Clients für den Konnektor. Ergänzt den blockierenden Aufruf über das
+ * WebServiceTemplate um einen asynchronen Aufruf, der über den nicht-blockierenden HttpClient aus
+ * {@link KonnektorHelper#determineHttpAsyncClient()} versendet wird. Marshaller, MessageFactory und
+ * Interceptoren werden aus dem WebServiceTemplate übernommen.
+ */
+public abstract class KonnektorWebServiceGatewaySupport extends WebServiceGatewaySupport {
+
+  // Responses werden nicht im I/O-Thread des HttpAsyncClient und nicht im gemeinsamen
+  // ForkJoinPool ausgewertet
+  private static final Executor RESPONSE_EXECUTOR =
+      Executors.newFixedThreadPool(
+          Math.max(2, Runtime.getRuntime().availableProcessors()),
+          KonnektorHelper.determineDaemonThreadFactory("konnektor-async-response-"));
+
+  /**
+   * Versendet eine Anfrage an einen Konnektor aus dem {@link KonnektorPool}.
+   *
+   * @param konnektorService Der aufgerufene Dienst.
+   * @param affinityKey Kartenhandle oder Terminal-ID, auf die sich die Anfrage bezieht, oder null,
+   *     falls jeder Konnektor die Anfrage beantworten kann.
+   * @param requestPayload Die zu versendende Anfrage.
+   * @param soapAction Die SOAP-Action der Operation.
+   * @return Die Response des Konnektors.
+   * @throws IOException Falls der Endpunkt des Dienstes nicht bestimmt werden kann.
+   */
+  protected Object marshalSendAndReceive(
+      KonnektorService konnektorService,
+      String affinityKey,
+      Object requestPayload,
+      String soapAction)
+      throws IOException {
+    return KonnektorHelper.determineKonnektorPool()
+        .execute(
+            affinityKey,
+            konnektor ->
+                marshalSendAndReceive(konnektor, konnektorService, requestPayload, soapAction));
+  }
+
+  /**
+   * Versendet eine Anfrage an einen bestimmten Konnektor aus dem {@link KonnektorPool}.
+   *
+   * @param konnektor Der Konnektor.
+   * @param konnektorService Der aufgerufene Dienst.
+   * @param requestPayload Die zu versendende Anfrage.
+   * @param soapAction Die SOAP-Action der Operation.
+   * @return Die Response des Konnektors.
+   * @throws IOException Falls der Endpunkt des Dienstes nicht bestimmt werden kann.
+   */
+  protected Object marshalSendAndReceive(
+      KonnektorPool.Konnektor konnektor,
+      KonnektorService konnektorService,
+      Object requestPayload,
+      String soapAction)
+      throws IOException {
+    return getWebServiceTemplate()
+        .marshalSendAndReceive(
+            konnektor.determineEndpoint(konnektorService),
+            requestPayload,
+            new SoapActionCallback(soapAction));
+  }
+
+  /**
+   * Versendet eine Anfrage asynchron an einen Konnektor aus dem {@link KonnektorPool}.
+   *
+   * @param konnektorService Der aufgerufene Dienst.
+   * @param affinityKey Kartenhandle oder Terminal-ID, auf die sich die Anfrage bezieht, oder null,
+   *     falls jeder Konnektor die Anfrage beantworten kann.
+   * @param requestPayload Die zu versendende Anfrage.
+   * @param soapAction Die SOAP-Action der Operation.
+   * @param <T> Typ der erwarteten Response.
+   * @return Future mit der Response des Konnektors.
+   * @throws IOException Falls der Endpunkt des Dienstes nicht bestimmt werden kann.
+   */
+  protected <T> CompletableFuture<T> marshalSendAndReceiveAsync(
+      KonnektorService konnektorService,
+      String affinityKey,
+      Object requestPayload,
+      String soapAction)
+      throws IOException {
+    return KonnektorHelper.determineKonnektorPool()
+        .executeAsync(
+            affinityKey,
+            konnektor ->
+                this.<T>marshalSendAndReceiveAsync(
+                    konnektor.determineEndpoint(konnektorService), requestPayload, soapAction));
+  }
+
+  /**
+   * Versendet eine Anfrage asynchron an den Konnektor.
+   *
+   * @param uri Endpunkt des Konnektor-Dienstes.
+   * @param requestPayload Die zu versendende Anfrage.
+   * @param soapAction Die SOAP-Action der Operation.
+   * @param <T> Typ der erwarteten Response.
+   * @return Future mit der Response des Konnektors. Ein SOAP-Fault wird als {@link
+   *     SoapFaultClientException} gemeldet. Das Abbrechen des Future bricht den HTTP-Request ab.
+   */
+  protected <T> CompletableFuture<T> marshalSendAndReceiveAsync(
+      String uri, Object requestPayload, String soapAction) {
+    WebServiceTemplate webServiceTemplate = getWebServiceTemplate();
+    WebServiceMessageFactory messageFactory = webServiceTemplate.getMessageFactory();
+    ClientInterceptor[] interceptors = webServiceTemplate.getInterceptors();
+    CompletableFuture<T> result = new CompletableFuture<>();
+
+    MessageContext messageContext;
+    HttpPost httpPost;
+    try {
+      WebServiceMessage request = messageFactory.createWebServiceMessage();
+      MarshallingUtils.marshal(webServiceTemplate.getMarshaller(), requestPayload, request);
+      new SoapActionCallback(soapAction).doWithMessage(request);
+      messageContext = new DefaultMessageContext(request, messageFactory);
+      messageContext.setProperty(SoapClientInterceptor.KONNEKTOR_URI, uri);
+    } catch (IOException exception) {
+      result.completeExceptionally(new WebServiceIOException(exception.getMessage(), exception));
+      return result;
+    }
+    try {
+      if (!triggerHandleRequest(interceptors, messageContext)) {
+        triggerAfterCompletion(interceptors, messageContext, null);
+        result.complete(null);
+        return result;
+      }
+      httpPost = createHttpPost(uri, messageContext.getRequest(), soapAction);
+    } catch (IOException exception) {
+      WebServiceIOException webServiceIOException =
+          new WebServiceIOException(exception.getMessage(), exception);
+      triggerAfterCompletion(interceptors, messageContext, webServiceIOException);
+      result.completeExceptionally(webServiceIOException);
+      return result;
+    } catch (RuntimeException exception) {
+      triggerAfterCompletion(interceptors, messageContext, exception);
+      result.completeExceptionally(exception);
+      return result;
+    }
+
+    CompletableFuture<HttpResponse> httpResponse = execute(httpPost);
+    result.whenComplete(
+        (response, throwable) -> {
+          if (result.isCancelled()) {
+            httpResponse.cancel(true);
+          }
+        });
+    httpResponse
+        .thenApplyAsync(
+            response -> this.<T>receive(response, messageContext, interceptors), RESPONSE_EXECUTOR)
+        .whenComplete(
+            (response, throwable) -> {
+              Exception exception = unwrap(throwable);
+              try {
+                triggerAfterCompletion(interceptors, messageContext, exception);
+              } catch (RuntimeException afterCompletionException) {
+                if (exception == null) {
+                  exception = afterCompletionException;
+                } else {
+                  exception.addSuppressed(afterCompletionException);
+                }
+              } finally {
+                // das Future wird auch dann abgeschlossen, wenn ein Interceptor scheitert
+                if (exception != null) {
+                  result.completeExceptionally(exception);
+                } else {
+                  result.complete(response);
+                }
+              }
+            });
+    return result;
+  }
+
+  private static CompletableFuture<HttpResponse> execute(HttpPost httpPost) {
+    CompletableFuture<HttpResponse> httpResponse = new CompletableFuture<>();
+    try {
+      Future<HttpResponse> request =
+          KonnektorHelper.determineHttpAsyncClient()
+              .execute(
+                  httpPost,
+                  new FutureCallback<HttpResponse>() {
+                    @Override
+                    public void completed(HttpResponse response) {
+                      httpResponse.complete(response);
+                    }
+
+                    @Override
+                    public void failed(Exception exception) {
+                      httpResponse.completeExceptionally(
+                          exception instanceof IOException
+                              ? new WebServiceIOException(
+                                  exception.getMessage(), (IOException) exception)
+                              : exception);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                      httpResponse.cancel(false);
+                    }
+                  });
+      httpResponse.whenComplete(
+          (response, throwable) -> {
+            if (httpResponse.isCancelled()) {
+              request.cancel(true);
+            }
+          });
+    } catch (IOException exception) {
+      httpResponse.completeExceptionally(
+          new WebServiceIOException(exception.getMessage(), exception));
+    } catch (GeneralSecurityException exception) {
+      httpResponse.completeExceptionally(
+          new WebServiceIOException(exception.getMessage(), new IOException(exception)));
+    }
+    return httpResponse;
+  }
+
+  private static HttpPost createHttpPost(String uri, WebServiceMessage request, String soapAction)
+      throws IOException {
+    HttpPost httpPost = new HttpPost(uri);
+    httpPost.setConfig(OperationTimeouts.determineRequestConfig(soapAction));
+    HttpPostOutputStream httpPostOutputStream = new HttpPostOutputStream(httpPost);
+    request.writeTo(httpPostOutputStream);
+    httpPostOutputStream.flush();
+    httpPost.setEntity(httpPostOutputStream.toEntity());
+    return httpPost;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T receive(
+      HttpResponse httpResponse, MessageContext messageContext, ClientInterceptor[] interceptors) {
+    StatusLine statusLine = httpResponse.getStatusLine();
+    boolean successful = statusLine.getStatusCode() / 100 == 2;
+    HttpEntity entity = httpResponse.getEntity();
+    try {
+      if (entity == null || entity.getContentLength() == 0) {
+        if (!successful) {
+          throw new WebServiceTransportException(statusLine.toString());
+        }
+        return null;
+      }
+      WebServiceMessage response =
+          getWebServiceTemplate()
+              .getMessageFactory()
+              .createWebServiceMessage(new HttpResponseInputStream(httpResponse));
+      messageContext.setResponse(response);
+      if (response instanceof FaultAwareWebServiceMessage
+          && ((FaultAwareWebServiceMessage) response).hasFault()) {
+        triggerHandleFault(interceptors, messageContext);
+        throw new SoapFaultClientException((SoapMessage) response);
+      }
+      if (!successful) {
+        throw new WebServiceTransportException(statusLine.toString());
+      }
+      triggerHandleResponse(interceptors, messageContext);
+      return (T) MarshallingUtils.unmarshal(getWebServiceTemplate().getUnmarshaller(), response);
+    } catch (IOException exception) {
+      throw new WebServiceIOException(exception.getMessage(), exception);
+    }
+  }
+
+  private static boolean triggerHandleRequest(
+      ClientInterceptor[] interceptors, MessageContext messageContext) {
+    if (interceptors != null) {
+      for (ClientInterceptor interceptor : interceptors) {
+        if (!interceptor.handleRequest(messageContext)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static void triggerHandleResponse(
+      ClientInterceptor[] interceptors, MessageContext messageContext) {
+    if (interceptors != null) {
+      for (int i = interceptors.length - 1; i >= 0; i--) {
+        if (!interceptors[i].handleResponse(messageContext)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static void triggerHandleFault(
+      ClientInterceptor[] interceptors, MessageContext messageContext) {
+    if (interceptors != null) {
+      for (int i = interceptors.length - 1; i >= 0; i--) {
+        if (!interceptors[i].handleFault(messageContext)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static void triggerAfterCompletion(
+      ClientInterceptor[] interceptors, MessageContext messageContext, Exception exception) {
+    if (interceptors != null) {
+      for (int i = interceptors.length - 1; i >= 0; i--) {
+        interceptors[i].afterCompletion(messageContext, exception);
+      }
+    }
+  }
+
+  private static Exception unwrap(Throwable throwable) {
+    Throwable cause = throwable;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    if (cause == null || cause instanceof Exception) {
+      return (Exception) cause;
+    }
+    return new IllegalStateException(cause);
+  }
+
+  /** Überträgt die MIME-Header der SOAP-Nachricht in den HTTP-Request. */
+  private static class HttpPostOutputStream extends TransportOutputStream {
+
+    private final HttpPost httpPost;
+    private final EntityOutputStream body = new EntityOutputStream();
+
+    HttpPostOutputStream(HttpPost httpPost) {
+      this.httpPost = httpPost;
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      // Content-Length und Transfer-Encoding setzt der HttpClient selbst
+      if (!HTTP.CONTENT_LEN.equalsIgnoreCase(name)
+          && !HTTP.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+        httpPost.addHeader(name, value);
+      }
+    }
+
+    @Override
+    protected OutputStream createOutputStream() {
+      return body;
+    }
+
+    HttpEntity toEntity() {
+      return body.toEntity();
+    }
+  }
+
+  /** Übergibt den geschriebenen Request ohne weitere Kopie als Entity an den HttpClient. */
+  private static class EntityOutputStream extends ByteArrayOutputStream {
+
+    EntityOutputStream() {
+      super(8192);
+    }
+
+    synchronized HttpEntity toEntity() {
+      return new ByteArrayEntity(buf, 0, count);
+    }
+  }
+
+  /** Stellt die HTTP-Header der Response für die MessageFactory bereit. */
+  private static class HttpResponseInputStream extends TransportInputStream {
+
+    private final HttpResponse httpResponse;
+
+    HttpResponseInputStream(HttpResponse httpResponse) {
+      this.httpResponse = httpResponse;
+    }
+
+    @Override
+    protected InputStream createInputStream() throws IOException {
+      return httpResponse.getEntity().getContent();
+    }
+
+    @Override
+    public Iterator<String> getHeaderNames() {
+      return Arrays.stream(httpResponse.getAllHeaders()).map(Header::getName).distinct().iterator();
+    }
+
+    @Override
+    public Iterator<String> getHeaders(String name) {
+      return Arrays.stream(httpResponse.getHeaders(name)).map(Header::getValue).iterator();
+    }
+  }
+}
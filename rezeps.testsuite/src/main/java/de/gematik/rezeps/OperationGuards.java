@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.ws.client.WebServiceTransportException;
+
+/**
+ * Schützt die Konnektoren und die Aufrufer je Konnektor und Operation durch einen {@link
+ * CircuitBreaker} und ein {@link Bulkhead}, sodass ein ausgefallener Konnektor die Aufrufe an die
+ * übrigen Konnektoren des Pools nicht beeinträchtigt. Operationen mit PIN-Eingabe oder
+ * Kartenanforderung teilen sich je Konnektor zusätzlich ein gemeinsames Bulkhead, damit sie nicht
+ * alle Verbindungen zum Konnektor belegen und z.B. GetCards weiterhin bedient wird.
+ */
+public final class OperationGuards {
+
+  static final String INTERACTIVE_BULKHEAD = "interactive";
+
+  private static final Map<String, CircuitBreaker> CIRCUIT_BREAKERS = new ConcurrentHashMap<>();
+  private static final Map<String, Bulkhead> BULKHEADS = new ConcurrentHashMap<>();
+
+  private OperationGuards() {}
+
+  /**
+   * Belegt die Bulkheads der Operation und fragt deren Circuit Breaker an.
+   *
+   * @param konnektor Der aufgerufene Konnektor, siehe {@link #determineKonnektor(String)}, oder
+   *     null, falls er nicht bekannt ist.
+   * @param soapAction Die SOAP-Action der Operation.
+   * @return Die Erlaubnis, die nach Abschluss des Aufrufs mit {@link Permit#release(Exception)}
+   *     zurückzugeben ist.
+   * @throws KonnektorOverloadedException Falls ein Bulkhead voll oder der Circuit Breaker offen
+   *     ist.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static Permit acquire(String konnektor, String soapAction) throws IOException {
+    String operation = OperationTimeouts.determineOperation(soapAction);
+    if (operation == null) {
+      return new Permit(null, Collections.emptyList(), false);
+    }
+    boolean interactive = OperationTimeouts.isInteractive(operation);
+    List<Bulkhead> bulkheads = new ArrayList<>();
+    bulkheads.add(determineBulkhead(konnektor, operation));
+    if (interactive) {
+      bulkheads.add(determineBulkhead(konnektor, INTERACTIVE_BULKHEAD));
+    }
+    List<Bulkhead> acquiredBulkheads = new ArrayList<>();
+    for (Bulkhead bulkhead : bulkheads) {
+      if (!bulkhead.tryAcquire()) {
+        acquiredBulkheads.forEach(Bulkhead::release);
+        throw new KonnektorOverloadedException(
+            MessageFormat.format(
+                "{0} abgewiesen: Bulkhead {1} mit {2} gleichzeitigen Aufrufen ausgelastet",
+                operation, bulkhead.getName(), bulkhead.getMaxConcurrentCalls()));
+      }
+      acquiredBulkheads.add(bulkhead);
+    }
+    CircuitBreaker circuitBreaker = determineCircuitBreaker(konnektor, operation);
+    if (!circuitBreaker.tryAcquirePermission()) {
+      acquiredBulkheads.forEach(Bulkhead::release);
+      throw new KonnektorOverloadedException(
+          MessageFormat.format(
+              "{0} abgewiesen: Circuit Breaker {1} {2}",
+              operation, circuitBreaker.getName(), circuitBreaker.getState()));
+    }
+    return new Permit(circuitBreaker, acquiredBulkheads, interactive);
+  }
+
+  /**
+   * Ermittelt den Konnektor, an den ein Aufruf gerichtet ist.
+   *
+   * @param uri Endpunkt des aufgerufenen Konnektor-Dienstes.
+   * @return Host und Port des Konnektors oder null, falls der Endpunkt nicht bekannt ist.
+   */
+  public static String determineKonnektor(String uri) {
+    if (uri == null) {
+      return null;
+    }
+    try {
+      return new URI(uri).getAuthority();
+    } catch (URISyntaxException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Liefert den Circuit Breaker einer Operation auf einem Konnektor.
+   *
+   * @param konnektor Host und Port des Konnektors oder null.
+   * @param operation Name der Operation, z.B. "GetCards".
+   * @return Der Circuit Breaker der Operation.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static CircuitBreaker determineCircuitBreaker(String konnektor, String operation)
+      throws IOException {
+    String key = determineKey(konnektor, operation);
+    CircuitBreaker circuitBreaker = CIRCUIT_BREAKERS.get(key);
+    if (circuitBreaker == null) {
+      ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+      circuitBreaker =
+          CIRCUIT_BREAKERS.computeIfAbsent(
+              key,
+              name ->
+                  new CircuitBreaker(
+                      name,
+                      configurationReader.getKonnektorCircuitBreakerFailureThreshold(),
+                      configurationReader.getKonnektorCircuitBreakerOpenSeconds() * 1000L));
+    }
+    return circuitBreaker;
+  }
+
+  /**
+   * Liefert das Bulkhead einer Operation auf einem Konnektor.
+   *
+   * @param konnektor Host und Port des Konnektors oder null.
+   * @param operation Name der Operation, z.B. "GetCards", oder "interactive" für das gemeinsame
+   *     Bulkhead der Operationen mit PIN-Eingabe oder Kartenanforderung.
+   * @return Das Bulkhead der Operation.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static Bulkhead determineBulkhead(String konnektor, String operation) throws IOException {
+    String key = determineKey(konnektor, operation);
+    Bulkhead bulkhead = BULKHEADS.get(key);
+    if (bulkhead == null) {
+      ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+      bulkhead =
+          BULKHEADS.computeIfAbsent(
+              key,
+              name ->
+                  new Bulkhead(
+                      name,
+                      INTERACTIVE_BULKHEAD.equals(operation)
+                          ? configurationReader.getKonnektorInteractiveBulkheadMaxConcurrentCalls()
+                          : configurationReader.getKonnektorBulkheadMaxConcurrentCalls(operation)));
+    }
+    return bulkhead;
+  }
+
+  /**
+   * Liefert die Circuit Breaker aller bisher aufgerufenen Operationen, z.B. um geöffnete Circuit
+   * Breaker als Metrik auszugeben.
+   *
+   * @return Circuit Breaker nach Operation und Konnektor, z.B. "GetCards@10.0.0.1:443".
+   */
+  public static Map<String, CircuitBreaker> getCircuitBreakers() {
+    return Collections.unmodifiableMap(new TreeMap<>(CIRCUIT_BREAKERS));
+  }
+
+  /**
+   * Liefert die Bulkheads aller bisher aufgerufenen Operationen.
+   *
+   * @return Bulkheads nach Operation und Konnektor.
+   */
+  public static Map<String, Bulkhead> getBulkheads() {
+    return Collections.unmodifiableMap(new TreeMap<>(BULKHEADS));
+  }
+
+  /** Verwirft alle Circuit Breaker und Bulkheads, z.B. nach einer Änderung der Konfiguration. */
+  public static void reset() {
+    CIRCUIT_BREAKERS.clear();
+    BULKHEADS.clear();
+  }
+
+  private static String determineKey(String konnektor, String operation) {
+    return konnektor == null ? operation : operation + "@" + konnektor;
+  }
+
+  /**
+   * Prüft, ob ein Aufruf daran gescheitert ist, dass der Konnektor nicht oder nur mit einem
+   * HTTP-Fehler geantwortet hat. SOAP-Faults zählen nicht dazu, ebenso wenig ein Lese-Timeout einer
+   * Operation mit PIN-Eingabe oder Kartenanforderung, da dieser meist auf den Nutzer zurückgeht.
+   */
+  static boolean isKonnektorFailure(Throwable throwable, boolean interactive) {
+    if (interactive) {
+      for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+        if (cause instanceof SocketTimeoutException) {
+          return false;
+        }
+      }
+    }
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IOException || cause instanceof WebServiceTransportException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Erlaubnis für einen einzelnen Aufruf. */
+  public static final class Permit {
+
+    private final CircuitBreaker circuitBreaker;
+    private final List<Bulkhead> bulkheads;
+    private final boolean interactive;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(CircuitBreaker circuitBreaker, List<Bulkhead> bulkheads, boolean interactive) {
+      this.circuitBreaker = circuitBreaker;
+      this.bulkheads = bulkheads;
+      this.interactive = interactive;
+    }
+
+    /**
+     * Gibt die Bulkheads frei und meldet das Ergebnis an den Circuit Breaker. Weitere Aufrufe
+     * bleiben wirkungslos.
+     *
+     * @param exception Der Fehler des Aufrufs oder null, falls der Aufruf erfolgreich war.
+     */
+    public void release(Exception exception) {
+      if (!released.compareAndSet(false, true)) {
+        return;
+      }
+      if (circuitBreaker != null) {
+        if (isKonnektorFailure(exception, interactive)) {
+          circuitBreaker.recordFailure();
+        } else {
+          circuitBreaker.recordSuccess();
+        }
+      }
+      bulkheads.forEach(Bulkhead::release);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Setzt die Timeouts eines Requests anhand der SOAP-Action. Der Interceptor läuft vor dem Bezug der
+ * Verbindung aus dem Pool, so dass die Request-Konfiguration noch wirksam wird.
+ */
+class OperationTimeoutInterceptor implements HttpRequestInterceptor {
+
+  private static final String SOAP_ACTION_HEADER = "SOAPAction";
+
+  @Override
+  public void process(HttpRequest request, HttpContext context) throws IOException {
+    Header soapActionHeader = request.getFirstHeader(SOAP_ACTION_HEADER);
+    String soapAction = soapActionHeader != null ? soapActionHeader.getValue() : null;
+    HttpClientContext.adapt(context)
+        .setRequestConfig(OperationTimeouts.determineRequestConfig(soapAction));
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import org.apache.http.client.config.RequestConfig;
+
+/**
+ * Bestimmt die Timeouts für Aufrufe beim Konnektor. Die Wartezeit auf eine Antwort richtet sich
+ * nach der Operation aus der SOAP-Action: Operationen, bei denen der Konnektor auf eine PIN-Eingabe
+ * oder eine Karte wartet, erhalten ein längeres Budget. Eine für den Thread gesetzte {@link
+ * Deadline} verkürzt das Budget entsprechend.
+ */
+public final class OperationTimeouts {
+
+  private static final Set<String> INTERACTIVE_OPERATIONS =
+      Collections.unmodifiableSet(
+          new HashSet<>(
+              Arrays.asList(
+                  "SignDocument",
+                  "VerifyPin",
+                  "ChangePin",
+                  "UnblockPin",
+                  "ActivateComfortSignature",
+                  "RequestCard")));
+
+  private OperationTimeouts() {}
+
+  /**
+   * Ermittelt den Namen der Operation aus der SOAP-Action, z.B. "SignDocument" aus
+   * "http://ws.gematik.de/conn/SignatureService/v7.5#SignDocument".
+   *
+   * @param soapAction Die SOAP-Action, ggf. in Anführungszeichen.
+   * @return Name der Operation oder null, falls keine SOAP-Action angegeben ist.
+   */
+  public static String determineOperation(String soapAction) {
+    if (soapAction == null) {
+      return null;
+    }
+    String operation = soapAction.trim();
+    if (operation.length() > 1 && operation.startsWith("\"") && operation.endsWith("\"")) {
+      operation = operation.substring(1, operation.length() - 1);
+    }
+    int separator = Math.max(operation.lastIndexOf('#'), operation.lastIndexOf('/'));
+    operation = operation.substring(separator + 1);
+    return operation.isEmpty() ? null : operation;
+  }
+
+  /**
+   * Prüft, ob der Konnektor bei einer Operation auf eine PIN-Eingabe oder eine Karte wartet.
+   *
+   * @param operation Name der Operation, z.B. "SignDocument".
+   * @return true für interaktive Operationen.
+   */
+  static boolean isInteractive(String operation) {
+    return INTERACTIVE_OPERATIONS.contains(operation);
+  }
+
+  /**
+   * Liefert die maximale Wartezeit auf die Antwort des Konnektors für eine Operation.
+   *
+   * @param soapAction Die SOAP-Action der Operation.
+   * @return Timeout in Millisekunden.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static int determineReadTimeoutMillis(String soapAction) throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    String operation = determineOperation(soapAction);
+    if (operation == null) {
+      return configurationReader.getKonnektorReadTimeoutMillis();
+    }
+    int defaultValue =
+        INTERACTIVE_OPERATIONS.contains(operation)
+            ? configurationReader.getKonnektorInteractiveReadTimeoutMillis()
+            : configurationReader.getKonnektorReadTimeoutMillis();
+    return configurationReader.getKonnektorReadTimeoutMillis(operation, defaultValue);
+  }
+
+  /**
+   * Liefert die Request-Konfiguration ohne Bezug zu einer Operation.
+   *
+   * @return Die Request-Konfiguration.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static RequestConfig determineDefaultRequestConfig() throws IOException {
+    return determineRequestConfig(null);
+  }
+
+  /**
+   * Liefert die Request-Konfiguration für eine Operation unter Berücksichtigung der für den
+   * aktuellen Thread gesetzten {@link Deadline}.
+   *
+   * @param soapAction Die SOAP-Action der Operation.
+   * @return Die Request-Konfiguration.
+   * @throws SocketTimeoutException Falls die Deadline bereits abgelaufen ist.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static RequestConfig determineRequestConfig(String soapAction) throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    int connectTimeout = configurationReader.getKonnektorConnectTimeoutMillis();
+    int connectionRequestTimeout = configurationReader.getKonnektorConnectionRequestTimeoutMillis();
+    int readTimeout = determineReadTimeoutMillis(soapAction);
+
+    Deadline deadline = Deadline.current();
+    if (deadline != null) {
+      if (deadline.isExpired()) {
+        throw new SocketTimeoutException(
+            "Deadline exceeded before invoking " + determineOperation(soapAction));
+      }
+      long remainingMillis = deadline.getRemainingMillis();
+      connectTimeout = limitTimeout(connectTimeout, remainingMillis);
+      connectionRequestTimeout = limitTimeout(connectionRequestTimeout, remainingMillis);
+      readTimeout = limitTimeout(readTimeout, remainingMillis);
+    }
+    return RequestConfig.custom()
+        .setConnectTimeout(connectTimeout)
+        .setConnectionRequestTimeout(connectionRequestTimeout)
+        .setSocketTimeout(readTimeout)
+        .build();
+  }
+
+  /**
+   * Begrenzt einen Timeout auf die verbleibende Zeit einer Deadline. Da HttpClient einen Timeout
+   * von 0 als unbegrenzt auffasst, beträgt das Ergebnis mindestens eine Millisekunde; ein nicht
+   * begrenzter Timeout wird ebenfalls auf die verbleibende Zeit gesetzt.
+   *
+   * @param timeout Der konfigurierte Timeout in Millisekunden, 0 oder negativ für unbegrenzt.
+   * @param remainingMillis Die verbleibende Zeit der Deadline in Millisekunden.
+   * @return Der begrenzte Timeout in Millisekunden.
+   */
+  static int limitTimeout(int timeout, long remainingMillis) {
+    int remaining = (int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingMillis));
+    return timeout > 0 ? Math.min(timeout, remaining) : remaining;
+  }
+
+  /**
+   * Prüft, ob ein Fehler auf eine Zeitüberschreitung beim Warten auf die Antwort oder auf den
+   * Ablauf der {@link Deadline} zurückgeht. Ein fehlgeschlagener Verbindungsaufbau, das Warten auf
+   * eine Verbindung aus dem Pool und ein unterbrochener Thread gelten nur dann als
+   * Zeitüberschreitung, wenn die Deadline des aktuellen Threads abgelaufen ist.
+   *
+   * @param throwable Der aufgetretene Fehler.
+   * @return true, falls der Fehler oder eine seiner Ursachen eine Zeitüberschreitung ist.
+   */
+  public static boolean isTimeout(Throwable throwable) {
+    Deadline deadline = Deadline.current();
+    boolean deadlineExpired = deadline != null && deadline.isExpired();
+    Throwable cause = throwable;
+    while (cause != null) {
+      if (cause instanceof SocketTimeoutException
+          || cause instanceof TimeoutException
+          || (deadlineExpired && cause instanceof InterruptedIOException)) {
+        return true;
+      }
+      cause = cause.getCause() == cause ? null : cause.getCause();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+/**
+ * Jaxb2Marshaller, der JAXB-Marshaller und -Unmarshaller je Thread wiederverwendet, statt sie für
+ * jede SOAP-Nachricht neu zu erzeugen. JAXB-Marshaller sind nicht thread-sicher, dürfen aber von
+ * einem Thread nacheinander beliebig oft verwendet werden.
+ */
+class PooledJaxb2Marshaller extends Jaxb2Marshaller {
+
+  private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<>();
+  private final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<>();
+
+  @Override
+  public Marshaller createMarshaller() {
+    Marshaller marshaller = marshallers.get();
+    if (marshaller == null) {
+      marshaller = super.createMarshaller();
+      marshallers.set(marshaller);
+    } else {
+      // wird von Jaxb2Marshaller nur bei MTOM gesetzt und darf nicht in den nächsten Aufruf wirken
+      marshaller.setAttachmentMarshaller(null);
+    }
+    return marshaller;
+  }
+
+  @Override
+  public Unmarshaller createUnmarshaller() {
+    Unmarshaller unmarshaller = unmarshallers.get();
+    if (unmarshaller == null) {
+      unmarshaller = super.createUnmarshaller();
+      unmarshallers.set(unmarshaller);
+    } else {
+      unmarshaller.setAttachmentUnmarshaller(null);
+    }
+    return unmarshaller;
+  }
+}
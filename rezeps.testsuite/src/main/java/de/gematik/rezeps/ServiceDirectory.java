@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Unveränderliche Sicht auf den Dienstverzeichnisdienst (connector.sds) eines Konnektors. Je Dienst
+ * werden alle angebotenen Versionen mit ihren Endpunkten vorgehalten.
+ */
+public final class ServiceDirectory {
+
+  private static final String SERVICE_INFORMATION_NAMESPACE =
+      "http://ws.gematik.de/conn/ServiceInformation/v2.0";
+  private static final String DISALLOW_DOCTYPE_DECLARATION =
+      "http://apache.org/xml/features/disallow-doctype-decl";
+
+  private final Map<String, List<ServiceVersion>> versionsByService;
+
+  private ServiceDirectory(Map<String, List<ServiceVersion>> versionsByService) {
+    this.versionsByService = versionsByService;
+  }
+
+  /**
+   * Liest das Dienstverzeichnis aus dem übergebenen Stream.
+   *
+   * @param inputStream Inhalt von connector.sds.
+   * @return Das Dienstverzeichnis.
+   * @throws IOException Falls das Dienstverzeichnis nicht gelesen werden kann.
+   */
+  public static ServiceDirectory parse(InputStream inputStream) throws IOException {
+    Document document;
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      factory.setFeature(DISALLOW_DOCTYPE_DECLARATION, true);
+      document = factory.newDocumentBuilder().parse(inputStream);
+    } catch (ParserConfigurationException | SAXException exception) {
+      throw new IOException("Das Dienstverzeichnis kann nicht gelesen werden.", exception);
+    }
+
+    Map<String, List<ServiceVersion>> versionsByService = new HashMap<>();
+    NodeList services = document.getElementsByTagNameNS(SERVICE_INFORMATION_NAMESPACE, "Service");
+    for (int i = 0; i < services.getLength(); i++) {
+      Element service = (Element) services.item(i);
+      List<ServiceVersion> versions = new ArrayList<>();
+      NodeList versionElements =
+          service.getElementsByTagNameNS(SERVICE_INFORMATION_NAMESPACE, "Version");
+      for (int j = 0; j < versionElements.getLength(); j++) {
+        Element version = (Element) versionElements.item(j);
+        versions.add(
+            new ServiceVersion(
+                version.getAttribute("Version"),
+                determineLocation(version, "Endpoint"),
+                determineLocation(version, "EndpointTLS")));
+      }
+      versionsByService.put(service.getAttribute("Name"), Collections.unmodifiableList(versions));
+    }
+    return new ServiceDirectory(Collections.unmodifiableMap(versionsByService));
+  }
+
+  private static String determineLocation(Element version, String endpointName) {
+    for (Node child = version.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof Element
+          && SERVICE_INFORMATION_NAMESPACE.equals(child.getNamespaceURI())
+          && endpointName.equals(child.getLocalName())) {
+        return ((Element) child).getAttribute("Location");
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Liefert die angebotenen Versionen eines Dienstes.
+   *
+   * @param serviceName Name des Dienstes, z.B. "SignatureService".
+   * @return Die Versionen oder eine leere Liste, falls der Dienst nicht angeboten wird.
+   */
+  public List<ServiceVersion> getVersions(String serviceName) {
+    return versionsByService.getOrDefault(serviceName, Collections.emptyList());
+  }
+
+  /**
+   * Bestimmt den Endpunkt der höchsten vom Client unterstützten Version eines Dienstes. Unterstützt
+   * werden alle Versionen mit derselben Hauptversion, deren Haupt- und Nebenversion nicht höher als
+   * die des Clients ist; bei "7.5" also z.B. 7.4.2 und 7.5.5, nicht aber 7.6.0 oder 8.0.0.
+   *
+   * @param serviceName Name des Dienstes, z.B. "SignatureService".
+   * @param supportedVersion Vom Client unterstützte Version, z.B. "7.5".
+   * @param tls true, falls der TLS-Endpunkt verwendet werden soll.
+   * @return Der Endpunkt oder null, falls keine passende Version angeboten wird.
+   */
+  public String determineEndpoint(String serviceName, String supportedVersion, boolean tls) {
+    int[] supported = parseVersion(supportedVersion);
+    ServiceVersion highest = null;
+    for (ServiceVersion serviceVersion : getVersions(serviceName)) {
+      int[] offered = parseVersion(serviceVersion.getVersion());
+      String endpoint = serviceVersion.getEndpoint(tls);
+      if (endpoint != null
+          && offered[0] == supported[0]
+          && offered[1] <= supported[1]
+          && (highest == null
+              || compareVersions(offered, parseVersion(highest.getVersion())) > 0)) {
+        highest = serviceVersion;
+      }
+    }
+    return highest == null ? null : highest.getEndpoint(tls);
+  }
+
+  private static int compareVersions(int[] first, int[] second) {
+    for (int i = 0; i < Math.min(first.length, second.length); i++) {
+      if (first[i] != second[i]) {
+        return Integer.compare(first[i], second[i]);
+      }
+    }
+    return Integer.compare(first.length, second.length);
+  }
+
+  private static int[] parseVersion(String version) {
+    String[] parts = version == null ? new String[0] : version.trim().split("\\.");
+    int[] numbers = new int[Math.max(3, parts.length)];
+    for (int i = 0; i < parts.length; i++) {
+      try {
+        numbers[i] = Integer.parseInt(parts[i]);
+      } catch (NumberFormatException numberFormatException) {
+        numbers[i] = -1;
+      }
+    }
+    return numbers;
+  }
+
+  /** Eine vom Konnektor angebotene Version eines Dienstes. */
+  public static final class ServiceVersion {
+
+    private final String version;
+    private final String endpoint;
+    private final String endpointTls;
+
+    ServiceVersion(String version, String endpoint, String endpointTls) {
+      this.version = version;
+      this.endpoint = endpoint;
+      this.endpointTls = endpointTls;
+    }
+
+    public String getVersion() {
+      return version;
+    }
+
+    /**
+     * Liefert den Endpunkt dieser Version. Ist kein Endpunkt ohne TLS angegeben, wird der
+     * TLS-Endpunkt geliefert.
+     *
+     * @param tls true, falls der TLS-Endpunkt geliefert werden soll.
+     * @return Der Endpunkt.
+     */
+    public String getEndpoint(boolean tls) {
+      return tls || endpoint == null || endpoint.isEmpty() ? endpointTls : endpoint;
+    }
+  }
+}
@@ -16,24 +16,70 @@
 
 package de.gematik.rezeps;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.text.MessageFormat;
 import javax.xml.soap.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.client.WebServiceIOException;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.saaj.SaajSoapMessage;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
 
+/**
+ * Protokolliert SOAP-Faults und schützt den Konnektor über {@link OperationGuards}: Jeder Aufruf
+ * belegt vor dem Versand das Bulkhead seiner Operation auf dem aufgerufenen Konnektor und wird
+ * abgewiesen, solange deren Circuit Breaker offen ist.
+ */
 public class SoapClientInterceptor implements ClientInterceptor {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SoapClientInterceptor.class);
+  private static final String OPERATION_GUARD_PERMIT =
+      SoapClientInterceptor.class.getName() + ".permit";
+
+  /**
+   * Eigenschaft des MessageContext mit dem Endpunkt des Aufrufs, falls er nicht über das
+   * WebServiceTemplate versendet wird.
+   */
+  static final String KONNEKTOR_URI = SoapClientInterceptor.class.getName() + ".uri";
 
   @Override
   public boolean handleRequest(MessageContext messageContext) {
+    WebServiceMessage request = messageContext.getRequest();
+    String soapAction =
+        request instanceof SoapMessage ? ((SoapMessage) request).getSoapAction() : null;
+    try {
+      messageContext.setProperty(
+          OPERATION_GUARD_PERMIT,
+          OperationGuards.acquire(
+              OperationGuards.determineKonnektor(determineUri(messageContext)), soapAction));
+    } catch (IOException exception) {
+      throw new WebServiceIOException(exception.getMessage(), exception);
+    }
     return true;
   }
 
+  private static String determineUri(MessageContext messageContext) {
+    Object uri = messageContext.getProperty(KONNEKTOR_URI);
+    if (uri instanceof String) {
+      return (String) uri;
+    }
+    TransportContext transportContext = TransportContextHolder.getTransportContext();
+    if (transportContext == null) {
+      return null;
+    }
+    try {
+      return transportContext.getConnection().getUri().toString();
+    } catch (URISyntaxException exception) {
+      return null;
+    }
+  }
+
   @Override
   public boolean handleResponse(MessageContext messageContext) {
     return true;
@@ -63,6 +109,10 @@ public class SoapClientInterceptor implements ClientInterceptor {
 
   @Override
   public void afterCompletion(MessageContext messageContext, Exception ex) {
+    Object permit = messageContext.getProperty(OPERATION_GUARD_PERMIT);
+    if (permit instanceof OperationGuards.Permit) {
+      ((OperationGuards.Permit) permit).release(ex);
+    }
     if (ex != null) {
       LOGGER.error(ex.getMessage());
     }
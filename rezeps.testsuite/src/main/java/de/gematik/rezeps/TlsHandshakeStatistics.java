@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zählt die TLS-Handshakes zum Konnektor, getrennt nach vollständigen und wiederaufgenommenen
+ * Handshakes (Session Resumption), und erfasst deren Dauer.
+ */
+public class TlsHandshakeStatistics {
+
+  private final LongAdder fullHandshakes = new LongAdder();
+  private final LongAdder resumedHandshakes = new LongAdder();
+  private final LongAdder fullHandshakeNanos = new LongAdder();
+  private final LongAdder resumedHandshakeNanos = new LongAdder();
+  private final AtomicLong maxHandshakeNanos = new AtomicLong();
+
+  /**
+   * Erfasst einen abgeschlossenen Handshake.
+   *
+   * @param resumed true, wenn eine bestehende TLS-Session wiederaufgenommen wurde.
+   * @param durationNanos Dauer des Handshakes in Nanosekunden.
+   */
+  public void recordHandshake(boolean resumed, long durationNanos) {
+    if (resumed) {
+      resumedHandshakes.increment();
+      resumedHandshakeNanos.add(durationNanos);
+    } else {
+      fullHandshakes.increment();
+      fullHandshakeNanos.add(durationNanos);
+    }
+    maxHandshakeNanos.accumulateAndGet(durationNanos, Math::max);
+  }
+
+  public long getFullHandshakes() {
+    return fullHandshakes.sum();
+  }
+
+  public long getResumedHandshakes() {
+    return resumedHandshakes.sum();
+  }
+
+  /**
+   * Liefert den Anteil der wiederaufgenommenen Handshakes an allen Handshakes.
+   *
+   * @return Anteil zwischen 0 und 1, 0 wenn noch kein Handshake erfolgt ist.
+   */
+  public double getResumptionRate() {
+    long resumed = getResumedHandshakes();
+    long total = resumed + getFullHandshakes();
+    return total == 0 ? 0 : (double) resumed / total;
+  }
+
+  public double getAverageFullHandshakeMillis() {
+    return averageMillis(fullHandshakeNanos.sum(), getFullHandshakes());
+  }
+
+  public double getAverageResumedHandshakeMillis() {
+    return averageMillis(resumedHandshakeNanos.sum(), getResumedHandshakes());
+  }
+
+  public long getMaxHandshakeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxHandshakeNanos.get());
+  }
+
+  /** Setzt alle Zähler zurück. */
+  public void reset() {
+    fullHandshakes.reset();
+    resumedHandshakes.reset();
+    fullHandshakeNanos.reset();
+    resumedHandshakeNanos.reset();
+    maxHandshakeNanos.set(0);
+  }
+
+  private static double averageMillis(long nanos, long count) {
+    return count == 0 ? 0 : (double) nanos / count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "TlsHandshakeStatistics'{'full={0}, resumed={1}, avgFullMs={2}, avgResumedMs={3}, maxMs={4}'}'",
+        getFullHandshakes(),
+        getResumedHandshakes(),
+        getAverageFullHandshakeMillis(),
+        getAverageResumedHandshakeMillis(),
+        getMaxHandshakeMillis());
+  }
+}
@@ -29,4 +29,6 @@ public class WsdlContexts {
       "de.gematik.ws.conn.certificateservice.v6";
   public static final String EVENT_SERVICE_CONTEXT = "de.gematik.ws.conn.eventservice.v7";
   public static final String SIGNATURE_SERVICE_CONTEXT = "de.gematik.ws.conn.signatureservice.v7";
+  public static final String AUTH_SIGNATURE_SERVICE_CONTEXT =
+      "de.gematik.ws.conn.signatureservice.v7_4";
 }
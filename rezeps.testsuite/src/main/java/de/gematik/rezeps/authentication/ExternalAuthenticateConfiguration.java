@@ -16,8 +16,10 @@
 
 package de.gematik.rezeps.authentication;
 
+import de.gematik.rezeps.JaxbMarshallerRegistry;
 import de.gematik.rezeps.KonnektorHelper;
 import de.gematik.rezeps.SoapClientInterceptor;
+import de.gematik.rezeps.WsdlContexts;
 import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
@@ -42,18 +44,12 @@ public class ExternalAuthenticateConfiguration extends WsConfigurerAdapter {
 
   @Bean
   public Jaxb2Marshaller externalAuthenticateMarshaller() {
-    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
-    // this package must match the package in the <generatePackage> specified in
-    // pom.xml
-    // "marshaller.setContextPath(WsdlContexts.SIGNATURE_SERVICE_CONTEXT);"
-    marshaller.setPackagesToScan("de.gematik.ws.conn.signatureservice.v7_4");
-
     Map<String, Object> map = new HashMap<>();
     map.put(Marshaller.JAXB_FORMATTED_OUTPUT, true);
     map.put(Marshaller.JAXB_ENCODING, "UTF-8");
     map.put(Marshaller.JAXB_FRAGMENT, true);
-    marshaller.setMarshallerProperties(map);
-    return marshaller;
+    return JaxbMarshallerRegistry.determineMarshaller(
+        WsdlContexts.AUTH_SIGNATURE_SERVICE_CONTEXT, map);
   }
 
   @Bean
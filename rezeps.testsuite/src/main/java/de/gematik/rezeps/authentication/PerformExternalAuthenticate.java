@@ -17,19 +17,19 @@
 package de.gematik.rezeps.authentication;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.connectorcontext.v2.ContextType;
 import de.gematik.ws.conn.signatureservice.v7_4.BinaryDocumentType;
 import de.gematik.ws.conn.signatureservice.v7_4.ExternalAuthenticate;
 import de.gematik.ws.conn.signatureservice.v7_4.ExternalAuthenticate.OptionalInputs;
 import de.gematik.ws.conn.signatureservice.v7_4.ExternalAuthenticateResponse;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import oasis.names.tc.dss._1_0.core.schema.Base64Data;
 import org.springframework.util.MimeTypeUtils;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
 
-public class PerformExternalAuthenticate extends WebServiceGatewaySupport {
+public class PerformExternalAuthenticate extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_EXTERNAL_AUTHENTICATE =
       "http://ws.gematik.de/conn/SignatureService/v7.4#ExternalAuthenticate";
@@ -48,6 +48,32 @@ public class PerformExternalAuthenticate extends WebServiceGatewaySupport {
   public ExternalAuthenticateResponse performExternalAuthenticate(
       InvocationContext invocationContext, String cardHandle, byte[] dataToBeSigned)
       throws IOException {
+    return (ExternalAuthenticateResponse)
+        marshalSendAndReceive(
+            KonnektorService.AUTH_SIGNATURE_SERVICE,
+            cardHandle,
+            createExternalAuthenticate(invocationContext, cardHandle, dataToBeSigned),
+            SOAP_ACTION_EXTERNAL_AUTHENTICATE);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performExternalAuthenticate(InvocationContext, String,
+   * byte[])}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<ExternalAuthenticateResponse> performExternalAuthenticateAsync(
+      InvocationContext invocationContext, String cardHandle, byte[] dataToBeSigned)
+      throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.AUTH_SIGNATURE_SERVICE,
+        cardHandle,
+        createExternalAuthenticate(invocationContext, cardHandle, dataToBeSigned),
+        SOAP_ACTION_EXTERNAL_AUTHENTICATE);
+  }
+
+  private ExternalAuthenticate createExternalAuthenticate(
+      InvocationContext invocationContext, String cardHandle, byte[] dataToBeSigned) {
 
     ExternalAuthenticate externalAuthenticate = new ExternalAuthenticate();
 
@@ -68,11 +94,6 @@ public class PerformExternalAuthenticate extends WebServiceGatewaySupport {
     binaryDocumentType.setBase64Data(base64Data);
 
     externalAuthenticate.setBinaryString(binaryDocumentType);
-    return (ExternalAuthenticateResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineAuthSignatureServiceEndpoint(),
-                externalAuthenticate,
-                new SoapActionCallback(SOAP_ACTION_EXTERNAL_AUTHENTICATE));
+    return externalAuthenticate;
   }
 }
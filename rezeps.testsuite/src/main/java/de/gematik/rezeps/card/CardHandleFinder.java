@@ -35,6 +35,9 @@ public class CardHandleFinder {
   private static final Logger LOGGER = LoggerFactory.getLogger(CardHandleFinder.class);
   @Autowired PerformGetCards performGetCards;
 
+  @Autowired(required = false)
+  CardRegistry cardRegistry;
+
   /**
    * Bestimmt das Handle eines HBAs.
    *
@@ -142,6 +145,14 @@ public class CardHandleFinder {
 
   private String determineCardHandle(
       InvocationContext invocationContext, CardTypeType cardType, String iccsn) throws IOException {
+    if (cardRegistry != null) {
+      CardInfoType card = cardRegistry.findCard(invocationContext, cardType, iccsn);
+      if (card == null) {
+        return null;
+      }
+      logCardData(card);
+      return card.getCardHandle();
+    }
     String cardHandle = null;
     GetCardsResponse response = performGetCards.performGetCards(invocationContext);
     List<CardInfoType> cards = response.getCards().getCard();
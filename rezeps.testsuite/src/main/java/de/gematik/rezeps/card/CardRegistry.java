@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.card;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.rezeps.event.EventListener;
+import de.gematik.rezeps.event.EventSubscriptionManager;
+import de.gematik.rezeps.util.CommonUtils;
+import de.gematik.ws.conn.cardservice.v8.CardInfoType;
+import de.gematik.ws.conn.cardservicecommon.v2.CardTypeType;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import de.gematik.ws.conn.eventservice.v7.GetCardsResponse;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hält je Aufrufkontext die vom Konnektor gemeldeten Karten, indiziert nach Kartentyp, ICCSN und
+ * Kartenterminal. Die Karten werden einmalig per GetCards geladen und anschließend über abonnierte
+ * CARD- und CT-Ereignisse aktuell gehalten; Suchen lesen einen unveränderlichen Index ohne Sperre.
+ * Ist kein Ereignisempfänger konfiguriert oder geht das Abonnement verloren, wird bis zu einem
+ * neuen Abonnement bei jeder Suche GetCards aufgerufen.
+ */
+@Component
+public class CardRegistry {
+
+  static final String TOPIC_CARD = EventHelper.TOPIC_CARD;
+  static final String TOPIC_CARD_INSERTED = EventHelper.TOPIC_CARD_INSERTED;
+  static final String TOPIC_CARD_REMOVED = EventHelper.TOPIC_CARD_REMOVED;
+  static final String TOPIC_CT = EventHelper.TOPIC_CT;
+  static final String TOPIC_CT_DISCONNECTED = EventHelper.TOPIC_CT_DISCONNECTED;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CardRegistry.class);
+
+  @Autowired PerformGetCards performGetCards;
+
+  @Autowired(required = false)
+  EventSubscriptionManager eventSubscriptionManager;
+
+  private final Map<String, ContextCards> contextCards = new ConcurrentHashMap<>();
+
+  /**
+   * Sucht eine Karte.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param cardType Der Kartentyp.
+   * @param iccsn Die ICCSN der Karte oder null für die erste Karte des Typs.
+   * @return Die Karte oder null, falls keine passende Karte gesteckt ist.
+   */
+  public CardInfoType findCard(
+      InvocationContext invocationContext, CardTypeType cardType, String iccsn) throws IOException {
+    return determineIndex(invocationContext).findCard(cardType, iccsn);
+  }
+
+  /**
+   * Sucht eine Karte anhand ihres Handles.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param cardHandle Das Handle der Karte.
+   * @return Die Karte oder null, falls keine Karte mit dem Handle gesteckt ist.
+   */
+  public CardInfoType findCardByHandle(InvocationContext invocationContext, String cardHandle)
+      throws IOException {
+    return determineIndex(invocationContext).findCardByHandle(cardHandle);
+  }
+
+  /**
+   * Liefert die Karten, die in einem Kartenterminal gesteckt sind.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param ctId Die ID des Kartenterminals.
+   * @return Die Karten des Terminals, leer falls keine gesteckt sind.
+   */
+  public List<CardInfoType> findCardsByTerminal(InvocationContext invocationContext, String ctId)
+      throws IOException {
+    return determineIndex(invocationContext).findCardsByTerminal(ctId);
+  }
+
+  /** Verwirft alle geladenen Karten, z.B. nach einem Neustart des Konnektors. */
+  public void clear() {
+    contextCards.clear();
+  }
+
+  private CardIndex determineIndex(InvocationContext invocationContext) throws IOException {
+    ContextCards cards =
+        contextCards.computeIfAbsent(
+            invocationContext.determineWorkplaceKey(), key -> new ContextCards());
+    CardIndex index = cards.index;
+    if (index != null && isSubscribed(cards)) {
+      return index;
+    }
+    if (eventSubscriptionManager == null
+        || ConfigurationReader.getInstance().getEventReceiverAddress() == null) {
+      return loadIndex(invocationContext);
+    }
+    return cards.load(invocationContext);
+  }
+
+  private CardIndex loadIndex(InvocationContext invocationContext) throws IOException {
+    GetCardsResponse response = performGetCards.performGetCards(invocationContext);
+    return new CardIndex(
+        response.getCards() == null ? Collections.emptyList() : response.getCards().getCard());
+  }
+
+  private boolean isSubscribed(ContextCards cards) {
+    return isSubscribed(cards.cardSubscriptionId) && isSubscribed(cards.terminalSubscriptionId);
+  }
+
+  private boolean isSubscribed(String subscriptionId) {
+    return eventSubscriptionManager != null
+        && eventSubscriptionManager.isSubscribed(subscriptionId);
+  }
+
+  static CardInfoType createCard(Event event) {
+    Map<String, String> parameters = new HashMap<>();
+    if (event.getMessage() != null) {
+      for (Event.Message.Parameter parameter : event.getMessage().getParameter()) {
+        parameters.put(parameter.getKey(), parameter.getValue());
+      }
+    }
+    CardInfoType card = new CardInfoType();
+    card.setCardHandle(parameters.get(EventHelper.PARAMETER_CARD_HANDLE));
+    card.setIccsn(parameters.get(EventHelper.PARAMETER_ICCSN));
+    card.setCtId(parameters.get(EventHelper.PARAMETER_CT_ID));
+    card.setCardHolderName(parameters.get("CardHolderName"));
+    try {
+      if (parameters.get("CardType") != null) {
+        card.setCardType(CardTypeType.fromValue(parameters.get("CardType")));
+      }
+      if (parameters.get("SlotID") != null) {
+        card.setSlotId(new BigInteger(parameters.get("SlotID")));
+      }
+    } catch (IllegalArgumentException exception) {
+      LOGGER.warn(
+          MessageFormat.format(
+              "Ereignis {0} zu Karte {1} enthält ungültige Werte",
+              event.getTopic(), card.getCardHandle()),
+          exception);
+    }
+    return card;
+  }
+
+  /** Die Karten eines Aufrufkontextes und das zugehörige Abonnement. */
+  private class ContextCards implements EventListener {
+
+    private volatile CardIndex index;
+    private volatile String cardSubscriptionId;
+    private volatile String terminalSubscriptionId;
+
+    synchronized CardIndex load(InvocationContext invocationContext) throws IOException {
+      if (index != null && isSubscribed(this)) {
+        return index;
+      }
+      // die Abonnements werden vor GetCards angelegt, damit keine Änderung verloren geht
+      if (!isSubscribed(cardSubscriptionId)) {
+        cardSubscriptionId =
+            eventSubscriptionManager.subscribe(invocationContext, TOPIC_CARD, this);
+      }
+      if (!isSubscribed(terminalSubscriptionId)) {
+        terminalSubscriptionId =
+            eventSubscriptionManager.subscribe(invocationContext, TOPIC_CT, this);
+      }
+      CardIndex loadedIndex = loadIndex(invocationContext);
+      index = loadedIndex;
+      return loadedIndex;
+    }
+
+    @Override
+    public synchronized void handleEvent(Event event) {
+      CardIndex currentIndex = index;
+      if (currentIndex == null) {
+        return;
+      }
+      if (TOPIC_CARD_INSERTED.equals(event.getTopic())) {
+        CardInfoType card = createCard(event);
+        if (card.getCardHandle() != null) {
+          index = currentIndex.withCard(card);
+        }
+      } else if (TOPIC_CARD_REMOVED.equals(event.getTopic())) {
+        String cardHandle =
+            EventHelper.determineParameter(event, EventHelper.PARAMETER_CARD_HANDLE);
+        if (cardHandle != null) {
+          index = currentIndex.withoutCard(cardHandle);
+        }
+      } else if (TOPIC_CT_DISCONNECTED.equals(event.getTopic())) {
+        String ctId = EventHelper.determineParameter(event, EventHelper.PARAMETER_CT_ID);
+        if (ctId != null) {
+          index = currentIndex.withoutTerminal(ctId);
+        }
+      }
+    }
+
+    @Override
+    public synchronized void handleSubscriptionLost() {
+      // das verlorene Abonnement wird bei der nächsten Suche zusammen mit den Karten erneuert
+      if (!isSubscribed(cardSubscriptionId)) {
+        cardSubscriptionId = null;
+      }
+      if (!isSubscribed(terminalSubscriptionId)) {
+        terminalSubscriptionId = null;
+      }
+    }
+  }
+
+  /** Unveränderlicher Index der Karten eines Aufrufkontextes. */
+  static class CardIndex {
+
+    private final Map<String, CardInfoType> cardsByHandle;
+    private final Map<CardTypeType, List<CardInfoType>> cardsByType = new HashMap<>();
+    private final Map<String, List<CardInfoType>> cardsByIccsn = new HashMap<>();
+    private final Map<String, List<CardInfoType>> cardsByTerminal = new HashMap<>();
+
+    CardIndex(List<CardInfoType> cards) {
+      cardsByHandle = new LinkedHashMap<>();
+      for (CardInfoType card : cards) {
+        cardsByHandle.put(card.getCardHandle(), card);
+      }
+      for (CardInfoType card : cardsByHandle.values()) {
+        if (card.getCardType() != null) {
+          cardsByType.computeIfAbsent(card.getCardType(), key -> new ArrayList<>()).add(card);
+        }
+        if (card.getIccsn() != null) {
+          cardsByIccsn.computeIfAbsent(card.getIccsn(), key -> new ArrayList<>()).add(card);
+        }
+        if (card.getCtId() != null) {
+          cardsByTerminal.computeIfAbsent(card.getCtId(), key -> new ArrayList<>()).add(card);
+        }
+      }
+    }
+
+    CardInfoType findCard(CardTypeType cardType, String iccsn) {
+      List<CardInfoType> candidates =
+          CommonUtils.isNullOrEmpty(iccsn) ? cardsByType.get(cardType) : cardsByIccsn.get(iccsn);
+      if (candidates == null) {
+        return null;
+      }
+      return candidates.stream()
+          .filter(card -> cardType.equals(card.getCardType()))
+          .findFirst()
+          .orElse(null);
+    }
+
+    CardInfoType findCardByHandle(String cardHandle) {
+      return cardsByHandle.get(cardHandle);
+    }
+
+    List<CardInfoType> findCardsByTerminal(String ctId) {
+      List<CardInfoType> cards = cardsByTerminal.get(ctId);
+      return cards == null ? Collections.emptyList() : Collections.unmodifiableList(cards);
+    }
+
+    CardIndex withCard(CardInfoType card) {
+      List<CardInfoType> cards = new ArrayList<>(cardsByHandle.values());
+      cards.removeIf(existingCard -> card.getCardHandle().equals(existingCard.getCardHandle()));
+      cards.add(card);
+      return new CardIndex(cards);
+    }
+
+    CardIndex withoutTerminal(String ctId) {
+      if (!cardsByTerminal.containsKey(ctId)) {
+        return this;
+      }
+      List<CardInfoType> cards = new ArrayList<>(cardsByHandle.values());
+      cards.removeIf(existingCard -> ctId.equals(existingCard.getCtId()));
+      return new CardIndex(cards);
+    }
+
+    CardIndex withoutCard(String cardHandle) {
+      if (!cardsByHandle.containsKey(cardHandle)) {
+        return this;
+      }
+      List<CardInfoType> cards = new ArrayList<>(cardsByHandle.values());
+      cards.removeIf(existingCard -> cardHandle.equals(existingCard.getCardHandle()));
+      return new CardIndex(cards);
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package de.gematik.rezeps.card;
 
+import de.gematik.rezeps.JaxbMarshallerRegistry;
 import de.gematik.rezeps.KonnektorHelper;
 import de.gematik.rezeps.SoapClientInterceptor;
 import de.gematik.rezeps.WsdlContexts;
@@ -35,10 +36,7 @@ public class GetPinStatusConfiguration {
 
   @Bean
   public Jaxb2Marshaller marshaller() {
-    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
-    // this package must match the package in the <generatePackage> specified in pom.xml
-    marshaller.setContextPath(WsdlContexts.CARD_SERVICE_CONTEXT);
-    return marshaller;
+    return JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.CARD_SERVICE_CONTEXT);
   }
 
   @Bean
@@ -18,14 +18,17 @@ package de.gematik.rezeps.card;
 
 import de.gematik.rezeps.InvocationContext;
 import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorPool;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.cardservice.v8.CardInfoType;
 import de.gematik.ws.conn.connectorcontext.v2.ContextType;
 import de.gematik.ws.conn.eventservice.v7.GetCards;
 import de.gematik.ws.conn.eventservice.v7.GetCardsResponse;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformGetCards extends WebServiceGatewaySupport {
+public class PerformGetCards extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_GET_CARDS =
       "http://ws.gematik.de/conn/EventService/v7.2#GetCards";
@@ -37,15 +40,59 @@ public class PerformGetCards extends WebServiceGatewaySupport {
    * @return Response des Konnektors.
    */
   public GetCardsResponse performGetCards(InvocationContext invocationContext) throws IOException {
+    KonnektorPool konnektorPool = KonnektorHelper.determineKonnektorPool();
+    return konnektorPool.execute(
+        null,
+        konnektor ->
+            bindCards(
+                konnektorPool,
+                konnektor,
+                (GetCardsResponse)
+                    marshalSendAndReceive(
+                        konnektor,
+                        KonnektorService.EVENT_SERVICE,
+                        createGetCards(invocationContext),
+                        SOAP_ACTION_GET_CARDS)));
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performGetCards(InvocationContext)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<GetCardsResponse> performGetCardsAsync(
+      InvocationContext invocationContext) throws IOException {
+    KonnektorPool konnektorPool = KonnektorHelper.determineKonnektorPool();
+    return konnektorPool.executeAsync(
+        null,
+        konnektor ->
+            this.<GetCardsResponse>marshalSendAndReceiveAsync(
+                    konnektor.determineEndpoint(KonnektorService.EVENT_SERVICE),
+                    createGetCards(invocationContext),
+                    SOAP_ACTION_GET_CARDS)
+                .thenApply(response -> bindCards(konnektorPool, konnektor, response)));
+  }
+
+  /**
+   * Ordnet die gemeldeten Karten und ihre Terminals dem Konnektor zu, der sie gemeldet hat, damit
+   * Folgeaufrufe mit diesen Kartenhandles denselben Konnektor erreichen.
+   */
+  private static GetCardsResponse bindCards(
+      KonnektorPool konnektorPool, KonnektorPool.Konnektor konnektor, GetCardsResponse response) {
+    if (response != null && response.getCards() != null) {
+      for (CardInfoType card : response.getCards().getCard()) {
+        konnektorPool.bind(card.getCardHandle(), konnektor);
+        konnektorPool.bind(card.getCtId(), konnektor);
+      }
+    }
+    return response;
+  }
+
+  private GetCards createGetCards(InvocationContext invocationContext) {
     GetCards getCards = new GetCards();
     getCards.setMandantWide(true);
     ContextType contextType = invocationContext.convertToContextType();
     getCards.setContext(contextType);
-    return (GetCardsResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineEventServiceEndpoint(),
-                getCards,
-                new SoapActionCallback(SOAP_ACTION_GET_CARDS));
+    return getCards;
   }
 }
@@ -17,15 +17,15 @@
 package de.gematik.rezeps.card;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.cardservice.v8.GetPinStatus;
 import de.gematik.ws.conn.cardservice.v8.GetPinStatusResponse;
 import de.gematik.ws.conn.connectorcontext.v2.ContextType;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformGetPinStatus extends WebServiceGatewaySupport {
+public class PerformGetPinStatus extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_GET_PIN_STATUS =
       "http://ws.gematik.de/conn/CardService/v8.1#GetPinStatus";
@@ -40,6 +40,30 @@ public class PerformGetPinStatus extends WebServiceGatewaySupport {
    */
   public GetPinStatusResponse getPinStatusResponse(
       InvocationContext invocationContext, String pinType, String cardHandle) throws IOException {
+    return (GetPinStatusResponse)
+        marshalSendAndReceive(
+            KonnektorService.CARD_SERVICE,
+            cardHandle,
+            createGetPinStatus(invocationContext, pinType, cardHandle),
+            SOAP_ACTION_GET_PIN_STATUS);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #getPinStatusResponse(InvocationContext, String, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<GetPinStatusResponse> getPinStatusResponseAsync(
+      InvocationContext invocationContext, String pinType, String cardHandle) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.CARD_SERVICE,
+        cardHandle,
+        createGetPinStatus(invocationContext, pinType, cardHandle),
+        SOAP_ACTION_GET_PIN_STATUS);
+  }
+
+  private GetPinStatus createGetPinStatus(
+      InvocationContext invocationContext, String pinType, String cardHandle) {
 
     ContextType contextType = invocationContext.convertToContextType();
     GetPinStatus getPinStatus = new GetPinStatus();
@@ -47,11 +71,6 @@ public class PerformGetPinStatus extends WebServiceGatewaySupport {
     getPinStatus.setCardHandle(cardHandle);
     getPinStatus.setContext(contextType);
 
-    return (GetPinStatusResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineCardServiceEndpoint(),
-                getPinStatus,
-                new SoapActionCallback(SOAP_ACTION_GET_PIN_STATUS));
+    return getPinStatus;
   }
 }
@@ -17,16 +17,16 @@
 package de.gematik.rezeps.card;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.cardservice.v8.VerifyPin;
 import de.gematik.ws.conn.cardservicecommon.v2.PinResponseType;
 import de.gematik.ws.conn.connectorcontext.v2.ContextType;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import javax.xml.bind.JAXBElement;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
 
-public class PerformVerifyPin extends WebServiceGatewaySupport {
+public class PerformVerifyPin extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_VERIFY_PIN =
       "http://ws.gematik.de/conn/CardService/v8.1#VerifyPin";
@@ -40,18 +40,37 @@ public class PerformVerifyPin extends WebServiceGatewaySupport {
    */
   public PinResponseType performVerifyPin(InvocationContext invocationContext, String cardHandle)
       throws IOException {
+    JAXBElement<PinResponseType> jaxbElement =
+        (JAXBElement<PinResponseType>)
+            marshalSendAndReceive(
+                KonnektorService.CARD_SERVICE,
+                cardHandle,
+                createVerifyPin(invocationContext, cardHandle),
+                SOAP_ACTION_VERIFY_PIN);
+    return jaxbElement.getValue();
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performVerifyPin(InvocationContext, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<PinResponseType> performVerifyPinAsync(
+      InvocationContext invocationContext, String cardHandle) throws IOException {
+    return this.<JAXBElement<PinResponseType>>marshalSendAndReceiveAsync(
+            KonnektorService.CARD_SERVICE,
+            cardHandle,
+            createVerifyPin(invocationContext, cardHandle),
+            SOAP_ACTION_VERIFY_PIN)
+        .thenApply(JAXBElement::getValue);
+  }
+
+  private VerifyPin createVerifyPin(InvocationContext invocationContext, String cardHandle) {
     ContextType contextType = invocationContext.convertToContextType();
     VerifyPin verifyPin = new VerifyPin();
     verifyPin.setContext(contextType);
     verifyPin.setCardHandle(cardHandle);
     verifyPin.setPinTyp(PinType.PIN_CH.getType());
-    JAXBElement<PinResponseType> jaxbElement =
-        (JAXBElement<PinResponseType>)
-            getWebServiceTemplate()
-                .marshalSendAndReceive(
-                    KonnektorHelper.determineCardServiceEndpoint(),
-                    verifyPin,
-                    new SoapActionCallback(SOAP_ACTION_VERIFY_PIN));
-    return jaxbElement.getValue();
+    return verifyPin;
   }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.cardterminal;
+
+import de.gematik.ws.conn.cardterminalinfo.v8.CardTerminalInfoType;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Unveränderlicher Stand der Kartenterminals eines Aufrufkontextes. Die Version wird nur erhöht,
+ * wenn sich die Terminals gegenüber dem vorherigen Stand geändert haben.
+ */
+public class CardTerminalTopology {
+
+  private final long version;
+  private final String status;
+  private final long loadedAtMillis;
+  private final Map<String, CardTerminalInfoType> cardTerminals = new LinkedHashMap<>();
+
+  CardTerminalTopology(
+      long version, String status, long loadedAtMillis, List<CardTerminalInfoType> cardTerminals) {
+    this.version = version;
+    this.status = status;
+    this.loadedAtMillis = loadedAtMillis;
+    for (CardTerminalInfoType cardTerminal : cardTerminals) {
+      this.cardTerminals.put(cardTerminal.getCtId(), cardTerminal);
+    }
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Liefert den Status der Antwort von GetCardTerminals, aus der dieser Stand hervorgeht.
+   *
+   * @return Der Status, z.B. OK.
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  public long getLoadedAtMillis() {
+    return loadedAtMillis;
+  }
+
+  public List<CardTerminalInfoType> getCardTerminals() {
+    return Collections.unmodifiableList(new ArrayList<>(cardTerminals.values()));
+  }
+
+  /**
+   * Liefert ein Kartenterminal.
+   *
+   * @param ctId Die ID des Kartenterminals.
+   * @return Das Kartenterminal oder null, falls es in diesem Stand nicht enthalten ist.
+   */
+  public CardTerminalInfoType getCardTerminal(String ctId) {
+    return cardTerminals.get(ctId);
+  }
+
+  /**
+   * Ermittelt die Änderungen gegenüber einem früheren Stand.
+   *
+   * @param previous Der frühere Stand oder null, dann gelten alle Terminals als hinzugekommen.
+   * @return Die hinzugekommenen, entfernten und geänderten Kartenterminals.
+   */
+  public CardTerminalTopologyChange diff(CardTerminalTopology previous) {
+    Map<String, CardTerminalInfoType> previousCardTerminals =
+        previous == null ? Collections.emptyMap() : previous.cardTerminals;
+    List<CardTerminalInfoType> added = new ArrayList<>();
+    List<CardTerminalInfoType> changed = new ArrayList<>();
+    for (CardTerminalInfoType cardTerminal : cardTerminals.values()) {
+      CardTerminalInfoType previousCardTerminal = previousCardTerminals.get(cardTerminal.getCtId());
+      if (previousCardTerminal == null) {
+        added.add(cardTerminal);
+      } else if (!determineFingerprint(previousCardTerminal)
+          .equals(determineFingerprint(cardTerminal))) {
+        changed.add(cardTerminal);
+      }
+    }
+    List<CardTerminalInfoType> removed = new ArrayList<>();
+    for (CardTerminalInfoType previousCardTerminal : previousCardTerminals.values()) {
+      if (!cardTerminals.containsKey(previousCardTerminal.getCtId())) {
+        removed.add(previousCardTerminal);
+      }
+    }
+    return new CardTerminalTopologyChange(
+        previous == null ? 0 : previous.version, version, added, removed, changed);
+  }
+
+  /**
+   * Gibt an, ob dieser Stand dieselben Terminals mit denselben Eigenschaften enthält wie ein
+   * anderer.
+   */
+  boolean hasSameCardTerminals(CardTerminalTopology other) {
+    if (other == null || cardTerminals.size() != other.cardTerminals.size()) {
+      return false;
+    }
+    for (CardTerminalInfoType cardTerminal : cardTerminals.values()) {
+      CardTerminalInfoType otherCardTerminal = other.cardTerminals.get(cardTerminal.getCtId());
+      if (otherCardTerminal == null
+          || !determineFingerprint(otherCardTerminal).equals(determineFingerprint(cardTerminal))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String determineFingerprint(CardTerminalInfoType cardTerminal) {
+    CardTerminalInfoType.IPAddress ipAddress = cardTerminal.getIPAddress();
+    return String.join(
+        "\n",
+        String.valueOf(cardTerminal.getName()),
+        String.valueOf(cardTerminal.getMacAddress()),
+        ipAddress == null ? "null" : String.valueOf(ipAddress.getIPV4Address()),
+        ipAddress == null ? "null" : String.valueOf(ipAddress.getIPV6Address()),
+        String.valueOf(cardTerminal.getSlots()),
+        String.valueOf(cardTerminal.isISPHYSICAL()),
+        String.valueOf(cardTerminal.isConnected()),
+        String.valueOf(
+            cardTerminal.getWorkplaceIds() == null
+                ? null
+                : cardTerminal.getWorkplaceIds().getWorkplaceId()));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CardTerminalTopology that = (CardTerminalTopology) o;
+    return version == that.version
+        && Objects.equals(status, that.status)
+        && hasSameCardTerminals(that);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(version, status, cardTerminals.keySet());
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "CardTerminalTopology'{'version={0}, status={1}, cardTerminals={2}'}'",
+        String.valueOf(version), status, cardTerminals.keySet());
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.cardterminal;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.rezeps.event.EventObserver;
+import de.gematik.ws.conn.cardterminalinfo.v8.CardTerminalInfoType;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import de.gematik.ws.conn.eventservice.v7.GetCardTerminalsResponse;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hält je Aufrufkontext den zuletzt per GetCardTerminals ermittelten Stand der Kartenterminals vor.
+ * Ein Stand wird neu geladen, wenn er älter als die konfigurierte Dauer ist oder ein CT-Ereignis
+ * des Konnektors eingeht; die Version eines Aufrufkontextes wird nur bei einer tatsächlichen
+ * Änderung erhöht. Welche Terminals sich geändert haben, wird beim Neuladen protokolliert.
+ */
+@Component
+public class CardTerminalTopologyCache implements EventObserver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CardTerminalTopologyCache.class);
+  private static final String STATUS_OK = "OK";
+  private static final String TOPIC_CT_PREFIX = EventHelper.TOPIC_CT + "/";
+
+  @Autowired PerformGetCardTerminals performGetCardTerminals;
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  private final Map<String, ContextTopology> topologies = new ConcurrentHashMap<>();
+
+  /**
+   * Liefert den aktuellen Stand der Kartenterminals eines Aufrufkontextes. Ist der vorgehaltene
+   * Stand veraltet, wird GetCardTerminals aufgerufen.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @return Der Stand. Ist der Status nicht OK, wird er nicht vorgehalten und enthält die Terminals
+   *     des letzten erfolgreichen Aufrufs nicht.
+   */
+  public CardTerminalTopology getTopology(InvocationContext invocationContext) throws IOException {
+    ContextTopology contextTopology =
+        topologies.computeIfAbsent(
+            invocationContext.determineWorkplaceKey(), key -> new ContextTopology());
+    CardTerminalTopology topology = contextTopology.topology;
+    long maxAgeMillis =
+        TimeUnit.SECONDS.toMillis(
+            ConfigurationReader.getInstance().getCardTerminalTopologyMaxAgeSeconds());
+    if (topology != null
+        && !contextTopology.stale
+        && clock.getAsLong() - topology.getLoadedAtMillis() < maxAgeMillis) {
+      return topology;
+    }
+    return contextTopology.refresh(invocationContext);
+  }
+
+  /**
+   * Markiert alle vorgehaltenen Stände als veraltet, sodass sie beim nächsten Zugriff neu geladen
+   * werden.
+   */
+  public void invalidate() {
+    for (ContextTopology contextTopology : topologies.values()) {
+      contextTopology.stale = true;
+    }
+  }
+
+  @Override
+  public void observeEvent(Event event) {
+    // ein Ereignis enthält den Aufrufkontext nicht, daher werden alle Stände neu geladen
+    if (event.getTopic() != null && event.getTopic().startsWith(TOPIC_CT_PREFIX)) {
+      invalidate();
+    }
+  }
+
+  /** Der vorgehaltene Stand eines Aufrufkontextes. */
+  private class ContextTopology {
+
+    private volatile CardTerminalTopology topology;
+    private volatile boolean stale;
+
+    synchronized CardTerminalTopology refresh(InvocationContext invocationContext)
+        throws IOException {
+      stale = false;
+      GetCardTerminalsResponse response =
+          performGetCardTerminals.performGetCardTerminals(invocationContext);
+      String status =
+          response == null || response.getStatus() == null
+              ? null
+              : response.getStatus().getResult();
+      List<CardTerminalInfoType> cardTerminals =
+          response == null || response.getCardTerminals() == null
+              ? Collections.emptyList()
+              : response.getCardTerminals().getCardTerminal();
+      CardTerminalTopology previous = topology;
+      long version = previous == null ? 0 : previous.getVersion();
+      if (!STATUS_OK.equals(status)) {
+        stale = true;
+        return new CardTerminalTopology(
+            version, status, clock.getAsLong(), Collections.emptyList());
+      }
+      CardTerminalTopology loaded =
+          new CardTerminalTopology(version, status, clock.getAsLong(), cardTerminals);
+      if (previous == null || !loaded.hasSameCardTerminals(previous)) {
+        loaded = new CardTerminalTopology(version + 1, status, clock.getAsLong(), cardTerminals);
+        if (previous != null && LOGGER.isInfoEnabled()) {
+          LOGGER.info(
+              MessageFormat.format(
+                  "Kartenterminals im Mandanten {0} geändert: {1}",
+                  invocationContext.getMandant(), loaded.diff(previous)));
+        }
+      }
+      topology = loaded;
+      return loaded;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.cardterminal;
+
+import de.gematik.ws.conn.cardterminalinfo.v8.CardTerminalInfoType;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Die Änderungen der Kartenterminals zwischen zwei Ständen einer {@link CardTerminalTopology}. */
+public class CardTerminalTopologyChange {
+
+  private final long fromVersion;
+  private final long toVersion;
+  private final List<CardTerminalInfoType> added;
+  private final List<CardTerminalInfoType> removed;
+  private final List<CardTerminalInfoType> changed;
+
+  CardTerminalTopologyChange(
+      long fromVersion,
+      long toVersion,
+      List<CardTerminalInfoType> added,
+      List<CardTerminalInfoType> removed,
+      List<CardTerminalInfoType> changed) {
+    this.fromVersion = fromVersion;
+    this.toVersion = toVersion;
+    this.added = Collections.unmodifiableList(added);
+    this.removed = Collections.unmodifiableList(removed);
+    this.changed = Collections.unmodifiableList(changed);
+  }
+
+  public long getFromVersion() {
+    return fromVersion;
+  }
+
+  public long getToVersion() {
+    return toVersion;
+  }
+
+  public List<CardTerminalInfoType> getAdded() {
+    return added;
+  }
+
+  public List<CardTerminalInfoType> getRemoved() {
+    return removed;
+  }
+
+  /**
+   * Liefert die Kartenterminals, deren Eigenschaften sich geändert haben, z.B. weil die Verbindung
+   * zum Terminal unterbrochen wurde.
+   *
+   * @return Die Kartenterminals im neueren Stand.
+   */
+  public List<CardTerminalInfoType> getChanged() {
+    return changed;
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "CardTerminalTopologyChange'{'fromVersion={0}, toVersion={1}, added={2}, removed={3},"
+            + " changed={4}'}'",
+        String.valueOf(fromVersion),
+        String.valueOf(toVersion),
+        determineCtIds(added),
+        determineCtIds(removed),
+        determineCtIds(changed));
+  }
+
+  private static List<String> determineCtIds(List<CardTerminalInfoType> cardTerminals) {
+    List<String> ctIds = new ArrayList<>(cardTerminals.size());
+    for (CardTerminalInfoType cardTerminal : cardTerminals) {
+      ctIds.add(cardTerminal.getCtId());
+    }
+    return ctIds;
+  }
+}
@@ -31,15 +31,25 @@ public class CardTerminalsGetter {
 
   @Autowired PerformGetCardTerminals performGetCardTerminals;
 
+  @Autowired(required = false)
+  CardTerminalTopologyCache cardTerminalTopologyCache;
+
   /**
    * Bestimmt die CtId des ersten Kartenterminals, welches im Aufrufkontext sichtbar ist. Dazu wird
-   * die Operation GetCardTerminals des Konnektors aufgerufen.
+   * die Operation GetCardTerminals des Konnektors aufgerufen, sofern kein aktueller Stand der
+   * Kartenterminals vorliegt.
    *
    * @param invocationContext Der Kontext, der für den Aufruf beim Konnektor verwendet werden soll.
    * @return Das Ergebnis des Aufrufs.
    */
   public GetCardTerminalsResult performGetCardTerminals(InvocationContext invocationContext)
       throws IOException {
+    if (cardTerminalTopologyCache != null) {
+      CardTerminalTopology topology = cardTerminalTopologyCache.getTopology(invocationContext);
+      List<CardTerminalInfoType> cardTerminals = topology.getCardTerminals();
+      return new GetCardTerminalsResult(
+          topology.getStatus(), cardTerminals.isEmpty() ? null : cardTerminals.get(0).getCtId());
+    }
 
     GetCardTerminalsResponse getCardTerminalsResponse =
         performGetCardTerminals.performGetCardTerminals(invocationContext);
@@ -16,6 +16,7 @@
 
 package de.gematik.rezeps.cardterminal;
 
+import de.gematik.rezeps.JaxbMarshallerRegistry;
 import de.gematik.rezeps.KonnektorHelper;
 import de.gematik.rezeps.SoapClientInterceptor;
 import de.gematik.rezeps.WsdlContexts;
@@ -39,10 +40,7 @@ public class EjectCardConfiguration {
 
   @Bean
   public Jaxb2Marshaller ejectCardMarshaller() {
-    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
-    // this package must match the package in the <generatePackage> specified in pom.xml
-    marshaller.setContextPath(WsdlContexts.CARD_TERMINAL_SERVICE_CONTEXT);
-    return marshaller;
+    return JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.CARD_TERMINAL_SERVICE_CONTEXT);
   }
 
   @Bean
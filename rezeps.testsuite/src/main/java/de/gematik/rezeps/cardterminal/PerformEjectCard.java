@@ -17,14 +17,14 @@
 package de.gematik.rezeps.cardterminal;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.cardterminalservice.v1.EjectCard;
 import de.gematik.ws.conn.cardterminalservice.v1.EjectCardResponse;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformEjectCard extends WebServiceGatewaySupport {
+public class PerformEjectCard extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_EJECT_CARD =
       "http://ws.gematik.de/conn/CardTerminalService/v1.1#EjectCard";
@@ -38,14 +38,32 @@ public class PerformEjectCard extends WebServiceGatewaySupport {
    */
   public EjectCardResponse performEjectCard(InvocationContext invocationContext, String cardHandle)
       throws IOException {
+    return (EjectCardResponse)
+        marshalSendAndReceive(
+            KonnektorService.CARD_TERMINAL_SERVICE,
+            cardHandle,
+            createEjectCard(invocationContext, cardHandle),
+            SOAP_ACTION_EJECT_CARD);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performEjectCard(InvocationContext, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<EjectCardResponse> performEjectCardAsync(
+      InvocationContext invocationContext, String cardHandle) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.CARD_TERMINAL_SERVICE,
+        cardHandle,
+        createEjectCard(invocationContext, cardHandle),
+        SOAP_ACTION_EJECT_CARD);
+  }
+
+  private EjectCard createEjectCard(InvocationContext invocationContext, String cardHandle) {
     EjectCard ejectCard = new EjectCard();
     ejectCard.setContext(invocationContext.convertToContextType());
     ejectCard.setCardHandle(cardHandle);
-    return (EjectCardResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineCardTerminalServiceEndpoint(),
-                ejectCard,
-                new SoapActionCallback(SOAP_ACTION_EJECT_CARD));
+    return ejectCard;
   }
 }
@@ -18,13 +18,16 @@ package de.gematik.rezeps.cardterminal;
 
 import de.gematik.rezeps.InvocationContext;
 import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorPool;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.cardterminalinfo.v8.CardTerminalInfoType;
 import de.gematik.ws.conn.eventservice.v7.GetCardTerminals;
 import de.gematik.ws.conn.eventservice.v7.GetCardTerminalsResponse;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformGetCardTerminals extends WebServiceGatewaySupport {
+public class PerformGetCardTerminals extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_GET_CARD_TERMINALS =
       "http://ws.gematik.de/conn/EventService/v7.2#GetCardTerminals";
@@ -37,14 +40,59 @@ public class PerformGetCardTerminals extends WebServiceGatewaySupport {
    */
   public GetCardTerminalsResponse performGetCardTerminals(InvocationContext invocationContext)
       throws IOException {
+    KonnektorPool konnektorPool = KonnektorHelper.determineKonnektorPool();
+    return konnektorPool.execute(
+        null,
+        konnektor ->
+            bindCardTerminals(
+                konnektorPool,
+                konnektor,
+                (GetCardTerminalsResponse)
+                    marshalSendAndReceive(
+                        konnektor,
+                        KonnektorService.EVENT_SERVICE,
+                        createGetCardTerminals(invocationContext),
+                        SOAP_ACTION_GET_CARD_TERMINALS)));
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performGetCardTerminals(InvocationContext)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<GetCardTerminalsResponse> performGetCardTerminalsAsync(
+      InvocationContext invocationContext) throws IOException {
+    KonnektorPool konnektorPool = KonnektorHelper.determineKonnektorPool();
+    return konnektorPool.executeAsync(
+        null,
+        konnektor ->
+            this.<GetCardTerminalsResponse>marshalSendAndReceiveAsync(
+                    konnektor.determineEndpoint(KonnektorService.EVENT_SERVICE),
+                    createGetCardTerminals(invocationContext),
+                    SOAP_ACTION_GET_CARD_TERMINALS)
+                .thenApply(response -> bindCardTerminals(konnektorPool, konnektor, response)));
+  }
+
+  /**
+   * Ordnet die gemeldeten Terminals dem Konnektor zu, der sie verwaltet, damit Karten in diesen
+   * Terminals über denselben Konnektor angefordert werden.
+   */
+  private static GetCardTerminalsResponse bindCardTerminals(
+      KonnektorPool konnektorPool,
+      KonnektorPool.Konnektor konnektor,
+      GetCardTerminalsResponse response) {
+    if (response != null && response.getCardTerminals() != null) {
+      for (CardTerminalInfoType cardTerminal : response.getCardTerminals().getCardTerminal()) {
+        konnektorPool.bind(cardTerminal.getCtId(), konnektor);
+      }
+    }
+    return response;
+  }
+
+  private GetCardTerminals createGetCardTerminals(InvocationContext invocationContext) {
     GetCardTerminals getCardTerminals = new GetCardTerminals();
     getCardTerminals.setMandantWide(false);
     getCardTerminals.setContext(invocationContext.convertToContextType());
-    return (GetCardTerminalsResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineEventServiceEndpoint(),
-                getCardTerminals,
-                new SoapActionCallback(SOAP_ACTION_GET_CARD_TERMINALS));
+    return getCardTerminals;
   }
 }
@@ -18,15 +18,17 @@ package de.gematik.rezeps.cardterminal;
 
 import de.gematik.rezeps.InvocationContext;
 import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorPool;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.cardterminalservice.v1.RequestCard;
 import de.gematik.ws.conn.cardterminalservice.v1.RequestCardResponse;
 import de.gematik.ws.conn.cardterminalservice.v1.Slot;
 import java.io.IOException;
 import java.math.BigInteger;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformRequestCard extends WebServiceGatewaySupport {
+public class PerformRequestCard extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_REQUEST_CARD =
       "http://ws.gematik.de/conn/CardTerminalService/v1.1#RequestCard";
@@ -41,17 +43,57 @@ public class PerformRequestCard extends WebServiceGatewaySupport {
    */
   public RequestCardResponse performRequestCard(
       InvocationContext invocationContext, String ctId, int slotNumber) throws IOException {
+    KonnektorPool konnektorPool = KonnektorHelper.determineKonnektorPool();
+    return konnektorPool.execute(
+        ctId,
+        konnektor ->
+            bindCard(
+                konnektorPool,
+                konnektor,
+                (RequestCardResponse)
+                    marshalSendAndReceive(
+                        konnektor,
+                        KonnektorService.CARD_TERMINAL_SERVICE,
+                        createRequestCard(invocationContext, ctId, slotNumber),
+                        SOAP_ACTION_REQUEST_CARD)));
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performRequestCard(InvocationContext, String, int)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<RequestCardResponse> performRequestCardAsync(
+      InvocationContext invocationContext, String ctId, int slotNumber) throws IOException {
+    KonnektorPool konnektorPool = KonnektorHelper.determineKonnektorPool();
+    return konnektorPool.executeAsync(
+        ctId,
+        konnektor ->
+            this.<RequestCardResponse>marshalSendAndReceiveAsync(
+                    konnektor.determineEndpoint(KonnektorService.CARD_TERMINAL_SERVICE),
+                    createRequestCard(invocationContext, ctId, slotNumber),
+                    SOAP_ACTION_REQUEST_CARD)
+                .thenApply(response -> bindCard(konnektorPool, konnektor, response)));
+  }
+
+  private static RequestCardResponse bindCard(
+      KonnektorPool konnektorPool,
+      KonnektorPool.Konnektor konnektor,
+      RequestCardResponse response) {
+    if (response != null && response.getCard() != null) {
+      konnektorPool.bind(response.getCard().getCardHandle(), konnektor);
+    }
+    return response;
+  }
+
+  private RequestCard createRequestCard(
+      InvocationContext invocationContext, String ctId, int slotNumber) {
     RequestCard requestCard = new RequestCard();
     requestCard.setContext(invocationContext.convertToContextType());
     Slot slot = new Slot();
     slot.setSlotId(BigInteger.valueOf(slotNumber));
     slot.setCtId(ctId);
     requestCard.setSlot(slot);
-    return (RequestCardResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineCardTerminalServiceEndpoint(),
-                requestCard,
-                new SoapActionCallback(SOAP_ACTION_REQUEST_CARD));
+    return requestCard;
   }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.certificate;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.card.CardRegistry;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.rezeps.event.EventObserver;
+import de.gematik.rezeps.util.CommonUtils;
+import de.gematik.ws.conn.cardservice.v8.CardInfoType;
+import de.gematik.ws.conn.certificateservice.v6.ReadCardCertificateResponse;
+import de.gematik.ws.conn.certificateservicecommon.v2.CertRefEnum;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hält die bereits geparsten Zertifikate der Karten je ICCSN und Zertifikatsreferenz (AUT, ENC,
+ * QES, ...), damit z.B. das AUT-Zertifikat nicht bei jeder Token-Anforderung erneut per
+ * ReadCardCertificate gelesen werden muss. Es werden alle Zertifikate eines Aufrufs gehalten. Ein
+ * Eintrag verfällt, sobald das erste seiner Zertifikate abläuft (notAfter) oder die Karte gezogen
+ * wird. Lässt sich die ICCSN nicht über die {@link CardRegistry} ermitteln, wird das Handle der
+ * Karte als Schlüssel verwendet.
+ */
+@Component
+public class CardCertificateCache implements EventObserver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CardCertificateCache.class);
+
+  @Autowired PerformReadCardCertificate performReadCardCertificate;
+
+  @Autowired(required = false)
+  CardRegistry cardRegistry;
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, String> cardIdsByHandle = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Liefert die Zertifikate einer Karte zu einer Zertifikatsreferenz. Liegen keine gültigen
+   * Zertifikate vor, werden sie beim Konnektor gelesen und gemerkt.
+   *
+   * @param invocationContext Der Aufrufkontext über den die Karte zugegriffen werden kann.
+   * @param cardHandle Das Handle der Karte.
+   * @param certRef Die Referenz der Zertifikate.
+   * @return Die Zertifikate in der Reihenfolge des Konnektors, leer falls der Konnektor keine
+   *     liefert.
+   */
+  public List<X509Certificate> getCertificates(
+      InvocationContext invocationContext, String cardHandle, CertRefEnum certRef)
+      throws IOException, CertificateException {
+    String key = determineKey(determineCardId(invocationContext, cardHandle), certRef);
+    Entry entry = entries.get(key);
+    if (entry != null && clock.getAsLong() < entry.notAfterMillis) {
+      hits.increment();
+      return entry.certificates;
+    }
+    if (entry != null && entries.remove(key, entry)) {
+      evictions.increment();
+    }
+    misses.increment();
+
+    ReadCardCertificateResponse readCardCertificateResponse =
+        performReadCardCertificate.performReadCardCertificate(
+            invocationContext, cardHandle, certRef);
+    List<X509Certificate> certificates =
+        CardCertificateReader.determineCertificates(readCardCertificateResponse);
+    if (!certificates.isEmpty()) {
+      entries.put(key, new Entry(certificates));
+    }
+    return certificates;
+  }
+
+  /** Verwirft alle gemerkten Zertifikate. */
+  public void clear() {
+    entries.clear();
+    cardIdsByHandle.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public void observeEvent(Event event) {
+    if (!EventHelper.TOPIC_CARD_REMOVED.equals(event.getTopic())) {
+      return;
+    }
+    String cardHandle = EventHelper.determineParameter(event, EventHelper.PARAMETER_CARD_HANDLE);
+    String cardId = cardHandle == null ? null : cardIdsByHandle.remove(cardHandle);
+    String iccsn = EventHelper.determineParameter(event, EventHelper.PARAMETER_ICCSN);
+    if (!CommonUtils.isNullOrEmpty(iccsn)) {
+      cardId = iccsn;
+    }
+    if (cardId == null) {
+      return;
+    }
+    String prefix = cardId + "\n";
+    int removed = 0;
+    for (String key : entries.keySet()) {
+      if (key.startsWith(prefix) && entries.remove(key) != null) {
+        removed++;
+      }
+    }
+    String removedCardId = cardId;
+    cardIdsByHandle.values().removeIf(removedCardId::equals);
+    if (removed > 0) {
+      evictions.add(removed);
+      LOGGER.debug(
+          MessageFormat.format(
+              "Zertifikate der Karte {0} nach dem Ziehen verworfen", removedCardId));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "CardCertificateCache'{'size={0}, hits={1}, misses={2}, evictions={3}'}'",
+        size(), getHits(), getMisses(), getEvictions());
+  }
+
+  private String determineCardId(InvocationContext invocationContext, String cardHandle)
+      throws IOException {
+    // ein Handle gilt bis zum Ziehen der Karte, die ICCSN wird daher nur einmal je Handle gesucht
+    String cardId = cardIdsByHandle.get(cardHandle);
+    if (cardId != null) {
+      return cardId;
+    }
+    cardId = cardHandle;
+    if (cardRegistry != null) {
+      CardInfoType card = cardRegistry.findCardByHandle(invocationContext, cardHandle);
+      if (card != null && !CommonUtils.isNullOrEmpty(card.getIccsn())) {
+        cardId = card.getIccsn();
+      }
+    }
+    cardIdsByHandle.put(cardHandle, cardId);
+    return cardId;
+  }
+
+  private static String determineKey(String cardId, CertRefEnum certRef) {
+    return cardId + "\n" + certRef.value();
+  }
+
+  private static class Entry {
+
+    final List<X509Certificate> certificates;
+    final long notAfterMillis;
+
+    Entry(List<X509Certificate> certificates) {
+      this.certificates = certificates;
+      long earliestNotAfter = Long.MAX_VALUE;
+      for (X509Certificate certificate : certificates) {
+        earliestNotAfter = Math.min(earliestNotAfter, certificate.getNotAfter().getTime());
+      }
+      this.notAfterMillis = earliestNotAfter;
+    }
+  }
+}
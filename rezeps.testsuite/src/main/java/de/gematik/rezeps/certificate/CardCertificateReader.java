@@ -18,10 +18,17 @@ package de.gematik.rezeps.certificate;
 
 import de.gematik.rezeps.InvocationContext;
 import de.gematik.ws.conn.certificateservice.v6.ReadCardCertificateResponse;
+import de.gematik.ws.conn.certificateservicecommon.v2.CertRefEnum;
 import de.gematik.ws.conn.certificateservicecommon.v2.X509DataInfoListType;
 import de.gematik.ws.conn.certificateservicecommon.v2.X509DataInfoListType.X509DataInfo;
 import de.gematik.ws.conn.connectorcommon.v5.Status;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -33,6 +40,9 @@ public class CardCertificateReader {
 
   @Autowired PerformReadCardCertificate performReadCardCertificate;
 
+  @Autowired(required = false)
+  CardCertificateCache cardCertificateCache;
+
   /**
    * Liest das AUT-Zertifikat einer im Konnektor verwalteten Karte.
    *
@@ -59,4 +69,61 @@ public class CardCertificateReader {
 
     return x509Certificate;
   }
+
+  /**
+   * Liefert die Zertifikate einer im Konnektor verwalteten Karte zu einer Zertifikatsreferenz.
+   * Bereits gelesene Zertifikate werden dem {@link CardCertificateCache} entnommen.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle der Karte.
+   * @param certRef Die Referenz der Zertifikate, z.B. C.AUT.
+   * @return Alle gelieferten Zertifikate, leer falls der Konnektor keine liefert.
+   */
+  public List<X509Certificate> readCardCertificates(
+      InvocationContext invocationContext, String cardHandle, CertRefEnum certRef)
+      throws IOException, CertificateException {
+    if (cardCertificateCache != null) {
+      return cardCertificateCache.getCertificates(invocationContext, cardHandle, certRef);
+    }
+    return determineCertificates(
+        performReadCardCertificate.performReadCardCertificate(
+            invocationContext, cardHandle, certRef));
+  }
+
+  /**
+   * Liefert das AUT-Zertifikat einer im Konnektor verwalteten Karte.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle der Karte.
+   * @return Das erste gelieferte AUT-Zertifikat oder null, falls keines geliefert wird.
+   */
+  public X509Certificate readAutCertificate(InvocationContext invocationContext, String cardHandle)
+      throws IOException, CertificateException {
+    List<X509Certificate> autCertificates =
+        readCardCertificates(invocationContext, cardHandle, CertRefEnum.C_AUT);
+    return autCertificates.isEmpty() ? null : autCertificates.get(0);
+  }
+
+  static List<X509Certificate> determineCertificates(
+      ReadCardCertificateResponse readCardCertificateResponse) throws CertificateException {
+    Status status = readCardCertificateResponse.getStatus();
+    if (status == null
+        || !STATUS_OK.equals(status.getResult())
+        || readCardCertificateResponse.getX509DataInfoList() == null) {
+      return Collections.emptyList();
+    }
+    CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+    List<X509Certificate> certificates = new ArrayList<>();
+    for (X509DataInfo x509DataInfo :
+        readCardCertificateResponse.getX509DataInfoList().getX509DataInfo()) {
+      if (x509DataInfo.getX509Data() != null
+          && x509DataInfo.getX509Data().getX509Certificate() != null) {
+        certificates.add(
+            (X509Certificate)
+                certificateFactory.generateCertificate(
+                    new ByteArrayInputStream(x509DataInfo.getX509Data().getX509Certificate())));
+      }
+    }
+    return Collections.unmodifiableList(certificates);
+  }
 }
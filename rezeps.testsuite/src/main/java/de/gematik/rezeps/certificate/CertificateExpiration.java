@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.certificate;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ablaufdatum eines Zertifikats einer Karte oder des Konnektors, wie es CheckCertificateExpiration
+ * liefert.
+ */
+public class CertificateExpiration {
+
+  private final String ctId;
+  private final String cardHandle;
+  private final String iccsn;
+  private final String subjectCommonName;
+  private final String serialNumber;
+  private final long notAfterMillis;
+
+  public CertificateExpiration(
+      String ctId,
+      String cardHandle,
+      String iccsn,
+      String subjectCommonName,
+      String serialNumber,
+      long notAfterMillis) {
+    this.ctId = ctId;
+    this.cardHandle = cardHandle;
+    this.iccsn = iccsn;
+    this.subjectCommonName = subjectCommonName;
+    this.serialNumber = serialNumber;
+    this.notAfterMillis = notAfterMillis;
+  }
+
+  public String getCtId() {
+    return ctId;
+  }
+
+  public String getCardHandle() {
+    return cardHandle;
+  }
+
+  public String getIccsn() {
+    return iccsn;
+  }
+
+  public String getSubjectCommonName() {
+    return subjectCommonName;
+  }
+
+  public String getSerialNumber() {
+    return serialNumber;
+  }
+
+  public long getNotAfterMillis() {
+    return notAfterMillis;
+  }
+
+  /**
+   * Liefert die Anzahl ganzer Tage bis zum Ablauf des Zertifikats.
+   *
+   * @param nowMillis Der aktuelle Zeitpunkt.
+   * @return Anzahl Tage, negativ falls das Zertifikat bereits abgelaufen ist.
+   */
+  public long getRemainingDays(long nowMillis) {
+    return Math.floorDiv(notAfterMillis - nowMillis, TimeUnit.DAYS.toMillis(1));
+  }
+
+  public boolean isExpired(long nowMillis) {
+    return notAfterMillis <= nowMillis;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CertificateExpiration that = (CertificateExpiration) o;
+    return notAfterMillis == that.notAfterMillis
+        && Objects.equals(ctId, that.ctId)
+        && Objects.equals(cardHandle, that.cardHandle)
+        && Objects.equals(iccsn, that.iccsn)
+        && Objects.equals(subjectCommonName, that.subjectCommonName)
+        && Objects.equals(serialNumber, that.serialNumber);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(ctId, cardHandle, iccsn, subjectCommonName, serialNumber, notAfterMillis);
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "CertificateExpiration'{'ctId={0}, cardHandle={1}, iccsn={2}, subjectCommonName={3},"
+            + " serialNumber={4}, notAfter={5}'}'",
+        ctId,
+        cardHandle,
+        iccsn,
+        subjectCommonName,
+        serialNumber,
+        Instant.ofEpochMilli(notAfterMillis));
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.certificate;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.ws.conn.certificateservice.v6.CertificateExpirationType;
+import de.gematik.ws.conn.certificateservice.v6.CheckCertificateExpirationResponse;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prüft im Hintergrund per CheckCertificateExpiration die Ablaufdaten der Zertifikate aller
+ * gesteckten Karten (HBA, SMC-B, ...) und des Konnektors. Je bekanntem Aufrufkontext genügt dafür
+ * ein Aufruf ohne CardHandle. Zertifikate, die innerhalb der konfigurierten Anzahl Tage ablaufen,
+ * werden im Log gemeldet, bevor z.B. ExternalAuthenticate mit einer abgelaufenen SMC-B scheitert.
+ * Das Ergebnis der letzten Prüfung steht über {@link #getCertificateExpirations()} und {@link
+ * #getExpiringCertificates()} zur Verfügung.
+ */
+@Component
+public class CertificateExpirationMonitor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CertificateExpirationMonitor.class);
+  private static final String STATUS_OK = "OK";
+
+  @Autowired PerformCheckCertificateExpiration performCheckCertificateExpiration;
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  private final Map<String, InvocationContext> invocationContexts = new ConcurrentHashMap<>();
+  private final Map<String, List<CertificateExpiration>> certificateExpirations =
+      new ConcurrentHashMap<>();
+  private final LongAdder checks = new LongAdder();
+  private final LongAdder failedChecks = new LongAdder();
+  private volatile long lastCheckMillis;
+  private ScheduledExecutorService checker;
+
+  /**
+   * Nimmt einen Aufrufkontext in die regelmäßige Prüfung auf. Ein neuer Aufrufkontext wird sofort
+   * im Hintergrund geprüft.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   */
+  public void watch(InvocationContext invocationContext) throws IOException {
+    String key = invocationContext.determineWorkplaceKey();
+    if (invocationContexts.putIfAbsent(key, invocationContext) != null) {
+      return;
+    }
+    ScheduledExecutorService currentChecker = startChecker();
+    if (currentChecker != null) {
+      currentChecker.execute(() -> check(key, invocationContext));
+    }
+  }
+
+  /** Prüft die Zertifikate aller bekannten Aufrufkontexte in einem Durchlauf. */
+  public void checkAll() {
+    for (Map.Entry<String, InvocationContext> entry : invocationContexts.entrySet()) {
+      check(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Liefert die Ablaufdaten aller bei der letzten Prüfung gemeldeten Zertifikate.
+   *
+   * @return Die Ablaufdaten, aufsteigend nach dem Ablaufdatum.
+   */
+  public List<CertificateExpiration> getCertificateExpirations() {
+    // dieselbe Karte ist ggf. in mehreren Aufrufkontexten sichtbar
+    Set<CertificateExpiration> expirations = new LinkedHashSet<>();
+    for (List<CertificateExpiration> contextExpirations : certificateExpirations.values()) {
+      expirations.addAll(contextExpirations);
+    }
+    List<CertificateExpiration> sortedExpirations = new ArrayList<>(expirations);
+    sortedExpirations.sort(Comparator.comparingLong(CertificateExpiration::getNotAfterMillis));
+    return Collections.unmodifiableList(sortedExpirations);
+  }
+
+  /**
+   * Liefert die Zertifikate, die bereits abgelaufen sind oder innerhalb der konfigurierten Anzahl
+   * Tage ablaufen.
+   *
+   * @return Die Ablaufdaten, aufsteigend nach dem Ablaufdatum.
+   */
+  public List<CertificateExpiration> getExpiringCertificates() throws IOException {
+    long warnAfterMillis = determineWarnAfterMillis(clock.getAsLong());
+    List<CertificateExpiration> expiringCertificates = new ArrayList<>();
+    for (CertificateExpiration certificateExpiration : getCertificateExpirations()) {
+      if (certificateExpiration.getNotAfterMillis() <= warnAfterMillis) {
+        expiringCertificates.add(certificateExpiration);
+      }
+    }
+    return Collections.unmodifiableList(expiringCertificates);
+  }
+
+  public long getChecks() {
+    return checks.sum();
+  }
+
+  public long getFailedChecks() {
+    return failedChecks.sum();
+  }
+
+  /**
+   * Liefert den Zeitpunkt der letzten erfolgreichen Prüfung.
+   *
+   * @return Zeitpunkt in Millisekunden seit 1970 oder 0, falls noch keine Prüfung erfolgreich war.
+   */
+  public long getLastCheckMillis() {
+    return lastCheckMillis;
+  }
+
+  /** Beendet die Prüfung im Hintergrund. */
+  @PreDestroy
+  public synchronized void stop() {
+    if (checker != null) {
+      checker.shutdownNow();
+      checker = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "CertificateExpirationMonitor'{'contexts={0}, certificates={1}, checks={2},"
+            + " failedChecks={3}'}'",
+        invocationContexts.size(),
+        getCertificateExpirations().size(),
+        getChecks(),
+        getFailedChecks());
+  }
+
+  private synchronized ScheduledExecutorService startChecker() throws IOException {
+    if (checker != null) {
+      return checker;
+    }
+    int intervalSeconds =
+        ConfigurationReader.getInstance().getCertificateExpirationCheckIntervalSeconds();
+    if (intervalSeconds <= 0) {
+      return null;
+    }
+    checker =
+        Executors.newSingleThreadScheduledExecutor(
+            KonnektorHelper.determineDaemonThreadFactory("certificate-expiration-check-"));
+    checker.scheduleWithFixedDelay(
+        this::checkAll, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    return checker;
+  }
+
+  private void check(String key, InvocationContext invocationContext) {
+    checks.increment();
+    CheckCertificateExpirationResponse response;
+    long warnAfterMillis;
+    try {
+      response =
+          performCheckCertificateExpiration.performCheckCertificateExpiration(
+              invocationContext, null);
+      warnAfterMillis = determineWarnAfterMillis(clock.getAsLong());
+    } catch (IOException | RuntimeException exception) {
+      failedChecks.increment();
+      LOGGER.warn(
+          MessageFormat.format(
+              "Ablauf der Zertifikate für Mandant {0} konnte nicht geprüft werden",
+              invocationContext.getMandant()),
+          exception);
+      return;
+    }
+    if (!isStatusOk(response.getStatus())) {
+      failedChecks.increment();
+      LOGGER.warn(
+          MessageFormat.format(
+              "Konnektor meldet Fehler bei der Prüfung der Zertifikate für Mandant {0}",
+              invocationContext.getMandant()));
+      return;
+    }
+    List<CertificateExpiration> expirations = new ArrayList<>();
+    for (CertificateExpirationType certificateExpirationType :
+        response.getCertificateExpiration()) {
+      if (certificateExpirationType.getValidity() != null) {
+        expirations.add(convert(certificateExpirationType));
+      }
+    }
+    certificateExpirations.put(key, Collections.unmodifiableList(expirations));
+    long now = clock.getAsLong();
+    lastCheckMillis = now;
+    for (CertificateExpiration certificateExpiration : expirations) {
+      if (certificateExpiration.getNotAfterMillis() <= warnAfterMillis) {
+        alert(certificateExpiration, now);
+      }
+    }
+  }
+
+  private static void alert(CertificateExpiration certificateExpiration, long now) {
+    if (certificateExpiration.isExpired(now)) {
+      LOGGER.error(
+          MessageFormat.format(
+              "Zertifikat {0} (Seriennummer {1}, ICCSN {2}) ist seit {3} abgelaufen",
+              certificateExpiration.getSubjectCommonName(),
+              certificateExpiration.getSerialNumber(),
+              certificateExpiration.getIccsn(),
+              Instant.ofEpochMilli(certificateExpiration.getNotAfterMillis())));
+    } else {
+      LOGGER.warn(
+          MessageFormat.format(
+              "Zertifikat {0} (Seriennummer {1}, ICCSN {2}) läuft in {3} Tagen ab",
+              certificateExpiration.getSubjectCommonName(),
+              certificateExpiration.getSerialNumber(),
+              certificateExpiration.getIccsn(),
+              certificateExpiration.getRemainingDays(now)));
+    }
+  }
+
+  private static long determineWarnAfterMillis(long now) throws IOException {
+    return now
+        + TimeUnit.DAYS.toMillis(
+            ConfigurationReader.getInstance().getCertificateExpirationWarnDays());
+  }
+
+  private static CertificateExpiration convert(
+      CertificateExpirationType certificateExpirationType) {
+    return new CertificateExpiration(
+        certificateExpirationType.getCtID(),
+        certificateExpirationType.getCardHandle(),
+        certificateExpirationType.getICCSN(),
+        certificateExpirationType.getSubjectCommonName(),
+        certificateExpirationType.getSerialNumber(),
+        certificateExpirationType.getValidity().toGregorianCalendar().getTimeInMillis());
+  }
+
+  private static boolean isStatusOk(Status status) {
+    return status != null && STATUS_OK.equals(status.getResult());
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.certificate;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.certificateservice.v6.CheckCertificateExpiration;
+import de.gematik.ws.conn.certificateservice.v6.CheckCertificateExpirationResponse;
+import java.io.IOException;
+
+public class PerformCheckCertificateExpiration extends KonnektorWebServiceGatewaySupport {
+
+  private static final String SOAP_ACTION_CHECK_CERTIFICATE_EXPIRATION =
+      "http://ws.gematik.de/conn/CertificateService/v6.0#CheckCertificateExpiration";
+
+  /**
+   * Lässt die Ablaufdaten von Zertifikaten vom Konnektor prüfen. Ohne CardHandle prüft der
+   * Konnektor die Zertifikate aller im Aufrufkontext sichtbaren Karten und seine eigenen
+   * Zertifikate.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param cardHandle Das Handle der zu prüfenden Karte oder null für alle Karten und den
+   *     Konnektor.
+   * @return Die Response des Konnektors.
+   */
+  public CheckCertificateExpirationResponse performCheckCertificateExpiration(
+      InvocationContext invocationContext, String cardHandle) throws IOException {
+    CheckCertificateExpiration checkCertificateExpiration = new CheckCertificateExpiration();
+    checkCertificateExpiration.setContext(invocationContext.convertToContextType());
+    checkCertificateExpiration.setCardHandle(cardHandle);
+    return (CheckCertificateExpirationResponse)
+        marshalSendAndReceive(
+            KonnektorService.CERTIFICATE_SERVICE,
+            cardHandle,
+            checkCertificateExpiration,
+            SOAP_ACTION_CHECK_CERTIFICATE_EXPIRATION);
+  }
+}
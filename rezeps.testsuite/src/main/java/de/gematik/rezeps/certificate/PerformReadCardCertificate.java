@@ -17,17 +17,17 @@
 package de.gematik.rezeps.certificate;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.certificateservice.v6.ReadCardCertificate;
 import de.gematik.ws.conn.certificateservice.v6.ReadCardCertificate.CertRefList;
 import de.gematik.ws.conn.certificateservice.v6.ReadCardCertificateResponse;
 import de.gematik.ws.conn.certificateservicecommon.v2.CertRefEnum;
 import de.gematik.ws.conn.connectorcontext.v2.ContextType;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformReadCardCertificate extends WebServiceGatewaySupport {
+public class PerformReadCardCertificate extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_READ_CARD_CERTIFICATE =
       "http://ws.gematik.de/conn/CertificateService/v6.0#ReadCardCertificate";
@@ -41,6 +41,44 @@ public class PerformReadCardCertificate extends WebServiceGatewaySupport {
    */
   public ReadCardCertificateResponse performReadCardCertificate(
       InvocationContext invocationContext, String cardHandle) throws IOException {
+    return performReadCardCertificate(invocationContext, cardHandle, CertRefEnum.C_AUT);
+  }
+
+  /**
+   * Liest die Zertifikate einer Karte zu einer Zertifikatsreferenz (AUT, ENC, QES, ...).
+   *
+   * @param invocationContext Der Aufrufkontext über den die Karte zugegriffen werden kann.
+   * @param cardHandle Das Handle der Karte, deren Zertifikate gelesen werden sollen.
+   * @param certRef Die Referenz der zu lesenden Zertifikate.
+   * @return Die gelesenen Zertifikate.
+   */
+  public ReadCardCertificateResponse performReadCardCertificate(
+      InvocationContext invocationContext, String cardHandle, CertRefEnum certRef)
+      throws IOException {
+    return (ReadCardCertificateResponse)
+        marshalSendAndReceive(
+            KonnektorService.CERTIFICATE_SERVICE,
+            cardHandle,
+            createReadCardCertificate(invocationContext, cardHandle, certRef),
+            SOAP_ACTION_READ_CARD_CERTIFICATE);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performReadCardCertificate(InvocationContext, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<ReadCardCertificateResponse> performReadCardCertificateAsync(
+      InvocationContext invocationContext, String cardHandle) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.CERTIFICATE_SERVICE,
+        cardHandle,
+        createReadCardCertificate(invocationContext, cardHandle, CertRefEnum.C_AUT),
+        SOAP_ACTION_READ_CARD_CERTIFICATE);
+  }
+
+  private ReadCardCertificate createReadCardCertificate(
+      InvocationContext invocationContext, String cardHandle, CertRefEnum certRef) {
 
     ReadCardCertificate readCardCertificate = new ReadCardCertificate();
     ContextType contextType = invocationContext.convertToContextType();
@@ -49,14 +87,9 @@ public class PerformReadCardCertificate extends WebServiceGatewaySupport {
     readCardCertificate.setCardHandle(cardHandle);
 
     CertRefList certRefList = new CertRefList();
-    certRefList.getCertRef().add(CertRefEnum.C_AUT);
+    certRefList.getCertRef().add(certRef);
     readCardCertificate.setCertRefList(certRefList);
 
-    return (ReadCardCertificateResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineCertificateServiceEndpoint(),
-                readCardCertificate,
-                new SoapActionCallback(SOAP_ACTION_READ_CARD_CERTIFICATE));
+    return readCardCertificate;
   }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.certificate;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.certificateservice.v6.VerifyCertificate;
+import de.gematik.ws.conn.certificateservice.v6.VerifyCertificateResponse;
+import java.io.IOException;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+public class PerformVerifyCertificate extends KonnektorWebServiceGatewaySupport {
+
+  private static final String SOAP_ACTION_VERIFY_CERTIFICATE =
+      "http://ws.gematik.de/conn/CertificateService/v6.0#VerifyCertificate";
+
+  /**
+   * Lässt ein X.509-Zertifikat einschließlich seines Sperrstatus vom Konnektor prüfen.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param x509Certificate Das DER-kodierte Zertifikat.
+   * @param verificationTime Zeitpunkt, zu dem das Zertifikat gültig sein muss. Bei null prüft der
+   *     Konnektor zum aktuellen Zeitpunkt.
+   * @return Die Response des Konnektors.
+   */
+  public VerifyCertificateResponse performVerifyCertificate(
+      InvocationContext invocationContext,
+      byte[] x509Certificate,
+      XMLGregorianCalendar verificationTime)
+      throws IOException {
+    VerifyCertificate verifyCertificate = new VerifyCertificate();
+    verifyCertificate.setContext(invocationContext.convertToContextType());
+    verifyCertificate.setX509Certificate(x509Certificate);
+    verifyCertificate.setVerificationTime(verificationTime);
+    return (VerifyCertificateResponse)
+        marshalSendAndReceive(
+            KonnektorService.CERTIFICATE_SERVICE,
+            null,
+            verifyCertificate,
+            SOAP_ACTION_VERIFY_CERTIFICATE);
+  }
+}
@@ -16,6 +16,7 @@
 
 package de.gematik.rezeps.certificate;
 
+import de.gematik.rezeps.JaxbMarshallerRegistry;
 import de.gematik.rezeps.KonnektorHelper;
 import de.gematik.rezeps.SoapClientInterceptor;
 import de.gematik.rezeps.WsdlContexts;
@@ -39,11 +40,7 @@ public class ReadCardCertificateConfiguration {
 
   @Bean
   public Jaxb2Marshaller readCardCertificateMarshaller() {
-    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
-    // this package must match the package in the <generatePackage> specified in
-    // pom.xml
-    marshaller.setContextPath(WsdlContexts.CERTIFICATE_SERICE_CONTEXT);
-    return marshaller;
+    return JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.CERTIFICATE_SERICE_CONTEXT);
   }
 
   @Bean
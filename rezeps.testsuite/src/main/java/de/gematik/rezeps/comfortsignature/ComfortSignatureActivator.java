@@ -17,12 +17,14 @@
 package de.gematik.rezeps.comfortsignature;
 
 import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.OperationTimeouts;
 import de.gematik.ws.conn.connectorcommon.v5.Status;
 import de.gematik.ws.conn.signatureservice.v7.ActivateComfortSignatureResponse;
 import de.gematik.ws.conn.signatureservice.v7.SignatureModeEnum;
 import java.io.IOException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.ws.client.WebServiceIOException;
 import org.springframework.ws.soap.SoapFault;
 import org.springframework.ws.soap.client.SoapFaultClientException;
 
@@ -55,6 +57,11 @@ public class ComfortSignatureActivator {
     } catch (SoapFaultClientException exception) {
       SoapFault soapFault = exception.getSoapFault();
       comfortSignatureResult.setSoapFault(soapFault.getFaultStringOrReason());
+    } catch (WebServiceIOException exception) {
+      if (OperationTimeouts.isTimeout(exception)) {
+        return ComfortSignatureResult.timedOut();
+      }
+      throw exception;
     }
     return comfortSignatureResult;
   }
@@ -16,27 +16,44 @@
 
 package de.gematik.rezeps.comfortsignature;
 
+import de.gematik.rezeps.OperationTimeouts;
 import de.gematik.ws.conn.connectorcommon.v5.Status;
 import de.gematik.ws.conn.signatureservice.v7.DeactivateComfortSignatureResponse;
 import java.io.IOException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.ws.client.WebServiceIOException;
 
 @Component
 public class ComfortSignatureDeactivator {
 
   @Autowired PerformDeactivateComfortSignature performDeactivateComfortSignature;
 
+  @Autowired(required = false)
+  ComfortSignatureSessionManager comfortSignatureSessionManager;
+
   /** Deaktiviert die Komfortsignatur für einen HBA. */
   public ComfortSignatureResult deactivateComfortSignature(String cardHandle) throws IOException {
     ComfortSignatureResult comfortSignatureResult = new ComfortSignatureResult();
 
-    DeactivateComfortSignatureResponse deactivateComfortSignatureResponse =
-        performDeactivateComfortSignature.performDeActivateComfortSignature(cardHandle);
+    DeactivateComfortSignatureResponse deactivateComfortSignatureResponse;
+    try {
+      deactivateComfortSignatureResponse =
+          performDeactivateComfortSignature.performDeActivateComfortSignature(cardHandle);
+    } catch (WebServiceIOException exception) {
+      if (OperationTimeouts.isTimeout(exception)) {
+        return ComfortSignatureResult.timedOut();
+      }
+      throw exception;
+    }
     Status status = deactivateComfortSignatureResponse.getStatus();
     if (status != null) {
       comfortSignatureResult.setStatus(status.getResult());
     }
+    if (comfortSignatureSessionManager != null
+        && ComfortSignatureResult.STATUS_OK.equals(comfortSignatureResult.getStatus())) {
+      comfortSignatureSessionManager.invalidate(cardHandle);
+    }
     return comfortSignatureResult;
   }
 }
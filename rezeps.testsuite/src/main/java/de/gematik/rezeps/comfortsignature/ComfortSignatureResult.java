@@ -24,6 +24,7 @@ import java.util.Objects;
 public class ComfortSignatureResult implements Serializable {
 
   public static final String STATUS_OK = "OK";
+  public static final String STATUS_TIMEOUT = "Timeout";
   public static final String SIGNATURE_MODE_COMFORT = "COMFORT";
   public static final String ERROR_TEXT_4018 =
       "Der HBAx hat mindestens eine Kartensitzung zu "
@@ -34,6 +35,8 @@ public class ComfortSignatureResult implements Serializable {
   private String status;
   private String signatureMode;
   private String soapFault;
+  private Integer countRemaining;
+  private Long timeRemainingMillis;
 
   public ComfortSignatureResult() {}
 
@@ -42,6 +45,26 @@ public class ComfortSignatureResult implements Serializable {
     this.signatureMode = signatureMode;
   }
 
+  /**
+   * Erzeugt das Ergebnis für einen Aufruf, auf den der Konnektor nicht rechtzeitig geantwortet hat.
+   *
+   * @return Ergebnis mit dem Status {@link #STATUS_TIMEOUT}.
+   */
+  public static ComfortSignatureResult timedOut() {
+    ComfortSignatureResult comfortSignatureResult = new ComfortSignatureResult();
+    comfortSignatureResult.setStatus(STATUS_TIMEOUT);
+    return comfortSignatureResult;
+  }
+
+  /**
+   * Prüft, ob der Aufruf wegen einer Zeitüberschreitung nicht durchgeführt wurde.
+   *
+   * @return true, falls der Konnektor nicht rechtzeitig geantwortet hat, andernfalls false.
+   */
+  public boolean isTimedOut() {
+    return STATUS_TIMEOUT.equals(status);
+  }
+
   public String getStatus() {
     return status;
   }
@@ -66,6 +89,32 @@ public class ComfortSignatureResult implements Serializable {
     this.soapFault = soapFault;
   }
 
+  /**
+   * Liefert die verbleibende Anzahl von Komfortsignaturen aus der SessionInfo von GetSignatureMode.
+   *
+   * @return Verbleibende Anzahl oder null, falls keine SessionInfo vorliegt.
+   */
+  public Integer getCountRemaining() {
+    return countRemaining;
+  }
+
+  public void setCountRemaining(Integer countRemaining) {
+    this.countRemaining = countRemaining;
+  }
+
+  /**
+   * Liefert die verbleibende Zeit für Komfortsignaturen aus der SessionInfo von GetSignatureMode.
+   *
+   * @return Verbleibende Zeit in Millisekunden oder null, falls keine SessionInfo vorliegt.
+   */
+  public Long getTimeRemainingMillis() {
+    return timeRemainingMillis;
+  }
+
+  public void setTimeRemainingMillis(Long timeRemainingMillis) {
+    this.timeRemainingMillis = timeRemainingMillis;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.comfortsignature;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Eine aktivierte Komfortsignatur eines HBAs für einen Benutzer. Das verbleibende Budget wird aus
+ * der SessionInfo von GetSignatureMode übernommen und mit jeder erstellten Signatur
+ * fortgeschrieben, ohne den Konnektor erneut abzufragen.
+ */
+public class ComfortSignatureSession {
+
+  private final String cardHandle;
+  private final String userId;
+  private final long activatedAtMillis;
+  private final AtomicInteger signaturesUsed = new AtomicInteger();
+  private final AtomicInteger signaturesReserved = new AtomicInteger();
+
+  private volatile Integer initialCountRemaining;
+  private volatile Integer countRemaining;
+  private volatile Long timeRemainingMillis;
+  private volatile long synchronizedAtMillis;
+  private volatile int signaturesUsedAtSynchronization;
+  private ComfortSignatureSession successor;
+
+  ComfortSignatureSession(String cardHandle, String userId, long activatedAtMillis) {
+    this.cardHandle = cardHandle;
+    this.userId = userId;
+    this.activatedAtMillis = activatedAtMillis;
+    this.synchronizedAtMillis = activatedAtMillis;
+  }
+
+  /**
+   * Übernimmt das verbleibende Budget aus dem Ergebnis von GetSignatureMode.
+   *
+   * @param signatureMode Ergebnis von GetSignatureMode.
+   * @param nowMillis Zeitpunkt der Abfrage.
+   */
+  synchronized void synchronize(ComfortSignatureResult signatureMode, long nowMillis) {
+    countRemaining = signatureMode.getCountRemaining();
+    if (initialCountRemaining == null) {
+      initialCountRemaining = countRemaining;
+    }
+    timeRemainingMillis = signatureMode.getTimeRemainingMillis();
+    synchronizedAtMillis = nowMillis;
+    signaturesUsedAtSynchronization = signaturesUsed.get();
+  }
+
+  void recordSignatures(int count) {
+    signaturesUsed.addAndGet(count);
+  }
+
+  void reserveSignatures(int count) {
+    signaturesReserved.addAndGet(count);
+  }
+
+  void releaseSignatures(int count) {
+    signaturesReserved.addAndGet(-count);
+  }
+
+  /**
+   * Übergibt die offenen Reservierungen an die Sitzung einer erneuten Aktivierung. Aufträge, die
+   * danach abgeschlossen werden, werden in der neuen Sitzung fortgeschrieben.
+   *
+   * @param session Die neue Sitzung.
+   */
+  synchronized void transferReservations(ComfortSignatureSession session) {
+    session.reserveSignatures(signaturesReserved.getAndSet(0));
+    successor = session;
+  }
+
+  /**
+   * Löst die Reservierung eines Auftrags auf und schreibt die erstellten Signaturen fort, nach
+   * einer erneuten Aktivierung in der neuen Sitzung.
+   *
+   * @param reservedSignatures Anzahl der reservierten Signaturen.
+   * @param signatures Anzahl der erstellten Signaturen.
+   */
+  synchronized void completeReservation(int reservedSignatures, int signatures) {
+    if (successor != null) {
+      successor.completeReservation(reservedSignatures, signatures);
+      return;
+    }
+    recordSignatures(signatures);
+    releaseSignatures(reservedSignatures);
+  }
+
+  /**
+   * Prüft, ob das verbleibende Budget für eine Anzahl weiterer Signaturen ausreicht.
+   *
+   * @param signatures Anzahl der geplanten Signaturen.
+   * @param reserveSignatures Anzahl der Signaturen, die danach mindestens verbleiben sollen.
+   * @param reserveMillis Zeit, die mindestens verbleiben soll.
+   * @param nowMillis Aktueller Zeitpunkt.
+   * @return true, falls die Signaturen ohne erneute PIN-Eingabe erstellt werden können. Ist das
+   *     Budget nicht bekannt, wird es als ausreichend angenommen.
+   */
+  public synchronized boolean isSufficient(
+      int signatures, int reserveSignatures, long reserveMillis, long nowMillis) {
+    Integer remainingSignatures = getRemainingSignatures();
+    if (remainingSignatures != null && remainingSignatures < signatures + reserveSignatures) {
+      return false;
+    }
+    Long remainingMillis = getRemainingMillis(nowMillis);
+    return remainingMillis == null || remainingMillis > reserveMillis;
+  }
+
+  /**
+   * Liefert die verbleibende Anzahl von Komfortsignaturen abzüglich der für laufende Aufträge
+   * reservierten Signaturen.
+   *
+   * @return Anzahl oder null, falls der Konnektor keine SessionInfo geliefert hat.
+   */
+  public synchronized Integer getRemainingSignatures() {
+    if (countRemaining == null) {
+      return null;
+    }
+    return Math.max(
+        0,
+        countRemaining
+            - (signaturesUsed.get() - signaturesUsedAtSynchronization)
+            - signaturesReserved.get());
+  }
+
+  /**
+   * Liefert die Anzahl von Komfortsignaturen, die direkt nach der Aktivierung zur Verfügung stand.
+   * Mehr Signaturen kann auch eine erneute Aktivierung nicht bereitstellen.
+   *
+   * @return Anzahl oder null, falls der Konnektor keine SessionInfo geliefert hat.
+   */
+  public Integer getInitialSignatures() {
+    return initialCountRemaining;
+  }
+
+  /**
+   * Liefert die verbleibende Zeit der Sitzung.
+   *
+   * @param nowMillis Aktueller Zeitpunkt.
+   * @return Zeit in Millisekunden oder null, falls der Konnektor keine SessionInfo geliefert hat.
+   */
+  public synchronized Long getRemainingMillis(long nowMillis) {
+    if (timeRemainingMillis == null) {
+      return null;
+    }
+    return Math.max(0, timeRemainingMillis - (nowMillis - synchronizedAtMillis));
+  }
+
+  public String getCardHandle() {
+    return cardHandle;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public long getActivatedAtMillis() {
+    return activatedAtMillis;
+  }
+
+  public int getSignaturesUsed() {
+    return signaturesUsed.get();
+  }
+
+  public int getSignaturesReserved() {
+    return signaturesReserved.get();
+  }
+}
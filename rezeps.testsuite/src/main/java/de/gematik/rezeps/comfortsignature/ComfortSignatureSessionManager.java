@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.comfortsignature;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.rezeps.event.EventObserver;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verwaltet die Komfortsignatur-Sitzungen je HBA und Benutzer. Vor einem Signaturauftrag wird
+ * geprüft, ob das verbleibende Budget an Signaturen und Zeit ausreicht; ist das nicht der Fall,
+ * wird die Komfortsignatur vorab neu aktiviert, damit die PIN-Eingabe nicht mitten in einem Stapel
+ * verlangt wird. Offene Reservierungen gehen dabei auf die neue Sitzung über. Wird ein HBA gezogen,
+ * endet seine Sitzung.
+ */
+@Component
+public class ComfortSignatureSessionManager implements EventObserver {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(ComfortSignatureSessionManager.class);
+  private static final char KEY_SEPARATOR = '\n';
+
+  @Autowired ComfortSignatureActivator comfortSignatureActivator;
+
+  @Autowired SignatureModeGetter signatureModeGetter;
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  private final Map<String, ComfortSignatureSession> sessions = new ConcurrentHashMap<>();
+  /** Sperren je Sitzung; sie werden entfernt, sobald keine Sitzung mehr besteht. */
+  final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+  /**
+   * Aktiviert die Komfortsignatur für einen HBA und beginnt eine neue Sitzung.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des HBAs.
+   * @return Das Ergebnis von ActivateComfortSignature.
+   */
+  public ComfortSignatureResult activate(InvocationContext invocationContext, String cardHandle)
+      throws IOException {
+    String key = determineKey(invocationContext, cardHandle);
+    return runLocked(key, () -> activate(key, invocationContext, cardHandle));
+  }
+
+  private ComfortSignatureResult activate(
+      String key, InvocationContext invocationContext, String cardHandle) throws IOException {
+    ComfortSignatureResult comfortSignatureResult =
+        comfortSignatureActivator.activateComfortSignature(invocationContext, cardHandle);
+    if (!comfortSignatureResult.isComfortSignatureActivated()) {
+      sessions.remove(key);
+      return comfortSignatureResult;
+    }
+    ComfortSignatureSession session =
+        new ComfortSignatureSession(cardHandle, invocationContext.getUser(), clock.getAsLong());
+    ComfortSignatureResult signatureMode =
+        signatureModeGetter.determineSignatureMode(cardHandle, invocationContext);
+    if (signatureMode.isComfortSignatureActivated()) {
+      session.synchronize(signatureMode, clock.getAsLong());
+    }
+    ComfortSignatureSession previousSession = sessions.get(key);
+    if (previousSession != null) {
+      previousSession.transferReservations(session);
+    }
+    sessions.put(key, session);
+    return comfortSignatureResult;
+  }
+
+  /**
+   * Stellt sicher, dass das Budget der Sitzung für die geplanten Signaturen ausreicht, aktiviert
+   * die Komfortsignatur andernfalls neu und reserviert die Signaturen im Budget. Prüfung und
+   * Reservierung erfolgen gemeinsam, damit parallele Aufträge dasselbe Budget nicht mehrfach
+   * einplanen. Für HBAs ohne Sitzung geschieht nichts.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param signatures Anzahl der geplanten Signaturen.
+   * @return Die Sitzung, in der die Signaturen reserviert wurden, oder null. Die Reservierung ist
+   *     nach dem Auftrag mit {@link #recordSignatures(ComfortSignatureSession, int, int)}
+   *     aufzulösen.
+   * @throws IllegalArgumentException Falls die Signaturen das Budget einer frischen Aktivierung
+   *     übersteigen und daher nicht ohne erneute PIN-Eingabe erstellt werden können.
+   */
+  public ComfortSignatureSession prepareSignatures(
+      InvocationContext invocationContext, String cardHandle, int signatures) throws IOException {
+    String key = determineKey(invocationContext, cardHandle);
+    if (!sessions.containsKey(key)) {
+      return null;
+    }
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    int reserveSignatures = configurationReader.getComfortSignatureReserveSignatures();
+    long reserveMillis = configurationReader.getComfortSignatureReserveSeconds() * 1000L;
+    return runLocked(
+        key,
+        () ->
+            prepareSignatures(
+                key, invocationContext, cardHandle, signatures, reserveSignatures, reserveMillis));
+  }
+
+  private ComfortSignatureSession prepareSignatures(
+      String key,
+      InvocationContext invocationContext,
+      String cardHandle,
+      int signatures,
+      int reserveSignatures,
+      long reserveMillis)
+      throws IOException {
+    ComfortSignatureSession session = sessions.get(key);
+    if (session == null) {
+      return null;
+    }
+    Integer initialSignatures = session.getInitialSignatures();
+    if (initialSignatures != null) {
+      if (signatures > initialSignatures) {
+        throw new IllegalArgumentException(
+            MessageFormat.format(
+                "{0} Signaturen übersteigen das Budget der Komfortsignatur von {1} Signaturen.",
+                signatures, initialSignatures));
+      }
+      // Ein Stapel, der das Budget einer frischen Aktivierung fast ausschöpft, darf die
+      // Reserve unterschreiten; sonst würde vor jedem Aufruf neu aktiviert.
+      reserveSignatures = Math.min(reserveSignatures, initialSignatures - signatures);
+    }
+    if (!session.isSufficient(signatures, reserveSignatures, reserveMillis, clock.getAsLong())) {
+      LOGGER.info(
+          MessageFormat.format(
+              "Budget der Komfortsignatur reicht nicht für {0} Signaturen (verbleibend {1}), "
+                  + "Komfortsignatur wird neu aktiviert.",
+              signatures, session.getRemainingSignatures()));
+      activate(key, invocationContext, cardHandle);
+      session = sessions.get(key);
+      if (session == null) {
+        return null;
+      }
+    }
+    session.reserveSignatures(signatures);
+    return session;
+  }
+
+  /**
+   * Löst die Reservierung eines Auftrags auf und schreibt das Budget der Sitzung um die tatsächlich
+   * erstellten Signaturen fort. Wurde die Komfortsignatur inzwischen neu aktiviert, geschieht das
+   * in der neuen Sitzung.
+   *
+   * @param session Die von {@link #prepareSignatures(InvocationContext, String, int)} gelieferte
+   *     Sitzung oder null.
+   * @param reservedSignatures Anzahl der reservierten Signaturen.
+   * @param signatures Anzahl der erstellten Signaturen.
+   */
+  public void recordSignatures(
+      ComfortSignatureSession session, int reservedSignatures, int signatures) {
+    if (session != null) {
+      session.completeReservation(reservedSignatures, signatures);
+    }
+  }
+
+  /**
+   * Schreibt das Budget der Sitzung um die erstellten Signaturen fort.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param signatures Anzahl der erstellten Signaturen.
+   */
+  public void recordSignatures(
+      InvocationContext invocationContext, String cardHandle, int signatures) {
+    ComfortSignatureSession session = sessions.get(determineKey(invocationContext, cardHandle));
+    if (session != null) {
+      session.recordSignatures(signatures);
+    }
+  }
+
+  /**
+   * Liefert die Sitzung eines HBAs.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des HBAs.
+   * @return Die Sitzung oder null, falls die Komfortsignatur nicht über diese Klasse aktiviert
+   *     wurde.
+   */
+  public ComfortSignatureSession getSession(
+      InvocationContext invocationContext, String cardHandle) {
+    return sessions.get(determineKey(invocationContext, cardHandle));
+  }
+
+  /**
+   * Beendet alle Sitzungen eines HBAs, z.B. nach DeactivateComfortSignature.
+   *
+   * @param cardHandle Das Handle des HBAs.
+   */
+  public void invalidate(String cardHandle) {
+    String prefix = cardHandle + KEY_SEPARATOR;
+    for (String key : sessions.keySet()) {
+      if (key.startsWith(prefix)) {
+        endSession(key);
+      }
+    }
+  }
+
+  private void endSession(String key) {
+    Object lock = locks.get(key);
+    if (lock == null) {
+      sessions.remove(key);
+      return;
+    }
+    synchronized (lock) {
+      sessions.remove(key);
+      locks.remove(key, lock);
+    }
+  }
+
+  /**
+   * Führt eine Aktion unter der Sperre einer Sitzung aus. Besteht danach keine Sitzung mehr, wird
+   * die Sperre entfernt; wer bereits auf sie gewartet hat, holt sich eine neue.
+   */
+  private <T> T runLocked(String key, LockedAction<T> action) throws IOException {
+    while (true) {
+      Object lock = locks.computeIfAbsent(key, k -> new Object());
+      synchronized (lock) {
+        if (locks.get(key) != lock) {
+          continue;
+        }
+        try {
+          return action.run();
+        } finally {
+          if (!sessions.containsKey(key)) {
+            locks.remove(key, lock);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void observeEvent(Event event) {
+    if (EventHelper.TOPIC_CARD_REMOVED.equals(event.getTopic())) {
+      String cardHandle = EventHelper.determineParameter(event, EventHelper.PARAMETER_CARD_HANDLE);
+      if (cardHandle != null) {
+        invalidate(cardHandle);
+      }
+    }
+  }
+
+  private static String determineKey(InvocationContext invocationContext, String cardHandle) {
+    return cardHandle + KEY_SEPARATOR + invocationContext.getUser();
+  }
+
+  private interface LockedAction<T> {
+
+    T run() throws IOException;
+  }
+}
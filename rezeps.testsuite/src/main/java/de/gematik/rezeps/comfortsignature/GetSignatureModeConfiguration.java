@@ -16,6 +16,7 @@
 
 package de.gematik.rezeps.comfortsignature;
 
+import de.gematik.rezeps.JaxbMarshallerRegistry;
 import de.gematik.rezeps.KonnektorHelper;
 import de.gematik.rezeps.SoapClientInterceptor;
 import de.gematik.rezeps.WsdlContexts;
@@ -39,11 +40,7 @@ public class GetSignatureModeConfiguration {
 
   @Bean
   public Jaxb2Marshaller getSignatureModeMarshaller() {
-    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
-    // this package must match the package in the <generatePackage> specified in
-    // pom.xml
-    marshaller.setPackagesToScan(WsdlContexts.SIGNATURE_SERVICE_CONTEXT);
-    return marshaller;
+    return JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT);
   }
 
   @Bean
@@ -17,14 +17,14 @@
 package de.gematik.rezeps.comfortsignature;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.signatureservice.v7.ActivateComfortSignature;
 import de.gematik.ws.conn.signatureservice.v7.ActivateComfortSignatureResponse;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformActivateComfortSignature extends WebServiceGatewaySupport {
+public class PerformActivateComfortSignature extends KonnektorWebServiceGatewaySupport {
 
   public static final String SOAP_ACTION_ACTIVATE_COMFORT_SIGNATURE =
       "http://ws.gematik.de/conn/SignatureService/v7.5#ActivateComfortSignature";
@@ -39,14 +39,33 @@ public class PerformActivateComfortSignature extends WebServiceGatewaySupport {
    */
   public ActivateComfortSignatureResponse performActivateComfortSignature(
       InvocationContext invocationContext, String cardHandle) throws IOException {
+    return (ActivateComfortSignatureResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            cardHandle,
+            createActivateComfortSignature(invocationContext, cardHandle),
+            SOAP_ACTION_ACTIVATE_COMFORT_SIGNATURE);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performActivateComfortSignature(InvocationContext, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<ActivateComfortSignatureResponse> performActivateComfortSignatureAsync(
+      InvocationContext invocationContext, String cardHandle) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        cardHandle,
+        createActivateComfortSignature(invocationContext, cardHandle),
+        SOAP_ACTION_ACTIVATE_COMFORT_SIGNATURE);
+  }
+
+  private ActivateComfortSignature createActivateComfortSignature(
+      InvocationContext invocationContext, String cardHandle) {
     ActivateComfortSignature activateComfortSignature = new ActivateComfortSignature();
     activateComfortSignature.setContext(invocationContext.convertToContextType());
     activateComfortSignature.setCardHandle(cardHandle);
-    return (ActivateComfortSignatureResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineSignatureServiceEndpoint(),
-                activateComfortSignature,
-                new SoapActionCallback(SOAP_ACTION_ACTIVATE_COMFORT_SIGNATURE));
+    return activateComfortSignature;
   }
 }
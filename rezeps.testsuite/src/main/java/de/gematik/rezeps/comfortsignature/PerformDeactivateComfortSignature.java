@@ -16,14 +16,14 @@
 
 package de.gematik.rezeps.comfortsignature;
 
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.signatureservice.v7.DeactivateComfortSignature;
 import de.gematik.ws.conn.signatureservice.v7.DeactivateComfortSignatureResponse;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformDeactivateComfortSignature extends WebServiceGatewaySupport {
+public class PerformDeactivateComfortSignature extends KonnektorWebServiceGatewaySupport {
 
   public static final String SOAP_ACTION_DEACTIVATE_COMFORT_SIGNATURE =
       "http://ws.gematik.de/conn/SignatureService/v7.5#DeactivateComfortSignature";
@@ -36,13 +36,31 @@ public class PerformDeactivateComfortSignature extends WebServiceGatewaySupport
    */
   public DeactivateComfortSignatureResponse performDeActivateComfortSignature(String cardHandle)
       throws IOException {
+    return (DeactivateComfortSignatureResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            cardHandle,
+            createDeactivateComfortSignature(cardHandle),
+            SOAP_ACTION_DEACTIVATE_COMFORT_SIGNATURE);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performDeActivateComfortSignature(String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<DeactivateComfortSignatureResponse>
+      performDeActivateComfortSignatureAsync(String cardHandle) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        cardHandle,
+        createDeactivateComfortSignature(cardHandle),
+        SOAP_ACTION_DEACTIVATE_COMFORT_SIGNATURE);
+  }
+
+  private DeactivateComfortSignature createDeactivateComfortSignature(String cardHandle) {
     DeactivateComfortSignature deactivateComfortSignature = new DeactivateComfortSignature();
     deactivateComfortSignature.getCardHandle().add(cardHandle);
-    return (DeactivateComfortSignatureResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineSignatureServiceEndpoint(),
-                deactivateComfortSignature,
-                new SoapActionCallback(SOAP_ACTION_DEACTIVATE_COMFORT_SIGNATURE));
+    return deactivateComfortSignature;
   }
 }
@@ -17,14 +17,14 @@
 package de.gematik.rezeps.comfortsignature;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.signatureservice.v7.GetSignatureMode;
 import de.gematik.ws.conn.signatureservice.v7.GetSignatureModeResponse;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformGetSignatureMode extends WebServiceGatewaySupport {
+public class PerformGetSignatureMode extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_GET_SIGNATURE_MODE =
       "http://ws.gematik.de/conn/SignatureService/v7.5#GetSignatureMode";
@@ -40,15 +40,34 @@ public class PerformGetSignatureMode extends WebServiceGatewaySupport {
    */
   public GetSignatureModeResponse performGetSignatureMode(
       String cardHandle, InvocationContext invocationContext) throws IOException {
+    return (GetSignatureModeResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            cardHandle,
+            createGetSignatureMode(cardHandle, invocationContext),
+            SOAP_ACTION_GET_SIGNATURE_MODE);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performGetSignatureMode(String, InvocationContext)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<GetSignatureModeResponse> performGetSignatureModeAsync(
+      String cardHandle, InvocationContext invocationContext) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        cardHandle,
+        createGetSignatureMode(cardHandle, invocationContext),
+        SOAP_ACTION_GET_SIGNATURE_MODE);
+  }
+
+  private GetSignatureMode createGetSignatureMode(
+      String cardHandle, InvocationContext invocationContext) {
     GetSignatureMode getSignatureMode = new GetSignatureMode();
     getSignatureMode.setCardHandle(cardHandle);
     getSignatureMode.setContext(invocationContext.convertToContextType());
 
-    return (GetSignatureModeResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineSignatureServiceEndpoint(),
-                getSignatureMode,
-                new SoapActionCallback(SOAP_ACTION_GET_SIGNATURE_MODE));
+    return getSignatureMode;
   }
 }
@@ -17,13 +17,16 @@
 package de.gematik.rezeps.comfortsignature;
 
 import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.OperationTimeouts;
 import de.gematik.ws.conn.connectorcommon.v5.Status;
 import de.gematik.ws.conn.signatureservice.v7.GetSignatureModeResponse;
 import de.gematik.ws.conn.signatureservice.v7.SessionInfo;
 import de.gematik.ws.conn.signatureservice.v7.SignatureModeEnum;
 import java.io.IOException;
+import java.util.Date;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.ws.client.WebServiceIOException;
 
 @Component
 public class SignatureModeGetter {
@@ -40,8 +43,16 @@ public class SignatureModeGetter {
   public ComfortSignatureResult determineSignatureMode(
       String cardHandle, InvocationContext invocationContext) throws IOException {
     ComfortSignatureResult comfortSignatureResult = new ComfortSignatureResult();
-    GetSignatureModeResponse getSignatureResponse =
-        performGetSignatureMode.performGetSignatureMode(cardHandle, invocationContext);
+    GetSignatureModeResponse getSignatureResponse;
+    try {
+      getSignatureResponse =
+          performGetSignatureMode.performGetSignatureMode(cardHandle, invocationContext);
+    } catch (WebServiceIOException exception) {
+      if (OperationTimeouts.isTimeout(exception)) {
+        return ComfortSignatureResult.timedOut();
+      }
+      throw exception;
+    }
     // retrieve the session information for cardHandle
     SessionInfo sessionInfo = getSignatureResponse.getSessionInfo();
     Status status = getSignatureResponse.getStatus();
@@ -51,6 +62,13 @@ public class SignatureModeGetter {
     String signatureMode =
         sessionInfo == null ? SignatureModeEnum.PIN.value() : SignatureModeEnum.COMFORT.value();
     comfortSignatureResult.setSignatureMode(signatureMode);
+    if (sessionInfo != null) {
+      comfortSignatureResult.setCountRemaining(sessionInfo.getCountRemaining());
+      if (sessionInfo.getTimeRemaining() != null) {
+        comfortSignatureResult.setTimeRemainingMillis(
+            sessionInfo.getTimeRemaining().getTimeInMillis(new Date()));
+      }
+    }
     return comfortSignatureResult;
   }
 }
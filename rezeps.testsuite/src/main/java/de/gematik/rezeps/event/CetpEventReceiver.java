@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.JaxbMarshallerRegistry;
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.WsdlContexts;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.xml.transform.stream.StreamSource;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nimmt die Ereignisse des Konnektors über CETP entgegen. Der Konnektor baut dazu eine
+ * TCP-Verbindung, optional mit TLS, zu der beim Abonnement angegebenen Adresse auf und sendet je
+ * Ereignis einen Rahmen aus der Kennung "CETP", der Länge als 4-Byte-Ganzzahl und dem Event als
+ * XML. Alle Verbindungen werden von einem Thread mit einem Selector bedient; die Ereignisse werden
+ * in einer begrenzten Warteschlange an einen zweiten Thread übergeben, der sie in der Reihenfolge
+ * ihres Eingangs weiterreicht. Ist die Warteschlange voll, werden keine weiteren Daten gelesen,
+ * sodass der Konnektor über TCP gebremst wird.
+ */
+@Component
+public class CetpEventReceiver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CetpEventReceiver.class);
+  private static final byte[] CETP_MAGIC = "CETP".getBytes(StandardCharsets.US_ASCII);
+  private static final int HEADER_LENGTH = CETP_MAGIC.length + Integer.BYTES;
+  private static final int MAX_FRAME_LENGTH = 1024 * 1024;
+  private static final int READ_BUFFER_SIZE = 16 * 1024;
+  private static final long SELECT_TIMEOUT_MILLIS = 1000;
+
+  Integer queueCapacity;
+
+  private final LongAdder receivedEvents = new LongAdder();
+  private final LongAdder rejectedFrames = new LongAdder();
+
+  private volatile boolean running;
+  private volatile boolean readPaused;
+  private Selector selector;
+  private ServerSocketChannel serverSocketChannel;
+  private SSLContext sslContext;
+  private BlockingQueue<byte[]> frames;
+  private Thread selectorThread;
+  private Thread dispatcherThread;
+
+  /**
+   * Startet den Empfang an Host und Port der konfigurierten Adresse des Ereignisempfängers. Läuft
+   * der Empfang bereits, geschieht nichts.
+   *
+   * @param eventConsumer Empfänger der eingegangenen Ereignisse.
+   * @throws IOException Wenn keine Adresse mit Host und Port konfiguriert ist oder der Port nicht
+   *     geöffnet werden kann.
+   */
+  public synchronized void start(Consumer<Event> eventConsumer) throws IOException {
+    if (running) {
+      return;
+    }
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    String eventReceiverAddress = configurationReader.getEventReceiverAddress();
+    URI eventReceiverUri = eventReceiverAddress == null ? null : URI.create(eventReceiverAddress);
+    if (eventReceiverUri == null
+        || eventReceiverUri.getHost() == null
+        || eventReceiverUri.getPort() < 0) {
+      throw new IOException(
+          MessageFormat.format(
+              "Adresse des Ereignisempfängers {0} enthält keinen Host und Port",
+              eventReceiverAddress));
+    }
+    sslContext =
+        configurationReader.isEventReceiverTls() ? createSslContext(configurationReader) : null;
+    // ein zuvor beendeter Empfang muss seinen Port freigegeben haben
+    awaitTermination();
+    frames =
+        new ArrayBlockingQueue<>(
+            Math.max(
+                1,
+                queueCapacity != null
+                    ? queueCapacity
+                    : configurationReader.getEventReceiverQueueCapacity()));
+    selector = Selector.open();
+    serverSocketChannel = ServerSocketChannel.open();
+    try {
+      serverSocketChannel.bind(
+          new InetSocketAddress(eventReceiverUri.getHost(), eventReceiverUri.getPort()));
+      serverSocketChannel.configureBlocking(false);
+      serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException exception) {
+      serverSocketChannel.close();
+      selector.close();
+      throw exception;
+    }
+    running = true;
+    selectorThread =
+        KonnektorHelper.determineDaemonThreadFactory("cetp-event-receiver-")
+            .newThread(this::select);
+    dispatcherThread =
+        KonnektorHelper.determineDaemonThreadFactory("cetp-event-dispatcher-")
+            .newThread(() -> dispatch(eventConsumer));
+    selectorThread.start();
+    dispatcherThread.start();
+    LOGGER.info(
+        MessageFormat.format(
+            "Ereignisempfänger nimmt Ereignisse an {0}:{1} entgegen",
+            eventReceiverUri.getHost(), String.valueOf(getLocalPort())));
+  }
+
+  /** Beendet den Empfang und schließt alle Verbindungen. */
+  @PreDestroy
+  public synchronized void stop() {
+    if (running) {
+      running = false;
+      selector.wakeup();
+    }
+    awaitTermination();
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Liefert den Port, an dem Ereignisse entgegengenommen werden.
+   *
+   * @return Der Port oder -1, falls der Empfang nicht läuft.
+   */
+  public int getLocalPort() {
+    ServerSocketChannel currentServerSocketChannel = serverSocketChannel;
+    return running ? currentServerSocketChannel.socket().getLocalPort() : -1;
+  }
+
+  public long getReceivedEvents() {
+    return receivedEvents.sum();
+  }
+
+  public long getRejectedFrames() {
+    return rejectedFrames.sum();
+  }
+
+  public int getQueueDepth() {
+    BlockingQueue<byte[]> currentFrames = frames;
+    return currentFrames == null ? 0 : currentFrames.size();
+  }
+
+  private void select() {
+    List<CetpConnection> pausedConnections = new ArrayList<>();
+    try {
+      while (running) {
+        selector.select(SELECT_TIMEOUT_MILLIS);
+        resume(pausedConnections);
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+          SelectionKey selectionKey = iterator.next();
+          iterator.remove();
+          handle(selectionKey, pausedConnections);
+        }
+      }
+    } catch (IOException exception) {
+      LOGGER.error("Ereignisempfänger abgebrochen", exception);
+    } finally {
+      running = false;
+      for (SelectionKey selectionKey : selector.keys()) {
+        close(selectionKey);
+      }
+      try {
+        selector.close();
+      } catch (IOException exception) {
+        LOGGER.debug("Selector des Ereignisempfängers nicht geschlossen", exception);
+      }
+    }
+  }
+
+  private void handle(SelectionKey selectionKey, List<CetpConnection> pausedConnections) {
+    try {
+      if (!selectionKey.isValid()) {
+        return;
+      }
+      if (selectionKey.isAcceptable()) {
+        accept();
+        return;
+      }
+      CetpConnection cetpConnection = (CetpConnection) selectionKey.attachment();
+      if (selectionKey.isWritable()) {
+        cetpConnection.flush();
+      }
+      if (selectionKey.isValid() && selectionKey.isReadable() && !cetpConnection.read()) {
+        pausedConnections.add(cetpConnection);
+        readPaused = true;
+      }
+    } catch (IOException | RuntimeException exception) {
+      LOGGER.warn("Verbindung des Konnektors zum Ereignisempfänger geschlossen", exception);
+      close(selectionKey);
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel socketChannel = serverSocketChannel.accept();
+    if (socketChannel == null) {
+      return;
+    }
+    socketChannel.configureBlocking(false);
+    SSLEngine sslEngine = null;
+    if (sslContext != null) {
+      sslEngine = sslContext.createSSLEngine();
+      sslEngine.setUseClientMode(false);
+      // nur Konnektoren mit einem Zertifikat aus path_to_client_truststore dürfen Ereignisse senden
+      sslEngine.setNeedClientAuth(true);
+      sslEngine.beginHandshake();
+    }
+    SelectionKey selectionKey = socketChannel.register(selector, SelectionKey.OP_READ);
+    selectionKey.attach(new CetpConnection(socketChannel, selectionKey, sslEngine));
+  }
+
+  private void resume(List<CetpConnection> pausedConnections) {
+    Iterator<CetpConnection> iterator = pausedConnections.iterator();
+    while (iterator.hasNext()) {
+      CetpConnection cetpConnection = iterator.next();
+      if (!cetpConnection.selectionKey.isValid()) {
+        iterator.remove();
+      } else if (cetpConnection.offerPendingFrames()) {
+        cetpConnection.selectionKey.interestOps(
+            cetpConnection.selectionKey.interestOps() | SelectionKey.OP_READ);
+        iterator.remove();
+      }
+    }
+    readPaused = !pausedConnections.isEmpty();
+  }
+
+  private void dispatch(Consumer<Event> eventConsumer) {
+    Jaxb2Marshaller marshaller =
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.EVENT_SERVICE_CONTEXT);
+    while (running) {
+      byte[] frame;
+      try {
+        frame = frames.take();
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (readPaused) {
+        selector.wakeup();
+      }
+      Event event;
+      try {
+        event = (Event) marshaller.unmarshal(new StreamSource(new ByteArrayInputStream(frame)));
+      } catch (XmlMappingException | ClassCastException exception) {
+        rejectedFrames.increment();
+        LOGGER.warn("Ungültiges Ereignis des Konnektors verworfen", exception);
+        continue;
+      }
+      receivedEvents.increment();
+      try {
+        eventConsumer.accept(event);
+      } catch (RuntimeException exception) {
+        LOGGER.warn(
+            MessageFormat.format("Ereignis {0} konnte nicht verarbeitet werden", event.getTopic()),
+            exception);
+      }
+    }
+  }
+
+  private static void close(SelectionKey selectionKey) {
+    selectionKey.cancel();
+    try {
+      selectionKey.channel().close();
+    } catch (IOException exception) {
+      LOGGER.debug("Verbindung des Ereignisempfängers nicht geschlossen", exception);
+    }
+  }
+
+  private void awaitTermination() {
+    try {
+      if (dispatcherThread != null) {
+        dispatcherThread.interrupt();
+        dispatcherThread.join();
+      }
+      if (selectorThread != null) {
+        selectorThread.join();
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static SSLContext createSslContext(ConfigurationReader configurationReader)
+      throws IOException {
+    String eventReceiverKeystore = configurationReader.getEventReceiverKeystore();
+    if (eventReceiverKeystore == null) {
+      throw new IOException("Kein Schlüsselspeicher für den Ereignisempfänger konfiguriert");
+    }
+    char[] keystorePassword = toCharArray(configurationReader.getEventReceiverKeystorePassword());
+    String eventReceiverTruststore = configurationReader.getEventReceiverTruststore();
+    char[] truststorePassword =
+        toCharArray(configurationReader.getEventReceiverTruststorePassword());
+    if (eventReceiverTruststore == null) {
+      eventReceiverTruststore = configurationReader.getPathToClientTruststore();
+      truststorePassword = toCharArray(configurationReader.getClientTruststorePassword());
+    }
+    try {
+      return SSLContextBuilder.create()
+          .loadKeyMaterial(new File(eventReceiverKeystore), keystorePassword, keystorePassword)
+          .loadTrustMaterial(new File(eventReceiverTruststore), truststorePassword)
+          .build();
+    } catch (GeneralSecurityException exception) {
+      throw new IOException("TLS für den Ereignisempfänger nicht verfügbar", exception);
+    }
+  }
+
+  private static char[] toCharArray(String password) {
+    return password == null ? new char[0] : password.toCharArray();
+  }
+
+  private static ByteBuffer enlarge(ByteBuffer buffer, int minimumCapacity) {
+    ByteBuffer enlargedBuffer =
+        ByteBuffer.allocate(Math.max(minimumCapacity, buffer.capacity() * 2));
+    buffer.flip();
+    enlargedBuffer.put(buffer);
+    return enlargedBuffer;
+  }
+
+  /**
+   * Eine Verbindung des Konnektors. Die Puffer befinden sich außerhalb der Methoden stets im
+   * Schreibmodus.
+   */
+  private class CetpConnection {
+
+    private final SocketChannel socketChannel;
+    private final SelectionKey selectionKey;
+    private final SSLEngine sslEngine;
+    private final Deque<byte[]> pendingFrames = new ArrayDeque<>();
+    private ByteBuffer networkInput;
+    private ByteBuffer networkOutput;
+    private ByteBuffer applicationInput;
+
+    CetpConnection(SocketChannel socketChannel, SelectionKey selectionKey, SSLEngine sslEngine) {
+      this.socketChannel = socketChannel;
+      this.selectionKey = selectionKey;
+      this.sslEngine = sslEngine;
+      if (sslEngine != null) {
+        networkInput = ByteBuffer.allocate(sslEngine.getSession().getPacketBufferSize());
+        networkOutput = ByteBuffer.allocate(sslEngine.getSession().getPacketBufferSize());
+        applicationInput =
+            ByteBuffer.allocate(
+                Math.max(READ_BUFFER_SIZE, sslEngine.getSession().getApplicationBufferSize()));
+      } else {
+        applicationInput = ByteBuffer.allocate(READ_BUFFER_SIZE);
+      }
+    }
+
+    /**
+     * Liest die verfügbaren Daten und übergibt die vollständigen Rahmen an die Warteschlange.
+     *
+     * @return false, falls die Warteschlange voll ist und das Lesen ausgesetzt wurde.
+     * @throws IOException Wenn die Daten nicht gelesen werden können oder kein gültiger Rahmen
+     *     empfangen wurde.
+     */
+    boolean read() throws IOException {
+      int bytesRead = socketChannel.read(sslEngine == null ? applicationInput : networkInput);
+      if (sslEngine != null) {
+        unwrap();
+      }
+      collectFrames();
+      if (!offerPendingFrames()) {
+        selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_READ);
+        return false;
+      }
+      // eine vom Konnektor beendete Verbindung wird erst geschlossen, wenn alle Rahmen übergeben
+      // sind
+      if (bytesRead < 0) {
+        close(selectionKey);
+      }
+      return true;
+    }
+
+    boolean offerPendingFrames() {
+      while (!pendingFrames.isEmpty()) {
+        if (!frames.offer(pendingFrames.peek())) {
+          return false;
+        }
+        pendingFrames.poll();
+      }
+      return true;
+    }
+
+    void flush() throws IOException {
+      networkOutput.flip();
+      socketChannel.write(networkOutput);
+      networkOutput.compact();
+      if (networkOutput.position() > 0) {
+        selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+      } else {
+        selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+      }
+    }
+
+    private void unwrap() throws IOException {
+      networkInput.flip();
+      try {
+        while (true) {
+          HandshakeStatus handshakeStatus = sslEngine.getHandshakeStatus();
+          if (handshakeStatus == HandshakeStatus.NEED_TASK) {
+            Runnable task;
+            while ((task = sslEngine.getDelegatedTask()) != null) {
+              task.run();
+            }
+          } else if (handshakeStatus == HandshakeStatus.NEED_WRAP) {
+            wrap();
+          } else {
+            SSLEngineResult result = sslEngine.unwrap(networkInput, applicationInput);
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+              applicationInput =
+                  enlarge(applicationInput, sslEngine.getSession().getApplicationBufferSize());
+            } else if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+              throw new IOException("TLS-Verbindung vom Konnektor beendet");
+            } else if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW
+                || !networkInput.hasRemaining()
+                    && result.getHandshakeStatus() != HandshakeStatus.NEED_TASK
+                    && result.getHandshakeStatus() != HandshakeStatus.NEED_WRAP) {
+              return;
+            }
+          }
+        }
+      } finally {
+        networkInput.compact();
+      }
+    }
+
+    private void wrap() throws IOException {
+      SSLEngineResult result = sslEngine.wrap(ByteBuffer.allocate(0), networkOutput);
+      if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+        networkOutput = enlarge(networkOutput, sslEngine.getSession().getPacketBufferSize());
+      } else if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+        throw new IOException("TLS-Verbindung vom Konnektor beendet");
+      }
+      flush();
+    }
+
+    private void collectFrames() throws IOException {
+      applicationInput.flip();
+      try {
+        while (applicationInput.remaining() >= HEADER_LENGTH) {
+          int start = applicationInput.position();
+          for (int i = 0; i < CETP_MAGIC.length; i++) {
+            if (applicationInput.get(start + i) != CETP_MAGIC[i]) {
+              rejectedFrames.increment();
+              throw new IOException("Rahmen ohne CETP-Kennung empfangen");
+            }
+          }
+          int frameLength = applicationInput.getInt(start + CETP_MAGIC.length);
+          if (frameLength < 0 || frameLength > MAX_FRAME_LENGTH) {
+            rejectedFrames.increment();
+            throw new IOException(
+                MessageFormat.format(
+                    "Rahmen mit ungültiger Länge {0} empfangen", String.valueOf(frameLength)));
+          }
+          if (applicationInput.remaining() < HEADER_LENGTH + frameLength) {
+            if (applicationInput.capacity() < HEADER_LENGTH + frameLength) {
+              ByteBuffer enlargedApplicationInput =
+                  ByteBuffer.allocate(HEADER_LENGTH + frameLength);
+              enlargedApplicationInput.put(applicationInput);
+              enlargedApplicationInput.flip();
+              applicationInput = enlargedApplicationInput;
+            }
+            return;
+          }
+          byte[] frame = new byte[frameLength];
+          applicationInput.position(start + HEADER_LENGTH);
+          applicationInput.get(frame);
+          pendingFrames.add(frame);
+        }
+      } finally {
+        applicationInput.compact();
+      }
+    }
+  }
+}
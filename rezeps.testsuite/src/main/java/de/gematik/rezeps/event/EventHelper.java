@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.ws.conn.eventservice.v7.Event;
+
+public class EventHelper {
+
+  public static final String TOPIC_CARD = "CARD";
+  public static final String TOPIC_CARD_INSERTED = "CARD/INSERTED";
+  public static final String TOPIC_CARD_REMOVED = "CARD/REMOVED";
+  public static final String TOPIC_CT = "CT";
+  public static final String TOPIC_CT_DISCONNECTED = "CT/DISCONNECTED";
+
+  public static final String PARAMETER_CARD_HANDLE = "CardHandle";
+  public static final String PARAMETER_CT_ID = "CtID";
+  public static final String PARAMETER_ICCSN = "ICCSN";
+
+  private EventHelper() {}
+
+  /**
+   * Liefert den Wert eines Parameters eines Ereignisses.
+   *
+   * @param event Das Ereignis.
+   * @param key Der Name des Parameters, z.B. CardHandle.
+   * @return Der Wert oder null, falls das Ereignis den Parameter nicht enthält.
+   */
+  public static String determineParameter(Event event, String key) {
+    if (event.getMessage() == null) {
+      return null;
+    }
+    for (Event.Message.Parameter parameter : event.getMessage().getParameter()) {
+      if (key.equals(parameter.getKey())) {
+        return parameter.getValue();
+      }
+    }
+    return null;
+  }
+}
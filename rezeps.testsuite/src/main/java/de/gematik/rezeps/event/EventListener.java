@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.ws.conn.eventservice.v7.Event;
+
+/** Empfänger der Ereignisse eines beim Konnektor abonnierten Topics. */
+public interface EventListener {
+
+  /**
+   * Verarbeitet ein Ereignis des abonnierten Topics.
+   *
+   * @param event Das vom Konnektor gesendete Ereignis.
+   */
+  void handleEvent(Event event);
+
+  /**
+   * Wird aufgerufen, wenn das Abonnement nicht verlängert werden konnte. Bis zu einem neuen
+   * Abonnement können Ereignisse verloren gehen.
+   */
+  void handleSubscriptionLost();
+}
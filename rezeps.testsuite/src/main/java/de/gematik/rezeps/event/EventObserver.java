@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.ws.conn.eventservice.v7.Event;
+
+/**
+ * Beobachter aller Ereignisse, die zu einem bestehenden Abonnement eingehen, unabhängig davon, wer
+ * das Abonnement angelegt hat. Da je Aufrufkontext abonniert wird, kann dasselbe Ereignis mehrfach
+ * eintreffen; die Verarbeitung muss daher wiederholbar sein.
+ */
+public interface EventObserver {
+
+  /**
+   * Verarbeitet ein Ereignis. Wird im Thread des Ereignisempfängers aufgerufen und sollte daher
+   * nicht blockieren.
+   *
+   * @param event Das vom Konnektor gesendete Ereignis.
+   */
+  void observeEvent(Event event);
+}
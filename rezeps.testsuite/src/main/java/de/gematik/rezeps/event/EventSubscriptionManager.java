@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import de.gematik.ws.conn.eventservice.v7.RenewSubscriptionsResponse;
+import de.gematik.ws.conn.eventservice.v7.SubscribeResponse;
+import de.gematik.ws.conn.eventservice.v7.SubscriptionRenewal;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.PreDestroy;
+import javax.xml.datatype.XMLGregorianCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verwaltet die Abonnements beim EventService des Konnektors. Vor dem ersten Abonnement wird der
+ * {@link CetpEventReceiver} gestartet; die Ereignisse, die er entgegennimmt, werden über {@link
+ * #dispatch(Event)} anhand ihrer SubscriptionID an den Empfänger des Abonnements und anschließend
+ * an alle {@link EventObserver} weitergereicht. Abonnements werden rechtzeitig vor ihrem Ablauf je
+ * Aufrufkontext gebündelt mit RenewSubscriptions verlängert; schlägt die Verlängerung fehl, wird
+ * das Abonnement verworfen und sein Empfänger benachrichtigt.
+ */
+@Component
+public class EventSubscriptionManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventSubscriptionManager.class);
+  private static final String STATUS_OK = "OK";
+
+  @Autowired(required = false)
+  PerformSubscribe performSubscribe;
+
+  @Autowired(required = false)
+  PerformRenewSubscriptions performRenewSubscriptions;
+
+  @Autowired(required = false)
+  PerformUnsubscribe performUnsubscribe;
+
+  @Autowired(required = false)
+  CetpEventReceiver cetpEventReceiver;
+
+  @Autowired(required = false)
+  List<EventObserver> eventObservers;
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+  private ScheduledExecutorService renewer;
+
+  /**
+   * Abonniert die Ereignisse eines Topics beim Konnektor.
+   *
+   * @param invocationContext Der Aufrufkontext des Abonnements.
+   * @param topic Das Topic, z.B. CARD.
+   * @param eventListener Empfänger der Ereignisse.
+   * @return Die SubscriptionID oder null, falls kein Ereignisempfänger konfiguriert ist oder der
+   *     Konnektor das Abonnement ablehnt.
+   */
+  public String subscribe(
+      InvocationContext invocationContext, String topic, EventListener eventListener)
+      throws IOException {
+    String eventReceiverAddress = ConfigurationReader.getInstance().getEventReceiverAddress();
+    if (eventReceiverAddress == null || performSubscribe == null) {
+      return null;
+    }
+    if (cetpEventReceiver != null) {
+      try {
+        cetpEventReceiver.start(this::dispatch);
+      } catch (IOException exception) {
+        LOGGER.warn("Ereignisempfänger konnte nicht gestartet werden", exception);
+        return null;
+      }
+    }
+    SubscribeResponse subscribeResponse;
+    try {
+      subscribeResponse =
+          performSubscribe.performSubscribe(invocationContext, eventReceiverAddress, topic);
+    } catch (IOException | RuntimeException exception) {
+      LOGGER.warn(
+          MessageFormat.format("Topic {0} konnte nicht abonniert werden", topic), exception);
+      return null;
+    }
+    if (!isStatusOk(subscribeResponse.getStatus())
+        || subscribeResponse.getSubscriptionID() == null) {
+      LOGGER.warn(MessageFormat.format("Topic {0} konnte nicht abonniert werden", topic));
+      return null;
+    }
+    String subscriptionId = subscribeResponse.getSubscriptionID();
+    subscriptions.put(
+        subscriptionId,
+        new Subscription(
+            subscriptionId,
+            invocationContext,
+            eventListener,
+            determineTerminationMillis(subscribeResponse.getTerminationTime())));
+    startRenewer();
+    return subscriptionId;
+  }
+
+  /**
+   * Gibt an, ob ein Abonnement besteht.
+   *
+   * @param subscriptionId Die SubscriptionID.
+   * @return true, falls das Abonnement besteht und noch nicht abgelaufen ist.
+   */
+  public boolean isSubscribed(String subscriptionId) {
+    Subscription subscription = subscriptionId == null ? null : subscriptions.get(subscriptionId);
+    return subscription != null && subscription.terminationMillis - clock.getAsLong() > 0;
+  }
+
+  /**
+   * Reicht ein empfangenes Ereignis an den Empfänger seines Abonnements weiter.
+   *
+   * @param event Das vom Konnektor gesendete Ereignis.
+   * @return true, falls zu dem Ereignis ein Abonnement besteht.
+   */
+  public boolean dispatch(Event event) {
+    Subscription subscription =
+        event.getSubscriptionID() == null ? null : subscriptions.get(event.getSubscriptionID());
+    if (subscription == null) {
+      LOGGER.debug(
+          MessageFormat.format(
+              "Ereignis {0} zu unbekanntem Abonnement {1} verworfen",
+              event.getTopic(), event.getSubscriptionID()));
+      return false;
+    }
+    try {
+      subscription.eventListener.handleEvent(event);
+    } catch (RuntimeException exception) {
+      LOGGER.warn(
+          MessageFormat.format("Ereignis {0} konnte nicht verarbeitet werden", event.getTopic()),
+          exception);
+    }
+    if (eventObservers != null) {
+      for (EventObserver eventObserver : eventObservers) {
+        try {
+          eventObserver.observeEvent(event);
+        } catch (RuntimeException exception) {
+          LOGGER.warn(
+              MessageFormat.format(
+                  "Ereignis {0} konnte nicht verarbeitet werden", event.getTopic()),
+              exception);
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Verlängert alle Abonnements, die innerhalb des konfigurierten Vorlaufs ablaufen. */
+  void renewSubscriptions() throws IOException {
+    long renewBefore =
+        clock.getAsLong()
+            + TimeUnit.SECONDS.toMillis(
+                ConfigurationReader.getInstance().getEventSubscriptionRenewAheadSeconds());
+    Map<String, List<Subscription>> dueSubscriptions = new LinkedHashMap<>();
+    for (Subscription subscription : subscriptions.values()) {
+      if (subscription.terminationMillis - renewBefore <= 0) {
+        dueSubscriptions
+            .computeIfAbsent(
+                subscription.invocationContext.determineKey(), key -> new ArrayList<>())
+            .add(subscription);
+      }
+    }
+    for (List<Subscription> contextSubscriptions : dueSubscriptions.values()) {
+      renewSubscriptions(contextSubscriptions);
+    }
+  }
+
+  /** Beendet alle Abonnements beim Konnektor. */
+  @PreDestroy
+  public void unsubscribeAll() {
+    for (Subscription subscription : new ArrayList<>(subscriptions.values())) {
+      subscriptions.remove(subscription.subscriptionId);
+      if (performUnsubscribe == null) {
+        continue;
+      }
+      try {
+        performUnsubscribe.performUnsubscribe(
+            subscription.invocationContext, subscription.subscriptionId);
+      } catch (IOException | RuntimeException exception) {
+        LOGGER.warn(
+            MessageFormat.format(
+                "Abonnement {0} konnte nicht beendet werden", subscription.subscriptionId),
+            exception);
+      }
+    }
+    synchronized (this) {
+      if (renewer != null) {
+        renewer.shutdownNow();
+        renewer = null;
+      }
+    }
+  }
+
+  private void renewSubscriptions(List<Subscription> contextSubscriptions) {
+    List<String> subscriptionIds = new ArrayList<>();
+    for (Subscription subscription : contextSubscriptions) {
+      subscriptionIds.add(subscription.subscriptionId);
+    }
+    Map<String, XMLGregorianCalendar> renewals = new HashMap<>();
+    if (performRenewSubscriptions != null) {
+      try {
+        RenewSubscriptionsResponse renewSubscriptionsResponse =
+            performRenewSubscriptions.performRenewSubscriptions(
+                contextSubscriptions.get(0).invocationContext, subscriptionIds);
+        if (isStatusOk(renewSubscriptionsResponse.getStatus())
+            && renewSubscriptionsResponse.getSubscribeRenewals() != null) {
+          for (SubscriptionRenewal subscriptionRenewal :
+              renewSubscriptionsResponse.getSubscribeRenewals().getSubscriptionRenewal()) {
+            if (subscriptionRenewal.getSubscriptionID() != null
+                && subscriptionRenewal.getTerminationTime() != null) {
+              renewals.put(
+                  subscriptionRenewal.getSubscriptionID(),
+                  subscriptionRenewal.getTerminationTime());
+            }
+          }
+        }
+      } catch (IOException | RuntimeException exception) {
+        LOGGER.warn("Abonnements konnten nicht verlängert werden", exception);
+      }
+    }
+    for (Subscription subscription : contextSubscriptions) {
+      XMLGregorianCalendar terminationTime = renewals.get(subscription.subscriptionId);
+      if (terminationTime != null) {
+        subscription.terminationMillis = determineTerminationMillis(terminationTime);
+      } else if (subscriptions.remove(subscription.subscriptionId) != null) {
+        LOGGER.warn(
+            MessageFormat.format(
+                "Abonnement {0} konnte nicht verlängert werden", subscription.subscriptionId));
+        subscription.eventListener.handleSubscriptionLost();
+      }
+    }
+  }
+
+  private synchronized void startRenewer() throws IOException {
+    if (renewer != null) {
+      return;
+    }
+    long periodSeconds =
+        Math.max(1, ConfigurationReader.getInstance().getEventSubscriptionRenewAheadSeconds() / 4);
+    renewer =
+        Executors.newSingleThreadScheduledExecutor(
+            KonnektorHelper.determineDaemonThreadFactory("event-subscription-renewer-"));
+    renewer.scheduleWithFixedDelay(
+        () -> {
+          try {
+            renewSubscriptions();
+          } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Abonnements konnten nicht verlängert werden", exception);
+          }
+        },
+        periodSeconds,
+        periodSeconds,
+        TimeUnit.SECONDS);
+  }
+
+  private static boolean isStatusOk(Status status) {
+    return status != null && STATUS_OK.equals(status.getResult());
+  }
+
+  private static long determineTerminationMillis(XMLGregorianCalendar terminationTime) {
+    return terminationTime == null
+        ? Long.MAX_VALUE
+        : terminationTime.toGregorianCalendar().getTimeInMillis();
+  }
+
+  /** Ein beim Konnektor bestehendes Abonnement. */
+  private static class Subscription {
+
+    private final String subscriptionId;
+    private final InvocationContext invocationContext;
+    private final EventListener eventListener;
+    private volatile long terminationMillis;
+
+    Subscription(
+        String subscriptionId,
+        InvocationContext invocationContext,
+        EventListener eventListener,
+        long terminationMillis) {
+      this.subscriptionId = subscriptionId;
+      this.invocationContext = invocationContext;
+      this.eventListener = eventListener;
+      this.terminationMillis = terminationMillis;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorPool;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hebt die Zuordnung von Kartenhandles und Terminal-IDs zu Konnektoren im {@link KonnektorPool}
+ * auf, sobald eine Karte gezogen oder ein Kartenterminal getrennt wird.
+ */
+@Component
+public class KonnektorAffinityObserver implements EventObserver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KonnektorAffinityObserver.class);
+
+  @Override
+  public void observeEvent(Event event) {
+    String affinityKey;
+    if (EventHelper.TOPIC_CARD_REMOVED.equals(event.getTopic())) {
+      affinityKey = EventHelper.determineParameter(event, EventHelper.PARAMETER_CARD_HANDLE);
+    } else if (EventHelper.TOPIC_CT_DISCONNECTED.equals(event.getTopic())) {
+      affinityKey = EventHelper.determineParameter(event, EventHelper.PARAMETER_CT_ID);
+    } else {
+      return;
+    }
+    if (affinityKey == null) {
+      return;
+    }
+    try {
+      KonnektorHelper.determineKonnektorPool().unbind(affinityKey);
+    } catch (IOException exception) {
+      LOGGER.warn("Zuordnung zum Konnektor konnte nicht aufgehoben werden", exception);
+    }
+  }
+}
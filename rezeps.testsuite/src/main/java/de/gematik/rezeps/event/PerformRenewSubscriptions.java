@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.eventservice.v7.RenewSubscriptions;
+import de.gematik.ws.conn.eventservice.v7.RenewSubscriptionsResponse;
+import java.io.IOException;
+import java.util.List;
+
+public class PerformRenewSubscriptions extends KonnektorWebServiceGatewaySupport {
+
+  private static final String SOAP_ACTION_RENEW_SUBSCRIPTIONS =
+      "http://ws.gematik.de/conn/EventService/v7.2#RenewSubscriptions";
+
+  /**
+   * Verlängert Abonnements eines Aufrufkontextes mit einem Aufruf.
+   *
+   * @param invocationContext Der Aufrufkontext, in dem die Abonnements angelegt wurden.
+   * @param subscriptionIds Die SubscriptionIDs der Abonnements.
+   * @return Die Response des Konnektors mit dem neuen Ablaufzeitpunkt je Abonnement.
+   */
+  public RenewSubscriptionsResponse performRenewSubscriptions(
+      InvocationContext invocationContext, List<String> subscriptionIds) throws IOException {
+    RenewSubscriptions renewSubscriptions = new RenewSubscriptions();
+    renewSubscriptions.setContext(invocationContext.convertToContextType());
+    renewSubscriptions.getSubscriptionID().addAll(subscriptionIds);
+    return (RenewSubscriptionsResponse)
+        marshalSendAndReceive(
+            KonnektorService.EVENT_SERVICE,
+            null,
+            renewSubscriptions,
+            SOAP_ACTION_RENEW_SUBSCRIPTIONS);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.eventservice.v7.Subscribe;
+import de.gematik.ws.conn.eventservice.v7.SubscribeResponse;
+import de.gematik.ws.conn.eventservice.v7.SubscriptionType;
+import java.io.IOException;
+
+public class PerformSubscribe extends KonnektorWebServiceGatewaySupport {
+
+  private static final String SOAP_ACTION_SUBSCRIBE =
+      "http://ws.gematik.de/conn/EventService/v7.2#Subscribe";
+
+  /**
+   * Meldet beim Konnektor ein Abonnement für die Ereignisse eines Topics an.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param eventTo Adresse, an die der Konnektor die Ereignisse sendet, z.B. cetp://10.0.0.5:8585.
+   * @param topic Das Topic, z.B. CARD.
+   * @return Die Response des Konnektors mit SubscriptionID und Ablaufzeitpunkt.
+   */
+  public SubscribeResponse performSubscribe(
+      InvocationContext invocationContext, String eventTo, String topic) throws IOException {
+    SubscriptionType subscriptionType = new SubscriptionType();
+    subscriptionType.setEventTo(eventTo);
+    subscriptionType.setTopic(topic);
+    Subscribe subscribe = new Subscribe();
+    subscribe.setContext(invocationContext.convertToContextType());
+    subscribe.setSubscription(subscriptionType);
+    return (SubscribeResponse)
+        marshalSendAndReceive(
+            KonnektorService.EVENT_SERVICE, null, subscribe, SOAP_ACTION_SUBSCRIBE);
+  }
+}
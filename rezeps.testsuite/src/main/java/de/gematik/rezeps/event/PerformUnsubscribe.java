@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.eventservice.v7.Unsubscribe;
+import de.gematik.ws.conn.eventservice.v7.UnsubscribeResponse;
+import java.io.IOException;
+
+public class PerformUnsubscribe extends KonnektorWebServiceGatewaySupport {
+
+  private static final String SOAP_ACTION_UNSUBSCRIBE =
+      "http://ws.gematik.de/conn/EventService/v7.2#Unsubscribe";
+
+  /**
+   * Beendet ein Abonnement.
+   *
+   * @param invocationContext Der Aufrufkontext, in dem das Abonnement angelegt wurde.
+   * @param subscriptionId Die SubscriptionID des Abonnements.
+   * @return Die Response des Konnektors.
+   */
+  public UnsubscribeResponse performUnsubscribe(
+      InvocationContext invocationContext, String subscriptionId) throws IOException {
+    Unsubscribe unsubscribe = new Unsubscribe();
+    unsubscribe.setContext(invocationContext.convertToContextType());
+    unsubscribe.setSubscriptionID(subscriptionId);
+    return (UnsubscribeResponse)
+        marshalSendAndReceive(
+            KonnektorService.EVENT_SERVICE, null, unsubscribe, SOAP_ACTION_UNSUBSCRIBE);
+  }
+}
@@ -16,6 +16,8 @@
 
 package de.gematik.rezeps.gluecode;
 
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.Deadline;
 import de.gematik.rezeps.bundle.Medication;
 import de.gematik.rezeps.bundle.Patient;
 import de.gematik.rezeps.dataexchange.*;
@@ -23,6 +25,10 @@ import de.gematik.rezeps.fd.FdClient;
 import de.gematik.rezeps.fd.TaskValidator;
 import de.gematik.rezeps.util.CommonUtils;
 import de.gematik.test.erezept.fd.fhir.adapter.CommunicationType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
@@ -56,6 +62,34 @@ public class FdClientGlueCode {
     TestcaseData.getInstance().setTaskCreateData(taskCreateData);
   }
 
+  /**
+   * Ruft den Task create mehrfach beim E-Rezept Fachdienst auf. Die Aufrufe werden über den {@link
+   * WorkflowExecutor} ausgeführt und müssen innerhalb von fachdienst_timeout_millis abgeschlossen
+   * sein.
+   *
+   * @param numberOfTasks Anzahl der zu erzeugenden Tasks.
+   * @return Die Daten der Responses.
+   */
+  public List<TaskCreateData> invokeTaskCreate(int numberOfTasks) {
+    String accessToken = TestcaseData.getInstance().getAccessTokenDispensingEntity();
+    List<Callable<TaskCreateData>> tasks = new ArrayList<>(numberOfTasks);
+    for (int i = 0; i < numberOfTasks; i++) {
+      tasks.add(() -> fdClient.invokeTaskCreate(accessToken));
+    }
+    try {
+      Deadline deadline =
+          Deadline.after(ConfigurationReader.getInstance().getFachdienstTimeoutMillis());
+      return deadline.call(
+          () -> WorkflowExecutor.getInstance().invokeAll(WorkflowExecutor.FACHDIENST, tasks));
+    } catch (InterruptedException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      Thread.currentThread().interrupt();
+    } catch (Exception exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    }
+    return Collections.emptyList();
+  }
+
   /**
    * Prüft, ob der Task create erfolgreich durchgeführt werden konnte.
    *
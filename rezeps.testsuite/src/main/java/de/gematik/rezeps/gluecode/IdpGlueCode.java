@@ -24,13 +24,16 @@ import de.gematik.rezeps.authentication.ExternalAuthenticateResult;
 import de.gematik.rezeps.authentication.ExternalAuthenticator;
 import de.gematik.rezeps.certificate.CardCertificateReader;
 import de.gematik.rezeps.util.CommonUtils;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -95,6 +98,30 @@ public class IdpGlueCode {
     }
   }
 
+  /**
+   * Holt für mehrere Karten gültige Access Token vom IDP. Die Aufrufe werden über den {@link
+   * WorkflowExecutor} ausgeführt und je Konnektor begrenzt.
+   *
+   * @param cardHandles Handles der Karten, für die Access Token ermittelt werden sollen.
+   * @return Die Access Token in der Reihenfolge der Handles.
+   */
+  public List<String> obtainAccessTokens(List<String> cardHandles) {
+    List<Callable<String>> tasks = new ArrayList<>(cardHandles.size());
+    for (String cardHandle : cardHandles) {
+      tasks.add(() -> obtainAccessTokenInternal(cardHandle).getAccessToken().getRawString());
+    }
+    try {
+      WorkflowExecutor workflowExecutor = WorkflowExecutor.getInstance();
+      return workflowExecutor.invokeAll(WorkflowExecutor.determineKonnektorIds(cardHandles), tasks);
+    } catch (IOException | ExecutionException | TimeoutException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    } catch (InterruptedException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      Thread.currentThread().interrupt();
+    }
+    return Collections.emptyList();
+  }
+
   /**
    * Holt einen gültigen Access Token für den abgebenden LE vom IDP und speichert diesen zur
    * weiteren Verwendung in der TestcaseData ab.
@@ -166,11 +193,10 @@ public class IdpGlueCode {
 
     CardCertificateReader cardCertificateReader =
         applicationContext.getBeanFactory().getBean(CardCertificateReader.class);
-    byte[] certData = cardCertificateReader.readCardCertificate(invocationContext, cardHandle);
-
-    InputStream certStream = new ByteArrayInputStream(certData);
-    CertificateFactory cf = CertificateFactory.getInstance("X.509");
-    X509Certificate cert = (X509Certificate) cf.generateCertificate(certStream);
+    X509Certificate cert = cardCertificateReader.readAutCertificate(invocationContext, cardHandle);
+    if (cert == null) {
+      throw new CertificateException("Die Karte liefert kein AUT-Zertifikat: " + cardHandle);
+    }
 
     return idpClient.login(
         cert,
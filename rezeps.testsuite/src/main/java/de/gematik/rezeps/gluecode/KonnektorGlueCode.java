@@ -36,23 +36,35 @@ import de.gematik.rezeps.cardterminal.EjectCardResult;
 import de.gematik.rezeps.cardterminal.GetCardTerminalsResult;
 import de.gematik.rezeps.cardterminal.RequestCardResult;
 import de.gematik.rezeps.certificate.CardCertificateReader;
+import de.gematik.rezeps.certificate.CertificateExpirationMonitor;
 import de.gematik.rezeps.comfortsignature.ComfortSignatureActivator;
 import de.gematik.rezeps.comfortsignature.ComfortSignatureDeactivator;
 import de.gematik.rezeps.comfortsignature.ComfortSignatureResult;
+import de.gematik.rezeps.comfortsignature.ComfortSignatureSessionManager;
 import de.gematik.rezeps.comfortsignature.SignatureModeGetter;
 import de.gematik.rezeps.dataexchange.TaskAcceptData;
 import de.gematik.rezeps.dataexchange.TaskCreateData;
 import de.gematik.rezeps.service.IPUtil;
+import de.gematik.rezeps.signature.BulkSignatureVerification;
+import de.gematik.rezeps.signature.BulkVerificationResult;
 import de.gematik.rezeps.signature.JobNumberFinder;
 import de.gematik.rezeps.signature.PrescriptionSigner;
 import de.gematik.rezeps.signature.SignDocumentResult;
 import de.gematik.rezeps.signature.SignatureVerification;
 import de.gematik.rezeps.signature.SignatureVerificationResult;
+import de.gematik.rezeps.signature.SigningScheduler;
 import de.gematik.rezeps.util.CommonUtils;
 import de.gematik.ws.conn.cardservice.v8.PinStatusEnum;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.xpath.XPathExpressionException;
@@ -247,6 +259,14 @@ public class KonnektorGlueCode {
       throws MissingPreconditionException {
     checkInvocationContext(invocationContext);
     TestcaseData.getInstance().setInvocationContext(invocationContext);
+    try {
+      applicationContext
+          .getBeanFactory()
+          .getBean(CertificateExpirationMonitor.class)
+          .watch(invocationContext);
+    } catch (IOException | RuntimeException exception) {
+      LOGGER.warn("Ablauf der Zertifikate wird nicht überwacht", exception);
+    }
   }
 
   /**
@@ -272,6 +292,113 @@ public class KonnektorGlueCode {
     }
   }
 
+  /**
+   * Signiert mehrere Verordnungsdatensätze mittels des HBAs aus TestcaseData. Für jeden Datensatz
+   * wird eine eigene Job-Nummer ermittelt. Die Aufrufe werden über den {@link WorkflowExecutor}
+   * ausgeführt und je Konnektor begrenzt.
+   *
+   * @param prescriptions Die zu signierenden Verordnungsdatensätze.
+   * @return Die Ergebnisse der Signaturen in der Reihenfolge der Verordnungsdatensätze.
+   */
+  public List<SignDocumentResult> signPrescriptions(List<String> prescriptions)
+      throws MissingPreconditionException {
+    TestcaseData testcaseData = TestcaseData.getInstance();
+    String cardHandle = testcaseData.getHbaHandle();
+    if (StringUtils.isEmpty(cardHandle)) {
+      throw new MissingPreconditionException(
+          "Es wurde kein Handle für den signierende HBA ermittelt.");
+    }
+    InvocationContext invocationContext = testcaseData.getInvocationContext();
+    checkInvocationContext(invocationContext);
+    JobNumberFinder jobNumberFinder =
+        applicationContext.getBeanFactory().getBean(JobNumberFinder.class);
+    PrescriptionSigner prescriptionSigner =
+        applicationContext.getBeanFactory().getBean(PrescriptionSigner.class);
+    List<Callable<SignDocumentResult>> tasks = new ArrayList<>(prescriptions.size());
+    for (String prescription : prescriptions) {
+      tasks.add(
+          () -> {
+            String jobNumber = jobNumberFinder.determineJobNumber(invocationContext, cardHandle);
+            return prescriptionSigner.performSignPrescription(
+                invocationContext, cardHandle, prescription, jobNumber);
+          });
+    }
+    return invokeAll(Collections.nCopies(tasks.size(), cardHandle), tasks);
+  }
+
+  /**
+   * Signiert mehrere Verordnungsdatensätze mittels des HBAs aus TestcaseData mit einem einzigen
+   * Aufruf beim Konnektor (Stapelsignatur). Alle Datensätze werden unter einer gemeinsamen
+   * Job-Nummer signiert.
+   *
+   * @param prescriptions Die zu signierenden Verordnungsdatensätze.
+   * @return Die Ergebnisse der Signaturen in der Reihenfolge der Verordnungsdatensätze oder eine
+   *     leere Liste, falls der Konnektor nicht aufgerufen werden konnte.
+   */
+  public List<SignDocumentResult> signPrescriptionBatch(List<String> prescriptions)
+      throws MissingPreconditionException {
+    TestcaseData testcaseData = TestcaseData.getInstance();
+    String cardHandle = testcaseData.getHbaHandle();
+    if (StringUtils.isEmpty(cardHandle)) {
+      throw new MissingPreconditionException(
+          "Es wurde kein Handle für den signierende HBA ermittelt.");
+    }
+    InvocationContext invocationContext = testcaseData.getInvocationContext();
+    checkInvocationContext(invocationContext);
+    try {
+      JobNumberFinder jobNumberFinder =
+          applicationContext.getBeanFactory().getBean(JobNumberFinder.class);
+      PrescriptionSigner prescriptionSigner =
+          applicationContext.getBeanFactory().getBean(PrescriptionSigner.class);
+      String jobNumber = jobNumberFinder.determineJobNumber(invocationContext, cardHandle);
+      return prescriptionSigner.performSignPrescriptions(
+          invocationContext, cardHandle, prescriptions, jobNumber);
+    } catch (IOException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Reiht mehrere Verordnungsdatensätze zur Signatur mittels des HBAs aus TestcaseData in den
+   * {@link SigningScheduler} ein und wartet auf deren Ergebnisse. Der Scheduler fasst die Aufträge
+   * aller Arbeitsplätze je HBA zu Stapeln zusammen.
+   *
+   * @param prescriptions Die zu signierenden Verordnungsdatensätze.
+   * @return Die Ergebnisse der Signaturen in der Reihenfolge der Verordnungsdatensätze oder eine
+   *     leere Liste, falls eine Signatur fehlgeschlagen ist.
+   */
+  public List<SignDocumentResult> signPrescriptionsScheduled(List<String> prescriptions)
+      throws MissingPreconditionException {
+    TestcaseData testcaseData = TestcaseData.getInstance();
+    String cardHandle = testcaseData.getHbaHandle();
+    if (StringUtils.isEmpty(cardHandle)) {
+      throw new MissingPreconditionException(
+          "Es wurde kein Handle für den signierende HBA ermittelt.");
+    }
+    InvocationContext invocationContext = testcaseData.getInvocationContext();
+    checkInvocationContext(invocationContext);
+    SigningScheduler signingScheduler =
+        applicationContext.getBeanFactory().getBean(SigningScheduler.class);
+    try {
+      List<CompletableFuture<SignDocumentResult>> futures = new ArrayList<>(prescriptions.size());
+      for (String prescription : prescriptions) {
+        futures.add(signingScheduler.submit(invocationContext, cardHandle, prescription));
+      }
+      List<SignDocumentResult> signDocumentResults = new ArrayList<>(prescriptions.size());
+      for (CompletableFuture<SignDocumentResult> future : futures) {
+        signDocumentResults.add(future.get());
+      }
+      return signDocumentResults;
+    } catch (IOException | ExecutionException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    } catch (InterruptedException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      Thread.currentThread().interrupt();
+    }
+    return Collections.emptyList();
+  }
+
   protected void checkPreconditions() throws MissingPreconditionException, TransformerException {
     TestcaseData testcaseData = TestcaseData.getInstance();
     if (StringUtils.isEmpty(testcaseData.getHbaHandle())) {
@@ -289,17 +416,22 @@ public class KonnektorGlueCode {
   }
 
   /**
-   * Bestimmt die Job-Nummer für die nächste Signatur eines Dokumentes. Die Job-Nummer wird im
-   * Objekt TestcaseData für die weitere Verarbeitung zur Verfügung gestellt.
+   * Bestimmt die Job-Nummer für die nächste Signatur eines Dokumentes. Ist bereits ein HBA
+   * ermittelt, stammt die Job-Nummer von dem Konnektor, an den er gebunden ist. Die Job-Nummer wird
+   * im Objekt TestcaseData für die weitere Verarbeitung zur Verfügung gestellt.
    */
   public void determineJobNumber() throws MissingPreconditionException {
     try {
       JobNumberFinder jobNumberFinder =
           applicationContext.getBeanFactory().getBean(JobNumberFinder.class);
-      checkInvocationContext(TestcaseData.getInstance().getInvocationContext());
+      TestcaseData testcaseData = TestcaseData.getInstance();
+      checkInvocationContext(testcaseData.getInvocationContext());
+      String cardHandle = testcaseData.getHbaHandle();
       String jobNumber =
-          jobNumberFinder.performGetJobNumber(TestcaseData.getInstance().getInvocationContext());
-      TestcaseData.getInstance().setJobNumber(jobNumber);
+          jobNumberFinder.determineJobNumber(
+              testcaseData.getInvocationContext(),
+              StringUtils.isEmpty(cardHandle) ? null : cardHandle);
+      testcaseData.setJobNumber(jobNumber);
     } catch (IOException exception) {
       LOGGER.error(exception.getMessage(), exception);
     }
@@ -328,6 +460,31 @@ public class KonnektorGlueCode {
     }
   }
 
+  /**
+   * Prüft die Signaturen mehrerer E-Rezepte mit begrenzter Parallelität.
+   *
+   * @param signedPrescriptions Die signierten E-Rezepte.
+   * @return Die Ergebnisse in der Reihenfolge der E-Rezepte mit Kennzahlen zum Durchsatz oder null,
+   *     falls die Prüfung nicht durchgeführt werden konnte.
+   */
+  public BulkVerificationResult verifySignatures(List<byte[]> signedPrescriptions)
+      throws MissingPreconditionException {
+    InvocationContext invocationContext = TestcaseData.getInstance().getInvocationContext();
+    checkInvocationContext(invocationContext);
+    BulkSignatureVerification bulkSignatureVerification =
+        applicationContext.getBeanFactory().getBean(BulkSignatureVerification.class);
+    try {
+      return bulkSignatureVerification.verifySignatures(
+          invocationContext, signedPrescriptions, null);
+    } catch (IOException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    } catch (InterruptedException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+
   /**
    * Trägt die Patient-Daten in das Bundle-Template ein. Anschließend wird das Bundle im Objekt
    * TestcaseData für die weiter Verarbeitung bereitgestellt.
@@ -659,6 +816,28 @@ public class KonnektorGlueCode {
     }
   }
 
+  /**
+   * Aktiviert die Komfortsignatur für einen HBA und verfolgt das verbleibende Budget der Sitzung.
+   * Nachfolgende Signaturaufträge aktivieren die Komfortsignatur vorab neu, bevor das Budget
+   * erschöpft ist.
+   */
+  public void activateComfortSignatureSession() throws MissingPreconditionException {
+    TestcaseData testcaseData = TestcaseData.getInstance();
+    InvocationContext invocationContext = testcaseData.getInvocationContext();
+    checkInvocationContext(invocationContext);
+    checkHbaHandle();
+
+    try {
+      ComfortSignatureSessionManager comfortSignatureSessionManager =
+          applicationContext.getBeanFactory().getBean(ComfortSignatureSessionManager.class);
+      ComfortSignatureResult comfortSignatureResult =
+          comfortSignatureSessionManager.activate(invocationContext, testcaseData.getHbaHandle());
+      testcaseData.setActivateComfortSignatureResult(comfortSignatureResult);
+    } catch (IOException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    }
+  }
+
   /**
    * Prüft, ob die Komfortsignatur erfolgreich aktiviert werden konnte.
    *
@@ -792,6 +971,38 @@ public class KonnektorGlueCode {
     determinePinStatusResult(invocationContext, testcaseData, cardHandle);
   }
 
+  /**
+   * Ermittelt den Status der PIN.QES für mehrere Karten. Die Aufrufe werden über den {@link
+   * WorkflowExecutor} ausgeführt und je Konnektor begrenzt.
+   *
+   * @param cardHandles Die Handles der zu prüfenden Karten.
+   * @return Die Ergebnisse in der Reihenfolge der Handles.
+   */
+  public List<PinStatusResult> determinePinStatusQes(List<String> cardHandles)
+      throws MissingPreconditionException {
+    InvocationContext invocationContext = TestcaseData.getInstance().getInvocationContext();
+    checkInvocationContext(invocationContext);
+    PinStatus pinStatus = applicationContext.getBeanFactory().getBean(PinStatus.class);
+    List<Callable<PinStatusResult>> tasks = new ArrayList<>(cardHandles.size());
+    for (String cardHandle : cardHandles) {
+      tasks.add(() -> pinStatus.getPinStatusResponse(invocationContext, PIN_QES, cardHandle));
+    }
+    return invokeAll(cardHandles, tasks);
+  }
+
+  private <T> List<T> invokeAll(List<String> cardHandles, List<Callable<T>> tasks) {
+    try {
+      WorkflowExecutor workflowExecutor = WorkflowExecutor.getInstance();
+      return workflowExecutor.invokeAll(WorkflowExecutor.determineKonnektorIds(cardHandles), tasks);
+    } catch (IOException | ExecutionException | TimeoutException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    } catch (InterruptedException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      Thread.currentThread().interrupt();
+    }
+    return Collections.emptyList();
+  }
+
   /**
    * Prüft, dass der Signatur-Modus "COMFORT" ist.
    *
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.gluecode;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.Deadline;
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorPool;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Führt Aufrufe des Glue-Codes parallel aus. Je Konnektor wird die Anzahl gleichzeitig laufender
+ * Aufrufe begrenzt. Im Modus "sequential" werden alle Aufrufe im aufrufenden Thread ausgeführt, im
+ * Modus "platform" in einem Thread-Pool fester Größe und im Modus "virtual" auf virtuellen Threads,
+ * sofern die Laufzeitumgebung diese unterstützt. Eine beim Aufruf gesetzte {@link Deadline} gilt
+ * auch für die parallel ausgeführten Aufrufe.
+ */
+public class WorkflowExecutor {
+
+  public static final String MODE_SEQUENTIAL = "sequential";
+  public static final String MODE_PLATFORM = "platform";
+  public static final String MODE_VIRTUAL = "virtual";
+
+  /** Schlüssel, unter dem Aufrufe des E-Rezept-Fachdienstes begrenzt werden. */
+  public static final String FACHDIENST = "fachdienst";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkflowExecutor.class);
+
+  private static WorkflowExecutor instance;
+
+  private final String mode;
+  private final ExecutorService executorService;
+  private final int maxConcurrentRequests;
+  private final Map<String, Semaphore> permitsByKonnektor = new ConcurrentHashMap<>();
+
+  WorkflowExecutor(String mode, int platformThreads, int maxConcurrentRequests) {
+    if (maxConcurrentRequests < 1) {
+      throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+    }
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    if (MODE_VIRTUAL.equalsIgnoreCase(mode)) {
+      ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+      if (virtualThreadExecutor != null) {
+        this.mode = MODE_VIRTUAL;
+        this.executorService = virtualThreadExecutor;
+        return;
+      }
+      LOGGER.warn("virtual threads are not available, falling back to platform threads");
+      mode = MODE_PLATFORM;
+    }
+    if (MODE_PLATFORM.equalsIgnoreCase(mode)) {
+      this.mode = MODE_PLATFORM;
+      this.executorService =
+          Executors.newFixedThreadPool(
+              platformThreads, KonnektorHelper.determineDaemonThreadFactory("workflow-executor-"));
+    } else {
+      if (!MODE_SEQUENTIAL.equalsIgnoreCase(mode)) {
+        LOGGER.warn(
+            MessageFormat.format("unknown workflow executor mode {0}, using sequential", mode));
+      }
+      this.mode = MODE_SEQUENTIAL;
+      this.executorService = null;
+    }
+  }
+
+  /**
+   * Liefert die Instanz der Klasse nach dem Singleton-Pattern. Modus und Begrenzung werden beim
+   * ersten Aufruf aus der Konfiguration gelesen.
+   *
+   * @return Die Instanz der Klasse.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static synchronized WorkflowExecutor getInstance() throws IOException {
+    if (instance == null) {
+      ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+      instance =
+          new WorkflowExecutor(
+              configurationReader.getWorkflowExecutorMode(),
+              configurationReader.getWorkflowExecutorPlatformThreads(),
+              configurationReader.getKonnektorMaxConcurrentRequests());
+    }
+    return instance;
+  }
+
+  /**
+   * Ermittelt den Schlüssel des Konnektors aus dem {@link KonnektorPool}, an den Aufrufe zu einem
+   * Kartenhandle gerichtet werden und unter dem diese Aufrufe begrenzt werden.
+   *
+   * @param affinityKey Kartenhandle oder Terminal-ID, oder null für einen Aufruf ohne Kartenbezug.
+   * @return Adresse des Konnektors.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static String determineKonnektorId(String affinityKey) throws IOException {
+    return KonnektorHelper.determineKonnektorPool().determineKonnektorEndpoint(affinityKey);
+  }
+
+  /**
+   * Ermittelt für mehrere Kartenhandles die Schlüssel der Konnektoren, siehe {@link
+   * #determineKonnektorId(String)}.
+   *
+   * @param affinityKeys Kartenhandles oder Terminal-IDs.
+   * @return Die Adressen der Konnektoren in der Reihenfolge der Handles.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public static List<String> determineKonnektorIds(List<String> affinityKeys) throws IOException {
+    List<String> konnektorIds = new ArrayList<>(affinityKeys.size());
+    for (String affinityKey : affinityKeys) {
+      konnektorIds.add(determineKonnektorId(affinityKey));
+    }
+    return konnektorIds;
+  }
+
+  /**
+   * Führt einen Aufruf gegen den übergebenen Konnektor aus. Sind bereits so viele Aufrufe gegen
+   * diesen Konnektor aktiv wie erlaubt, wartet der Aufruf auf eine freie Kapazität. Das Abbrechen
+   * des Future unterbricht den laufenden Aufruf und gibt dessen Kapazität sofort frei.
+   *
+   * @param konnektorId Schlüssel des Konnektors.
+   * @param task Der auszuführende Aufruf.
+   * @param <T> Typ des Ergebnisses.
+   * @return Das zukünftige Ergebnis des Aufrufes.
+   */
+  public <T> CompletableFuture<T> submit(String konnektorId, Callable<T> task) {
+    Semaphore permits =
+        permitsByKonnektor.computeIfAbsent(
+            konnektorId, key -> new Semaphore(maxConcurrentRequests));
+    Deadline deadline = Deadline.current();
+    Callable<T> boundedTask = deadline == null ? task : () -> deadline.call(task);
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Permit permit = new Permit(permits);
+    if (executorService == null) {
+      callWithPermit(permit, boundedTask, result);
+      return result;
+    }
+    Future<?> execution = executorService.submit(() -> callWithPermit(permit, boundedTask, result));
+    result.whenComplete(
+        (value, throwable) -> {
+          if (result.isCancelled()) {
+            execution.cancel(true);
+            permit.release();
+          }
+        });
+    return result;
+  }
+
+  /**
+   * Führt alle Aufrufe gegen den übergebenen Konnektor aus und wartet auf deren Ergebnisse.
+   *
+   * @param konnektorId Schlüssel des Konnektors.
+   * @param tasks Die auszuführenden Aufrufe.
+   * @param <T> Typ der Ergebnisse.
+   * @return Die Ergebnisse in der Reihenfolge der Aufrufe.
+   * @throws ExecutionException Falls ein Aufruf fehlschlägt, mit dem ersten aufgetretenen Fehler.
+   * @throws InterruptedException Falls der aufrufende Thread unterbrochen wurde.
+   * @throws TimeoutException Falls die gesetzte {@link Deadline} vor Abschluss aller Aufrufe
+   *     abläuft.
+   */
+  public <T> List<T> invokeAll(String konnektorId, List<? extends Callable<T>> tasks)
+      throws ExecutionException, InterruptedException, TimeoutException {
+    return invokeAll(Collections.nCopies(tasks.size(), konnektorId), tasks);
+  }
+
+  /**
+   * Führt alle Aufrufe jeweils gegen den zugehörigen Konnektor aus und wartet auf deren Ergebnisse.
+   *
+   * @param konnektorIds Schlüssel der Konnektoren in der Reihenfolge der Aufrufe.
+   * @param tasks Die auszuführenden Aufrufe.
+   * @param <T> Typ der Ergebnisse.
+   * @return Die Ergebnisse in der Reihenfolge der Aufrufe.
+   * @throws ExecutionException Falls ein Aufruf fehlschlägt, mit dem ersten aufgetretenen Fehler.
+   * @throws InterruptedException Falls der aufrufende Thread unterbrochen wurde.
+   * @throws TimeoutException Falls die gesetzte {@link Deadline} vor Abschluss aller Aufrufe
+   *     abläuft.
+   */
+  public <T> List<T> invokeAll(List<String> konnektorIds, List<? extends Callable<T>> tasks)
+      throws ExecutionException, InterruptedException, TimeoutException {
+    if (konnektorIds.size() != tasks.size()) {
+      throw new IllegalArgumentException("Je Aufruf ist genau ein Konnektor anzugeben.");
+    }
+    Deadline deadline = Deadline.current();
+    List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+    for (int i = 0; i < tasks.size(); i++) {
+      futures.add(submit(konnektorIds.get(i), tasks.get(i)));
+    }
+    List<T> results = new ArrayList<>(tasks.size());
+    try {
+      for (CompletableFuture<T> future : futures) {
+        results.add(
+            deadline == null
+                ? future.get()
+                : future.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS));
+      }
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+    return results;
+  }
+
+  /**
+   * Liefert die Anzahl der aktuell gegen den übergebenen Konnektor laufenden Aufrufe.
+   *
+   * @param konnektorId Schlüssel des Konnektors.
+   * @return Anzahl der laufenden Aufrufe.
+   */
+  public int getActiveRequests(String konnektorId) {
+    Semaphore permits = permitsByKonnektor.get(konnektorId);
+    return permits == null ? 0 : maxConcurrentRequests - permits.availablePermits();
+  }
+
+  public String getMode() {
+    return mode;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  /** Beendet die Threads des Executors. Laufende Aufrufe werden nicht abgebrochen. */
+  public void shutdown() {
+    if (executorService != null) {
+      executorService.shutdown();
+    }
+  }
+
+  private static <T> void callWithPermit(
+      Permit permit, Callable<T> task, CompletableFuture<T> result) {
+    try {
+      T value;
+      try {
+        permit.acquire();
+        value = task.call();
+      } finally {
+        permit.release();
+      }
+      result.complete(value);
+    } catch (Exception exception) {
+      result.completeExceptionally(exception);
+    }
+  }
+
+  private static ExecutorService createVirtualThreadExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Kapazität eines Aufrufs gegen einen Konnektor. Sie wird genau einmal freigegeben, entweder nach
+   * Abschluss des Aufrufs oder sofort beim Abbrechen, auch wenn der Aufruf die Unterbrechung nicht
+   * beachtet.
+   */
+  private static class Permit {
+
+    private static final int PENDING = 0;
+    private static final int ACQUIRED = 1;
+    private static final int RELEASED = 2;
+
+    private final Semaphore permits;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    Permit(Semaphore permits) {
+      this.permits = permits;
+    }
+
+    void acquire() throws InterruptedException {
+      permits.acquire();
+      if (!state.compareAndSet(PENDING, ACQUIRED)) {
+        permits.release();
+        throw new CancellationException("Aufruf wurde abgebrochen");
+      }
+    }
+
+    void release() {
+      if (state.getAndSet(RELEASED) == ACQUIRED) {
+        permits.release();
+      }
+    }
+  }
+}
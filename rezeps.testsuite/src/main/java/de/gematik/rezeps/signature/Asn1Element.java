@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ein Element einer ASN.1-Struktur in BER- oder DER-Kodierung, soweit es für das Lesen von
+ * CMS-Signaturen nach RFC 5652 nötig ist. Unterstützt werden Tags mit einer Länge von einem Byte
+ * sowie definite und indefinite Längen.
+ */
+final class Asn1Element {
+
+  static final int TAG_INTEGER = 0x02;
+  static final int TAG_OCTET_STRING = 0x04;
+  static final int TAG_OBJECT_IDENTIFIER = 0x06;
+  static final int TAG_UTC_TIME = 0x17;
+  static final int TAG_GENERALIZED_TIME = 0x18;
+  static final int TAG_SEQUENCE = 0x30;
+  static final int TAG_SET = 0x31;
+  static final int TAG_CONTEXT_0 = 0xa0;
+  static final int TAG_CONTEXT_1 = 0xa1;
+
+  private static final int CONSTRUCTED = 0x20;
+
+  private final byte[] data;
+  private final int offset;
+  private final int tag;
+  private final int contentOffset;
+  private final int contentLength;
+  private final int end;
+  private final boolean indefiniteLength;
+  private List<Asn1Element> children;
+
+  private Asn1Element(
+      byte[] data,
+      int offset,
+      int tag,
+      int contentOffset,
+      int contentLength,
+      int end,
+      boolean indefiniteLength) {
+    this.data = data;
+    this.offset = offset;
+    this.tag = tag;
+    this.contentOffset = contentOffset;
+    this.contentLength = contentLength;
+    this.end = end;
+    this.indefiniteLength = indefiniteLength;
+  }
+
+  /**
+   * Liest das Element am Anfang der übergebenen Daten.
+   *
+   * @param data Die kodierten Daten.
+   * @return Das gelesene Element.
+   * @throws SignatureException Falls die Daten keine gültige Kodierung enthalten.
+   */
+  static Asn1Element parse(byte[] data) throws SignatureException {
+    return parse(data, 0, data.length);
+  }
+
+  private static Asn1Element parse(byte[] data, int offset, int limit) throws SignatureException {
+    if (offset + 2 > limit) {
+      throw new SignatureException("truncated ASN.1 element");
+    }
+    int tag = data[offset] & 0xff;
+    if ((tag & 0x1f) == 0x1f) {
+      throw new SignatureException("multi-byte ASN.1 tags are not supported");
+    }
+    int position = offset + 1;
+    int length = data[position++] & 0xff;
+    if (length == 0x80) {
+      if ((tag & CONSTRUCTED) == 0) {
+        throw new SignatureException("indefinite length for primitive ASN.1 element");
+      }
+      int childOffset = position;
+      while (true) {
+        if (childOffset + 2 > limit) {
+          throw new SignatureException("missing end-of-contents in ASN.1 element");
+        }
+        if (data[childOffset] == 0 && data[childOffset + 1] == 0) {
+          return new Asn1Element(
+              data, offset, tag, position, childOffset - position, childOffset + 2, true);
+        }
+        childOffset = parse(data, childOffset, limit).end;
+      }
+    }
+    if (length > 0x80) {
+      int lengthBytes = length & 0x7f;
+      if (lengthBytes > 4 || position + lengthBytes > limit) {
+        throw new SignatureException("unsupported ASN.1 length");
+      }
+      length = 0;
+      for (int i = 0; i < lengthBytes; i++) {
+        length = (length << 8) | (data[position++] & 0xff);
+      }
+      if (length < 0) {
+        throw new SignatureException("unsupported ASN.1 length");
+      }
+    }
+    if (position + length > limit) {
+      throw new SignatureException("truncated ASN.1 element");
+    }
+    return new Asn1Element(data, offset, tag, position, length, position + length, false);
+  }
+
+  int getTag() {
+    return tag;
+  }
+
+  /**
+   * Liefert die Elemente eines zusammengesetzten Elements.
+   *
+   * @return Die enthaltenen Elemente, leer für einfache Elemente.
+   */
+  List<Asn1Element> getChildren() throws SignatureException {
+    if (children == null) {
+      if ((tag & CONSTRUCTED) == 0) {
+        children = Collections.emptyList();
+      } else {
+        List<Asn1Element> elements = new ArrayList<>();
+        int childOffset = contentOffset;
+        int limit = contentOffset + contentLength;
+        while (childOffset < limit) {
+          Asn1Element child = parse(data, childOffset, limit);
+          elements.add(child);
+          childOffset = child.end;
+        }
+        children = Collections.unmodifiableList(elements);
+      }
+    }
+    return children;
+  }
+
+  /**
+   * Liefert ein enthaltenes Element.
+   *
+   * @param index Position des Elements.
+   * @return Das Element.
+   * @throws SignatureException Falls es kein Element an der Position gibt.
+   */
+  Asn1Element getChild(int index) throws SignatureException {
+    List<Asn1Element> elements = getChildren();
+    if (index >= elements.size()) {
+      throw new SignatureException("missing ASN.1 element at index " + index);
+    }
+    return elements.get(index);
+  }
+
+  /**
+   * Liefert ein enthaltenes Element und prüft dessen Tag.
+   *
+   * @param index Position des Elements.
+   * @param expectedTag Erwartetes Tag.
+   * @return Das Element.
+   * @throws SignatureException Falls das Element fehlt oder ein anderes Tag hat.
+   */
+  Asn1Element getChild(int index, int expectedTag) throws SignatureException {
+    Asn1Element child = getChild(index);
+    if (child.tag != expectedTag) {
+      throw new SignatureException(
+          String.format(
+              "unexpected ASN.1 tag 0x%02x at index %d, expected 0x%02x",
+              child.tag, index, expectedTag));
+    }
+    return child;
+  }
+
+  /**
+   * Liefert den Inhalt des Elements. Der Inhalt einer zusammengesetzten OCTET STRING (BER) wird
+   * zusammengefügt.
+   *
+   * @return Der Inhalt ohne Tag und Länge.
+   */
+  byte[] getContent() throws SignatureException {
+    if ((tag & CONSTRUCTED) != 0 && (tag & ~CONSTRUCTED) == TAG_OCTET_STRING) {
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
+      for (Asn1Element child : getChildren()) {
+        byte[] chunk = child.getContent();
+        content.write(chunk, 0, chunk.length);
+      }
+      return content.toByteArray();
+    }
+    return Arrays.copyOfRange(data, contentOffset, contentOffset + contentLength);
+  }
+
+  /**
+   * Liefert die vollständige Kodierung des Elements einschließlich Tag und Länge.
+   *
+   * @return Die Kodierung.
+   */
+  byte[] getEncoded() {
+    return Arrays.copyOfRange(data, offset, end);
+  }
+
+  /**
+   * Liefert die Kodierung des Elements mit einem anderen Tag, z.B. der SignedAttributes als SET für
+   * die Signaturprüfung.
+   *
+   * @param newTag Das zu verwendende Tag.
+   * @return Die Kodierung.
+   * @throws SignatureException Falls das Element nicht DER-kodiert ist.
+   */
+  byte[] getEncoded(int newTag) throws SignatureException {
+    if (indefiniteLength) {
+      throw new SignatureException("ASN.1 element is not DER encoded");
+    }
+    byte[] encoded = getEncoded();
+    encoded[0] = (byte) newTag;
+    return encoded;
+  }
+
+  /**
+   * Liest einen OBJECT IDENTIFIER.
+   *
+   * @return Der Object Identifier in Punktnotation, z.B. "1.2.840.113549.1.7.2".
+   */
+  String getObjectIdentifier() throws SignatureException {
+    if (tag != TAG_OBJECT_IDENTIFIER || contentLength == 0) {
+      throw new SignatureException("ASN.1 element is not an object identifier");
+    }
+    StringBuilder objectIdentifier = new StringBuilder();
+    long value = 0;
+    boolean first = true;
+    for (int i = contentOffset; i < contentOffset + contentLength; i++) {
+      value = (value << 7) | (data[i] & 0x7f);
+      if ((data[i] & 0x80) == 0) {
+        if (first) {
+          int arc = (int) Math.min(2, value / 40);
+          objectIdentifier.append(arc).append('.').append(value - 40L * arc);
+          first = false;
+        } else {
+          objectIdentifier.append('.').append(value);
+        }
+        value = 0;
+      }
+    }
+    return objectIdentifier.toString();
+  }
+
+  /**
+   * Liest einen INTEGER.
+   *
+   * @return Der Wert.
+   */
+  BigInteger getInteger() throws SignatureException {
+    if (tag != TAG_INTEGER || contentLength == 0) {
+      throw new SignatureException("ASN.1 element is not an integer");
+    }
+    return new BigInteger(getContent());
+  }
+}
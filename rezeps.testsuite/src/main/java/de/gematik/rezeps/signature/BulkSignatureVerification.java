@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.signatureservice.v7.VerifyDocumentResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifiziert die Signaturen vieler E-Rezepte, z.B. aller in einer Apotheke angenommenen
+ * Verordnungen. Die Aufrufe von VerifyDocument laufen asynchron und höchstens in der konfigurierten
+ * Anzahl gleichzeitig. Die Ergebnisse werden in der Reihenfolge der E-Rezepte gemeldet, sobald alle
+ * vorangehenden Ergebnisse vorliegen.
+ */
+@Component
+public class BulkSignatureVerification {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkSignatureVerification.class);
+
+  @Autowired PerformVerifyDocument performVerifyDocument;
+
+  Integer maxConcurrentRequests;
+  LongSupplier nanoClock = System::nanoTime;
+
+  /**
+   * Verifiziert die Signaturen mehrerer E-Rezepte.
+   *
+   * @param invocationContext Der Kontext für den Aufruf zum Konnektor.
+   * @param signedPrescriptions Die signierten Rezepte.
+   * @param resultListener Erhält Position und Ergebnis jeder Prüfung in der Reihenfolge der
+   *     Rezepte, im aufrufenden Thread. Darf null sein.
+   * @return Die Ergebnisse aller Prüfungen mit Kennzahlen zum Durchsatz.
+   * @throws InterruptedException Falls der aufrufende Thread beim Warten unterbrochen wurde. Noch
+   *     laufende Aufrufe werden abgebrochen, ebenso wenn der resultListener eine Exception wirft.
+   */
+  public BulkVerificationResult verifySignatures(
+      InvocationContext invocationContext,
+      List<byte[]> signedPrescriptions,
+      BiConsumer<Integer, SignatureVerificationResult> resultListener)
+      throws IOException, InterruptedException {
+    int concurrentRequests =
+        maxConcurrentRequests != null
+            ? maxConcurrentRequests
+            : ConfigurationReader.getInstance().getBulkVerificationMaxConcurrentRequests();
+    long startNanos = nanoClock.getAsLong();
+    Semaphore permits = new Semaphore(Math.max(1, concurrentRequests));
+    // Abbrüche müssen die Futures der Requests selbst erreichen, nicht die davon abgeleiteten
+    List<CompletableFuture<VerifyDocumentResponse>> requests =
+        new ArrayList<>(signedPrescriptions.size());
+    List<CompletableFuture<SignatureVerificationResult>> futures =
+        new ArrayList<>(signedPrescriptions.size());
+    List<SignatureVerificationResult> signatureVerificationResults =
+        new ArrayList<>(signedPrescriptions.size());
+    try {
+      for (byte[] signedPrescription : signedPrescriptions) {
+        permits.acquire();
+        CompletableFuture<VerifyDocumentResponse> request =
+            performVerifyDocument(invocationContext, signedPrescription);
+        requests.add(request);
+        CompletableFuture<SignatureVerificationResult> future = createResult(request);
+        future.whenComplete((result, throwable) -> permits.release());
+        futures.add(future);
+        publishCompleted(futures, signatureVerificationResults, resultListener, false);
+      }
+      publishCompleted(futures, signatureVerificationResults, resultListener, true);
+    } catch (InterruptedException | RuntimeException exception) {
+      requests.forEach(request -> request.cancel(true));
+      throw exception;
+    }
+    BulkVerificationResult bulkVerificationResult =
+        new BulkVerificationResult(
+            signatureVerificationResults,
+            TimeUnit.NANOSECONDS.toMillis(nanoClock.getAsLong() - startNanos));
+    LOGGER.info(bulkVerificationResult.toString());
+    return bulkVerificationResult;
+  }
+
+  private CompletableFuture<VerifyDocumentResponse> performVerifyDocument(
+      InvocationContext invocationContext, byte[] signedPrescription) {
+    try {
+      return performVerifyDocument.performVerifyDocumentAsync(
+          invocationContext, signedPrescription);
+    } catch (IOException | RuntimeException exception) {
+      CompletableFuture<VerifyDocumentResponse> failed = new CompletableFuture<>();
+      failed.completeExceptionally(exception);
+      return failed;
+    }
+  }
+
+  private static CompletableFuture<SignatureVerificationResult> createResult(
+      CompletableFuture<VerifyDocumentResponse> verifyDocumentResponse) {
+    return verifyDocumentResponse.handle(
+        (response, throwable) -> {
+          if (throwable != null) {
+            LOGGER.error(throwable.getMessage(), throwable);
+            return new SignatureVerificationResult(null, null);
+          }
+          return SignatureVerification.createSignatureVerificationResult(response);
+        });
+  }
+
+  private static void publishCompleted(
+      List<CompletableFuture<SignatureVerificationResult>> futures,
+      List<SignatureVerificationResult> signatureVerificationResults,
+      BiConsumer<Integer, SignatureVerificationResult> resultListener,
+      boolean waitForAll)
+      throws InterruptedException {
+    while (signatureVerificationResults.size() < futures.size()) {
+      int index = signatureVerificationResults.size();
+      CompletableFuture<SignatureVerificationResult> future = futures.get(index);
+      if (!waitForAll && !future.isDone()) {
+        return;
+      }
+      SignatureVerificationResult signatureVerificationResult;
+      try {
+        signatureVerificationResult = future.get();
+      } catch (ExecutionException exception) {
+        LOGGER.error(exception.getMessage(), exception);
+        signatureVerificationResult = new SignatureVerificationResult(null, null);
+      }
+      signatureVerificationResults.add(signatureVerificationResult);
+      if (resultListener != null) {
+        resultListener.accept(index, signatureVerificationResult);
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
+
+/** Ergebnis der Signaturprüfung mehrerer E-Rezepte mit Kennzahlen zum Durchsatz. */
+public class BulkVerificationResult {
+
+  private final List<SignatureVerificationResult> signatureVerificationResults;
+  private final long elapsedMillis;
+
+  public BulkVerificationResult(
+      List<SignatureVerificationResult> signatureVerificationResults, long elapsedMillis) {
+    this.signatureVerificationResults = Collections.unmodifiableList(signatureVerificationResults);
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  /**
+   * Liefert die Ergebnisse der einzelnen Prüfungen.
+   *
+   * @return Die Ergebnisse in der Reihenfolge der geprüften E-Rezepte. Konnte der Konnektor für ein
+   *     E-Rezept nicht aufgerufen werden, sind Status und High Level Result des Ergebnisses null.
+   */
+  public List<SignatureVerificationResult> getSignatureVerificationResults() {
+    return signatureVerificationResults;
+  }
+
+  public int getDocuments() {
+    return signatureVerificationResults.size();
+  }
+
+  /**
+   * Liefert die Anzahl der E-Rezepte mit gültiger Signatur.
+   *
+   * @return Anzahl der E-Rezepte mit Status "OK" und High Level Result "VALID".
+   */
+  public int getValidDocuments() {
+    int validDocuments = 0;
+    for (SignatureVerificationResult signatureVerificationResult : signatureVerificationResults) {
+      if (signatureVerificationResult.isValidSignature()) {
+        validDocuments++;
+      }
+    }
+    return validDocuments;
+  }
+
+  /**
+   * Liefert die Anzahl der E-Rezepte, für die der Konnektor kein Prüfergebnis geliefert hat.
+   *
+   * @return Anzahl der fehlgeschlagenen Aufrufe.
+   */
+  public int getFailedDocuments() {
+    int failedDocuments = 0;
+    for (SignatureVerificationResult signatureVerificationResult : signatureVerificationResults) {
+      if (signatureVerificationResult.getStatus() == null) {
+        failedDocuments++;
+      }
+    }
+    return failedDocuments;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  /**
+   * Liefert den Durchsatz der Prüfung.
+   *
+   * @return Geprüfte E-Rezepte je Sekunde.
+   */
+  public double getDocumentsPerSecond() {
+    return elapsedMillis == 0 ? 0 : getDocuments() * 1000.0 / elapsedMillis;
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "BulkVerificationResult'{'documents={0}, valid={1}, failed={2}, elapsedMillis={3},"
+            + " documentsPerSecond={4,number,#.#}'}'",
+        getDocuments(),
+        getValidDocuments(),
+        getFailedDocuments(),
+        elapsedMillis,
+        getDocumentsPerSecond());
+  }
+}
@@ -16,8 +16,10 @@
 
 package de.gematik.rezeps.signature;
 
+import de.gematik.rezeps.JaxbMarshallerRegistry;
 import de.gematik.rezeps.KonnektorHelper;
 import de.gematik.rezeps.SoapClientInterceptor;
+import de.gematik.rezeps.WsdlContexts;
 import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
@@ -41,17 +43,12 @@ public class GetJobNumberConfiguration {
 
   @Bean
   public Jaxb2Marshaller getJobNumberMarshaller() {
-    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
-    // this package must match the package in the <generatePackage> specified in
-    // pom.xml
-    marshaller.setPackagesToScan("de.gematik.ws.conn.signatureservice.v7_4");
-
     Map<String, Object> map = new HashMap<>();
     map.put(Marshaller.JAXB_FORMATTED_OUTPUT, true);
     map.put(Marshaller.JAXB_ENCODING, "UTF-8");
     map.put(Marshaller.JAXB_FRAGMENT, true);
-    marshaller.setMarshallerProperties(map);
-    return marshaller;
+    return JaxbMarshallerRegistry.determineMarshaller(
+        WsdlContexts.AUTH_SIGNATURE_SERVICE_CONTEXT, map);
   }
 
   @Bean
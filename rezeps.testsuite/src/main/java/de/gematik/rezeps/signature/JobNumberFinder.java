@@ -28,6 +28,9 @@ public class JobNumberFinder {
 
   @Autowired PerformGetJobNumber performGetJobNumber;
 
+  @Autowired(required = false)
+  JobNumberPool jobNumberPool;
+
   /**
    * Erfragt beim Konnektor die nächste Job-Nummer zum Signieren eines Dokumentes.
    *
@@ -39,4 +42,21 @@ public class JobNumberFinder {
         performGetJobNumber.performGetJobNumber(invocationContext);
     return getJobNumberResponse.getJobNumber();
   }
+
+  /**
+   * Liefert die nächste Job-Nummer zum Signieren eines Dokumentes aus dem {@link JobNumberPool}.
+   * Steht kein Vorrat zur Verfügung, wird die Job-Nummer direkt beim Konnektor erfragt. Die
+   * Job-Nummer stammt von dem Konnektor, an den der signierende HBA gebunden ist.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param cardHandle Handle des signierenden HBAs oder null, falls noch kein HBA bekannt ist.
+   * @return Die nächste Job-Nummer zum Signieren eines Dokumentes.
+   */
+  public String determineJobNumber(InvocationContext invocationContext, String cardHandle)
+      throws IOException {
+    if (jobNumberPool == null) {
+      return performGetJobNumber.performGetJobNumber(invocationContext, cardHandle).getJobNumber();
+    }
+    return jobNumberPool.take(invocationContext, cardHandle);
+  }
 }
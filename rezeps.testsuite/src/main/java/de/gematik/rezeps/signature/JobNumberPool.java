@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.signatureservice.v7.GetJobNumberResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hält je Aufrufkontext einen Vorrat an Job-Nummern vor, damit vor einer Signatur kein eigener
+ * Aufruf von GetJobNumber nötig ist. Fällt der Vorrat unter die konfigurierte Schwelle, wird er
+ * asynchron aufgefüllt; Job-Nummern, die länger als die erlaubte Dauer im Vorrat liegen, werden
+ * verworfen. Der Vorrat wird zusätzlich nach dem signierenden HBA getrennt, damit die Job-Nummern
+ * von dem Konnektor stammen, an den der HBA gebunden ist. Je Vorrat ist höchstens ein Aufruf zum
+ * Auffüllen unterwegs, damit das Auffüllen die Bulkhead von GetJobNumber nicht gegen die direkten
+ * Aufrufe ausschöpft.
+ */
+@Component
+public class JobNumberPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JobNumberPool.class);
+
+  @Autowired PerformGetJobNumber performGetJobNumber;
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  private final Map<String, ContextPool> pools = new ConcurrentHashMap<>();
+
+  /**
+   * Liefert eine Job-Nummer aus dem Vorrat des Aufrufkontextes. Ist der Vorrat leer, wird die
+   * Job-Nummer direkt beim Konnektor erfragt.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param cardHandle Handle des signierenden HBAs oder null.
+   * @return Die nächste Job-Nummer zum Signieren eines Dokumentes.
+   */
+  public String take(InvocationContext invocationContext, String cardHandle) throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    int size = configurationReader.getJobNumberPoolSize();
+    if (size < 1) {
+      return fetch(invocationContext, cardHandle);
+    }
+    long maxAgeNanos = TimeUnit.SECONDS.toNanos(configurationReader.getJobNumberMaxAgeSeconds());
+    ContextPool pool =
+        pools.computeIfAbsent(
+            determineKey(invocationContext, cardHandle), key -> new ContextPool());
+    String jobNumber = pool.poll(nanoClock.getAsLong() - maxAgeNanos);
+    if (pool.getAvailable() <= configurationReader.getJobNumberPoolLowWatermark()) {
+      refill(invocationContext, cardHandle, pool, size);
+    }
+    return jobNumber != null ? jobNumber : fetch(invocationContext, cardHandle);
+  }
+
+  /**
+   * Liefert die Anzahl der vorrätigen Job-Nummern eines Aufrufkontextes.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param cardHandle Handle des signierenden HBAs oder null.
+   * @return Anzahl der Job-Nummern, einschließlich bereits verfallener.
+   */
+  public int getAvailable(InvocationContext invocationContext, String cardHandle) {
+    ContextPool pool = pools.get(determineKey(invocationContext, cardHandle));
+    return pool == null ? 0 : pool.getAvailable();
+  }
+
+  /** Verwirft alle vorrätigen Job-Nummern, z.B. nach einem Neustart des Konnektors. */
+  public void clear() {
+    pools.clear();
+  }
+
+  private static String determineKey(InvocationContext invocationContext, String cardHandle) {
+    return String.join("\n", invocationContext.determineKey(), String.valueOf(cardHandle));
+  }
+
+  private void refill(
+      InvocationContext invocationContext, String cardHandle, ContextPool pool, int size) {
+    if (pool.refilling.compareAndSet(false, true)) {
+      prefetch(invocationContext, cardHandle, pool, size);
+    }
+  }
+
+  /** Ermittelt Job-Nummern nacheinander, bis der Vorrat gefüllt ist. */
+  private void prefetch(
+      InvocationContext invocationContext, String cardHandle, ContextPool pool, int size) {
+    if (pool.getAvailable() >= size) {
+      pool.refilling.set(false);
+      return;
+    }
+    CompletableFuture<GetJobNumberResponse> future;
+    try {
+      future = performGetJobNumber.performGetJobNumberAsync(invocationContext, cardHandle);
+    } catch (IOException | RuntimeException exception) {
+      pool.refilling.set(false);
+      LOGGER.warn("Job-Nummer konnte nicht vorab ermittelt werden", exception);
+      return;
+    }
+    future.whenComplete(
+        (getJobNumberResponse, throwable) -> {
+          if (throwable != null) {
+            pool.refilling.set(false);
+            LOGGER.warn("Job-Nummer konnte nicht vorab ermittelt werden", throwable);
+          } else if (getJobNumberResponse.getJobNumber() == null) {
+            pool.refilling.set(false);
+          } else {
+            pool.offer(getJobNumberResponse.getJobNumber(), nanoClock.getAsLong());
+            prefetch(invocationContext, cardHandle, pool, size);
+          }
+        });
+  }
+
+  private String fetch(InvocationContext invocationContext, String cardHandle) throws IOException {
+    return performGetJobNumber.performGetJobNumber(invocationContext, cardHandle).getJobNumber();
+  }
+
+  /** Vorrat an Job-Nummern eines Aufrufkontextes. */
+  private static class ContextPool {
+
+    private final ConcurrentLinkedQueue<PooledJobNumber> jobNumbers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    void offer(String jobNumber, long nowNanos) {
+      jobNumbers.add(new PooledJobNumber(jobNumber, nowNanos));
+      available.incrementAndGet();
+    }
+
+    String poll(long oldestNanos) {
+      PooledJobNumber pooledJobNumber;
+      while ((pooledJobNumber = jobNumbers.poll()) != null) {
+        available.decrementAndGet();
+        if (pooledJobNumber.fetchedAtNanos - oldestNanos >= 0) {
+          return pooledJobNumber.jobNumber;
+        }
+      }
+      return null;
+    }
+
+    int getAvailable() {
+      return available.get();
+    }
+  }
+
+  private static class PooledJobNumber {
+
+    private final String jobNumber;
+    private final long fetchedAtNanos;
+
+    PooledJobNumber(String jobNumber, long fetchedAtNanos) {
+      this.jobNumber = jobNumber;
+      this.fetchedAtNanos = fetchedAtNanos;
+    }
+  }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.certificate.PerformVerifyCertificate;
+import de.gematik.ws.conn.certificateservice.v6.VerifyCertificateResponse;
+import de.gematik.ws.conn.certificateservice.v6.VerifyCertificateResponse.VerificationStatus;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.CertPathBuilder;
+import java.security.cert.CertStore;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.security.spec.PSSParameterSpec;
+import java.text.MessageFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import javax.security.auth.x500.X500Principal;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prüft CMS-Signaturen nach RFC 5652 ({@link SignatureServiceHelper#SIGNATURE_TYPE}) ohne Aufruf
+ * von VerifyDocument. Geprüft werden für jeden Signierenden der Hashwert des signierten Inhalts,
+ * die Signatur über die signierten Attribute und die Zertifikatskette gegen den konfigurierten
+ * Truststore. Die Zertifikatskette wird zum Zeitpunkt eines Zeitstempels nach RFC 3161 geprüft,
+ * sonst zum aktuellen Zeitpunkt; die vom Signierenden selbst angegebene Signaturzeit ist nicht
+ * vertrauenswürdig und wird nicht verwendet. Den Sperrstatus der Signaturzertifikate prüft auf
+ * Wunsch der Konnektor mit VerifyCertificate. Der Truststore wird nach jeder Änderung der
+ * Konfiguration neu geladen.
+ */
+@Component
+public class LocalSignatureVerifier {
+
+  static final String HIGH_LEVEL_RESULT_VALID = "VALID";
+  static final String HIGH_LEVEL_RESULT_INVALID = "INVALID";
+  static final String HIGH_LEVEL_RESULT_INCONCLUSIVE = "INCONCLUSIVE";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LocalSignatureVerifier.class);
+
+  private static final String STATUS_OK = "OK";
+  private static final String OID_SIGNED_DATA = "1.2.840.113549.1.7.2";
+  private static final String OID_MESSAGE_DIGEST = "1.2.840.113549.1.9.4";
+  private static final String OID_SIGNATURE_TIME_STAMP_TOKEN = "1.2.840.113549.1.9.16.2.14";
+  private static final String OID_TST_INFO = "1.2.840.113549.1.9.16.1.4";
+  private static final String OID_TIME_STAMPING = "1.3.6.1.5.5.7.3.8";
+  private static final String OID_RSA_ENCRYPTION = "1.2.840.113549.1.1.1";
+  private static final String OID_RSASSA_PSS = "1.2.840.113549.1.1.10";
+  private static final String OID_EC_PUBLIC_KEY = "1.2.840.10045.2.1";
+  private static final String OID_SUBJECT_KEY_IDENTIFIER = "2.5.29.14";
+
+  private static final Map<String, String> DIGEST_ALGORITHMS = new HashMap<>();
+  private static final Map<String, String> SIGNATURE_ALGORITHMS = new HashMap<>();
+
+  static {
+    DIGEST_ALGORITHMS.put("2.16.840.1.101.3.4.2.1", "SHA-256");
+    DIGEST_ALGORITHMS.put("2.16.840.1.101.3.4.2.2", "SHA-384");
+    DIGEST_ALGORITHMS.put("2.16.840.1.101.3.4.2.3", "SHA-512");
+    SIGNATURE_ALGORITHMS.put("1.2.840.113549.1.1.11", "SHA256withRSA");
+    SIGNATURE_ALGORITHMS.put("1.2.840.113549.1.1.12", "SHA384withRSA");
+    SIGNATURE_ALGORITHMS.put("1.2.840.113549.1.1.13", "SHA512withRSA");
+    SIGNATURE_ALGORITHMS.put("1.2.840.10045.4.3.2", "SHA256withECDSA");
+    SIGNATURE_ALGORITHMS.put("1.2.840.10045.4.3.3", "SHA384withECDSA");
+    SIGNATURE_ALGORITHMS.put("1.2.840.10045.4.3.4", "SHA512withECDSA");
+  }
+
+  @Autowired(required = false)
+  PerformVerifyCertificate performVerifyCertificate;
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  private KeyStore trustStore;
+  private long trustStoreRevision;
+
+  /**
+   * Prüft die Signatur eines E-Rezepts lokal.
+   *
+   * @param invocationContext Der Kontext für die Prüfung des Sperrstatus durch den Konnektor.
+   * @param signedPrescription Das signierte Rezept.
+   * @return Status "OK" und als High Level Result "VALID", "INVALID" oder "INCONCLUSIVE", falls der
+   *     Sperrstatus nicht ermittelt werden konnte.
+   * @throws IOException Falls der Truststore nicht gelesen werden kann.
+   */
+  public SignatureVerificationResult verifySignature(
+      InvocationContext invocationContext, byte[] signedPrescription) throws IOException {
+    return verifySignature(invocationContext, signedPrescription, null);
+  }
+
+  /**
+   * Prüft eine Signatur lokal. Enthält die Signatur den signierten Inhalt nicht (detached
+   * signature), wird der Inhalt separat übergeben.
+   *
+   * @param invocationContext Der Kontext für die Prüfung des Sperrstatus durch den Konnektor.
+   * @param signature Die Signatur.
+   * @param detachedContent Der signierte Inhalt, falls er nicht in der Signatur enthalten ist,
+   *     sonst null.
+   * @return Status "OK" und als High Level Result "VALID", "INVALID" oder "INCONCLUSIVE", falls der
+   *     Sperrstatus nicht ermittelt werden konnte.
+   * @throws IOException Falls der Truststore nicht gelesen werden kann.
+   */
+  public SignatureVerificationResult verifySignature(
+      InvocationContext invocationContext, byte[] signature, byte[] detachedContent)
+      throws IOException {
+    KeyStore currentTrustStore = determineTrustStore();
+    Date now = new Date(clock.getAsLong());
+    // Signaturzertifikate mit dem Zeitpunkt eines Zeitstempels oder null
+    Map<X509Certificate, Date> signers = new LinkedHashMap<>();
+    try {
+      Asn1Element signedData = determineSignedData(signature);
+      List<X509Certificate> certificates = determineCertificates(signedData);
+      byte[] content = determineContent(signedData, detachedContent);
+      for (Asn1Element signerInfo : determineSignerInfos(signedData)) {
+        X509Certificate certificate = determineSignerCertificate(signerInfo, certificates);
+        verifySignerInfo(signerInfo, content, certificate);
+        Date timestamp = verifyTimestamp(currentTrustStore, signerInfo, now);
+        validateCertificatePath(
+            currentTrustStore, certificate, certificates, timestamp == null ? now : timestamp);
+        signers.put(certificate, timestamp);
+      }
+    } catch (GeneralSecurityException exception) {
+      LOGGER.info(
+          MessageFormat.format("Signatur ist ungültig: {0}", exception.getMessage()), exception);
+      return new SignatureVerificationResult(STATUS_OK, HIGH_LEVEL_RESULT_INVALID);
+    }
+    return new SignatureVerificationResult(STATUS_OK, checkRevocation(invocationContext, signers));
+  }
+
+  private static Asn1Element determineSignedData(byte[] signedPrescription)
+      throws SignatureException {
+    Asn1Element contentInfo = Asn1Element.parse(signedPrescription);
+    if (contentInfo.getTag() != Asn1Element.TAG_SEQUENCE
+        || !OID_SIGNED_DATA.equals(
+            contentInfo.getChild(0, Asn1Element.TAG_OBJECT_IDENTIFIER).getObjectIdentifier())) {
+      throw new SignatureException("not a CMS SignedData structure");
+    }
+    return contentInfo.getChild(1, Asn1Element.TAG_CONTEXT_0).getChild(0, Asn1Element.TAG_SEQUENCE);
+  }
+
+  private static byte[] determineContent(Asn1Element signedData, byte[] detachedContent)
+      throws SignatureException {
+    Asn1Element encapContentInfo = signedData.getChild(2, Asn1Element.TAG_SEQUENCE);
+    if (encapContentInfo.getChildren().size() < 2) {
+      if (detachedContent == null) {
+        throw new SignatureException("detached signature without content");
+      }
+      return detachedContent;
+    }
+    return encapContentInfo.getChild(1, Asn1Element.TAG_CONTEXT_0).getChild(0).getContent();
+  }
+
+  private static List<Asn1Element> determineSignerInfos(Asn1Element signedData)
+      throws SignatureException {
+    List<Asn1Element> signerInfos =
+        signedData.getChild(signedData.getChildren().size() - 1, Asn1Element.TAG_SET).getChildren();
+    if (signerInfos.isEmpty()) {
+      throw new SignatureException("no signer info");
+    }
+    return signerInfos;
+  }
+
+  private static List<X509Certificate> determineCertificates(Asn1Element signedData)
+      throws GeneralSecurityException {
+    List<X509Certificate> certificates = new ArrayList<>();
+    CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+    for (Asn1Element element : signedData.getChildren()) {
+      if (element.getTag() == Asn1Element.TAG_CONTEXT_0) {
+        for (Asn1Element certificate : element.getChildren()) {
+          if (certificate.getTag() == Asn1Element.TAG_SEQUENCE) {
+            certificates.add(
+                (X509Certificate)
+                    certificateFactory.generateCertificate(
+                        new ByteArrayInputStream(certificate.getEncoded())));
+          }
+        }
+      }
+    }
+    return certificates;
+  }
+
+  private static X509Certificate determineSignerCertificate(
+      Asn1Element signerInfo, List<X509Certificate> certificates) throws SignatureException {
+    Asn1Element signerIdentifier = signerInfo.getChild(1);
+    for (X509Certificate certificate : certificates) {
+      if (signerIdentifier.getTag() == Asn1Element.TAG_SEQUENCE) {
+        X500Principal issuer =
+            new X500Principal(signerIdentifier.getChild(0, Asn1Element.TAG_SEQUENCE).getEncoded());
+        BigInteger serialNumber =
+            signerIdentifier.getChild(1, Asn1Element.TAG_INTEGER).getInteger();
+        if (issuer.equals(certificate.getIssuerX500Principal())
+            && serialNumber.equals(certificate.getSerialNumber())) {
+          return certificate;
+        }
+      } else if (signerIdentifier.getTag() == 0x80) {
+        byte[] extension = certificate.getExtensionValue(OID_SUBJECT_KEY_IDENTIFIER);
+        if (extension != null
+            && Arrays.equals(
+                signerIdentifier.getContent(),
+                Asn1Element.parse(Asn1Element.parse(extension).getContent()).getContent())) {
+          return certificate;
+        }
+      }
+    }
+    throw new SignatureException("signer certificate not contained in signature");
+  }
+
+  /** Prüft die Signatur eines SignerInfo. */
+  private static void verifySignerInfo(
+      Asn1Element signerInfo, byte[] content, X509Certificate certificate)
+      throws GeneralSecurityException {
+    String digestAlgorithm =
+        determineDigestAlgorithm(
+            signerInfo.getChild(2, Asn1Element.TAG_SEQUENCE).getChild(0).getObjectIdentifier());
+    int signatureAlgorithmIndex = determineSignatureAlgorithmIndex(signerInfo);
+    byte[] signedBytes = content;
+    if (signatureAlgorithmIndex == 4) {
+      Asn1Element signedAttributes = signerInfo.getChild(3);
+      byte[] messageDigest = null;
+      for (Asn1Element attribute : signedAttributes.getChildren()) {
+        if (OID_MESSAGE_DIGEST.equals(attribute.getChild(0).getObjectIdentifier())) {
+          messageDigest = attribute.getChild(1, Asn1Element.TAG_SET).getChild(0).getContent();
+        }
+      }
+      if (messageDigest == null
+          || !MessageDigest.isEqual(
+              messageDigest, MessageDigest.getInstance(digestAlgorithm).digest(content))) {
+        throw new SignatureException("message digest does not match content");
+      }
+      signedBytes = signedAttributes.getEncoded(Asn1Element.TAG_SET);
+    }
+    Asn1Element signatureAlgorithm =
+        signerInfo.getChild(signatureAlgorithmIndex, Asn1Element.TAG_SEQUENCE);
+    byte[] signatureValue =
+        signerInfo.getChild(signatureAlgorithmIndex + 1, Asn1Element.TAG_OCTET_STRING).getContent();
+
+    Signature signature = createSignature(signatureAlgorithm, digestAlgorithm);
+    signature.initVerify(certificate.getPublicKey());
+    signature.update(signedBytes);
+    if (!signature.verify(signatureValue)) {
+      throw new SignatureException("signature value does not match");
+    }
+  }
+
+  /** Liefert die Position des Signaturalgorithmus, die von signierten Attributen abhängt. */
+  private static int determineSignatureAlgorithmIndex(Asn1Element signerInfo)
+      throws SignatureException {
+    return signerInfo.getChild(3).getTag() == Asn1Element.TAG_CONTEXT_0 ? 4 : 3;
+  }
+
+  /**
+   * Prüft einen Zeitstempel nach RFC 3161 in den unsignierten Attributen eines SignerInfo.
+   *
+   * @return Der Zeitpunkt des Zeitstempels oder null, falls kein Zeitstempel enthalten ist.
+   */
+  private static Date verifyTimestamp(KeyStore trustStore, Asn1Element signerInfo, Date now)
+      throws GeneralSecurityException {
+    int signatureAlgorithmIndex = determineSignatureAlgorithmIndex(signerInfo);
+    if (signerInfo.getChildren().size() <= signatureAlgorithmIndex + 2) {
+      return null;
+    }
+    Asn1Element unsignedAttributes =
+        signerInfo.getChild(signatureAlgorithmIndex + 2, Asn1Element.TAG_CONTEXT_1);
+    for (Asn1Element attribute : unsignedAttributes.getChildren()) {
+      if (OID_SIGNATURE_TIME_STAMP_TOKEN.equals(attribute.getChild(0).getObjectIdentifier())) {
+        byte[] signatureValue =
+            signerInfo
+                .getChild(signatureAlgorithmIndex + 1, Asn1Element.TAG_OCTET_STRING)
+                .getContent();
+        return verifyTimestampToken(
+            trustStore,
+            attribute.getChild(1, Asn1Element.TAG_SET).getChild(0),
+            signatureValue,
+            now);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Prüft einen Zeitstempel über einen Signaturwert. Der Zeitstempeldienst muss zum aktuellen
+   * Zeitpunkt dem Truststore vertrauen und zur Ausstellung von Zeitstempeln berechtigt sein.
+   *
+   * @return Der Zeitpunkt des Zeitstempels.
+   */
+  private static Date verifyTimestampToken(
+      KeyStore trustStore, Asn1Element timestampToken, byte[] signatureValue, Date now)
+      throws GeneralSecurityException {
+    Asn1Element signedData = determineSignedData(timestampToken.getEncoded());
+    if (!OID_TST_INFO.equals(
+        signedData
+            .getChild(2, Asn1Element.TAG_SEQUENCE)
+            .getChild(0, Asn1Element.TAG_OBJECT_IDENTIFIER)
+            .getObjectIdentifier())) {
+      throw new SignatureException("time stamp token does not contain TSTInfo");
+    }
+    byte[] tstInfo = determineContent(signedData, null);
+    List<X509Certificate> certificates = determineCertificates(signedData);
+    for (Asn1Element signerInfo : determineSignerInfos(signedData)) {
+      X509Certificate certificate = determineSignerCertificate(signerInfo, certificates);
+      verifySignerInfo(signerInfo, tstInfo, certificate);
+      List<String> extendedKeyUsage = certificate.getExtendedKeyUsage();
+      if (extendedKeyUsage == null || !extendedKeyUsage.contains(OID_TIME_STAMPING)) {
+        throw new SignatureException("time stamp not issued by a time stamping authority");
+      }
+      validateCertificatePath(trustStore, certificate, certificates, now);
+    }
+    Asn1Element tstInfoElement = Asn1Element.parse(tstInfo);
+    Asn1Element messageImprint = tstInfoElement.getChild(2, Asn1Element.TAG_SEQUENCE);
+    String digestAlgorithm =
+        determineDigestAlgorithm(
+            messageImprint.getChild(0, Asn1Element.TAG_SEQUENCE).getChild(0).getObjectIdentifier());
+    if (!MessageDigest.isEqual(
+        messageImprint.getChild(1, Asn1Element.TAG_OCTET_STRING).getContent(),
+        MessageDigest.getInstance(digestAlgorithm).digest(signatureValue))) {
+      throw new SignatureException("time stamp does not match signature value");
+    }
+    return determineTime(tstInfoElement.getChild(4, Asn1Element.TAG_GENERALIZED_TIME));
+  }
+
+  private static Signature createSignature(Asn1Element signatureAlgorithm, String digestAlgorithm)
+      throws GeneralSecurityException {
+    String objectIdentifier = signatureAlgorithm.getChild(0).getObjectIdentifier();
+    if (OID_RSASSA_PSS.equals(objectIdentifier)) {
+      AlgorithmParameters algorithmParameters = AlgorithmParameters.getInstance("RSASSA-PSS");
+      try {
+        algorithmParameters.init(signatureAlgorithm.getChild(1).getEncoded());
+      } catch (IOException exception) {
+        throw new SignatureException("invalid RSASSA-PSS parameters", exception);
+      }
+      Signature signature = Signature.getInstance("RSASSA-PSS");
+      signature.setParameter(algorithmParameters.getParameterSpec(PSSParameterSpec.class));
+      return signature;
+    }
+    String digestName = digestAlgorithm.replace("-", "");
+    if (OID_RSA_ENCRYPTION.equals(objectIdentifier)) {
+      return Signature.getInstance(digestName + "withRSA");
+    }
+    if (OID_EC_PUBLIC_KEY.equals(objectIdentifier)) {
+      return Signature.getInstance(digestName + "withECDSA");
+    }
+    String algorithm = SIGNATURE_ALGORITHMS.get(objectIdentifier);
+    if (algorithm == null) {
+      throw new SignatureException("unsupported signature algorithm " + objectIdentifier);
+    }
+    return Signature.getInstance(algorithm);
+  }
+
+  private static String determineDigestAlgorithm(String objectIdentifier)
+      throws SignatureException {
+    String digestAlgorithm = DIGEST_ALGORITHMS.get(objectIdentifier);
+    if (digestAlgorithm == null) {
+      throw new SignatureException("unsupported digest algorithm " + objectIdentifier);
+    }
+    return digestAlgorithm;
+  }
+
+  private static Date determineTime(Asn1Element time) throws SignatureException {
+    String value = new String(time.getContent(), StandardCharsets.US_ASCII);
+    try {
+      LocalDateTime localDateTime;
+      if (time.getTag() == Asn1Element.TAG_UTC_TIME) {
+        localDateTime = LocalDateTime.parse(value, DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'"));
+        if (localDateTime.getYear() >= 2050) {
+          localDateTime = localDateTime.minusYears(100);
+        }
+      } else if (time.getTag() == Asn1Element.TAG_GENERALIZED_TIME) {
+        // Sekundenbruchteile eines Zeitstempels werden nicht benötigt
+        localDateTime =
+            LocalDateTime.parse(
+                value.replaceFirst("\\.[0-9]+Z$", "Z"),
+                DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'"));
+      } else {
+        throw new SignatureException("invalid time");
+      }
+      return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+    } catch (DateTimeParseException exception) {
+      throw new SignatureException("invalid time " + value, exception);
+    }
+  }
+
+  private static void validateCertificatePath(
+      KeyStore trustStore,
+      X509Certificate signerCertificate,
+      List<X509Certificate> certificates,
+      Date validationTime)
+      throws GeneralSecurityException {
+    X509CertSelector targetSelector = new X509CertSelector();
+    targetSelector.setCertificate(signerCertificate);
+    PKIXBuilderParameters parameters = new PKIXBuilderParameters(trustStore, targetSelector);
+    // der Sperrstatus wird vom Konnektor geprüft
+    parameters.setRevocationEnabled(false);
+    parameters.setDate(validationTime);
+    parameters.addCertStore(
+        CertStore.getInstance("Collection", new CollectionCertStoreParameters(certificates)));
+    CertPathBuilder.getInstance("PKIX").build(parameters);
+  }
+
+  /**
+   * Prüft den Sperrstatus der Zertifikate aller Signierenden.
+   *
+   * @return "INVALID", falls ein Zertifikat gesperrt ist, "INCONCLUSIVE", falls der Sperrstatus
+   *     eines Zertifikats nicht ermittelt werden konnte, sonst "VALID".
+   */
+  private String checkRevocation(
+      InvocationContext invocationContext, Map<X509Certificate, Date> signers) throws IOException {
+    if (performVerifyCertificate == null
+        || !ConfigurationReader.getInstance().isSignatureVerificationRevocationCheck()) {
+      return HIGH_LEVEL_RESULT_VALID;
+    }
+    String highLevelResult = HIGH_LEVEL_RESULT_VALID;
+    for (Map.Entry<X509Certificate, Date> signer : signers.entrySet()) {
+      String result = checkRevocation(invocationContext, signer.getKey(), signer.getValue());
+      if (HIGH_LEVEL_RESULT_INVALID.equals(result)) {
+        return HIGH_LEVEL_RESULT_INVALID;
+      }
+      if (!HIGH_LEVEL_RESULT_VALID.equals(result)) {
+        highLevelResult = HIGH_LEVEL_RESULT_INCONCLUSIVE;
+      }
+    }
+    return highLevelResult;
+  }
+
+  private String checkRevocation(
+      InvocationContext invocationContext, X509Certificate signerCertificate, Date timestamp)
+      throws IOException {
+    try {
+      VerifyCertificateResponse verifyCertificateResponse =
+          performVerifyCertificate.performVerifyCertificate(
+              invocationContext,
+              signerCertificate.getEncoded(),
+              timestamp == null ? null : toXmlGregorianCalendar(timestamp));
+      VerificationStatus verificationStatus = verifyCertificateResponse.getVerificationStatus();
+      if (verifyCertificateResponse.getStatus() == null
+          || !STATUS_OK.equals(verifyCertificateResponse.getStatus().getResult())
+          || verificationStatus == null
+          || verificationStatus.getVerificationResult() == null) {
+        return HIGH_LEVEL_RESULT_INCONCLUSIVE;
+      }
+      return verificationStatus.getVerificationResult().value();
+    } catch (GeneralSecurityException | RuntimeException exception) {
+      LOGGER.warn("Sperrstatus des Signaturzertifikats konnte nicht geprüft werden", exception);
+      return HIGH_LEVEL_RESULT_INCONCLUSIVE;
+    }
+  }
+
+  private static XMLGregorianCalendar toXmlGregorianCalendar(Date date)
+      throws GeneralSecurityException {
+    GregorianCalendar calendar = new GregorianCalendar();
+    calendar.setTime(date);
+    try {
+      return DatatypeFactory.newInstance().newXMLGregorianCalendar(calendar);
+    } catch (DatatypeConfigurationException exception) {
+      throw new GeneralSecurityException(exception);
+    }
+  }
+
+  private synchronized KeyStore determineTrustStore() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    long revision = configurationReader.getRevision();
+    if (trustStore == null || trustStoreRevision != revision) {
+      String path = configurationReader.getSignatureVerificationTruststore();
+      if (path == null || path.trim().isEmpty()) {
+        throw new IOException(
+            "Es ist kein Truststore für die lokale Signaturprüfung konfiguriert.");
+      }
+      String password = configurationReader.getSignatureVerificationTruststorePassword();
+      try (InputStream inputStream = new FileInputStream(path.trim())) {
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(inputStream, password == null ? null : password.toCharArray());
+        trustStore = keyStore;
+        trustStoreRevision = revision;
+      } catch (GeneralSecurityException exception) {
+        throw new IOException(exception.getMessage(), exception);
+      }
+    }
+    return trustStore;
+  }
+}
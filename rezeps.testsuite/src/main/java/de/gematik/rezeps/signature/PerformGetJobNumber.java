@@ -17,31 +17,62 @@
 package de.gematik.rezeps.signature;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.connectorcontext.v2.ContextType;
 import de.gematik.ws.conn.signatureservice.v7.GetJobNumber;
 import de.gematik.ws.conn.signatureservice.v7.GetJobNumberResponse;
 import java.io.IOException;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
+import java.util.concurrent.CompletableFuture;
 
-public class PerformGetJobNumber extends WebServiceGatewaySupport {
+public class PerformGetJobNumber extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_GET_JOB_NUMBER =
       "http://ws.gematik.de/conn/SignatureService/v7.5#GetJobNumber";
 
   public GetJobNumberResponse performGetJobNumber(InvocationContext invocationContext)
       throws IOException {
+    return performGetJobNumber(invocationContext, null);
+  }
+
+  /**
+   * Erfragt die Job-Nummer bei dem Konnektor, an den der signierende HBA gebunden ist.
+   *
+   * @param invocationContext Der Aufrufkontext.
+   * @param cardHandle Handle des signierenden HBAs oder null, falls die Job-Nummer von einem
+   *     beliebigen Konnektor stammen darf.
+   * @return Die Response des Konnektors.
+   */
+  public GetJobNumberResponse performGetJobNumber(
+      InvocationContext invocationContext, String cardHandle) throws IOException {
+    return (GetJobNumberResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            cardHandle,
+            createGetJobNumber(invocationContext),
+            SOAP_ACTION_GET_JOB_NUMBER);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performGetJobNumber(InvocationContext, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<GetJobNumberResponse> performGetJobNumberAsync(
+      InvocationContext invocationContext, String cardHandle) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        cardHandle,
+        createGetJobNumber(invocationContext),
+        SOAP_ACTION_GET_JOB_NUMBER);
+  }
+
+  private GetJobNumber createGetJobNumber(InvocationContext invocationContext) {
 
     GetJobNumber getJobNumber = new GetJobNumber();
     ContextType contextType = invocationContext.convertToContextType();
     getJobNumber.setContext(contextType);
 
-    return (GetJobNumberResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineSignatureServiceEndpoint(),
-                getJobNumber,
-                new SoapActionCallback(SOAP_ACTION_GET_JOB_NUMBER));
+    return getJobNumber;
   }
 }
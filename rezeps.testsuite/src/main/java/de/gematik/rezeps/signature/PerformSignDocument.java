@@ -17,7 +17,8 @@
 package de.gematik.rezeps.signature;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.connectorcontext.v2.ContextType;
 import de.gematik.ws.conn.signatureservice.v7.DocumentType;
 import de.gematik.ws.conn.signatureservice.v7.SignDocument;
@@ -25,25 +26,109 @@ import de.gematik.ws.conn.signatureservice.v7.SignDocumentResponse;
 import de.gematik.ws.conn.signatureservice.v7.SignRequest;
 import de.gematik.ws.conn.signatureservice.v7.SignRequest.OptionalInputs;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import oasis.names.tc.dss._1_0.core.schema.Base64Data;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
 
-public class PerformSignDocument extends WebServiceGatewaySupport {
+public class PerformSignDocument extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_SIGN_DOCUMENT =
       "http://ws.gematik.de/conn/SignatureService/v7.5#SignDocument";
 
   private static final boolean INCLUDE_E_CONTENT = true;
-  private static final String DOCUMENT_ID = "CMS-Doc1";
+  private static final String DOCUMENT_ID_PREFIX = "CMS-";
   private static final String DOCUMENT_SHORT_TEXT = "a CMSDocument2sign";
-  private static final String REQUEST_ID = "Doc1";
+  private static final String REQUEST_ID_PREFIX = "Doc";
   private static final String DOCUMENT_MIME_TYPE = "text/plain; charset=utf-8";
 
   public SignDocumentResponse performSignDocument(
       InvocationContext invocationContext, String cardHandle, byte[] prescription, String jobNumber)
       throws IOException {
+    return (SignDocumentResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            cardHandle,
+            createSignDocument(
+                invocationContext, cardHandle, Collections.singletonList(prescription), jobNumber),
+            SOAP_ACTION_SIGN_DOCUMENT);
+  }
+
+  /**
+   * Signiert mehrere Dokumente mit einem Aufruf von SignDocument (Stapelsignatur). Jedes Dokument
+   * wird in einem eigenen SignRequest übertragen, dessen RequestID mit {@link
+   * #determineRequestId(int)} aus der Position des Dokuments gebildet wird.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param prescriptions Die zu signierenden Dokumente.
+   * @param jobNumber Für alle Signaturen gemeinsame Job-Nummer.
+   * @return Die Response des Konnektors mit einer SignResponse je Dokument.
+   */
+  public SignDocumentResponse performSignDocuments(
+      InvocationContext invocationContext,
+      String cardHandle,
+      List<byte[]> prescriptions,
+      String jobNumber)
+      throws IOException {
+    return (SignDocumentResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            cardHandle,
+            createSignDocument(invocationContext, cardHandle, prescriptions, jobNumber),
+            SOAP_ACTION_SIGN_DOCUMENT);
+  }
+
+  /**
+   * Bestimmt die RequestID des SignRequests für ein Dokument.
+   *
+   * @param index Position des Dokuments, beginnend bei 0.
+   * @return Die RequestID, z.B. "Doc1" für das erste Dokument.
+   */
+  public static String determineRequestId(int index) {
+    return REQUEST_ID_PREFIX + (index + 1);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performSignDocument(InvocationContext, String, byte[],
+   * String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<SignDocumentResponse> performSignDocumentAsync(
+      InvocationContext invocationContext, String cardHandle, byte[] prescription, String jobNumber)
+      throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        cardHandle,
+        createSignDocument(
+            invocationContext, cardHandle, Collections.singletonList(prescription), jobNumber),
+        SOAP_ACTION_SIGN_DOCUMENT);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performSignDocuments(InvocationContext, String, List, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<SignDocumentResponse> performSignDocumentsAsync(
+      InvocationContext invocationContext,
+      String cardHandle,
+      List<byte[]> prescriptions,
+      String jobNumber)
+      throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        cardHandle,
+        createSignDocument(invocationContext, cardHandle, prescriptions, jobNumber),
+        SOAP_ACTION_SIGN_DOCUMENT);
+  }
+
+  private SignDocument createSignDocument(
+      InvocationContext invocationContext,
+      String cardHandle,
+      List<byte[]> prescriptions,
+      String jobNumber) {
     SignDocument signDocument = new SignDocument();
     signDocument.setCardHandle(cardHandle);
 
@@ -54,8 +139,16 @@ public class PerformSignDocument extends WebServiceGatewaySupport {
     signDocument.setJobNumber(jobNumber);
 
     List<SignRequest> signRequests = signDocument.getSignRequest();
+    for (int i = 0; i < prescriptions.size(); i++) {
+      signRequests.add(createSignRequest(determineRequestId(i), prescriptions.get(i)));
+    }
+
+    return signDocument;
+  }
+
+  private SignRequest createSignRequest(String requestId, byte[] prescription) {
     SignRequest signRequest = new SignRequest();
-    signRequest.setRequestID(REQUEST_ID);
+    signRequest.setRequestID(requestId);
 
     OptionalInputs optionalInputs = new OptionalInputs();
     optionalInputs.setSignatureType(SignatureServiceHelper.SIGNATURE_TYPE);
@@ -63,7 +156,7 @@ public class PerformSignDocument extends WebServiceGatewaySupport {
     signRequest.setOptionalInputs(optionalInputs);
 
     DocumentType documentType = new DocumentType();
-    documentType.setID(DOCUMENT_ID);
+    documentType.setID(DOCUMENT_ID_PREFIX + requestId);
     documentType.setShortText(DOCUMENT_SHORT_TEXT);
     Base64Data base64Data = new Base64Data();
     base64Data.setValue(prescription);
@@ -72,13 +165,6 @@ public class PerformSignDocument extends WebServiceGatewaySupport {
     signRequest.setDocument(documentType);
 
     signRequest.setIncludeRevocationInfo(SignatureServiceHelper.INCLUDE_REVOCATION_INFO);
-    signRequests.add(signRequest);
-
-    return (SignDocumentResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineSignatureServiceEndpoint(),
-                signDocument,
-                new SoapActionCallback(SOAP_ACTION_SIGN_DOCUMENT));
+    return signRequest;
   }
 }
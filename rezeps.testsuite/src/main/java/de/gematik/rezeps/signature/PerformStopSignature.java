@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
+import de.gematik.ws.conn.signatureservice.v7.StopSignature;
+import de.gematik.ws.conn.signatureservice.v7.StopSignatureResponse;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class PerformStopSignature extends KonnektorWebServiceGatewaySupport {
+
+  private static final String SOAP_ACTION_STOP_SIGNATURE =
+      "http://ws.gematik.de/conn/SignatureService/v7.5#StopSignature";
+
+  /**
+   * Bricht die Signatur mit der übergebenen Job-Nummer ab, z.B. während der Konnektor auf die
+   * PIN-Eingabe wartet.
+   *
+   * @param invocationContext Der Kontext, unter dem die Signatur angestoßen wurde.
+   * @param cardHandle Das Handle des signierenden HBAs. Es bestimmt den Konnektor, an den der
+   *     Abbruch geht.
+   * @param jobNumber Die Job-Nummer der abzubrechenden Signatur.
+   * @return Die Response des Konnektors.
+   */
+  public StopSignatureResponse performStopSignature(
+      InvocationContext invocationContext, String cardHandle, String jobNumber) throws IOException {
+    return (StopSignatureResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            cardHandle,
+            createStopSignature(invocationContext, jobNumber),
+            SOAP_ACTION_STOP_SIGNATURE);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performStopSignature(InvocationContext, String, String)}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<StopSignatureResponse> performStopSignatureAsync(
+      InvocationContext invocationContext, String cardHandle, String jobNumber) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        cardHandle,
+        createStopSignature(invocationContext, jobNumber),
+        SOAP_ACTION_STOP_SIGNATURE);
+  }
+
+  private StopSignature createStopSignature(InvocationContext invocationContext, String jobNumber) {
+    StopSignature stopSignature = new StopSignature();
+    stopSignature.setContext(invocationContext.convertToContextType());
+    stopSignature.setJobNumber(jobNumber);
+    return stopSignature;
+  }
+}
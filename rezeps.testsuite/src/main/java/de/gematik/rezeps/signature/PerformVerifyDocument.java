@@ -17,24 +17,48 @@
 package de.gematik.rezeps.signature;
 
 import de.gematik.rezeps.InvocationContext;
-import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorService;
+import de.gematik.rezeps.KonnektorWebServiceGatewaySupport;
 import de.gematik.ws.conn.signatureservice.v7.VerifyDocument;
 import de.gematik.ws.conn.signatureservice.v7.VerifyDocument.OptionalInputs;
 import de.gematik.ws.conn.signatureservice.v7.VerifyDocumentResponse;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import oasis.names.tc.dss._1_0.core.schema.Base64Signature;
 import oasis.names.tc.dss._1_0.core.schema.SignatureObject;
 import oasis.names.tc.dss_x._1_0.profiles.verificationreport.schema_.ReturnVerificationReport;
-import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
-import org.springframework.ws.soap.client.core.SoapActionCallback;
 
-public class PerformVerifyDocument extends WebServiceGatewaySupport {
+public class PerformVerifyDocument extends KonnektorWebServiceGatewaySupport {
 
   private static final String SOAP_ACTION_VERIFY_DOCUMENT =
       "http://ws.gematik.de/conn/SignatureService/v7.5#VerifyDocument";
 
   public VerifyDocumentResponse performVerifyDocument(
       InvocationContext invocationContext, byte[] signedPrescription) throws IOException {
+    return (VerifyDocumentResponse)
+        marshalSendAndReceive(
+            KonnektorService.SIGNATURE_SERVICE,
+            null,
+            createVerifyDocument(invocationContext, signedPrescription),
+            SOAP_ACTION_VERIFY_DOCUMENT);
+  }
+
+  /**
+   * Asynchrone Variante von {@link #performVerifyDocument(InvocationContext, byte[])}.
+   *
+   * @return Future mit der Response des Konnektors.
+   */
+  public CompletableFuture<VerifyDocumentResponse> performVerifyDocumentAsync(
+      InvocationContext invocationContext, byte[] signedPrescription) throws IOException {
+    return marshalSendAndReceiveAsync(
+        KonnektorService.SIGNATURE_SERVICE,
+        null,
+        createVerifyDocument(invocationContext, signedPrescription),
+        SOAP_ACTION_VERIFY_DOCUMENT);
+  }
+
+  private VerifyDocument createVerifyDocument(
+      InvocationContext invocationContext, byte[] signedPrescription) {
     VerifyDocument verifyDocument = new VerifyDocument();
     verifyDocument.setContext(invocationContext.convertToContextType());
     verifyDocument.setTvMode(SignatureServiceHelper.TV_MODE_NONE);
@@ -59,11 +83,6 @@ public class PerformVerifyDocument extends WebServiceGatewaySupport {
 
     verifyDocument.setIncludeRevocationInfo(false);
 
-    return (VerifyDocumentResponse)
-        getWebServiceTemplate()
-            .marshalSendAndReceive(
-                KonnektorHelper.determineSignatureServiceEndpoint(),
-                verifyDocument,
-                new SoapActionCallback(SOAP_ACTION_VERIFY_DOCUMENT));
+    return verifyDocument;
   }
 }
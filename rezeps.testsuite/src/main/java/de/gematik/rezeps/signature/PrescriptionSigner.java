@@ -17,16 +17,25 @@
 package de.gematik.rezeps.signature;
 
 import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.OperationTimeouts;
+import de.gematik.rezeps.comfortsignature.ComfortSignatureSession;
+import de.gematik.rezeps.comfortsignature.ComfortSignatureSessionManager;
 import de.gematik.ws.conn.signatureservice.v7.DocumentType;
 import de.gematik.ws.conn.signatureservice.v7.SignDocumentResponse;
 import de.gematik.ws.conn.signatureservice.v7.SignResponse;
 import de.gematik.ws.conn.signatureservice.v7.SignResponse.OptionalOutputs;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import oasis.names.tc.dss._1_0.core.schema.Base64Data;
 import oasis.names.tc.dss._1_0.core.schema.SignatureObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.ws.client.WebServiceIOException;
 
 /** Signiert einen Verordnungsdatensatz */
 @Component
@@ -34,6 +43,12 @@ public class PrescriptionSigner {
 
   @Autowired PerformSignDocument performSignDocument;
 
+  @Autowired(required = false)
+  ComfortSignatureSessionManager comfortSignatureSessionManager;
+
+  @Autowired(required = false)
+  PerformStopSignature performStopSignature;
+
   /**
    * Signiert einen Verordnungsdatensatz mittels Konnektor.
    *
@@ -41,32 +56,198 @@ public class PrescriptionSigner {
    * @param cardHandle Das Handle des signierenden HBAs.
    * @param prescription Der Verordnungsdatensatz.
    * @param jobNubmer Für die Signatur zu verwendende Job-Nummer.
-   * @return Der signierte Verordnungsdatensatz.
+   * @return Der signierte Verordnungsdatensatz. Antwortet der Konnektor nicht rechtzeitig, ein
+   *     Ergebnis mit dem Status {@link SignDocumentResult#STATUS_TIMEOUT}.
    */
   public SignDocumentResult performSignPrescription(
       InvocationContext invocationContext, String cardHandle, String prescription, String jobNubmer)
       throws IOException {
+    ComfortSignatureSession session = prepareComfortSignature(invocationContext, cardHandle, 1);
     SignDocumentResult signDocumentResult = null;
+    try {
+      SignDocumentResponse signDocumentResponse;
+      try {
+        signDocumentResponse =
+            performSignDocument.performSignDocument(
+                invocationContext, cardHandle, prescription.getBytes(), jobNubmer);
+      } catch (WebServiceIOException exception) {
+        if (OperationTimeouts.isTimeout(exception)) {
+          SigningHandle.stopSignature(
+              performStopSignature, invocationContext, cardHandle, jobNubmer);
+          return SignDocumentResult.timedOut();
+        }
+        throw exception;
+      }
 
-    SignDocumentResponse signDocumentResponse =
-        performSignDocument.performSignDocument(
-            invocationContext, cardHandle, prescription.getBytes(), jobNubmer);
+      signDocumentResult = createSignDocumentResult(signDocumentResponse);
+      return signDocumentResult;
+    } finally {
+      recordComfortSignatures(session, 1, Collections.singletonList(signDocumentResult));
+    }
+  }
 
+  /**
+   * Signiert einen Verordnungsdatensatz mittels Konnektor, ohne auf das Ergebnis zu warten. Die
+   * Signatur kann über das gelieferte Handle abgebrochen werden; der Konnektor erhält dann
+   * StopSignature mit der Job-Nummer.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param prescription Der Verordnungsdatensatz.
+   * @param jobNumber Für die Signatur zu verwendende Job-Nummer.
+   * @return Handle der laufenden Signatur.
+   */
+  public SigningHandle performSignPrescriptionAsync(
+      InvocationContext invocationContext, String cardHandle, String prescription, String jobNumber)
+      throws IOException {
+    ComfortSignatureSession session = prepareComfortSignature(invocationContext, cardHandle, 1);
+    CompletableFuture<SignDocumentResponse> signDocumentResponse;
+    try {
+      signDocumentResponse =
+          performSignDocument.performSignDocumentAsync(
+              invocationContext, cardHandle, prescription.getBytes(), jobNumber);
+    } catch (IOException | RuntimeException exception) {
+      recordComfortSignatures(session, 1, Collections.emptyList());
+      throw exception;
+    }
+    CompletableFuture<SignDocumentResult> signDocumentResult = new CompletableFuture<>();
+    signDocumentResponse.whenComplete(
+        (response, throwable) -> {
+          if (throwable == null) {
+            SignDocumentResult result = createSignDocumentResult(response);
+            recordComfortSignatures(session, 1, Collections.singletonList(result));
+            signDocumentResult.complete(result);
+            return;
+          }
+          recordComfortSignatures(session, 1, Collections.emptyList());
+          if (OperationTimeouts.isTimeout(throwable)) {
+            signDocumentResult.complete(SignDocumentResult.timedOut());
+          } else {
+            signDocumentResult.completeExceptionally(throwable);
+          }
+        });
+    return new SigningHandle(
+        invocationContext,
+        cardHandle,
+        jobNumber,
+        signDocumentResponse,
+        signDocumentResult,
+        performStopSignature);
+  }
+
+  /**
+   * Signiert mehrere Verordnungsdatensätze mit einem einzigen Aufruf von SignDocument unter einer
+   * gemeinsamen Job-Nummer (Stapelsignatur). Die Ergebnisse werden über die RequestID den
+   * Verordnungsdatensätzen zugeordnet.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param prescriptions Die Verordnungsdatensätze.
+   * @param jobNumber Für alle Signaturen zu verwendende Job-Nummer.
+   * @return Die Ergebnisse in der Reihenfolge der Verordnungsdatensätze. Für einen Datensatz, zu
+   *     dem der Konnektor keine SignResponse liefert, ist das Ergebnis null. Antwortet der
+   *     Konnektor nicht rechtzeitig, haben alle Ergebnisse den Status {@link
+   *     SignDocumentResult#STATUS_TIMEOUT}.
+   */
+  public List<SignDocumentResult> performSignPrescriptions(
+      InvocationContext invocationContext,
+      String cardHandle,
+      List<String> prescriptions,
+      String jobNumber)
+      throws IOException {
+    if (prescriptions.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<byte[]> documents = new ArrayList<>(prescriptions.size());
+    for (String prescription : prescriptions) {
+      documents.add(prescription.getBytes());
+    }
+    ComfortSignatureSession session =
+        prepareComfortSignature(invocationContext, cardHandle, prescriptions.size());
+    List<SignDocumentResult> signDocumentResults = new ArrayList<>(prescriptions.size());
+    try {
+      SignDocumentResponse signDocumentResponse;
+      try {
+        signDocumentResponse =
+            performSignDocument.performSignDocuments(
+                invocationContext, cardHandle, documents, jobNumber);
+      } catch (WebServiceIOException exception) {
+        if (OperationTimeouts.isTimeout(exception)) {
+          SigningHandle.stopSignature(
+              performStopSignature, invocationContext, cardHandle, jobNumber);
+          return Collections.nCopies(prescriptions.size(), SignDocumentResult.timedOut());
+        }
+        throw exception;
+      }
+
+      Map<String, SignDocumentResult> signDocumentResultsByRequestId = new HashMap<>();
+      List<SignResponse> signResponses = signDocumentResponse.getSignResponse();
+      if (signResponses != null) {
+        for (SignResponse signResponse : signResponses) {
+          signDocumentResultsByRequestId.put(
+              signResponse.getRequestID(), createSignDocumentResult(signResponse));
+        }
+      }
+      for (int i = 0; i < prescriptions.size(); i++) {
+        signDocumentResults.add(
+            signDocumentResultsByRequestId.get(PerformSignDocument.determineRequestId(i)));
+      }
+      return signDocumentResults;
+    } finally {
+      recordComfortSignatures(session, prescriptions.size(), signDocumentResults);
+    }
+  }
+
+  private ComfortSignatureSession prepareComfortSignature(
+      InvocationContext invocationContext, String cardHandle, int signatures) throws IOException {
+    if (comfortSignatureSessionManager == null) {
+      return null;
+    }
+    return comfortSignatureSessionManager.prepareSignatures(
+        invocationContext, cardHandle, signatures);
+  }
+
+  private void recordComfortSignatures(
+      ComfortSignatureSession session,
+      int reservedSignatures,
+      List<SignDocumentResult> signDocumentResults) {
+    if (comfortSignatureSessionManager == null) {
+      return;
+    }
+    int signatures = 0;
+    for (SignDocumentResult signDocumentResult : signDocumentResults) {
+      if (signDocumentResult != null
+          && SignDocumentResult.STATUS_OK.equals(signDocumentResult.getStatus())) {
+        signatures++;
+      }
+    }
+    comfortSignatureSessionManager.recordSignatures(session, reservedSignatures, signatures);
+  }
+
+  private SignDocumentResult createSignDocumentResult(SignDocumentResponse signDocumentResponse) {
+    SignDocumentResult signDocumentResult = null;
     List<SignResponse> signResponses = signDocumentResponse.getSignResponse();
     if (signResponses != null) {
       for (SignResponse signResponse : signResponses) {
-        String result = signResponse.getStatus().getResult();
-        String mimeTypeBase64Data = determineMimeType(signResponse);
-        SignatureObject signatureObject = signResponse.getSignatureObject();
-        String typeBase64Signature = signatureObject.getBase64Signature().getType();
-        byte[] signedDocument = signatureObject.getBase64Signature().getValue();
-        signDocumentResult =
-            new SignDocumentResult(result, mimeTypeBase64Data, typeBase64Signature, signedDocument);
+        signDocumentResult = createSignDocumentResult(signResponse);
       }
     }
     return signDocumentResult;
   }
 
+  private SignDocumentResult createSignDocumentResult(SignResponse signResponse) {
+    String result = signResponse.getStatus().getResult();
+    String mimeTypeBase64Data = determineMimeType(signResponse);
+    String typeBase64Signature = null;
+    byte[] signedDocument = null;
+    SignatureObject signatureObject = signResponse.getSignatureObject();
+    if (signatureObject != null && signatureObject.getBase64Signature() != null) {
+      typeBase64Signature = signatureObject.getBase64Signature().getType();
+      signedDocument = signatureObject.getBase64Signature().getValue();
+    }
+    return new SignDocumentResult(result, mimeTypeBase64Data, typeBase64Signature, signedDocument);
+  }
+
   private String determineMimeType(SignResponse signResponse) {
     String mimeType = null;
     OptionalOutputs optionalOutputs = signResponse.getOptionalOutputs();
@@ -16,6 +16,8 @@
 
 package de.gematik.rezeps.signature;
 
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.JaxbMarshallerRegistry;
 import de.gematik.rezeps.KonnektorHelper;
 import de.gematik.rezeps.SoapClientInterceptor;
 import de.gematik.rezeps.WsdlContexts;
@@ -38,12 +40,10 @@ import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 public class SignDocumentConfiguration {
 
   @Bean
-  public Jaxb2Marshaller signDocumentMarshaller() {
-    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
-    // this package must match the package in the <generatePackage> specified in
-    // pom.xml
-    marshaller.setContextPath(WsdlContexts.SIGNATURE_SERVICE_CONTEXT);
-    return marshaller;
+  public Jaxb2Marshaller signDocumentMarshaller() throws IOException {
+    return JaxbMarshallerRegistry.determineMarshaller(
+        WsdlContexts.SIGNATURE_SERVICE_CONTEXT,
+        ConfigurationReader.getInstance().isKonnektorMtomEnabled());
   }
 
   @Bean
@@ -26,6 +26,7 @@ public class SignDocumentResult implements Serializable {
   private static final Logger LOGGER = LoggerFactory.getLogger(SignDocumentResult.class);
 
   public static final String STATUS_OK = "OK";
+  public static final String STATUS_TIMEOUT = "Timeout";
   public static final String MIME_TYPE_BASE_64_DATA = "text/plain; charset=utf-8";
   public static final String TYPE_BASE_64_SIGNATURE = "urn:ietf:rfc:5652";
 
@@ -45,6 +46,29 @@ public class SignDocumentResult implements Serializable {
     this.signedBundle = signedBundle;
   }
 
+  /**
+   * Erzeugt das Ergebnis für eine Signatur, auf die der Konnektor nicht rechtzeitig geantwortet
+   * hat, z.B. weil die PIN nicht eingegeben wurde.
+   *
+   * @return Ergebnis mit dem Status {@link #STATUS_TIMEOUT}.
+   */
+  public static SignDocumentResult timedOut() {
+    return new SignDocumentResult(STATUS_TIMEOUT, null, null, null);
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * Prüft, ob die Signatur wegen einer Zeitüberschreitung nicht erstellt wurde.
+   *
+   * @return true, falls der Konnektor nicht rechtzeitig geantwortet hat, andernfalls false.
+   */
+  public boolean isTimedOut() {
+    return STATUS_TIMEOUT.equals(status);
+  }
+
   public byte[] getSignedBundle() {
     return signedBundle;
   }
@@ -16,6 +16,7 @@
 
 package de.gematik.rezeps.signature;
 
+import de.gematik.rezeps.ConfigurationReader;
 import de.gematik.rezeps.InvocationContext;
 import de.gematik.ws.conn.signatureservice.v7.VerifyDocumentResponse;
 import java.io.IOException;
@@ -31,17 +32,69 @@ public class SignatureVerification {
 
   @Autowired PerformVerifyDocument performVerifyDocument;
 
+  @Autowired(required = false)
+  LocalSignatureVerifier localSignatureVerifier;
+
+  @Autowired(required = false)
+  VerificationResultCache verificationResultCache;
+
   /**
    * Verifiziert die Signatur eines E-Rezepts.
    *
    * @param invocationContext Der Kontext für den Aufruf zum Konnektor.
    * @param signedPrescription Das signierte Rezept.
-   * @return Status und High Level Result der Signaturprüfung des Konnektors.
+   * @return Status und High Level Result der Signaturprüfung des Konnektors bzw. der lokalen
+   *     Prüfung, falls diese konfiguriert ist. Wurde dasselbe Rezept bereits geprüft, wird das
+   *     gemerkte Ergebnis geliefert.
    */
   public SignatureVerificationResult verifySignature(
       InvocationContext invocationContext, byte[] signedPrescription) throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    boolean localVerification =
+        localSignatureVerifier != null && configurationReader.isLocalSignatureVerification();
+    if (verificationResultCache == null) {
+      return performVerification(invocationContext, signedPrescription, localVerification);
+    }
+    String verificationProfile =
+        determineVerificationProfile(
+            localVerification, configurationReader.isSignatureVerificationRevocationCheck());
+    SignatureVerificationResult signatureVerificationResult =
+        verificationResultCache.get(verificationProfile, signedPrescription);
+    if (signatureVerificationResult == null) {
+      signatureVerificationResult =
+          performVerification(invocationContext, signedPrescription, localVerification);
+      verificationResultCache.put(
+          verificationProfile, signedPrescription, signatureVerificationResult);
+    }
+    return signatureVerificationResult;
+  }
+
+  /**
+   * Bestimmt das Prüfprofil, unter dem Ergebnisse gemerkt werden. Ergebnisse der lokalen Prüfung
+   * und des Konnektors sowie Ergebnisse mit und ohne Sperrstatusprüfung werden getrennt gehalten.
+   *
+   * @param localVerification true, falls lokal geprüft wird.
+   * @param revocationCheck true, falls der Sperrstatus geprüft wird.
+   * @return Das Prüfprofil.
+   */
+  static String determineVerificationProfile(boolean localVerification, boolean revocationCheck) {
+    return (localVerification ? "local" : "konnektor")
+        + (revocationCheck ? "+revocation" : "-revocation");
+  }
+
+  private SignatureVerificationResult performVerification(
+      InvocationContext invocationContext, byte[] signedPrescription, boolean localVerification)
+      throws IOException {
+    if (localVerification) {
+      return localSignatureVerifier.verifySignature(invocationContext, signedPrescription);
+    }
     VerifyDocumentResponse verifyDocumentResponse =
         performVerifyDocument.performVerifyDocument(invocationContext, signedPrescription);
+    return createSignatureVerificationResult(verifyDocumentResponse);
+  }
+
+  static SignatureVerificationResult createSignatureVerificationResult(
+      VerifyDocumentResponse verifyDocumentResponse) {
     String status = verifyDocumentResponse.getStatus().getResult();
     String highLevelResult = verifyDocumentResponse.getVerificationResult().getHighLevelResult();
     return new SignatureVerificationResult(status, highLevelResult);
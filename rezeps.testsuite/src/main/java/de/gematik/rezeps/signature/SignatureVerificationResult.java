@@ -38,6 +38,14 @@ public class SignatureVerificationResult implements Serializable {
     this.highLevelResult = highLevelResult;
   }
 
+  public String getStatus() {
+    return status;
+  }
+
+  public String getHighLevelResult() {
+    return highLevelResult;
+  }
+
   /**
    * Bestimmt, ob die Signaturprüfung erfolgreich war. Eine Prüfung gilt als erfolgreich bei Status
    * "OK" und High Level Result "VALID".
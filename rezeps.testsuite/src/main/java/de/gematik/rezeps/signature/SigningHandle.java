@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.OperationTimeouts;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Eine laufende Signatur, die abgebrochen werden kann. Beim Abbruch wird der HTTP-Request zum
+ * Konnektor sofort beendet, sodass Verbindung und Überlastschutz wieder frei sind, und der
+ * Konnektor per StopSignature angewiesen, nicht länger auf die PIN-Eingabe zu warten. Dasselbe
+ * geschieht, wenn der Konnektor nicht rechtzeitig antwortet.
+ */
+public class SigningHandle {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SigningHandle.class);
+
+  private final InvocationContext invocationContext;
+  private final String cardHandle;
+  private final String jobNumber;
+  private final CompletableFuture<?> request;
+  private final CompletableFuture<SignDocumentResult> result;
+  private final PerformStopSignature performStopSignature;
+  private final AtomicBoolean stopped = new AtomicBoolean();
+
+  /**
+   * Erzeugt das Handle einer laufenden Signatur.
+   *
+   * @param invocationContext Der Kontext, unter dem die Signatur angestoßen wurde.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param jobNumber Die Job-Nummer der Signatur.
+   * @param request Das Future des Aufrufs von SignDocument. Sein Abbruch beendet den HTTP-Request.
+   * @param result Das aus der Response ermittelte Ergebnis.
+   * @param performStopSignature Client für StopSignature, null falls nicht verfügbar.
+   */
+  SigningHandle(
+      InvocationContext invocationContext,
+      String cardHandle,
+      String jobNumber,
+      CompletableFuture<?> request,
+      CompletableFuture<SignDocumentResult> result,
+      PerformStopSignature performStopSignature) {
+    this.invocationContext = invocationContext;
+    this.cardHandle = cardHandle;
+    this.jobNumber = jobNumber;
+    this.request = request;
+    this.result = result;
+    this.performStopSignature = performStopSignature;
+    request.whenComplete(
+        (response, throwable) -> {
+          if (throwable != null && OperationTimeouts.isTimeout(throwable)) {
+            stopSignature();
+          }
+        });
+  }
+
+  /**
+   * Liefert das zukünftige Ergebnis der Signatur. Antwortet der Konnektor nicht rechtzeitig, hat
+   * das Ergebnis den Status {@link SignDocumentResult#STATUS_TIMEOUT}.
+   *
+   * @return Das zukünftige Ergebnis.
+   */
+  public CompletableFuture<SignDocumentResult> getResult() {
+    return result;
+  }
+
+  /**
+   * Wartet höchstens die übergebene Zeit auf das Ergebnis und bricht die Signatur danach ab.
+   *
+   * @param timeout Maximale Wartezeit.
+   * @param unit Einheit der Wartezeit.
+   * @return Das Ergebnis der Signatur oder ein Ergebnis mit dem Status {@link
+   *     SignDocumentResult#STATUS_TIMEOUT}, falls die Wartezeit abgelaufen ist.
+   */
+  public SignDocumentResult get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException {
+    try {
+      return result.get(timeout, unit);
+    } catch (TimeoutException exception) {
+      cancel();
+      return SignDocumentResult.timedOut();
+    } catch (InterruptedException exception) {
+      cancel();
+      throw exception;
+    }
+  }
+
+  /**
+   * Bricht die Signatur ab, sofern sie noch nicht abgeschlossen ist.
+   *
+   * @return true, falls die Signatur abgebrochen wurde.
+   */
+  public boolean cancel() {
+    if (!result.cancel(true)) {
+      return false;
+    }
+    request.cancel(true);
+    stopSignature();
+    return true;
+  }
+
+  public String getCardHandle() {
+    return cardHandle;
+  }
+
+  public String getJobNumber() {
+    return jobNumber;
+  }
+
+  /**
+   * Prüft, ob die Signatur abgebrochen oder wegen einer Zeitüberschreitung beim Konnektor gestoppt
+   * wurde.
+   *
+   * @return true, falls die Signatur gestoppt wurde.
+   */
+  public boolean isStopped() {
+    return stopped.get();
+  }
+
+  private void stopSignature() {
+    if (stopped.compareAndSet(false, true)) {
+      stopSignature(performStopSignature, invocationContext, cardHandle, jobNumber);
+    }
+  }
+
+  /**
+   * Sendet StopSignature an den Konnektor, ohne auf die Antwort zu warten. Ein Fehler wird nur
+   * protokolliert.
+   *
+   * @param performStopSignature Client für StopSignature, null falls nicht verfügbar.
+   * @param invocationContext Der Kontext, unter dem die Signatur angestoßen wurde.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param jobNumber Die Job-Nummer der abzubrechenden Signatur.
+   */
+  static void stopSignature(
+      PerformStopSignature performStopSignature,
+      InvocationContext invocationContext,
+      String cardHandle,
+      String jobNumber) {
+    if (performStopSignature == null) {
+      return;
+    }
+    try {
+      performStopSignature
+          .performStopSignatureAsync(invocationContext, cardHandle, jobNumber)
+          .whenComplete(
+              (stopSignatureResponse, throwable) -> {
+                if (throwable != null) {
+                  LOGGER.warn(
+                      MessageFormat.format(
+                          "StopSignature für Job-Nummer {0} fehlgeschlagen", jobNumber),
+                      throwable);
+                }
+              });
+    } catch (IOException exception) {
+      LOGGER.warn(
+          MessageFormat.format("StopSignature für Job-Nummer {0} fehlgeschlagen", jobNumber),
+          exception);
+    }
+  }
+}
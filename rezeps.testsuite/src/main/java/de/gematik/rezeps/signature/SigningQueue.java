@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.InvocationContext;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warteschlange der Signaturaufträge eines HBAs. Die Aufträge werden je Aufrufkontext gesammelt;
+ * bei der Entnahme werden die Aufrufkontexte reihum bedient, damit ein Arbeitsplatz mit vielen
+ * Aufträgen die übrigen nicht verdrängt.
+ */
+public class SigningQueue {
+
+  private final String cardHandle;
+  private final Map<String, Deque<SigningRequest>> pendingByContext = new LinkedHashMap<>();
+  private int queueDepth;
+  private boolean scheduled;
+
+  private final LongAdder processedRequests = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  SigningQueue(String cardHandle) {
+    this.cardHandle = cardHandle;
+  }
+
+  /**
+   * Reiht einen Auftrag ein.
+   *
+   * @param signingRequest Der Auftrag.
+   * @return true, falls die Warteschlange bisher nicht zur Abarbeitung vorgesehen war und jetzt
+   *     eingeplant werden muss.
+   */
+  synchronized boolean offer(SigningRequest signingRequest) {
+    pendingByContext
+        .computeIfAbsent(signingRequest.contextKey, key -> new ArrayDeque<>())
+        .add(signingRequest);
+    queueDepth++;
+    if (scheduled) {
+      return false;
+    }
+    scheduled = true;
+    return true;
+  }
+
+  /**
+   * Entnimmt die Aufträge des nächsten Aufrufkontextes, die gemeinsam signiert werden. Der
+   * Aufrufkontext wird danach hinten eingereiht.
+   *
+   * @param maxBatchSize Maximale Anzahl der Aufträge.
+   * @param nowNanos Aktueller Zeitpunkt zur Ermittlung der Wartezeit.
+   * @return Die Aufträge, leer falls keine Aufträge vorliegen.
+   */
+  synchronized List<SigningRequest> poll(int maxBatchSize, long nowNanos) {
+    Iterator<Map.Entry<String, Deque<SigningRequest>>> iterator =
+        pendingByContext.entrySet().iterator();
+    if (!iterator.hasNext()) {
+      return new ArrayList<>();
+    }
+    Map.Entry<String, Deque<SigningRequest>> entry = iterator.next();
+    iterator.remove();
+    Deque<SigningRequest> pending = entry.getValue();
+    List<SigningRequest> batch = new ArrayList<>(Math.min(maxBatchSize, pending.size()));
+    while (batch.size() < maxBatchSize && !pending.isEmpty()) {
+      SigningRequest signingRequest = pending.poll();
+      long waitNanos = nowNanos - signingRequest.enqueuedAtNanos;
+      totalWaitNanos.add(waitNanos);
+      maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+      batch.add(signingRequest);
+    }
+    if (!pending.isEmpty()) {
+      pendingByContext.put(entry.getKey(), pending);
+    }
+    queueDepth -= batch.size();
+    batches.increment();
+    processedRequests.add(batch.size());
+    return batch;
+  }
+
+  /**
+   * Entnimmt alle wartenden Aufträge, z.B. weil der HBA gezogen wurde.
+   *
+   * @return Die Aufträge, leer falls keine Aufträge vorliegen.
+   */
+  synchronized List<SigningRequest> pollAll() {
+    List<SigningRequest> signingRequests = new ArrayList<>(queueDepth);
+    for (Deque<SigningRequest> pending : pendingByContext.values()) {
+      signingRequests.addAll(pending);
+    }
+    pendingByContext.clear();
+    queueDepth = 0;
+    return signingRequests;
+  }
+
+  /**
+   * Prüft nach der Abarbeitung eines Stapels, ob weitere Aufträge vorliegen.
+   *
+   * @return true, falls die Warteschlange erneut einzuplanen ist. Andernfalls gilt sie als nicht
+   *     mehr eingeplant.
+   */
+  synchronized boolean reschedule() {
+    scheduled = queueDepth > 0;
+    return scheduled;
+  }
+
+  public String getCardHandle() {
+    return cardHandle;
+  }
+
+  public synchronized int getQueueDepth() {
+    return queueDepth;
+  }
+
+  public long getProcessedRequests() {
+    return processedRequests.sum();
+  }
+
+  public long getBatches() {
+    return batches.sum();
+  }
+
+  /**
+   * Liefert die mittlere Wartezeit der entnommenen Aufträge.
+   *
+   * @return Wartezeit in Millisekunden.
+   */
+  public long getAverageWaitMillis() {
+    long requests = processedRequests.sum();
+    return requests == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / requests);
+  }
+
+  /**
+   * Liefert die längste Wartezeit eines entnommenen Auftrags.
+   *
+   * @return Wartezeit in Millisekunden.
+   */
+  public long getMaxWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "SigningQueue'{'cardHandle={0}, depth={1}, processed={2}, batches={3}, avgWaitMillis={4},"
+            + " maxWaitMillis={5}'}'",
+        cardHandle,
+        getQueueDepth(),
+        getProcessedRequests(),
+        getBatches(),
+        getAverageWaitMillis(),
+        getMaxWaitMillis());
+  }
+
+  /** Ein Signaturauftrag in der Warteschlange. */
+  static class SigningRequest {
+
+    final InvocationContext invocationContext;
+    final String contextKey;
+    final String prescription;
+    final long enqueuedAtNanos;
+    final CompletableFuture<SignDocumentResult> result = new CompletableFuture<>();
+
+    SigningRequest(InvocationContext invocationContext, String prescription, long enqueuedAtNanos) {
+      this.invocationContext = invocationContext;
+      this.contextKey = invocationContext.determineKey();
+      this.prescription = prescription;
+      this.enqueuedAtNanos = enqueuedAtNanos;
+    }
+  }
+}
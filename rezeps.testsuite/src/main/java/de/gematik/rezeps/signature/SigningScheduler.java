@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.rezeps.event.EventObserver;
+import de.gematik.rezeps.signature.SigningQueue.SigningRequest;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nimmt Signaturaufträge von beliebig vielen Arbeitsplätzen entgegen und arbeitet sie je HBA
+ * nacheinander ab, da ein HBA nur eine Signatur zur Zeit erstellen kann. Aufträge desselben
+ * Aufrufkontextes, die eingehen, während ein Stapel signiert wird, werden anschließend gemeinsam
+ * mit einem Aufruf von SignDocument signiert. Nach jedem Stapel wird der HBA hinten eingereiht,
+ * sodass alle HBAs reihum bedient werden; innerhalb eines HBAs werden die Aufrufkontexte reihum
+ * bedient. Wird ein HBA gezogen, werden seine wartenden Aufträge sofort mit einem Fehler
+ * abgeschlossen.
+ */
+@Component
+public class SigningScheduler implements EventObserver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SigningScheduler.class);
+
+  @Autowired PrescriptionSigner prescriptionSigner;
+
+  @Autowired JobNumberFinder jobNumberFinder;
+
+  Executor executor;
+  Integer maxBatchSize;
+  LongSupplier nanoClock = System::nanoTime;
+
+  private final Map<String, SigningQueue> queues = new ConcurrentHashMap<>();
+
+  /**
+   * Reiht einen Verordnungsdatensatz zur Signatur ein.
+   *
+   * @param invocationContext Der Kontext für den Aufruf beim Konnektor.
+   * @param cardHandle Das Handle des signierenden HBAs.
+   * @param prescription Der Verordnungsdatensatz.
+   * @return Das zukünftige Ergebnis der Signatur. Kann der Konnektor nicht aufgerufen werden, wird
+   *     es mit dem aufgetretenen Fehler abgeschlossen. Wird es abgebrochen, bevor der Auftrag an
+   *     der Reihe ist, wird der Auftrag verworfen.
+   * @throws IOException Wenn die Konfigurationsdatei nicht gelesen werden kann.
+   */
+  public CompletableFuture<SignDocumentResult> submit(
+      InvocationContext invocationContext, String cardHandle, String prescription)
+      throws IOException {
+    Executor currentExecutor = determineExecutor();
+    SigningQueue queue = queues.computeIfAbsent(cardHandle, SigningQueue::new);
+    SigningRequest signingRequest =
+        new SigningRequest(invocationContext, prescription, nanoClock.getAsLong());
+    if (queue.offer(signingRequest)) {
+      currentExecutor.execute(() -> drain(queue));
+    }
+    return signingRequest.result;
+  }
+
+  /**
+   * Liefert die Warteschlangen aller HBAs, an die bisher Aufträge gingen.
+   *
+   * @return Warteschlangen je CardHandle.
+   */
+  public Map<String, SigningQueue> getQueues() {
+    return Collections.unmodifiableMap(queues);
+  }
+
+  /**
+   * Liefert die Anzahl der wartenden Aufträge über alle HBAs.
+   *
+   * @return Anzahl der Aufträge.
+   */
+  public int getQueueDepth() {
+    int queueDepth = 0;
+    for (SigningQueue queue : queues.values()) {
+      queueDepth += queue.getQueueDepth();
+    }
+    return queueDepth;
+  }
+
+  @Override
+  public void observeEvent(Event event) {
+    if (!EventHelper.TOPIC_CARD_REMOVED.equals(event.getTopic())) {
+      return;
+    }
+    String cardHandle = EventHelper.determineParameter(event, EventHelper.PARAMETER_CARD_HANDLE);
+    SigningQueue queue = cardHandle == null ? null : queues.get(cardHandle);
+    if (queue == null) {
+      return;
+    }
+    List<SigningRequest> signingRequests = queue.pollAll();
+    if (signingRequests.isEmpty()) {
+      return;
+    }
+    LOGGER.warn(
+        MessageFormat.format(
+            "HBA {0} wurde gezogen, {1} wartende Signaturaufträge werden abgebrochen",
+            cardHandle, signingRequests.size()));
+    IllegalStateException exception =
+        new IllegalStateException(MessageFormat.format("HBA {0} wurde gezogen", cardHandle));
+    for (SigningRequest signingRequest : signingRequests) {
+      signingRequest.result.completeExceptionally(exception);
+    }
+  }
+
+  private void drain(SigningQueue queue) {
+    try {
+      List<SigningRequest> batch = queue.poll(maxBatchSize, nanoClock.getAsLong());
+      // vom Aufrufer abgebrochene Aufträge belegen den HBA nicht
+      batch.removeIf(signingRequest -> signingRequest.result.isCancelled());
+      if (!batch.isEmpty()) {
+        sign(queue.getCardHandle(), batch);
+      }
+    } finally {
+      if (queue.reschedule()) {
+        executor.execute(() -> drain(queue));
+      }
+    }
+  }
+
+  private void sign(String cardHandle, List<SigningRequest> batch) {
+    InvocationContext invocationContext = batch.get(0).invocationContext;
+    List<String> prescriptions = new ArrayList<>(batch.size());
+    for (SigningRequest signingRequest : batch) {
+      prescriptions.add(signingRequest.prescription);
+    }
+    try {
+      String jobNumber = jobNumberFinder.determineJobNumber(invocationContext, cardHandle);
+      List<SignDocumentResult> signDocumentResults =
+          prescriptionSigner.performSignPrescriptions(
+              invocationContext, cardHandle, prescriptions, jobNumber);
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).result.complete(signDocumentResults.get(i));
+      }
+    } catch (Exception exception) {
+      LOGGER.error(
+          MessageFormat.format(
+              "Stapel mit {0} Signaturaufträgen für HBA {1} fehlgeschlagen",
+              batch.size(), cardHandle),
+          exception);
+      for (SigningRequest signingRequest : batch) {
+        signingRequest.result.completeExceptionally(exception);
+      }
+    }
+  }
+
+  private synchronized Executor determineExecutor() throws IOException {
+    if (executor == null || maxBatchSize == null) {
+      ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+      if (maxBatchSize == null) {
+        maxBatchSize = Math.max(1, configurationReader.getSigningBatchMaxDocuments());
+      }
+      if (executor == null) {
+        executor =
+            Executors.newFixedThreadPool(
+                Math.max(1, configurationReader.getSigningSchedulerThreads()),
+                KonnektorHelper.determineDaemonThreadFactory("signing-scheduler-"));
+      }
+    }
+    return executor;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.JaxbMarshallerRegistry;
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.SoapClientInterceptor;
+import de.gematik.rezeps.WsdlContexts;
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.CertificateException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.bind.Marshaller;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+
+/**
+ * Die Klasse wird von Spring-Boot für das Marshalling und Unmarshalling von SOAP-Nachrichten
+ * verwendet. Die enthaltenen Methoden sind nicht durch Anwendungs-Entwickler aufzurufen.
+ */
+@Configuration
+public class StopSignatureConfiguration {
+
+  @Bean
+  public Jaxb2Marshaller stopSignatureMarshaller() {
+    Map<String, Object> map = new HashMap<>();
+    map.put(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    map.put(Marshaller.JAXB_ENCODING, "UTF-8");
+    map.put(Marshaller.JAXB_FRAGMENT, true);
+    return JaxbMarshallerRegistry.determineMarshaller(
+        WsdlContexts.SIGNATURE_SERVICE_CONTEXT, map);
+  }
+
+  @Bean
+  public PerformStopSignature performStopSignature(Jaxb2Marshaller stopSignatureMarshaller)
+      throws IOException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException,
+          KeyStoreException, KeyManagementException {
+    PerformStopSignature performStopSignature = new PerformStopSignature();
+    performStopSignature.setDefaultUri(KonnektorHelper.determineSignatureServiceEndpoint());
+    performStopSignature.setMarshaller(stopSignatureMarshaller);
+    performStopSignature.setUnmarshaller(stopSignatureMarshaller);
+    // hier wird der MessageSender für TLS mit beidseitiger Authentisierung gesetzt
+    performStopSignature.setMessageSender(KonnektorHelper.determineHttpComponentsMessageSender());
+    performStopSignature.setInterceptors(new ClientInterceptor[] {interceptor()});
+    return performStopSignature;
+  }
+
+  @Bean
+  public SoapClientInterceptor interceptor() {
+    return new SoapClientInterceptor();
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.ConfigurationReader;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Merkt sich die Ergebnisse von Signaturprüfungen, damit dasselbe signierte E-Rezept in
+ * aufeinanderfolgenden Workflow-Schritten nicht erneut geprüft werden muss. Schlüssel ist das
+ * Prüfprofil (Art der Prüfung und Sperrstatusprüfung) zusammen mit dem SHA-256-Hashwert der
+ * signierten Daten, die Daten selbst werden nicht gehalten. Einträge verfallen nach der
+ * konfigurierten Dauer, die höchstens so lang ist wie die Gültigkeit einer Sperrstatusprüfung; bei
+ * Überschreiten der maximalen Anzahl wird der am längsten nicht genutzte Eintrag verdrängt. Der
+ * Cache ist nur aktiv, wenn verification_cache_max_entries gesetzt ist.
+ */
+@Component
+public class VerificationResultCache {
+
+  private static final String STATUS_OK = "OK";
+  private static final String HIGH_LEVEL_RESULT_VALID = "VALID";
+  private static final String HIGH_LEVEL_RESULT_INVALID = "INVALID";
+  private static final char KEY_SEPARATOR = '\n';
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  Integer maxEntries;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Liefert das gemerkte Ergebnis der Signaturprüfung eines E-Rezepts.
+   *
+   * @param verificationProfile Das Prüfprofil, unter dem das Ergebnis ermittelt wurde.
+   * @param signedPrescription Das signierte Rezept.
+   * @return Das Ergebnis oder null, falls keines vorliegt oder es verfallen ist.
+   */
+  public SignatureVerificationResult get(String verificationProfile, byte[] signedPrescription)
+      throws IOException {
+    if (determineMaxEntries() < 1) {
+      return null;
+    }
+    String key = determineKey(verificationProfile, signedPrescription);
+    long now = nanoClock.getAsLong();
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null && now - entry.expiresAtNanos < 0) {
+        hits.increment();
+        return entry.result;
+      }
+      if (entry != null) {
+        entries.remove(key);
+      }
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * Merkt sich das Ergebnis der Signaturprüfung eines E-Rezepts. Es werden nur eindeutige
+   * Ergebnisse (VALID oder INVALID) einer erfolgreichen Prüfung gemerkt.
+   *
+   * @param verificationProfile Das Prüfprofil, unter dem das Ergebnis ermittelt wurde.
+   * @param signedPrescription Das signierte Rezept.
+   * @param signatureVerificationResult Das Ergebnis der Signaturprüfung.
+   */
+  public void put(
+      String verificationProfile,
+      byte[] signedPrescription,
+      SignatureVerificationResult signatureVerificationResult)
+      throws IOException {
+    int currentMaxEntries = determineMaxEntries();
+    if (currentMaxEntries < 1 || !isCacheable(signatureVerificationResult)) {
+      return;
+    }
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    long ttlNanos =
+        TimeUnit.SECONDS.toNanos(
+            Math.min(
+                configurationReader.getVerificationCacheTtlSeconds(),
+                configurationReader.getVerificationCacheRevocationFreshnessSeconds()));
+    if (ttlNanos <= 0) {
+      return;
+    }
+    String key = determineKey(verificationProfile, signedPrescription);
+    Entry entry = new Entry(signatureVerificationResult, nanoClock.getAsLong() + ttlNanos);
+    synchronized (entries) {
+      entries.put(key, entry);
+      Iterator<Entry> iterator = entries.values().iterator();
+      while (entries.size() > currentMaxEntries && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /** Verwirft alle gemerkten Ergebnisse, z.B. nach einer Aktualisierung der Sperrlisten. */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Liefert den Anteil der Anfragen, die aus dem Cache beantwortet wurden.
+   *
+   * @return Trefferquote zwischen 0 und 1.
+   */
+  public double getHitRate() {
+    long requests = hits.sum() + misses.sum();
+    return requests == 0 ? 0 : (double) hits.sum() / requests;
+  }
+
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+        "VerificationResultCache'{'size={0}, hits={1}, misses={2}, evictions={3}, hitRate={4}'}'",
+        size(), getHits(), getMisses(), getEvictions(), String.format("%.2f", getHitRate()));
+  }
+
+  private int determineMaxEntries() throws IOException {
+    return maxEntries != null
+        ? maxEntries
+        : ConfigurationReader.getInstance().getVerificationCacheMaxEntries();
+  }
+
+  private static boolean isCacheable(SignatureVerificationResult signatureVerificationResult) {
+    return signatureVerificationResult != null
+        && STATUS_OK.equals(signatureVerificationResult.getStatus())
+        && (HIGH_LEVEL_RESULT_VALID.equals(signatureVerificationResult.getHighLevelResult())
+            || HIGH_LEVEL_RESULT_INVALID.equals(signatureVerificationResult.getHighLevelResult()));
+  }
+
+  static String determineKey(String verificationProfile, byte[] signedPrescription) {
+    try {
+      return verificationProfile
+          + KEY_SEPARATOR
+          + Base64.getEncoder()
+              .encodeToString(MessageDigest.getInstance("SHA-256").digest(signedPrescription));
+    } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+      throw new IllegalStateException(noSuchAlgorithmException);
+    }
+  }
+
+  private static class Entry {
+
+    final SignatureVerificationResult result;
+    final long expiresAtNanos;
+
+    Entry(SignatureVerificationResult result, long expiresAtNanos) {
+      this.result = result;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+}
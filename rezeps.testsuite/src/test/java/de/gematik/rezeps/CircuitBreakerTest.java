@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+  private static final long OPEN_MILLIS = 1000;
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  private CircuitBreaker createCircuitBreaker() {
+    return new CircuitBreaker("GetCards", 2, OPEN_MILLIS, nanoTime::get);
+  }
+
+  private void advance(long millis) {
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  @Test
+  public void shouldOpenAfterConsecutiveFailures() {
+    CircuitBreaker circuitBreaker = createCircuitBreaker();
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.recordFailure();
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.recordFailure();
+    Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    Assert.assertEquals(1, circuitBreaker.getOpenings());
+    Assert.assertEquals(1, circuitBreaker.getRejectedCalls());
+  }
+
+  @Test
+  public void shouldResetFailuresAfterSuccess() {
+    CircuitBreaker circuitBreaker = createCircuitBreaker();
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordSuccess();
+    circuitBreaker.recordFailure();
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldAllowSingleTrialCallWhenHalfOpen() {
+    CircuitBreaker circuitBreaker = createCircuitBreaker();
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+    advance(OPEN_MILLIS);
+    Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.recordSuccess();
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  public void shouldReopenIfTrialCallFails() {
+    CircuitBreaker circuitBreaker = createCircuitBreaker();
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+    advance(OPEN_MILLIS);
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.recordFailure();
+    Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    Assert.assertEquals(2, circuitBreaker.getOpenings());
+    advance(OPEN_MILLIS - 1);
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+  }
+}
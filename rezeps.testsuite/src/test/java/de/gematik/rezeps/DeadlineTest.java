@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeadlineTest {
+
+  @Test
+  public void shouldBeCurrentOnlyWithinCall() throws Exception {
+    Deadline deadline = Deadline.after(60000);
+    Assert.assertNull(Deadline.current());
+    Assert.assertSame(deadline, deadline.call(Deadline::current));
+    Assert.assertNull(Deadline.current());
+  }
+
+  @Test
+  public void shouldKeepEarlierDeadline() throws Exception {
+    Deadline earlier = Deadline.after(1000);
+    Deadline later = Deadline.after(60000);
+    Assert.assertSame(earlier, earlier.call(() -> later.call(Deadline::current)));
+    Assert.assertSame(earlier, later.call(() -> earlier.call(Deadline::current)));
+  }
+
+  @Test
+  public void shouldExpire() {
+    Deadline deadline = Deadline.after(-1);
+    Assert.assertTrue(deadline.isExpired());
+    Assert.assertEquals(0, deadline.getRemainingMillis());
+    Assert.assertFalse(Deadline.after(60000).isExpired());
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.nio.reactor.IOSession;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HandshakeRecordingSslIOSessionStrategyTest {
+
+  private static final HttpHost KONNEKTOR = new HttpHost("127.0.0.1", 443, "https");
+
+  private TlsHandshakeStatistics tlsHandshakeStatistics;
+  private HandshakeRecordingSslIOSessionStrategy sessionStrategy;
+
+  @Before
+  public void setUp() throws NoSuchAlgorithmException {
+    tlsHandshakeStatistics = new TlsHandshakeStatistics();
+    sessionStrategy =
+        new HandshakeRecordingSslIOSessionStrategy(
+            SSLContext.getDefault(),
+            null,
+            null,
+            NoopHostnameVerifier.INSTANCE,
+            tlsHandshakeStatistics);
+  }
+
+  @Test
+  public void shouldRecordFullAndResumedHandshakes() throws SSLException {
+    long startMillis = System.currentTimeMillis();
+    IOSession ioSession = createIoSession(startMillis);
+
+    sessionStrategy.verifySession(KONNEKTOR, ioSession, createSslSession(startMillis + 1));
+    sessionStrategy.verifySession(KONNEKTOR, ioSession, createSslSession(startMillis - 60_000));
+
+    Assert.assertEquals(1, tlsHandshakeStatistics.getFullHandshakes());
+    Assert.assertEquals(1, tlsHandshakeStatistics.getResumedHandshakes());
+    Assert.assertTrue(tlsHandshakeStatistics.getMaxHandshakeMillis() >= 5);
+  }
+
+  @Test
+  public void shouldIgnoreSessionWithoutHandshakeStart() throws SSLException {
+    sessionStrategy.verifySession(
+        KONNEKTOR, mock(IOSession.class), createSslSession(System.currentTimeMillis()));
+
+    Assert.assertEquals(0, tlsHandshakeStatistics.getFullHandshakes());
+    Assert.assertEquals(0, tlsHandshakeStatistics.getResumedHandshakes());
+  }
+
+  private static IOSession createIoSession(long startMillis) {
+    IOSession ioSession = mock(IOSession.class);
+    when(ioSession.getAttribute(HandshakeRecordingSslIOSessionStrategy.HANDSHAKE_START_MILLIS))
+        .thenReturn(startMillis);
+    when(ioSession.getAttribute(HandshakeRecordingSslIOSessionStrategy.HANDSHAKE_START_NANOS))
+        .thenReturn(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+    return ioSession;
+  }
+
+  private static SSLSession createSslSession(long creationTime) {
+    SSLSession sslSession = mock(SSLSession.class);
+    when(sslSession.getCreationTime()).thenReturn(creationTime);
+    return sslSession;
+  }
+}
@@ -38,4 +38,21 @@ public class InvocationContextTest {
             invocationContext.getWorkplace()),
         invocationContext.isValidInvocationContext());
   }
+
+  @Test
+  public void shouldDetermineKeysFromContextFields() {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, "User1");
+    InvocationContext otherUser = new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, "User2");
+
+    Assert.assertEquals(
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, "User1").determineKey(),
+        invocationContext.determineKey());
+    Assert.assertNotEquals(otherUser.determineKey(), invocationContext.determineKey());
+    Assert.assertEquals(
+        otherUser.determineWorkplaceKey(), invocationContext.determineWorkplaceKey());
+    Assert.assertNotEquals(
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, "Workplace2").determineWorkplaceKey(),
+        invocationContext.determineWorkplaceKey());
+  }
 }
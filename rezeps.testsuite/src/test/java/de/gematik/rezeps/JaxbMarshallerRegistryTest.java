@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import de.gematik.ws.conn.signatureservice.v7.DocumentType;
+import de.gematik.ws.conn.signatureservice.v7.SignDocument;
+import de.gematik.ws.conn.signatureservice.v7.SignRequest;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import javax.xml.bind.Marshaller;
+import oasis.names.tc.dss._1_0.core.schema.Base64Data;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.soap.saaj.SaajSoapMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+
+public class JaxbMarshallerRegistryTest {
+
+  @Test
+  public void shouldShareMarshallerForContextPath() {
+    Jaxb2Marshaller signatureServiceMarshaller =
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT);
+    Assert.assertSame(
+        signatureServiceMarshaller,
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT));
+    Assert.assertNotSame(
+        signatureServiceMarshaller,
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.EVENT_SERVICE_CONTEXT));
+  }
+
+  @Test
+  public void shouldDistinguishMarshallerProperties() {
+    Jaxb2Marshaller fragmentMarshaller =
+        JaxbMarshallerRegistry.determineMarshaller(
+            WsdlContexts.AUTH_SIGNATURE_SERVICE_CONTEXT,
+            Collections.singletonMap(Marshaller.JAXB_FRAGMENT, true));
+    Assert.assertSame(
+        fragmentMarshaller,
+        JaxbMarshallerRegistry.determineMarshaller(
+            WsdlContexts.AUTH_SIGNATURE_SERVICE_CONTEXT,
+            Collections.singletonMap(Marshaller.JAXB_FRAGMENT, true)));
+    Assert.assertNotSame(
+        fragmentMarshaller,
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.AUTH_SIGNATURE_SERVICE_CONTEXT));
+  }
+
+  @Test
+  public void shouldDistinguishMtomMarshaller() {
+    Jaxb2Marshaller mtomMarshaller =
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT, true);
+    Assert.assertNotSame(
+        mtomMarshaller,
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT));
+    Assert.assertSame(
+        mtomMarshaller,
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT, true));
+    Assert.assertSame(
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT),
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT, false));
+  }
+
+  @Test
+  public void shouldTransferDocumentAsAttachment() throws Exception {
+    byte[] document = new byte[64 * 1024];
+    Base64Data base64Data = new Base64Data();
+    base64Data.setValue(document);
+    DocumentType documentType = new DocumentType();
+    documentType.setBase64Data(base64Data);
+    SignRequest signRequest = new SignRequest();
+    signRequest.setRequestID("Doc1");
+    signRequest.setDocument(documentType);
+    SignDocument signDocument = new SignDocument();
+    signDocument.getSignRequest().add(signRequest);
+
+    SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+    messageFactory.afterPropertiesSet();
+    SaajSoapMessage message = messageFactory.createWebServiceMessage();
+    MarshallingUtils.marshal(
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.SIGNATURE_SERVICE_CONTEXT, true),
+        signDocument,
+        message);
+
+    Assert.assertTrue(message.isXopPackage());
+    Assert.assertTrue(message.getAttachments().hasNext());
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    message.writeTo(outputStream);
+    Assert.assertTrue(outputStream.size() < document.length * 4 / 3);
+  }
+}
@@ -17,12 +17,15 @@
 package de.gematik.rezeps;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
+import javax.net.ssl.SSLContext;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender;
 
 public class KonnektorHelperTest {
 
@@ -88,4 +91,51 @@ public class KonnektorHelperTest {
     String konnektorEndpoint = KonnektorHelper.determineCardTerminalServiceEndpoint();
     Assert.assertEquals(EXPECTED_ENDPOINT_CARD_TERMINAL_SERVICE, konnektorEndpoint);
   }
+
+  @Test
+  public void shouldShareHttpComponentsMessageSender()
+      throws IOException, GeneralSecurityException {
+    HttpComponentsMessageSender firstMessageSender =
+        KonnektorHelper.determineHttpComponentsMessageSender();
+    HttpComponentsMessageSender secondMessageSender =
+        KonnektorHelper.determineHttpComponentsMessageSender();
+    Assert.assertSame(firstMessageSender, secondMessageSender);
+  }
+
+  @Test
+  public void shouldReuseEndpointTableUntilConfigurationChanges() throws IOException {
+    KonnektorEndpoints konnektorEndpoints = KonnektorHelper.determineKonnektorEndpoints();
+    Assert.assertSame(konnektorEndpoints, KonnektorHelper.determineKonnektorEndpoints());
+    Assert.assertEquals(
+        EXPECTED_ENDPOINT_SIGNATURE_SERVICE,
+        konnektorEndpoints.getEndpoint(KonnektorService.SIGNATURE_SERVICE));
+
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    String konnektorPort = configurationReader.getKonnektorPort();
+    try {
+      configurationReader.setConfigurationProperty("konnektor_port", "8443");
+      KonnektorEndpoints changedEndpoints = KonnektorHelper.determineKonnektorEndpoints();
+      Assert.assertNotSame(konnektorEndpoints, changedEndpoints);
+      Assert.assertEquals(
+          "https://127.0.0.1:8443/signatureservice",
+          changedEndpoints.getEndpoint(KonnektorService.SIGNATURE_SERVICE));
+    } finally {
+      configurationReader.setConfigurationProperty("konnektor_port", konnektorPort);
+    }
+    Assert.assertEquals(
+        EXPECTED_ENDPOINT_SIGNATURE_SERVICE, KonnektorHelper.determineSignatureServiceEndpoint());
+  }
+
+  @Test
+  public void shouldShareSslContextWithConfiguredSessionCache()
+      throws IOException, GeneralSecurityException {
+    SSLContext sslContext = KonnektorHelper.determineSslContext();
+    Assert.assertSame(sslContext, KonnektorHelper.determineSslContext());
+    Assert.assertEquals(
+        ConfigurationReader.getInstance().getKonnektorTlsSessionCacheSize(),
+        sslContext.getClientSessionContext().getSessionCacheSize());
+    Assert.assertEquals(
+        ConfigurationReader.getInstance().getKonnektorTlsSessionTimeoutSeconds(),
+        sslContext.getClientSessionContext().getSessionTimeout());
+  }
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.http.HttpHost;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ws.client.WebServiceIOException;
+
+public class KonnektorPoolTest {
+
+  private static final String PRIMARY = "https://127.0.0.1:443";
+  private static final String SECONDARY = "https://127.0.0.2:443";
+
+  @BeforeClass
+  public static void beforeClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  private static KonnektorPool createKonnektorPool() {
+    return new KonnektorPool(Arrays.asList(PRIMARY, SECONDARY));
+  }
+
+  private static KonnektorPool.Konnektor determineKonnektor(
+      KonnektorPool konnektorPool, String konnektorEndpoint) {
+    return konnektorPool.getKonnektors().stream()
+        .filter(konnektor -> konnektor.getKonnektorEndpoint().equals(konnektorEndpoint))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+  }
+
+  @Test
+  public void shouldRouteToKonnektorWithLeastOutstandingRequests() throws IOException {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    String konnektorEndpoint =
+        konnektorPool.execute(
+            null,
+            busyKonnektor -> {
+              Assert.assertEquals(PRIMARY, busyKonnektor.getKonnektorEndpoint());
+              Assert.assertEquals(1, busyKonnektor.getOutstandingRequests());
+              return konnektorPool.execute(null, KonnektorPool.Konnektor::getKonnektorEndpoint);
+            });
+    Assert.assertEquals(SECONDARY, konnektorEndpoint);
+    for (KonnektorPool.Konnektor konnektor : konnektorPool.getKonnektors()) {
+      Assert.assertEquals(0, konnektor.getOutstandingRequests());
+    }
+  }
+
+  @Test
+  public void shouldKeepCardHandleOnReportingKonnektor() throws IOException {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    konnektorPool.bind("HBA-1", determineKonnektor(konnektorPool, SECONDARY));
+    Assert.assertEquals(
+        SECONDARY, konnektorPool.execute("HBA-1", KonnektorPool.Konnektor::getKonnektorEndpoint));
+    Assert.assertEquals(
+        PRIMARY, konnektorPool.execute("HBA-2", KonnektorPool.Konnektor::getKonnektorEndpoint));
+    Assert.assertEquals(SECONDARY, konnektorPool.determineKonnektorEndpoint("HBA-1"));
+    Assert.assertEquals(PRIMARY, konnektorPool.determineKonnektorEndpoint("HBA-2"));
+  }
+
+  @Test
+  public void shouldReturnUnboundCardHandleToPrimaryKonnektor() {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    konnektorPool.bind("HBA-1", determineKonnektor(konnektorPool, SECONDARY));
+    konnektorPool.unbind("HBA-1");
+    Assert.assertEquals(PRIMARY, konnektorPool.determineKonnektorEndpoint("HBA-1"));
+  }
+
+  @Test
+  public void shouldFailOverToNextKonnektorIfUnreachable() throws IOException {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    String konnektorEndpoint =
+        konnektorPool.execute(
+            null,
+            konnektor -> {
+              if (PRIMARY.equals(konnektor.getKonnektorEndpoint())) {
+                throw new WebServiceIOException("refused", new ConnectException("refused"));
+              }
+              return konnektor.getKonnektorEndpoint();
+            });
+    Assert.assertEquals(SECONDARY, konnektorEndpoint);
+    Assert.assertFalse(determineKonnektor(konnektorPool, PRIMARY).isAvailable());
+    Assert.assertEquals(
+        SECONDARY, konnektorPool.execute(null, KonnektorPool.Konnektor::getKonnektorEndpoint));
+  }
+
+  @Test
+  public void shouldFailOverToNextKonnektorIfRejected() throws IOException {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    String konnektorEndpoint =
+        konnektorPool.execute(
+            null,
+            konnektor -> {
+              if (PRIMARY.equals(konnektor.getKonnektorEndpoint())) {
+                throw new KonnektorOverloadedException("GetCards abgewiesen");
+              }
+              return konnektor.getKonnektorEndpoint();
+            });
+    Assert.assertEquals(SECONDARY, konnektorEndpoint);
+    Assert.assertTrue(determineKonnektor(konnektorPool, PRIMARY).isAvailable());
+    try {
+      konnektorPool.execute(
+          "HBA-1",
+          konnektor -> {
+            throw new KonnektorOverloadedException("SignDocument abgewiesen");
+          });
+      Assert.fail("KonnektorOverloadedException erwartet");
+    } catch (KonnektorOverloadedException exception) {
+      Assert.assertEquals("SignDocument abgewiesen", exception.getMessage());
+    }
+  }
+
+  @Test
+  public void shouldKeepBindingsWhenRebuilt() {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    konnektorPool.bind("HBA-1", determineKonnektor(konnektorPool, SECONDARY));
+    konnektorPool.bind("HBA-2", determineKonnektor(konnektorPool, PRIMARY));
+    String tertiary = "https://127.0.0.3:443";
+    KonnektorPool rebuiltPool = konnektorPool.rebuild(Arrays.asList(PRIMARY, tertiary), 7);
+    Assert.assertEquals(7, rebuiltPool.getConfigurationRevision());
+    Assert.assertEquals(Arrays.asList(PRIMARY, tertiary), rebuiltPool.getKonnektorEndpoints());
+    Assert.assertSame(
+        determineKonnektor(konnektorPool, PRIMARY), determineKonnektor(rebuiltPool, PRIMARY));
+    Assert.assertEquals(PRIMARY, rebuiltPool.determineKonnektorEndpoint("HBA-2"));
+    Assert.assertEquals(PRIMARY, rebuiltPool.determineKonnektorEndpoint("HBA-1"));
+
+    KonnektorPool restoredPool = rebuiltPool.rebuild(Arrays.asList(PRIMARY, SECONDARY), 8);
+    Assert.assertEquals(PRIMARY, restoredPool.determineKonnektorEndpoint("HBA-2"));
+  }
+
+  @Test
+  public void shouldNotRepeatRequestAfterReadTimeout() {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    try {
+      konnektorPool.execute(
+          null,
+          konnektor -> {
+            throw new WebServiceIOException("timeout", new SocketTimeoutException("timeout"));
+          });
+      Assert.fail("WebServiceIOException erwartet");
+    } catch (IOException | WebServiceIOException exception) {
+      Assert.assertTrue(exception instanceof WebServiceIOException);
+    }
+    Assert.assertTrue(determineKonnektor(konnektorPool, PRIMARY).isAvailable());
+  }
+
+  @Test
+  public void shouldTreatOnlyConnectFailuresAsUnreachable() {
+    Assert.assertTrue(
+        KonnektorPool.isUnreachable(
+            new WebServiceIOException(
+                "refused",
+                new HttpHostConnectException(
+                    new ConnectException("refused"), new HttpHost("127.0.0.1", 443)))));
+    Assert.assertTrue(
+        KonnektorPool.isUnreachable(
+            new WebServiceIOException("timeout", new ConnectTimeoutException("connect timeout"))));
+    Assert.assertFalse(
+        KonnektorPool.isUnreachable(
+            new WebServiceIOException(
+                "pool", new ConnectionPoolTimeoutException("Timeout waiting for connection"))));
+    Assert.assertFalse(
+        KonnektorPool.isUnreachable(
+            new WebServiceIOException(
+                "no response", new NoHttpResponseException("failed to respond"))));
+    Assert.assertFalse(
+        KonnektorPool.isUnreachable(
+            new WebServiceIOException("reset", new SocketException("Connection reset"))));
+    Assert.assertFalse(
+        KonnektorPool.isUnreachable(
+            new WebServiceIOException("timeout", new SocketTimeoutException("Read timed out"))));
+  }
+
+  @Test
+  public void shouldNotFailOverRequestsBoundToCardHandle() {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    konnektorPool.bind("HBA-1", determineKonnektor(konnektorPool, PRIMARY));
+    try {
+      konnektorPool.execute(
+          "HBA-1",
+          konnektor -> {
+            throw new WebServiceIOException("refused", new ConnectException("refused"));
+          });
+      Assert.fail("WebServiceIOException erwartet");
+    } catch (IOException | WebServiceIOException exception) {
+      Assert.assertTrue(exception instanceof WebServiceIOException);
+    }
+  }
+
+  @Test
+  public void shouldRestoreKonnektorAfterHealthCheck() throws IOException {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    CompletableFuture<String> response =
+        konnektorPool.executeAsync(
+            null,
+            konnektor -> {
+              CompletableFuture<String> future = new CompletableFuture<>();
+              future.completeExceptionally(
+                  new WebServiceIOException("refused", new ConnectException("refused")));
+              return future;
+            });
+    try {
+      response.join();
+      Assert.fail("CompletionException erwartet");
+    } catch (CompletionException exception) {
+      Assert.assertTrue(exception.getCause() instanceof WebServiceIOException);
+    }
+    KonnektorPool.Konnektor primary = determineKonnektor(konnektorPool, PRIMARY);
+    Assert.assertFalse(primary.isAvailable());
+    Assert.assertEquals(0, primary.getOutstandingRequests());
+
+    konnektorPool.checkHealth(konnektor -> true);
+    Assert.assertTrue(primary.isAvailable());
+  }
+
+  @Test
+  public void shouldCancelAsyncRequestOfKonnektor() throws IOException {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    CompletableFuture<String> request = new CompletableFuture<>();
+    CompletableFuture<String> response = konnektorPool.executeAsync(null, konnektor -> request);
+    response.cancel(true);
+    Assert.assertTrue(request.isCancelled());
+    Assert.assertEquals(0, determineKonnektor(konnektorPool, PRIMARY).getOutstandingRequests());
+  }
+
+  @Test
+  public void shouldDeriveEndpointsFromPrimaryKonnektor() throws IOException {
+    KonnektorPool konnektorPool = createKonnektorPool();
+    String primaryEndpoint =
+        determineKonnektor(konnektorPool, PRIMARY)
+            .determineEndpoint(KonnektorService.SIGNATURE_SERVICE);
+    String secondaryEndpoint =
+        determineKonnektor(konnektorPool, SECONDARY)
+            .determineEndpoint(KonnektorService.SIGNATURE_SERVICE);
+    Assert.assertEquals(KonnektorHelper.determineSignatureServiceEndpoint(), primaryEndpoint);
+    Assert.assertEquals(SECONDARY + primaryEndpoint.substring(PRIMARY.length()), secondaryEndpoint);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.gematik.ws.conn.eventservice.v7.GetCards;
+import de.gematik.ws.conn.eventservice.v7.GetCardsResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+public class KonnektorWebServiceGatewaySupportTest {
+
+  private static final String SOAP_ACTION_GET_CARDS =
+      "http://ws.gematik.de/conn/EventService/v7.2#GetCards";
+  private static final String GET_CARDS_RESPONSE =
+      "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body>"
+          + "<GetCardsResponse xmlns=\"http://ws.gematik.de/conn/EventService/v7.2\">"
+          + "<Status xmlns=\"http://ws.gematik.de/conn/ConnectorCommon/v5.0\"><Result>OK</Result>"
+          + "</Status><Cards xmlns=\"http://ws.gematik.de/conn/CardService/v8.1\"/>"
+          + "</GetCardsResponse></soapenv:Body></soapenv:Envelope>";
+  private static final String SOAP_FAULT =
+      "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body>"
+          + "<soapenv:Fault><faultcode>soapenv:Server</faultcode>"
+          + "<faultstring>Karte nicht vorhanden</faultstring></soapenv:Fault>"
+          + "</soapenv:Body></soapenv:Envelope>";
+
+  private static HttpServer httpServer;
+  private static volatile String lastSoapAction;
+
+  private KonnektorWebServiceGatewaySupport gatewaySupport;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException {
+    System.setProperty("CFG_PROPS", "unittest");
+    httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    httpServer.createContext(
+        "/eventservice", exchange -> respond(exchange, 200, GET_CARDS_RESPONSE));
+    httpServer.createContext("/fault", exchange -> respond(exchange, 500, SOAP_FAULT));
+    httpServer.start();
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    httpServer.stop(0);
+    System.clearProperty("CFG_PROPS");
+  }
+
+  @Before
+  public void before() {
+    Jaxb2Marshaller marshaller =
+        JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.EVENT_SERVICE_CONTEXT);
+    gatewaySupport = new KonnektorWebServiceGatewaySupport() {};
+    gatewaySupport.setMarshaller(marshaller);
+    gatewaySupport.setUnmarshaller(marshaller);
+  }
+
+  @Test
+  public void shouldReceiveResponseAsynchronously()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    CompletableFuture<GetCardsResponse> response =
+        gatewaySupport.marshalSendAndReceiveAsync(
+            determineUri("/eventservice"), new GetCards(), SOAP_ACTION_GET_CARDS);
+
+    GetCardsResponse getCardsResponse = response.get(10, TimeUnit.SECONDS);
+    Assert.assertEquals("OK", getCardsResponse.getStatus().getResult());
+    Assert.assertEquals("\"" + SOAP_ACTION_GET_CARDS + "\"", lastSoapAction);
+  }
+
+  @Test
+  public void shouldReportSoapFault() throws InterruptedException, TimeoutException {
+    CompletableFuture<GetCardsResponse> response =
+        gatewaySupport.marshalSendAndReceiveAsync(
+            determineUri("/fault"), new GetCards(), SOAP_ACTION_GET_CARDS);
+    try {
+      response.get(10, TimeUnit.SECONDS);
+      Assert.fail("SoapFaultClientException expected");
+    } catch (ExecutionException exception) {
+      Assert.assertTrue(exception.getCause() instanceof SoapFaultClientException);
+      Assert.assertEquals("Karte nicht vorhanden", exception.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void shouldCompleteIfInterceptorFailsAfterCompletion() throws InterruptedException {
+    ClientInterceptor interceptor = mock(ClientInterceptor.class);
+    when(interceptor.handleRequest(any(MessageContext.class))).thenReturn(true);
+    when(interceptor.handleResponse(any(MessageContext.class))).thenReturn(true);
+    doThrow(new IllegalStateException("Interceptor gescheitert"))
+        .when(interceptor)
+        .afterCompletion(any(MessageContext.class), any());
+    gatewaySupport.setInterceptors(new ClientInterceptor[] {interceptor});
+
+    CompletableFuture<GetCardsResponse> response =
+        gatewaySupport.marshalSendAndReceiveAsync(
+            determineUri("/eventservice"), new GetCards(), SOAP_ACTION_GET_CARDS);
+    try {
+      response.get(10, TimeUnit.SECONDS);
+      Assert.fail("IllegalStateException expected");
+    } catch (ExecutionException exception) {
+      Assert.assertTrue(exception.getCause() instanceof IllegalStateException);
+    } catch (TimeoutException exception) {
+      Assert.fail("Future wurde nicht abgeschlossen");
+    }
+  }
+
+  private static String determineUri(String path) {
+    return "http://127.0.0.1:" + httpServer.getAddress().getPort() + path;
+  }
+
+  private static void respond(HttpExchange exchange, int statusCode, String body)
+      throws IOException {
+    lastSoapAction = exchange.getRequestHeaders().getFirst("SOAPAction");
+    IOUtils.toByteArray(exchange.getRequestBody());
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+    exchange.sendResponseHeaders(statusCode, bytes.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(bytes);
+    }
+  }
+}
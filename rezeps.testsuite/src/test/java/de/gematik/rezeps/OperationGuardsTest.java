@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+public class OperationGuardsTest {
+
+  private static final String KONNEKTOR = "127.0.0.1:443";
+  private static final String OTHER_KONNEKTOR = "127.0.0.2:443";
+  private static final String SOAP_ACTION_GET_CARDS =
+      "http://ws.gematik.de/conn/EventService/v7.2#GetCards";
+  private static final String SOAP_ACTION_SIGN_DOCUMENT =
+      "http://ws.gematik.de/conn/SignatureService/v7.5#SignDocument";
+  private static final String SOAP_ACTION_VERIFY_PIN =
+      "http://ws.gematik.de/conn/CardService/v8.1#VerifyPin";
+
+  @BeforeClass
+  public static void beforeClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @After
+  public void tearDown() {
+    OperationGuards.reset();
+  }
+
+  @Test
+  public void shouldRejectCallsBeyondBulkhead() throws IOException {
+    int maxConcurrentCalls =
+        OperationGuards.determineBulkhead(KONNEKTOR, "GetCards").getMaxConcurrentCalls();
+    List<OperationGuards.Permit> permits = new ArrayList<>();
+    for (int i = 0; i < maxConcurrentCalls; i++) {
+      permits.add(OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS));
+    }
+    try {
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS);
+      Assert.fail("KonnektorOverloadedException erwartet");
+    } catch (KonnektorOverloadedException exception) {
+      Assert.assertTrue(exception.getMessage().contains("GetCards"));
+    }
+    permits.get(0).release(null);
+    permits.get(0).release(null);
+    Assert.assertEquals(
+        maxConcurrentCalls - 1,
+        OperationGuards.determineBulkhead(KONNEKTOR, "GetCards").getActiveCalls());
+    Assert.assertNotNull(OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS));
+    Assert.assertEquals(
+        1, OperationGuards.determineBulkhead(KONNEKTOR, "GetCards").getRejectedCalls());
+  }
+
+  @Test
+  public void shouldNotLetInteractiveOperationsStarveGetCards() throws IOException {
+    Bulkhead interactiveBulkhead =
+        OperationGuards.determineBulkhead(KONNEKTOR, OperationGuards.INTERACTIVE_BULKHEAD);
+    int signDocumentCalls = interactiveBulkhead.getMaxConcurrentCalls() / 2;
+    for (int i = 0; i < signDocumentCalls; i++) {
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_SIGN_DOCUMENT);
+    }
+    try {
+      for (int i = signDocumentCalls; i <= interactiveBulkhead.getMaxConcurrentCalls(); i++) {
+        OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_VERIFY_PIN);
+      }
+      Assert.fail("KonnektorOverloadedException erwartet");
+    } catch (KonnektorOverloadedException exception) {
+      Assert.assertTrue(exception.getMessage().contains("VerifyPin"));
+    }
+    Assert.assertEquals(
+        interactiveBulkhead.getMaxConcurrentCalls(), interactiveBulkhead.getActiveCalls());
+    Assert.assertEquals(
+        0, OperationGuards.determineBulkhead(KONNEKTOR, "VerifyPin").getRejectedCalls());
+    Assert.assertNotNull(OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS));
+  }
+
+  @Test
+  public void shouldOpenCircuitBreakerOnlyForKonnektorFailures() throws IOException {
+    CircuitBreaker circuitBreaker = OperationGuards.determineCircuitBreaker(KONNEKTOR, "GetCards");
+    int failureThreshold =
+        ConfigurationReader.getInstance().getKonnektorCircuitBreakerFailureThreshold();
+    for (int i = 0; i < failureThreshold; i++) {
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS)
+          .release(Mockito.mock(SoapFaultClientException.class));
+    }
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    for (int i = 0; i < failureThreshold; i++) {
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS)
+          .release(new WebServiceIOException("refused", new ConnectException("refused")));
+    }
+    Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    try {
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS);
+      Assert.fail("KonnektorOverloadedException erwartet");
+    } catch (KonnektorOverloadedException exception) {
+      Assert.assertEquals(
+          0, OperationGuards.determineBulkhead(KONNEKTOR, "GetCards").getActiveCalls());
+    }
+    Assert.assertEquals(
+        CircuitBreaker.State.CLOSED,
+        OperationGuards.determineCircuitBreaker(KONNEKTOR, "VerifyPin").getState());
+    Assert.assertTrue(OperationGuards.getCircuitBreakers().containsKey("GetCards@" + KONNEKTOR));
+  }
+
+  @Test
+  public void shouldGuardEachKonnektorSeparately() throws IOException {
+    int failureThreshold =
+        ConfigurationReader.getInstance().getKonnektorCircuitBreakerFailureThreshold();
+    for (int i = 0; i < failureThreshold; i++) {
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_SIGN_DOCUMENT)
+          .release(new WebServiceIOException("refused", new ConnectException("refused")));
+    }
+    Assert.assertEquals(
+        CircuitBreaker.State.OPEN,
+        OperationGuards.determineCircuitBreaker(KONNEKTOR, "SignDocument").getState());
+
+    OperationGuards.acquire(OTHER_KONNEKTOR, SOAP_ACTION_SIGN_DOCUMENT).release(null);
+    Assert.assertEquals(
+        CircuitBreaker.State.CLOSED,
+        OperationGuards.determineCircuitBreaker(OTHER_KONNEKTOR, "SignDocument").getState());
+    Assert.assertEquals(
+        0, OperationGuards.determineBulkhead(OTHER_KONNEKTOR, "SignDocument").getActiveCalls());
+  }
+
+  @Test
+  public void shouldDetermineKonnektorFromEndpoint() {
+    Assert.assertEquals(
+        KONNEKTOR, OperationGuards.determineKonnektor("https://127.0.0.1:443/signatureservice"));
+    Assert.assertNull(OperationGuards.determineKonnektor(null));
+  }
+
+  @Test
+  public void shouldIgnoreReadTimeoutsOfPinEntry() throws IOException {
+    int failureThreshold =
+        ConfigurationReader.getInstance().getKonnektorCircuitBreakerFailureThreshold();
+    for (int i = 0; i < failureThreshold; i++) {
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_VERIFY_PIN)
+          .release(new WebServiceIOException("timeout", new SocketTimeoutException("timeout")));
+      OperationGuards.acquire(KONNEKTOR, SOAP_ACTION_GET_CARDS)
+          .release(new WebServiceIOException("timeout", new SocketTimeoutException("timeout")));
+    }
+    Assert.assertEquals(
+        CircuitBreaker.State.CLOSED,
+        OperationGuards.determineCircuitBreaker(KONNEKTOR, "VerifyPin").getState());
+    Assert.assertEquals(
+        CircuitBreaker.State.OPEN,
+        OperationGuards.determineCircuitBreaker(KONNEKTOR, "GetCards").getState());
+    Assert.assertTrue(
+        OperationGuards.isKonnektorFailure(
+            new WebServiceIOException("refused", new ConnectException("refused")), true));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ws.client.WebServiceIOException;
+
+public class OperationTimeoutsTest {
+
+  private static final String SOAP_ACTION_SIGN_DOCUMENT =
+      "http://ws.gematik.de/conn/SignatureService/v7.5#SignDocument";
+  private static final String SOAP_ACTION_GET_CARDS =
+      "http://ws.gematik.de/conn/EventService/v7.2#GetCards";
+
+  @BeforeClass
+  public static void beforeClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Test
+  public void shouldDetermineOperationFromSoapAction() {
+    Assert.assertEquals(
+        "SignDocument", OperationTimeouts.determineOperation(SOAP_ACTION_SIGN_DOCUMENT));
+    Assert.assertEquals(
+        "GetCards", OperationTimeouts.determineOperation("\"" + SOAP_ACTION_GET_CARDS + "\""));
+    Assert.assertNull(OperationTimeouts.determineOperation(null));
+    Assert.assertNull(OperationTimeouts.determineOperation("\"\""));
+  }
+
+  @Test
+  public void shouldUseInteractiveTimeoutForSignDocument() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    Assert.assertEquals(
+        configurationReader.getKonnektorInteractiveReadTimeoutMillis(),
+        OperationTimeouts.determineReadTimeoutMillis(SOAP_ACTION_SIGN_DOCUMENT));
+    Assert.assertEquals(
+        configurationReader.getKonnektorReadTimeoutMillis(),
+        OperationTimeouts.determineReadTimeoutMillis(SOAP_ACTION_GET_CARDS));
+  }
+
+  @Test
+  public void shouldShortenTimeoutsToDeadline() throws Exception {
+    RequestConfig requestConfig =
+        Deadline.after(1000)
+            .call(() -> OperationTimeouts.determineRequestConfig(SOAP_ACTION_SIGN_DOCUMENT));
+    Assert.assertTrue(requestConfig.getSocketTimeout() <= 1000);
+    Assert.assertTrue(requestConfig.getConnectTimeout() <= 1000);
+    Assert.assertTrue(requestConfig.getConnectionRequestTimeout() <= 1000);
+  }
+
+  @Test
+  public void shouldNeverLimitTimeoutToInfinite() {
+    Assert.assertEquals(1, OperationTimeouts.limitTimeout(5000, 0));
+    Assert.assertEquals(250, OperationTimeouts.limitTimeout(5000, 250));
+    Assert.assertEquals(250, OperationTimeouts.limitTimeout(0, 250));
+    Assert.assertEquals(5000, OperationTimeouts.limitTimeout(5000, Long.MAX_VALUE));
+  }
+
+  @Test(expected = SocketTimeoutException.class)
+  public void shouldRejectRequestAfterDeadline() throws Exception {
+    Deadline.after(-1).call(() -> OperationTimeouts.determineRequestConfig(SOAP_ACTION_GET_CARDS));
+  }
+
+  @Test
+  public void shouldApplyOperationTimeoutInInterceptor() throws IOException {
+    HttpPost httpPost = new HttpPost("https://127.0.0.1/signatureservice");
+    httpPost.addHeader("SOAPAction", "\"" + SOAP_ACTION_SIGN_DOCUMENT + "\"");
+    HttpClientContext context = HttpClientContext.create();
+    new OperationTimeoutInterceptor().process(httpPost, context);
+    Assert.assertEquals(
+        OperationTimeouts.determineReadTimeoutMillis(SOAP_ACTION_SIGN_DOCUMENT),
+        context.getRequestConfig().getSocketTimeout());
+  }
+
+  @Test
+  public void shouldRecognizeTimeouts() {
+    Assert.assertTrue(
+        OperationTimeouts.isTimeout(
+            new WebServiceIOException("I/O error", new SocketTimeoutException())));
+    Assert.assertTrue(OperationTimeouts.isTimeout(new TimeoutException()));
+    Assert.assertFalse(
+        OperationTimeouts.isTimeout(new WebServiceIOException("I/O error", new IOException())));
+  }
+
+  @Test
+  public void shouldNotTreatConnectFailuresAndInterruptsAsTimeouts() {
+    Assert.assertFalse(OperationTimeouts.isTimeout(new ConnectTimeoutException()));
+    Assert.assertFalse(OperationTimeouts.isTimeout(new ConnectionPoolTimeoutException()));
+    Assert.assertFalse(OperationTimeouts.isTimeout(new InterruptedIOException()));
+  }
+
+  @Test
+  public void shouldTreatConnectFailuresAfterDeadlineAsTimeouts() throws Exception {
+    Assert.assertTrue(
+        Deadline.after(0).call(() -> OperationTimeouts.isTimeout(new ConnectTimeoutException())));
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PooledJaxb2MarshallerTest {
+
+  private PooledJaxb2Marshaller pooledJaxb2Marshaller;
+
+  @Before
+  public void before() {
+    pooledJaxb2Marshaller = new PooledJaxb2Marshaller();
+    pooledJaxb2Marshaller.setClassesToBeBound(Sample.class);
+  }
+
+  @Test
+  public void shouldReuseMarshallerWithinThread() {
+    Marshaller marshaller = pooledJaxb2Marshaller.createMarshaller();
+    Assert.assertSame(marshaller, pooledJaxb2Marshaller.createMarshaller());
+    Unmarshaller unmarshaller = pooledJaxb2Marshaller.createUnmarshaller();
+    Assert.assertSame(unmarshaller, pooledJaxb2Marshaller.createUnmarshaller());
+  }
+
+  @Test
+  public void shouldNotShareMarshallerAcrossThreads()
+      throws ExecutionException, InterruptedException {
+    Marshaller marshaller = pooledJaxb2Marshaller.createMarshaller();
+    Marshaller otherThreadMarshaller =
+        CompletableFuture.supplyAsync(pooledJaxb2Marshaller::createMarshaller).get();
+    Assert.assertNotSame(marshaller, otherThreadMarshaller);
+  }
+
+  @XmlRootElement
+  public static class Sample {}
+}
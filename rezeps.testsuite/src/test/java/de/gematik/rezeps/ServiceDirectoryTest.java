@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ServiceDirectoryTest {
+
+  private static final String SIGNATURE_SERVICE = "SignatureService";
+
+  @BeforeClass
+  public static void beforeClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  private static ServiceDirectory readServiceDirectory() throws IOException {
+    try (InputStream inputStream =
+        ServiceDirectoryTest.class.getClassLoader().getResourceAsStream("connector.sds")) {
+      return ServiceDirectory.parse(inputStream);
+    }
+  }
+
+  @Test
+  public void shouldReadAllVersionsOfService() throws IOException {
+    ServiceDirectory serviceDirectory = readServiceDirectory();
+    Assert.assertEquals(3, serviceDirectory.getVersions(SIGNATURE_SERVICE).size());
+    Assert.assertTrue(serviceDirectory.getVersions("CardTerminalService").isEmpty());
+  }
+
+  @Test
+  public void shouldChooseHighestSupportedVersion() throws IOException {
+    ServiceDirectory serviceDirectory = readServiceDirectory();
+    Assert.assertEquals(
+        "https://127.0.0.1:443/ws/SignatureService/v7.5",
+        serviceDirectory.determineEndpoint(SIGNATURE_SERVICE, "7.5", true));
+    Assert.assertEquals(
+        "https://127.0.0.1:443/ws/SignatureService/v7.4",
+        serviceDirectory.determineEndpoint(SIGNATURE_SERVICE, "7.4", true));
+    Assert.assertNull(serviceDirectory.determineEndpoint(SIGNATURE_SERVICE, "8.0", true));
+  }
+
+  @Test
+  public void shouldFallBackToTlsEndpoint() throws IOException {
+    ServiceDirectory serviceDirectory = readServiceDirectory();
+    Assert.assertEquals(
+        "http://127.0.0.1:80/ws/SignatureService/v7.5",
+        serviceDirectory.determineEndpoint(SIGNATURE_SERVICE, "7.5", false));
+    Assert.assertEquals(
+        "https://127.0.0.1:443/ws/EventService",
+        serviceDirectory.determineEndpoint("EventService", "7.2", false));
+  }
+
+  @Test
+  public void shouldPreferServiceDirectoryOverConfiguredEndpoints() throws IOException {
+    KonnektorEndpoints konnektorEndpoints =
+        KonnektorEndpoints.of(ConfigurationReader.getInstance(), readServiceDirectory());
+    Assert.assertEquals(
+        "https://127.0.0.1:443/ws/SignatureService/v7.5",
+        konnektorEndpoints.getEndpoint(KonnektorService.SIGNATURE_SERVICE));
+    Assert.assertEquals(
+        "https://127.0.0.1:443/ws/AuthSignatureService",
+        konnektorEndpoints.getEndpoint(KonnektorService.AUTH_SIGNATURE_SERVICE));
+    Assert.assertEquals(
+        "https://127.0.0.1:443/cardterminalservice",
+        konnektorEndpoints.getEndpoint(KonnektorService.CARD_TERMINAL_SERVICE));
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldRejectInvalidServiceDirectory() throws IOException {
+    ServiceDirectory.parse(new ByteArrayInputStream("<ConnectorServices".getBytes()));
+  }
+}
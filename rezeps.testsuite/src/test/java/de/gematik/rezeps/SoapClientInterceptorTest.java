@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.gematik.rezeps;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+
+public class SoapClientInterceptorTest {
+
+  private static final String SOAP_ACTION_GET_CARDS =
+      "http://ws.gematik.de/conn/EventService/v7.2#GetCards";
+
+  @BeforeClass
+  public static void beforeClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @After
+  public void tearDown() {
+    OperationGuards.reset();
+  }
+
+  @Test
+  public void shouldGuardOperationOnCalledKonnektor() {
+    SoapMessage request = mock(SoapMessage.class);
+    when(request.getSoapAction()).thenReturn(SOAP_ACTION_GET_CARDS);
+    MessageContext messageContext = mock(MessageContext.class);
+    when(messageContext.getRequest()).thenReturn(request);
+    when(messageContext.getProperty(SoapClientInterceptor.KONNEKTOR_URI))
+        .thenReturn("https://127.0.0.9:443/eventservice");
+
+    Assert.assertTrue(new SoapClientInterceptor().handleRequest(messageContext));
+
+    Bulkhead bulkhead = OperationGuards.getBulkheads().get("GetCards@127.0.0.9:443");
+    Assert.assertNotNull(bulkhead);
+    Assert.assertEquals(1, bulkhead.getActiveCalls());
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TlsHandshakeStatisticsTest {
+
+  private static final double DELTA = 0.0001;
+
+  @Test
+  public void shouldCountFullAndResumedHandshakes() {
+    TlsHandshakeStatistics tlsHandshakeStatistics = new TlsHandshakeStatistics();
+    tlsHandshakeStatistics.recordHandshake(false, TimeUnit.MILLISECONDS.toNanos(40));
+    tlsHandshakeStatistics.recordHandshake(true, TimeUnit.MILLISECONDS.toNanos(2));
+    tlsHandshakeStatistics.recordHandshake(true, TimeUnit.MILLISECONDS.toNanos(4));
+
+    Assert.assertEquals(1, tlsHandshakeStatistics.getFullHandshakes());
+    Assert.assertEquals(2, tlsHandshakeStatistics.getResumedHandshakes());
+    Assert.assertEquals(2.0 / 3, tlsHandshakeStatistics.getResumptionRate(), DELTA);
+    Assert.assertEquals(40, tlsHandshakeStatistics.getAverageFullHandshakeMillis(), DELTA);
+    Assert.assertEquals(3, tlsHandshakeStatistics.getAverageResumedHandshakeMillis(), DELTA);
+    Assert.assertEquals(40, tlsHandshakeStatistics.getMaxHandshakeMillis());
+  }
+
+  @Test
+  public void shouldResetStatistics() {
+    TlsHandshakeStatistics tlsHandshakeStatistics = new TlsHandshakeStatistics();
+    tlsHandshakeStatistics.recordHandshake(false, TimeUnit.MILLISECONDS.toNanos(40));
+    tlsHandshakeStatistics.reset();
+
+    Assert.assertEquals(0, tlsHandshakeStatistics.getFullHandshakes());
+    Assert.assertEquals(0, tlsHandshakeStatistics.getResumptionRate(), DELTA);
+    Assert.assertEquals(0, tlsHandshakeStatistics.getMaxHandshakeMillis());
+  }
+}
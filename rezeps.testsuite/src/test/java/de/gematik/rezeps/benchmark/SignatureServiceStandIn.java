@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import de.gematik.rezeps.signature.SignatureServiceHelper;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import de.gematik.ws.conn.connectorcontext.v2.ContextType;
+import de.gematik.ws.conn.signatureservice.v7.ComfortSignatureStatusEnum;
+import de.gematik.ws.conn.signatureservice.v7.DocumentType;
+import de.gematik.ws.conn.signatureservice.v7.SessionInfo;
+import de.gematik.ws.conn.signatureservice.v7.SignRequest;
+import de.gematik.ws.conn.signatureservice.v7.SignResponse;
+import de.gematik.ws.conn.signatureservice.v7.SignatureModeEnum;
+import de.gematik.ws.conn.signatureservice.v7.VerificationResultType;
+import de.gematik.ws.conn.signatureservice.v7.VerifyDocumentResponse;
+import de.gematik.ws.conn.signatureservice.wsdl.v7.SignatureServicePortType;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.jws.WebService;
+import javax.xml.datatype.Duration;
+import javax.xml.ws.Endpoint;
+import javax.xml.ws.Holder;
+import oasis.names.tc.dss._1_0.core.schema.Base64Signature;
+import oasis.names.tc.dss._1_0.core.schema.SignatureObject;
+
+/**
+ * Gegenstelle des SignatureService (SignatureService_V7_5_5.wsdl) für Lastmessungen ohne Konnektor.
+ * Alle Operationen antworten nach einer einstellbaren Latenz erfolgreich. Wie ein Konnektor
+ * verarbeitet die Gegenstelle die Signaturaufträge eines HBAs nacheinander; die Latenz von
+ * SignDocument gilt je Dokument.
+ */
+@WebService(
+    endpointInterface = "de.gematik.ws.conn.signatureservice.wsdl.v7.SignatureServicePortType",
+    serviceName = "SignatureService",
+    portName = "SignatureServicePort",
+    targetNamespace = "http://ws.gematik.de/conn/SignatureService/WSDL/v7.5")
+public class SignatureServiceStandIn implements SignatureServicePortType {
+
+  static final String PATH = "/signatureservice";
+
+  private static final String STATUS_OK = "OK";
+
+  private final long operationLatencyMillis;
+  private final long signatureLatencyMillis;
+  private final Map<String, Object> cardLocks = new ConcurrentHashMap<>();
+  private final AtomicLong jobNumbers = new AtomicLong();
+
+  private HttpServer httpServer;
+  private ExecutorService executor;
+  private Endpoint endpoint;
+
+  /**
+   * @param operationLatencyMillis Latenz aller Operationen außer SignDocument.
+   * @param signatureLatencyMillis Latenz von SignDocument je signiertem Dokument.
+   */
+  public SignatureServiceStandIn(long operationLatencyMillis, long signatureLatencyMillis) {
+    this.operationLatencyMillis = operationLatencyMillis;
+    this.signatureLatencyMillis = signatureLatencyMillis;
+  }
+
+  /**
+   * Startet die Gegenstelle auf einem freien Port von 127.0.0.1.
+   *
+   * @return Der Port der Gegenstelle.
+   */
+  public int start() throws IOException {
+    httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    executor = Executors.newCachedThreadPool();
+    httpServer.setExecutor(executor);
+    endpoint = Endpoint.create(this);
+    endpoint.publish(httpServer.createContext(PATH));
+    httpServer.start();
+    return httpServer.getAddress().getPort();
+  }
+
+  public void stop() {
+    endpoint.stop();
+    httpServer.stop(0);
+    executor.shutdownNow();
+  }
+
+  @Override
+  public void verifyDocument(
+      ContextType context,
+      String tvMode,
+      de.gematik.ws.conn.signatureservice.v7.VerifyDocument.OptionalInputs optionalInputs,
+      DocumentType document,
+      SignatureObject signatureObject,
+      boolean includeRevocationInfo,
+      Holder<Status> status,
+      Holder<VerificationResultType> verificationResult,
+      Holder<VerifyDocumentResponse.OptionalOutputs> optionalOutputs) {
+    sleep(operationLatencyMillis);
+    status.value = createStatus();
+    VerificationResultType verificationResultType = new VerificationResultType();
+    verificationResultType.setHighLevelResult("VALID");
+    verificationResult.value = verificationResultType;
+  }
+
+  @Override
+  public List<SignResponse> signDocument(
+      String cardHandle,
+      String crypt,
+      ContextType context,
+      String tvMode,
+      String jobNumber,
+      List<SignRequest> signRequests) {
+    List<SignResponse> signResponses = new ArrayList<>(signRequests.size());
+    synchronized (cardLocks.computeIfAbsent(cardHandle, unused -> new Object())) {
+      for (SignRequest signRequest : signRequests) {
+        sleep(signatureLatencyMillis);
+        Base64Signature base64Signature = new Base64Signature();
+        base64Signature.setType(SignatureServiceHelper.SIGNATURE_TYPE);
+        base64Signature.setValue(signRequest.getDocument().getBase64Data().getValue());
+        SignatureObject signatureObject = new SignatureObject();
+        signatureObject.setBase64Signature(base64Signature);
+        SignResponse signResponse = new SignResponse();
+        signResponse.setRequestID(signRequest.getRequestID());
+        signResponse.setStatus(createStatus());
+        signResponse.setSignatureObject(signatureObject);
+        signResponses.add(signResponse);
+      }
+    }
+    return signResponses;
+  }
+
+  @Override
+  public String getJobNumber(ContextType context) {
+    sleep(operationLatencyMillis);
+    return String.format("BEN-%03d", jobNumbers.incrementAndGet() % 1000);
+  }
+
+  @Override
+  public Status stopSignature(ContextType context, String jobNumber) {
+    sleep(operationLatencyMillis);
+    return createStatus();
+  }
+
+  @Override
+  public void activateComfortSignature(
+      String cardHandle,
+      ContextType context,
+      Holder<Status> status,
+      Holder<SignatureModeEnum> signatureMode) {
+    sleep(operationLatencyMillis);
+    status.value = createStatus();
+    signatureMode.value = SignatureModeEnum.COMFORT;
+  }
+
+  @Override
+  public Status deactivateComfortSignature(List<String> cardHandle) {
+    sleep(operationLatencyMillis);
+    return createStatus();
+  }
+
+  @Override
+  public void getSignatureMode(
+      String cardHandle,
+      ContextType context,
+      Holder<Status> status,
+      Holder<ComfortSignatureStatusEnum> comfortSignatureStatus,
+      Holder<Integer> comfortSignatureMax,
+      Holder<Duration> comfortSignatureTimer,
+      Holder<SessionInfo> sessionInfo) {
+    sleep(operationLatencyMillis);
+    status.value = createStatus();
+    comfortSignatureStatus.value = ComfortSignatureStatusEnum.ENABLED;
+  }
+
+  private static Status createStatus() {
+    Status status = new Status();
+    status.setResult(STATUS_OK);
+    return status;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.benchmark;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.KonnektorClient;
+import de.gematik.rezeps.KonnektorOverloadedException;
+import de.gematik.rezeps.OperationGuards;
+import de.gematik.rezeps.comfortsignature.ComfortSignatureActivator;
+import de.gematik.rezeps.comfortsignature.ComfortSignatureResult;
+import de.gematik.rezeps.signature.JobNumberFinder;
+import de.gematik.rezeps.signature.PrescriptionSigner;
+import de.gematik.rezeps.signature.SignDocumentResult;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Misst den Durchsatz von Signaturen über JobNumberFinder, ComfortSignatureActivator und
+ * PrescriptionSigner, wie sie der Spring-Kontext der Testsuite verdrahtet, gegen die {@link
+ * SignatureServiceStandIn Gegenstelle des SignatureService}. Für jede Parallelität werden
+ * Latenz-Perzentile (p50, p99, p99.9) und erfolgreiche Signaturen je Sekunde protokolliert. Der
+ * Überlastschutz läuft mit den konfigurierten Bulkheads; von ihm abgewiesene Aufrufe werden
+ * getrennt nach GetJobNumber und SignDocument ausgewiesen.
+ *
+ * <p>Der Test wird wegen seiner Laufzeit nicht mit den Unit-Tests ausgeführt, sondern gezielt mit
+ * {@code mvn test -Dtest=SigningBenchmarkLocalTest}. Einstellbar über System-Properties sind
+ * benchmark.concurrency (Vorgabe 1,4,16,64), benchmark.signatures (Signaturen je Parallelität,
+ * Vorgabe 2000), benchmark.hbas (Anzahl HBAs, Vorgabe 8), benchmark.operation.latency.millis
+ * (Vorgabe 5) und benchmark.signature.latency.millis (Latenz je Signatur, Vorgabe 20).
+ */
+public class SigningBenchmarkLocalTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SigningBenchmarkLocalTest.class);
+
+  private static final long REJECTED = -1;
+
+  private static final String PRESCRIPTION =
+      "<Bundle xmlns=\"http://hl7.org/fhir\"><id value=\"benchmark\"/></Bundle>";
+
+  private static SignatureServiceStandIn signatureServiceStandIn;
+  private static ConfigurableApplicationContext applicationContext;
+  private static JobNumberFinder jobNumberFinder;
+  private static ComfortSignatureActivator comfortSignatureActivator;
+  private static PrescriptionSigner prescriptionSigner;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException {
+    System.setProperty("CFG_PROPS", "unittest");
+    signatureServiceStandIn =
+        new SignatureServiceStandIn(
+            Long.getLong("benchmark.operation.latency.millis", 5),
+            Long.getLong("benchmark.signature.latency.millis", 20));
+    int port = signatureServiceStandIn.start();
+
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty("konnektor_protokoll", "http");
+    configurationReader.setConfigurationProperty("konnektor_ip", "127.0.0.1");
+    configurationReader.setConfigurationProperty("konnektor_port", String.valueOf(port));
+    configurationReader.setConfigurationProperty(
+        "konnektor_signature_service_endpoint", SignatureServiceStandIn.PATH);
+    // Bulkheads und Circuit Breaker vorheriger Tests verwerfen
+    OperationGuards.reset();
+
+    applicationContext = SpringApplication.run(KonnektorClient.class);
+    jobNumberFinder = applicationContext.getBean(JobNumberFinder.class);
+    comfortSignatureActivator = applicationContext.getBean(ComfortSignatureActivator.class);
+    prescriptionSigner = applicationContext.getBean(PrescriptionSigner.class);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    applicationContext.close();
+    signatureServiceStandIn.stop();
+    System.clearProperty("CFG_PROPS");
+  }
+
+  @Test
+  public void shouldMeasureSigningThroughput() throws Exception {
+    int signatures = Integer.getInteger("benchmark.signatures", 2000);
+    int hbas = Integer.getInteger("benchmark.hbas", 8);
+    List<String> cardHandles = new ArrayList<>();
+    for (int i = 0; i < hbas; i++) {
+      cardHandles.add("HBA-" + i);
+    }
+
+    // Aufwärmen, damit JAXB-Kontexte, Verbindungen und JIT nicht in die Messung eingehen
+    run(4, Math.min(signatures, 200), cardHandles);
+
+    for (String concurrency : System.getProperty("benchmark.concurrency", "1,4,16,64").split(",")) {
+      int threads = Integer.parseInt(concurrency.trim());
+      BenchmarkResult benchmarkResult = run(threads, signatures, cardHandles);
+      LOGGER.info(MessageFormat.format("concurrency={0}, {1}", threads, benchmarkResult));
+      Assert.assertEquals(0, benchmarkResult.failures);
+    }
+  }
+
+  private static BenchmarkResult run(int threads, int signatures, List<String> cardHandles)
+      throws Exception {
+    for (String cardHandle : cardHandles) {
+      ComfortSignatureResult comfortSignatureResult =
+          comfortSignatureActivator.activateComfortSignature(
+              createInvocationContext(cardHandle), cardHandle);
+      Assert.assertTrue(comfortSignatureResult.isComfortSignatureActivated());
+    }
+
+    long[] latencies = new long[signatures];
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger failures = new AtomicInteger();
+    AtomicInteger jobNumberRejections = new AtomicInteger();
+    AtomicInteger signRejections = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    long start = System.nanoTime();
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        workers.add(
+            executor.submit(
+                () -> {
+                  for (int index = next.getAndIncrement();
+                      index < signatures;
+                      index = next.getAndIncrement()) {
+                    String cardHandle = cardHandles.get(index % cardHandles.size());
+                    latencies[index] =
+                        sign(cardHandle, failures, jobNumberRejections, signRejections);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    return new BenchmarkResult(
+        latencies,
+        System.nanoTime() - start,
+        failures.get(),
+        jobNumberRejections.get(),
+        signRejections.get());
+  }
+
+  /**
+   * Signiert ein Rezept und liefert die Dauer einschließlich der Bestimmung der Job-Nummer. Vom
+   * Überlastschutz abgewiesene Aufrufe werden je Operation gezählt und liefern {@link #REJECTED},
+   * damit sie nicht in die Perzentile eingehen.
+   */
+  private static long sign(
+      String cardHandle,
+      AtomicInteger failures,
+      AtomicInteger jobNumberRejections,
+      AtomicInteger signRejections)
+      throws IOException {
+    InvocationContext invocationContext = createInvocationContext(cardHandle);
+    long start = System.nanoTime();
+    String jobNumber;
+    try {
+      jobNumber = jobNumberFinder.determineJobNumber(invocationContext, cardHandle);
+    } catch (KonnektorOverloadedException konnektorOverloadedException) {
+      jobNumberRejections.incrementAndGet();
+      return REJECTED;
+    }
+    try {
+      SignDocumentResult signDocumentResult =
+          prescriptionSigner.performSignPrescription(
+              invocationContext, cardHandle, PRESCRIPTION, jobNumber);
+      if (signDocumentResult == null || !signDocumentResult.isValidResponse()) {
+        failures.incrementAndGet();
+      }
+    } catch (KonnektorOverloadedException konnektorOverloadedException) {
+      signRejections.incrementAndGet();
+      return REJECTED;
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static InvocationContext createInvocationContext(String cardHandle) {
+    return new InvocationContext("Mandant1", "ClientID1", "Workplace1", "User-" + cardHandle);
+  }
+
+  /**
+   * Latenz-Perzentile und Durchsatz eines Laufs. Die Perzentile umfassen alle beim Konnektor
+   * angekommenen Aufrufe, der Durchsatz nur erfolgreiche Signaturen.
+   */
+  private static class BenchmarkResult {
+
+    private final int signatures;
+    private final long[] sortedLatencies;
+    private final long elapsedNanos;
+    private final int failures;
+    private final int jobNumberRejections;
+    private final int signRejections;
+
+    BenchmarkResult(
+        long[] latencies,
+        long elapsedNanos,
+        int failures,
+        int jobNumberRejections,
+        int signRejections) {
+      this.signatures = latencies.length;
+      this.sortedLatencies =
+          Arrays.stream(latencies).filter(latency -> latency != REJECTED).sorted().toArray();
+      this.elapsedNanos = elapsedNanos;
+      this.failures = failures;
+      this.jobNumberRejections = jobNumberRejections;
+      this.signRejections = signRejections;
+    }
+
+    double percentileMillis(double percentile) {
+      if (sortedLatencies.length == 0) {
+        return Double.NaN;
+      }
+      int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+      return sortedLatencies[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    double signaturesPerSecond() {
+      return (signatures - jobNumberRejections - signRejections - failures)
+          * (double) TimeUnit.SECONDS.toNanos(1)
+          / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "signatures=%d, failures=%d, rejectedGetJobNumber=%d, rejectedSignDocument=%d,"
+              + " p50=%.1fms, p99=%.1fms, p999=%.1fms, throughput=%.1f/s",
+          signatures,
+          failures,
+          jobNumberRejections,
+          signRejections,
+          percentileMillis(0.5),
+          percentileMillis(0.99),
+          percentileMillis(0.999),
+          signaturesPerSecond());
+    }
+  }
+}
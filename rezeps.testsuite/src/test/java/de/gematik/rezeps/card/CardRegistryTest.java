@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.card;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.event.EventListener;
+import de.gematik.rezeps.event.EventSubscriptionManager;
+import de.gematik.ws.conn.cardservice.v8.CardInfoType;
+import de.gematik.ws.conn.cardservice.v8.Cards;
+import de.gematik.ws.conn.cardservicecommon.v2.CardTypeType;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import de.gematik.ws.conn.eventservice.v7.GetCardsResponse;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class CardRegistryTest {
+
+  private InvocationContext invocationContext;
+  private PerformGetCards performGetCards;
+  private EventSubscriptionManager eventSubscriptionManager;
+  private CardRegistry cardRegistry;
+  private final Set<String> subscriptions = new HashSet<>();
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    invocationContext = new InvocationContext("mandant001", "clientSystem001", "workplace001");
+    performGetCards = mock(PerformGetCards.class);
+    when(performGetCards.performGetCards(invocationContext))
+        .thenAnswer(invocation -> createGetCardsResponse());
+    eventSubscriptionManager = mock(EventSubscriptionManager.class);
+    when(eventSubscriptionManager.subscribe(eq(invocationContext), anyString(), any()))
+        .thenAnswer(
+            invocation -> {
+              String subscriptionId = invocation.getArgument(1) + "-" + subscriptions.size();
+              subscriptions.add(subscriptionId);
+              return subscriptionId;
+            });
+    when(eventSubscriptionManager.isSubscribed(any()))
+        .thenAnswer(invocation -> subscriptions.contains(invocation.getArgument(0)));
+    cardRegistry = new CardRegistry();
+    cardRegistry.performGetCards = performGetCards;
+    cardRegistry.eventSubscriptionManager = eventSubscriptionManager;
+    ConfigurationReader.getInstance()
+        .setConfigurationProperty("event_receiver_address", "cetp://127.0.0.1:8585");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    ConfigurationReader.getInstance().setConfigurationProperty("event_receiver_address", "");
+  }
+
+  @Test
+  public void shouldLoadCardsOnceWhileSubscribed() throws IOException {
+    CardInfoType hba = cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+    CardInfoType smcB =
+        cardRegistry.findCard(invocationContext, CardTypeType.SMC_B, "80276883110000116874");
+
+    assertThat(hba.getCardHandle()).isEqualTo("card_handle_hba");
+    assertThat(smcB.getCardHandle()).isEqualTo("card_handle_smcb");
+    assertThat(cardRegistry.findCard(invocationContext, CardTypeType.HBA, "80276883110000116874"))
+        .isNull();
+    assertThat(cardRegistry.findCardsByTerminal(invocationContext, "CT1")).hasSize(2);
+    verify(performGetCards, times(1)).performGetCards(invocationContext);
+  }
+
+  @Test
+  public void shouldApplyCardEvents() throws IOException {
+    cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+    EventListener eventListener = captureEventListener();
+
+    eventListener.handleEvent(
+        createEvent(
+            CardRegistry.TOPIC_CARD_INSERTED,
+            "card_handle_hba_2",
+            "HBA",
+            "80276883110000116875",
+            "CT2"));
+    eventListener.handleEvent(
+        createEvent(
+            CardRegistry.TOPIC_CARD_REMOVED,
+            "card_handle_hba",
+            "HBA",
+            "80276883110000116873",
+            "CT1"));
+
+    assertThat(
+            cardRegistry
+                .findCard(invocationContext, CardTypeType.HBA, "80276883110000116875")
+                .getSlotId())
+        .isEqualTo(BigInteger.ONE);
+    assertThat(cardRegistry.findCard(invocationContext, CardTypeType.HBA, null).getCardHandle())
+        .isEqualTo("card_handle_hba_2");
+    assertThat(cardRegistry.findCard(invocationContext, CardTypeType.HBA, "80276883110000116873"))
+        .isNull();
+    assertThat(cardRegistry.findCardsByTerminal(invocationContext, "CT1")).hasSize(1);
+    verify(performGetCards, times(1)).performGetCards(invocationContext);
+  }
+
+  @Test
+  public void shouldRemoveCardsOfDisconnectedTerminal() throws IOException {
+    cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+    Event event = new Event();
+    event.setTopic(CardRegistry.TOPIC_CT_DISCONNECTED);
+    event.setMessage(new Event.Message());
+    addParameter(event, "CtID", "CT1");
+
+    captureEventListener().handleEvent(event);
+
+    assertThat(cardRegistry.findCardsByTerminal(invocationContext, "CT1")).isEmpty();
+    assertThat(cardRegistry.findCard(invocationContext, CardTypeType.HBA, null)).isNull();
+    verify(performGetCards, times(1)).performGetCards(invocationContext);
+  }
+
+  @Test
+  public void shouldCallGetCardsForEachLookupWithoutEventReceiver() throws IOException {
+    ConfigurationReader.getInstance().setConfigurationProperty("event_receiver_address", "");
+
+    cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+    cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+
+    verify(performGetCards, times(2)).performGetCards(invocationContext);
+    verify(eventSubscriptionManager, never()).subscribe(any(), any(), any());
+  }
+
+  @Test
+  public void shouldReloadAfterSubscriptionLost() throws IOException {
+    cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+    EventListener eventListener = captureEventListener();
+
+    subscriptions.remove("CARD-0");
+    eventListener.handleSubscriptionLost();
+    cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+    cardRegistry.findCard(invocationContext, CardTypeType.HBA, null);
+
+    verify(performGetCards, times(2)).performGetCards(invocationContext);
+    verify(eventSubscriptionManager, times(2))
+        .subscribe(eq(invocationContext), eq(CardRegistry.TOPIC_CARD), any());
+    verify(eventSubscriptionManager, times(1))
+        .subscribe(eq(invocationContext), eq(CardRegistry.TOPIC_CT), any());
+  }
+
+  private EventListener captureEventListener() throws IOException {
+    ArgumentCaptor<EventListener> eventListenerCaptor =
+        ArgumentCaptor.forClass(EventListener.class);
+    verify(eventSubscriptionManager)
+        .subscribe(
+            eq(invocationContext), eq(CardRegistry.TOPIC_CARD), eventListenerCaptor.capture());
+    return eventListenerCaptor.getValue();
+  }
+
+  private static Event createEvent(
+      String topic, String cardHandle, String cardType, String iccsn, String ctId) {
+    Event event = new Event();
+    event.setTopic(topic);
+    event.setSubscriptionID("CARD-0");
+    event.setMessage(new Event.Message());
+    addParameter(event, "CardHandle", cardHandle);
+    addParameter(event, "CardType", cardType);
+    addParameter(event, "ICCSN", iccsn);
+    addParameter(event, "CtID", ctId);
+    addParameter(event, "SlotID", "1");
+    return event;
+  }
+
+  private static void addParameter(Event event, String key, String value) {
+    Event.Message.Parameter parameter = new Event.Message.Parameter();
+    parameter.setKey(key);
+    parameter.setValue(value);
+    event.getMessage().getParameter().add(parameter);
+  }
+
+  private static GetCardsResponse createGetCardsResponse() {
+    GetCardsResponse getCardsResponse = new GetCardsResponse();
+    getCardsResponse.setCards(new Cards());
+    getCardsResponse
+        .getCards()
+        .getCard()
+        .add(createCard("card_handle_hba", CardTypeType.HBA, "80276883110000116873", "CT1"));
+    getCardsResponse
+        .getCards()
+        .getCard()
+        .add(createCard("card_handle_smcb", CardTypeType.SMC_B, "80276883110000116874", "CT1"));
+    return getCardsResponse;
+  }
+
+  private static CardInfoType createCard(
+      String cardHandle, CardTypeType cardType, String iccsn, String ctId) {
+    CardInfoType card = new CardInfoType();
+    card.setCardHandle(cardHandle);
+    card.setCardType(cardType);
+    card.setIccsn(iccsn);
+    card.setCtId(ctId);
+    return card;
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.cardterminal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.cardterminalinfo.v8.CardTerminalInfoType;
+import de.gematik.ws.conn.cardterminalinfo.v8.CardTerminals;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import de.gematik.ws.conn.eventservice.v7.GetCardTerminalsResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CardTerminalTopologyCacheTest {
+
+  private static final InvocationContext INVOCATION_CONTEXT =
+      new InvocationContext("mandant001", "clientSystem001", "workplace001");
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+  private PerformGetCardTerminals performGetCardTerminals;
+  private CardTerminalTopologyCache cardTerminalTopologyCache;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    performGetCardTerminals = mock(PerformGetCardTerminals.class);
+    cardTerminalTopologyCache = new CardTerminalTopologyCache();
+    cardTerminalTopologyCache.performGetCardTerminals = performGetCardTerminals;
+    cardTerminalTopologyCache.clock = now::get;
+    ConfigurationReader.getInstance()
+        .setConfigurationProperty("card_terminal_topology_max_age_seconds", "60");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    ConfigurationReader.getInstance()
+        .setConfigurationProperty("card_terminal_topology_max_age_seconds", "");
+  }
+
+  @Test
+  public void shouldServeTopologyUntilItExpires() throws IOException {
+    mockGetCardTerminals("OK", createCardTerminal("CT1", true));
+
+    CardTerminalTopology first = cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+    now.addAndGet(59_000);
+    CardTerminalTopology second = cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+    now.addAndGet(1_000);
+    CardTerminalTopology third = cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+
+    assertThat(second).isSameAs(first);
+    assertThat(third).isNotSameAs(first);
+    assertThat(third.getVersion()).isEqualTo(first.getVersion()).isEqualTo(1);
+    assertThat(third.getCardTerminal("CT1")).isNotNull();
+    verify(performGetCardTerminals, times(2)).performGetCardTerminals(INVOCATION_CONTEXT);
+  }
+
+  @Test
+  public void shouldReportChangesSinceEarlierTopology() throws IOException {
+    mockGetCardTerminals("OK", createCardTerminal("CT1", true), createCardTerminal("CT2", true));
+    CardTerminalTopology earlier = cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+    mockGetCardTerminals("OK", createCardTerminal("CT2", false), createCardTerminal("CT3", true));
+    now.addAndGet(60_000);
+
+    CardTerminalTopologyChange change =
+        cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT).diff(earlier);
+
+    assertThat(change.getFromVersion()).isEqualTo(1);
+    assertThat(change.getToVersion()).isEqualTo(2);
+    assertThat(change.getAdded()).extracting(CardTerminalInfoType::getCtId).containsExactly("CT3");
+    assertThat(change.getRemoved())
+        .extracting(CardTerminalInfoType::getCtId)
+        .containsExactly("CT1");
+    assertThat(change.getChanged())
+        .extracting(CardTerminalInfoType::getCtId)
+        .containsExactly("CT2");
+    assertThat(earlier.diff(earlier).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldReloadAfterCardTerminalEvent() throws IOException {
+    mockGetCardTerminals("OK", createCardTerminal("CT1", true));
+    cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+    Event cardEvent = new Event();
+    cardEvent.setTopic("CARD/INSERTED");
+    Event cardTerminalEvent = new Event();
+    cardTerminalEvent.setTopic("CT/DISCONNECTED");
+
+    cardTerminalTopologyCache.observeEvent(cardEvent);
+    cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+    cardTerminalTopologyCache.observeEvent(cardTerminalEvent);
+    cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+
+    verify(performGetCardTerminals, times(2)).performGetCardTerminals(INVOCATION_CONTEXT);
+  }
+
+  @Test
+  public void shouldNotKeepFailedTopology() throws IOException {
+    mockGetCardTerminals("OK", createCardTerminal("CT1", true));
+    CardTerminalTopology loaded = cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+    mockGetCardTerminals("Error");
+    now.addAndGet(60_000);
+
+    CardTerminalTopology failed = cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+    CardTerminalTopology retried = cardTerminalTopologyCache.getTopology(INVOCATION_CONTEXT);
+
+    assertThat(failed.getStatus()).isEqualTo("Error");
+    assertThat(failed.getCardTerminals()).isEmpty();
+    assertThat(retried.getVersion()).isEqualTo(loaded.getVersion());
+    verify(performGetCardTerminals, times(3)).performGetCardTerminals(INVOCATION_CONTEXT);
+  }
+
+  private void mockGetCardTerminals(String result, CardTerminalInfoType... cardTerminalInfos)
+      throws IOException {
+    GetCardTerminalsResponse getCardTerminalsResponse = new GetCardTerminalsResponse();
+    Status status = new Status();
+    status.setResult(result);
+    getCardTerminalsResponse.setStatus(status);
+    CardTerminals cardTerminals = new CardTerminals();
+    for (CardTerminalInfoType cardTerminalInfo : cardTerminalInfos) {
+      cardTerminals.getCardTerminal().add(cardTerminalInfo);
+    }
+    getCardTerminalsResponse.setCardTerminals(cardTerminals);
+    when(performGetCardTerminals.performGetCardTerminals(INVOCATION_CONTEXT))
+        .thenReturn(getCardTerminalsResponse);
+  }
+
+  private static CardTerminalInfoType createCardTerminal(String ctId, boolean connected) {
+    CardTerminalInfoType cardTerminalInfo = new CardTerminalInfoType();
+    cardTerminalInfo.setCtId(ctId);
+    cardTerminalInfo.setName("Terminal " + ctId);
+    cardTerminalInfo.setConnected(connected);
+    return cardTerminalInfo;
+  }
+}
@@ -25,6 +25,7 @@ import de.gematik.ws.conn.cardterminalinfo.v8.CardTerminals;
 import de.gematik.ws.conn.connectorcommon.v5.Status;
 import de.gematik.ws.conn.eventservice.v7.GetCardTerminalsResponse;
 import java.io.IOException;
+import java.util.Collections;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -66,4 +67,23 @@ public class CardTerminalsGetterTest {
         new GetCardTerminalsResult(GetCardTerminalsResult.STATUS_OK, CT_ID);
     Assert.assertEquals(getCardTerminalsResultExpected, getCardTerminalsResult);
   }
+
+  @Test
+  public void shouldDetermineCardTerminalFromTopology() throws IOException {
+    CardTerminalTopologyCache cardTerminalTopologyCache = mock(CardTerminalTopologyCache.class);
+    CardTerminalInfoType cardTerminalInfoType = new CardTerminalInfoType();
+    cardTerminalInfoType.setCtId(CT_ID);
+    InvocationContext invocationContext = new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE);
+    when(cardTerminalTopologyCache.getTopology(invocationContext))
+        .thenReturn(
+            new CardTerminalTopology(
+                1, STATUS_OK, 0, Collections.singletonList(cardTerminalInfoType)));
+
+    CardTerminalsGetter cardTerminalsGetter = new CardTerminalsGetter();
+    cardTerminalsGetter.cardTerminalTopologyCache = cardTerminalTopologyCache;
+
+    Assert.assertEquals(
+        new GetCardTerminalsResult(GetCardTerminalsResult.STATUS_OK, CT_ID),
+        cardTerminalsGetter.performGetCardTerminals(invocationContext));
+  }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.certificate;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.card.CardRegistry;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.ws.conn.cardservice.v8.CardInfoType;
+import de.gematik.ws.conn.certificateservice.v6.ReadCardCertificateResponse;
+import de.gematik.ws.conn.certificateservicecommon.v2.CertRefEnum;
+import de.gematik.ws.conn.certificateservicecommon.v2.X509DataInfoListType;
+import de.gematik.ws.conn.certificateservicecommon.v2.X509DataInfoListType.X509DataInfo;
+import de.gematik.ws.conn.certificateservicecommon.v2.X509DataInfoListType.X509DataInfo.X509Data;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CardCertificateCacheTest {
+
+  private static final InvocationContext INVOCATION_CONTEXT =
+      new InvocationContext("mandant001", "client_system001", "workplace001");
+  private static final String KEY_STORE = "src/test/resources/gematik_cs001.p12";
+  private static final String KEY_STORE_PASSWORD = "src/test/resources/gematik_cs001-password.txt";
+  private static final String KEY_ALIAS = "gematik_cs001";
+  private static final String CARD_HANDLE = "HBA-1";
+  private static final String ICCSN = "80276001011699901340";
+
+  private static Certificate[] certificateChain;
+
+  private final AtomicLong now = new AtomicLong();
+  private PerformReadCardCertificate performReadCardCertificate;
+  private CardCertificateCache cardCertificateCache;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException, GeneralSecurityException {
+    char[] password =
+        new String(Files.readAllBytes(Paths.get(KEY_STORE_PASSWORD)), StandardCharsets.UTF_8)
+            .trim()
+            .toCharArray();
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream inputStream = new FileInputStream(KEY_STORE)) {
+      keyStore.load(inputStream, password);
+    }
+    certificateChain = keyStore.getCertificateChain(KEY_ALIAS);
+  }
+
+  @Before
+  public void setUp() throws IOException, GeneralSecurityException {
+    performReadCardCertificate = mock(PerformReadCardCertificate.class);
+    ReadCardCertificateResponse readCardCertificateResponse = createResponse(certificateChain);
+    when(performReadCardCertificate.performReadCardCertificate(
+            INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT))
+        .thenReturn(readCardCertificateResponse);
+    when(performReadCardCertificate.performReadCardCertificate(
+            INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_QES))
+        .thenReturn(readCardCertificateResponse);
+
+    CardInfoType card = new CardInfoType();
+    card.setCardHandle(CARD_HANDLE);
+    card.setIccsn(ICCSN);
+    CardRegistry cardRegistry = mock(CardRegistry.class);
+    when(cardRegistry.findCardByHandle(INVOCATION_CONTEXT, CARD_HANDLE)).thenReturn(card);
+
+    cardCertificateCache = new CardCertificateCache();
+    cardCertificateCache.performReadCardCertificate = performReadCardCertificate;
+    cardCertificateCache.cardRegistry = cardRegistry;
+    cardCertificateCache.clock = now::get;
+    now.set(determineEarliestNotAfter() - 1_000);
+  }
+
+  @Test
+  public void shouldKeepAllCertificatesOfOneCall() throws IOException, GeneralSecurityException {
+    List<X509Certificate> certificates =
+        cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+    List<X509Certificate> cachedCertificates =
+        cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+
+    Assert.assertEquals(Arrays.asList(certificateChain), certificates);
+    Assert.assertSame(certificates, cachedCertificates);
+    Assert.assertEquals(1, cardCertificateCache.getHits());
+    verify(performReadCardCertificate)
+        .performReadCardCertificate(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+  }
+
+  @Test
+  public void shouldCacheEachCertificateReferenceSeparately()
+      throws IOException, GeneralSecurityException {
+    cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+    cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_QES);
+
+    Assert.assertEquals(2, cardCertificateCache.size());
+    Assert.assertEquals(2, cardCertificateCache.getMisses());
+  }
+
+  @Test
+  public void shouldReadCertificatesAgainAfterExpiry()
+      throws IOException, GeneralSecurityException {
+    cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+    now.addAndGet(1_000);
+    cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+
+    Assert.assertEquals(1, cardCertificateCache.getEvictions());
+    verify(performReadCardCertificate, times(2))
+        .performReadCardCertificate(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+  }
+
+  @Test
+  public void shouldEvictCertificatesOfRemovedCard() throws IOException, GeneralSecurityException {
+    cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+    cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_QES);
+
+    cardCertificateCache.observeEvent(createCardRemovedEvent(CARD_HANDLE));
+
+    Assert.assertEquals(0, cardCertificateCache.size());
+    Assert.assertEquals(2, cardCertificateCache.getEvictions());
+    cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+    verify(performReadCardCertificate, times(2))
+        .performReadCardCertificate(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_AUT);
+  }
+
+  @Test
+  public void shouldNotCacheFailedRead() throws IOException, GeneralSecurityException {
+    ReadCardCertificateResponse failedResponse = new ReadCardCertificateResponse();
+    Status status = new Status();
+    status.setResult("Error");
+    failedResponse.setStatus(status);
+    when(performReadCardCertificate.performReadCardCertificate(
+            INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_ENC))
+        .thenReturn(failedResponse);
+
+    List<X509Certificate> certificates =
+        cardCertificateCache.getCertificates(INVOCATION_CONTEXT, CARD_HANDLE, CertRefEnum.C_ENC);
+
+    Assert.assertTrue(certificates.isEmpty());
+    Assert.assertEquals(0, cardCertificateCache.size());
+  }
+
+  private static long determineEarliestNotAfter() {
+    return Arrays.stream(certificateChain)
+        .mapToLong(certificate -> ((X509Certificate) certificate).getNotAfter().getTime())
+        .min()
+        .getAsLong();
+  }
+
+  private static ReadCardCertificateResponse createResponse(Certificate[] certificates)
+      throws GeneralSecurityException {
+    X509DataInfoListType x509DataInfoList = new X509DataInfoListType();
+    for (Certificate certificate : certificates) {
+      X509Data x509Data = new X509Data();
+      x509Data.setX509Certificate(certificate.getEncoded());
+      X509DataInfo x509DataInfo = new X509DataInfo();
+      x509DataInfo.setX509Data(x509Data);
+      x509DataInfoList.getX509DataInfo().add(x509DataInfo);
+    }
+    Status status = new Status();
+    status.setResult("OK");
+    ReadCardCertificateResponse readCardCertificateResponse = new ReadCardCertificateResponse();
+    readCardCertificateResponse.setStatus(status);
+    readCardCertificateResponse.setX509DataInfoList(x509DataInfoList);
+    return readCardCertificateResponse;
+  }
+
+  private static Event createCardRemovedEvent(String cardHandle) {
+    Event.Message.Parameter parameter = new Event.Message.Parameter();
+    parameter.setKey(EventHelper.PARAMETER_CARD_HANDLE);
+    parameter.setValue(cardHandle);
+    Event event = new Event();
+    event.setTopic(EventHelper.TOPIC_CARD_REMOVED);
+    event.setMessage(new Event.Message());
+    event.getMessage().getParameter().add(parameter);
+    return event;
+  }
+}
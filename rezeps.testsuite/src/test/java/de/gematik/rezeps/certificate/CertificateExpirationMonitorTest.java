@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.certificate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.certificateservice.v6.CertificateExpirationType;
+import de.gematik.ws.conn.certificateservice.v6.CheckCertificateExpirationResponse;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ws.client.WebServiceIOException;
+
+public class CertificateExpirationMonitorTest {
+
+  private static final InvocationContext WORKPLACE_1 =
+      new InvocationContext("mandant001", "client_system001", "workplace001");
+  private static final InvocationContext WORKPLACE_2 =
+      new InvocationContext("mandant001", "client_system001", "workplace002");
+  private static final long NOW = 1_622_505_600_000L;
+
+  private PerformCheckCertificateExpiration performCheckCertificateExpiration;
+  private CertificateExpirationMonitor certificateExpirationMonitor;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty(
+        "certificate_expiration_check_interval_seconds", "0");
+    configurationReader.setConfigurationProperty("certificate_expiration_warn_days", "30");
+    performCheckCertificateExpiration = mock(PerformCheckCertificateExpiration.class);
+    certificateExpirationMonitor = new CertificateExpirationMonitor();
+    certificateExpirationMonitor.performCheckCertificateExpiration =
+        performCheckCertificateExpiration;
+    certificateExpirationMonitor.clock = () -> NOW;
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    certificateExpirationMonitor.stop();
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty(
+        "certificate_expiration_check_interval_seconds", "");
+    configurationReader.setConfigurationProperty("certificate_expiration_warn_days", "");
+  }
+
+  @Test
+  public void shouldCheckCardsAndKonnektorOfEachContextInOnePass()
+      throws IOException, DatatypeConfigurationException {
+    CertificateExpirationType smcB = createCertificateExpiration("SMC-B-1", "80276001", 10);
+    CertificateExpirationType hba = createCertificateExpiration("HBA-1", "80276002", 200);
+    CertificateExpirationType konnektor = createCertificateExpiration(null, "80276003", -1);
+    when(performCheckCertificateExpiration.performCheckCertificateExpiration(WORKPLACE_1, null))
+        .thenReturn(createResponse("OK", smcB, hba, konnektor));
+    when(performCheckCertificateExpiration.performCheckCertificateExpiration(WORKPLACE_2, null))
+        .thenReturn(createResponse("OK", smcB, konnektor));
+    certificateExpirationMonitor.watch(WORKPLACE_1);
+    certificateExpirationMonitor.watch(WORKPLACE_2);
+    certificateExpirationMonitor.watch(WORKPLACE_1);
+
+    certificateExpirationMonitor.checkAll();
+
+    List<CertificateExpiration> certificateExpirations =
+        certificateExpirationMonitor.getCertificateExpirations();
+    Assert.assertEquals(3, certificateExpirations.size());
+    Assert.assertEquals("80276003", certificateExpirations.get(0).getIccsn());
+    Assert.assertTrue(certificateExpirations.get(0).isExpired(NOW));
+    Assert.assertEquals(10, certificateExpirations.get(1).getRemainingDays(NOW));
+    Assert.assertEquals(NOW, certificateExpirationMonitor.getLastCheckMillis());
+    verify(performCheckCertificateExpiration, times(2))
+        .performCheckCertificateExpiration(any(InvocationContext.class), isNull());
+  }
+
+  @Test
+  public void shouldReportExpiringCertificates()
+      throws IOException, DatatypeConfigurationException {
+    when(performCheckCertificateExpiration.performCheckCertificateExpiration(WORKPLACE_1, null))
+        .thenReturn(
+            createResponse(
+                "OK",
+                createCertificateExpiration("HBA-1", "80276002", 200),
+                createCertificateExpiration("SMC-B-1", "80276001", 10)));
+    certificateExpirationMonitor.watch(WORKPLACE_1);
+
+    certificateExpirationMonitor.checkAll();
+
+    List<CertificateExpiration> expiringCertificates =
+        certificateExpirationMonitor.getExpiringCertificates();
+    Assert.assertEquals(1, expiringCertificates.size());
+    Assert.assertEquals("SMC-B-1", expiringCertificates.get(0).getCardHandle());
+  }
+
+  @Test
+  public void shouldKeepLastResultIfCheckFails()
+      throws IOException, DatatypeConfigurationException {
+    when(performCheckCertificateExpiration.performCheckCertificateExpiration(WORKPLACE_1, null))
+        .thenReturn(createResponse("OK", createCertificateExpiration("HBA-1", "80276002", 200)))
+        .thenReturn(createResponse("Error"))
+        .thenThrow(new WebServiceIOException("Konnektor nicht erreichbar"));
+    certificateExpirationMonitor.watch(WORKPLACE_1);
+
+    certificateExpirationMonitor.checkAll();
+    certificateExpirationMonitor.checkAll();
+    certificateExpirationMonitor.checkAll();
+
+    Assert.assertEquals(1, certificateExpirationMonitor.getCertificateExpirations().size());
+    Assert.assertEquals(3, certificateExpirationMonitor.getChecks());
+    Assert.assertEquals(2, certificateExpirationMonitor.getFailedChecks());
+  }
+
+  private static CheckCertificateExpirationResponse createResponse(
+      String result, CertificateExpirationType... certificateExpirations) {
+    Status status = new Status();
+    status.setResult(result);
+    CheckCertificateExpirationResponse response = new CheckCertificateExpirationResponse();
+    response.setStatus(status);
+    response.getCertificateExpiration().addAll(Arrays.asList(certificateExpirations));
+    return response;
+  }
+
+  private static CertificateExpirationType createCertificateExpiration(
+      String cardHandle, String iccsn, int remainingDays) throws DatatypeConfigurationException {
+    GregorianCalendar validity = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+    validity.setTimeInMillis(NOW + TimeUnit.DAYS.toMillis(remainingDays) + 1);
+    CertificateExpirationType certificateExpiration = new CertificateExpirationType();
+    certificateExpiration.setCtID("CT1");
+    certificateExpiration.setCardHandle(cardHandle);
+    certificateExpiration.setICCSN(iccsn);
+    certificateExpiration.setSubjectCommonName("CN " + iccsn);
+    certificateExpiration.setSerialNumber(iccsn + "01");
+    certificateExpiration.setValidity(
+        DatatypeFactory.newInstance().newXMLGregorianCalendar(validity));
+    return certificateExpiration;
+  }
+}
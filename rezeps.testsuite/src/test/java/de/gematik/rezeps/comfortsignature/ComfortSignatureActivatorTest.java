@@ -24,8 +24,10 @@ import de.gematik.ws.conn.connectorcommon.v5.Status;
 import de.gematik.ws.conn.signatureservice.v7.ActivateComfortSignatureResponse;
 import de.gematik.ws.conn.signatureservice.v7.SignatureModeEnum;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.ws.client.WebServiceIOException;
 import org.springframework.ws.soap.SoapFault;
 import org.springframework.ws.soap.client.SoapFaultClientException;
 
@@ -85,4 +87,23 @@ public class ComfortSignatureActivatorTest {
     expectedComfortSignatureResult.setSoapFault(ComfortSignatureResult.ERROR_TEXT_4018);
     Assert.assertEquals(expectedComfortSignatureResult, comfortSignatureResult);
   }
+
+  @Test
+  public void shouldReturnTimedOutResultOnSocketTimeout() throws IOException {
+    PerformActivateComfortSignature performActivateComfortSignature =
+        mock(PerformActivateComfortSignature.class);
+
+    InvocationContext invocationContext = new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE);
+    when(performActivateComfortSignature.performActivateComfortSignature(
+            invocationContext, HBA_HANDLE))
+        .thenThrow(
+            new WebServiceIOException("I/O error", new SocketTimeoutException("Read timed out")));
+
+    ComfortSignatureActivator comfortSignatureActivator = new ComfortSignatureActivator();
+    comfortSignatureActivator.performActivateComfortSignature = performActivateComfortSignature;
+    ComfortSignatureResult comfortSignatureResult =
+        comfortSignatureActivator.activateComfortSignature(invocationContext, HBA_HANDLE);
+    Assert.assertTrue(comfortSignatureResult.isTimedOut());
+    Assert.assertFalse(comfortSignatureResult.isComfortSignatureActivated());
+  }
 }
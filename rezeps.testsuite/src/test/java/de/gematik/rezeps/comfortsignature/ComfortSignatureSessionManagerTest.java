@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.comfortsignature;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ComfortSignatureSessionManagerTest {
+
+  private static final String HBA_HANDLE = "hba_handle_1";
+  private static final InvocationContext INVOCATION_CONTEXT =
+      new InvocationContext("mandant", "clientSystem", "workplace", "user");
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+  private ComfortSignatureActivator comfortSignatureActivator;
+  private SignatureModeGetter signatureModeGetter;
+  private ComfortSignatureSessionManager comfortSignatureSessionManager;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    comfortSignatureActivator = mock(ComfortSignatureActivator.class);
+    when(comfortSignatureActivator.activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE))
+        .thenReturn(createResult(null, null));
+    signatureModeGetter = mock(SignatureModeGetter.class);
+    when(signatureModeGetter.determineSignatureMode(HBA_HANDLE, INVOCATION_CONTEXT))
+        .thenReturn(createResult(10, 600_000L));
+
+    comfortSignatureSessionManager = new ComfortSignatureSessionManager();
+    comfortSignatureSessionManager.comfortSignatureActivator = comfortSignatureActivator;
+    comfortSignatureSessionManager.signatureModeGetter = signatureModeGetter;
+    comfortSignatureSessionManager.clock = now::get;
+  }
+
+  @Test
+  public void shouldTrackBudgetAfterActivation() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    comfortSignatureSessionManager.recordSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 3);
+    now.addAndGet(100_000L);
+
+    ComfortSignatureSession session =
+        comfortSignatureSessionManager.getSession(INVOCATION_CONTEXT, HBA_HANDLE);
+    Assert.assertEquals(Integer.valueOf(7), session.getRemainingSignatures());
+    Assert.assertEquals(Long.valueOf(500_000L), session.getRemainingMillis(now.get()));
+    Assert.assertEquals(3, session.getSignaturesUsed());
+  }
+
+  @Test
+  public void shouldReactivateWhenSignaturesRunOut() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    comfortSignatureSessionManager.recordSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 8);
+
+    comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 2);
+    verify(comfortSignatureActivator, times(1))
+        .activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE);
+
+    ComfortSignatureSession session =
+        comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 3);
+    verify(comfortSignatureActivator, times(2))
+        .activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE);
+    Assert.assertSame(
+        session, comfortSignatureSessionManager.getSession(INVOCATION_CONTEXT, HBA_HANDLE));
+    // die offene Reservierung über 2 Signaturen geht auf die neue Sitzung über
+    Assert.assertEquals(5, session.getSignaturesReserved());
+    Assert.assertEquals(Integer.valueOf(5), session.getRemainingSignatures());
+  }
+
+  @Test
+  public void shouldReactivateBeforeSessionExpires() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    now.addAndGet(550_000L);
+
+    comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 1);
+    verify(comfortSignatureActivator, times(2))
+        .activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE);
+  }
+
+  @Test
+  public void shouldReserveBudgetOfPendingSignatures() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    ComfortSignatureSession session =
+        comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 6);
+    Assert.assertEquals(Integer.valueOf(4), session.getRemainingSignatures());
+
+    ComfortSignatureSession reactivatedSession =
+        comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 6);
+    verify(comfortSignatureActivator, times(2))
+        .activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE);
+    Assert.assertNotSame(session, reactivatedSession);
+  }
+
+  @Test
+  public void shouldMoveReservationsToReactivatedSession() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    comfortSignatureSessionManager.recordSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 6);
+    ComfortSignatureSession session =
+        comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 3);
+    Assert.assertEquals(Integer.valueOf(1), session.getRemainingSignatures());
+
+    ComfortSignatureSession reactivatedSession =
+        comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 2);
+    Assert.assertNotSame(session, reactivatedSession);
+    Assert.assertEquals(5, reactivatedSession.getSignaturesReserved());
+    Assert.assertEquals(Integer.valueOf(5), reactivatedSession.getRemainingSignatures());
+
+    comfortSignatureSessionManager.recordSignatures(session, 3, 3);
+    Assert.assertEquals(2, reactivatedSession.getSignaturesReserved());
+    Assert.assertEquals(3, reactivatedSession.getSignaturesUsed());
+
+    comfortSignatureSessionManager.recordSignatures(reactivatedSession, 2, 2);
+    Assert.assertEquals(0, reactivatedSession.getSignaturesReserved());
+    Assert.assertEquals(Integer.valueOf(5), reactivatedSession.getRemainingSignatures());
+  }
+
+  @Test
+  public void shouldNotReactivateForBatchFillingFreshBudget() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty("comfort_signature_reserve_signatures", "2");
+    try {
+      comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+      ComfortSignatureSession session =
+          comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 9);
+      verify(comfortSignatureActivator, times(1))
+          .activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE);
+      Assert.assertEquals(Integer.valueOf(1), session.getRemainingSignatures());
+    } finally {
+      configurationReader.setConfigurationProperty("comfort_signature_reserve_signatures", "");
+    }
+  }
+
+  @Test
+  public void shouldRejectBatchBeyondFreshBudget() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    try {
+      comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 11);
+      Assert.fail("IllegalArgumentException erwartet");
+    } catch (IllegalArgumentException exception) {
+      Assert.assertTrue(exception.getMessage().contains("11"));
+    }
+    verify(comfortSignatureActivator, times(1))
+        .activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE);
+  }
+
+  @Test
+  public void shouldNotActivateUntrackedHba() throws IOException {
+    comfortSignatureSessionManager.prepareSignatures(INVOCATION_CONTEXT, HBA_HANDLE, 100);
+    verify(comfortSignatureActivator, never()).activateComfortSignature(any(), anyString());
+  }
+
+  @Test
+  public void shouldInvalidateSessionsOfHba() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    comfortSignatureSessionManager.invalidate(HBA_HANDLE);
+    Assert.assertNull(comfortSignatureSessionManager.getSession(INVOCATION_CONTEXT, HBA_HANDLE));
+    Assert.assertTrue(comfortSignatureSessionManager.locks.isEmpty());
+  }
+
+  @Test
+  public void shouldNotKeepLockWithoutSession() throws IOException {
+    when(comfortSignatureActivator.activateComfortSignature(INVOCATION_CONTEXT, HBA_HANDLE))
+        .thenReturn(new ComfortSignatureResult());
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    Assert.assertNull(comfortSignatureSessionManager.getSession(INVOCATION_CONTEXT, HBA_HANDLE));
+    Assert.assertTrue(comfortSignatureSessionManager.locks.isEmpty());
+  }
+
+  @Test
+  public void shouldEndSessionWhenHbaIsRemoved() throws IOException {
+    comfortSignatureSessionManager.activate(INVOCATION_CONTEXT, HBA_HANDLE);
+    Event.Message.Parameter parameter = new Event.Message.Parameter();
+    parameter.setKey(EventHelper.PARAMETER_CARD_HANDLE);
+    parameter.setValue(HBA_HANDLE);
+    Event event = new Event();
+    event.setTopic(EventHelper.TOPIC_CARD_REMOVED);
+    event.setMessage(new Event.Message());
+    event.getMessage().getParameter().add(parameter);
+
+    comfortSignatureSessionManager.observeEvent(event);
+
+    Assert.assertNull(comfortSignatureSessionManager.getSession(INVOCATION_CONTEXT, HBA_HANDLE));
+  }
+
+  private static ComfortSignatureResult createResult(
+      Integer countRemaining, Long timeRemainingMillis) {
+    ComfortSignatureResult comfortSignatureResult = new ComfortSignatureResult();
+    comfortSignatureResult.setStatus(ComfortSignatureResult.STATUS_OK);
+    comfortSignatureResult.setSignatureMode(ComfortSignatureResult.SIGNATURE_MODE_COMFORT);
+    comfortSignatureResult.setCountRemaining(countRemaining);
+    comfortSignatureResult.setTimeRemainingMillis(timeRemainingMillis);
+    return comfortSignatureResult;
+  }
+}
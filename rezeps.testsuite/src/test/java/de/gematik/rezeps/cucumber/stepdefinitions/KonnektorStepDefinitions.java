@@ -378,6 +378,11 @@ public class KonnektorStepDefinitions {
     konnektorGlueCode.activateComfortSignature();
   }
 
+  @When("PS aktiviert Komfortsignatur mit Budgetverfolgung")
+  public void activateComfortSignatureSession() throws MissingPreconditionException {
+    konnektorGlueCode.activateComfortSignatureSession();
+  }
+
   // REZEPS-69
   @When("PS deaktiviert Komfortsignatur")
   public void deactivateComfortSignature() throws MissingPreconditionException {
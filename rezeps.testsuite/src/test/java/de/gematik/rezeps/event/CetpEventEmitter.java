@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.JaxbMarshallerRegistry;
+import de.gematik.rezeps.WsdlContexts;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import javax.net.ssl.SSLSocket;
+import javax.xml.transform.stream.StreamResult;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.ssl.TrustStrategy;
+
+/**
+ * Stand-in für den Konnektor, der Ereignisse per CETP an einen Ereignisempfänger sendet. Dem
+ * Zertifikat des Empfängers wird bei TLS ungeprüft vertraut; als Client-Zertifikat dient auf Wunsch
+ * das aus path_to_client_keystore.
+ */
+class CetpEventEmitter implements AutoCloseable {
+
+  private final Socket socket;
+  private final OutputStream outputStream;
+
+  CetpEventEmitter(int port, boolean tls) throws IOException, GeneralSecurityException {
+    this(port, tls, tls);
+  }
+
+  CetpEventEmitter(int port, boolean tls, boolean clientCertificate)
+      throws IOException, GeneralSecurityException {
+    if (tls) {
+      SSLContextBuilder sslContextBuilder =
+          SSLContextBuilder.create().loadTrustMaterial(new TrustingStrategy());
+      if (clientCertificate) {
+        ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+        char[] clientKeystorePassword =
+            configurationReader.getClientKeystorePassword().toCharArray();
+        sslContextBuilder.loadKeyMaterial(
+            new File(configurationReader.getPathToClientKeystore()),
+            clientKeystorePassword,
+            clientKeystorePassword);
+      }
+      SSLSocket sslSocket =
+          (SSLSocket) sslContextBuilder.build().getSocketFactory().createSocket("127.0.0.1", port);
+      sslSocket.startHandshake();
+      socket = sslSocket;
+    } else {
+      socket = new Socket("127.0.0.1", port);
+    }
+    socket.setSoTimeout(5000);
+    outputStream = socket.getOutputStream();
+  }
+
+  /**
+   * Sendet Ereignisse in einem Aufruf.
+   *
+   * @param events Die Ereignisse.
+   */
+  void emit(Event... events) throws IOException {
+    ByteArrayOutputStream frames = new ByteArrayOutputStream();
+    for (Event event : events) {
+      frames.write(createFrame(event));
+    }
+    outputStream.write(frames.toByteArray());
+    outputStream.flush();
+  }
+
+  /**
+   * Sendet ein Ereignis byteweise, sodass der Empfänger den Rahmen in Teilen liest.
+   *
+   * @param event Das Ereignis.
+   */
+  void emitSlowly(Event event) throws IOException, InterruptedException {
+    for (byte b : createFrame(event)) {
+      outputStream.write(b);
+      outputStream.flush();
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Sendet beliebige Daten, z.B. einen ungültigen Rahmen.
+   *
+   * @param data Die Daten.
+   */
+  void emitRaw(byte[] data) throws IOException {
+    outputStream.write(data);
+    outputStream.flush();
+  }
+
+  /**
+   * Wartet, bis der Empfänger die Verbindung schließt.
+   *
+   * @return true, falls die Verbindung innerhalb des Timeouts geschlossen wurde.
+   */
+  boolean awaitClose() {
+    try (InputStream inputStream = socket.getInputStream()) {
+      return inputStream.read() < 0;
+    } catch (IOException exception) {
+      return true;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+
+  static byte[] createFrame(Event event) throws IOException {
+    ByteArrayOutputStream xml = new ByteArrayOutputStream();
+    JaxbMarshallerRegistry.determineMarshaller(WsdlContexts.EVENT_SERVICE_CONTEXT)
+        .marshal(event, new StreamResult(xml));
+    ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(frame);
+    dataOutputStream.write("CETP".getBytes(StandardCharsets.US_ASCII));
+    dataOutputStream.writeInt(xml.size());
+    xml.writeTo(dataOutputStream);
+    return frame.toByteArray();
+  }
+
+  private static class TrustingStrategy implements TrustStrategy {
+
+    @Override
+    public boolean isTrusted(X509Certificate[] chain, String authType) {
+      return true;
+    }
+  }
+}
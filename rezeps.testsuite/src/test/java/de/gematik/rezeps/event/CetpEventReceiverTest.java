@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CetpEventReceiverTest {
+
+  private final BlockingQueue<Event> receivedEvents = new LinkedBlockingQueue<>();
+  private CetpEventReceiver cetpEventReceiver;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty("event_receiver_address", "cetp://127.0.0.1:0");
+    configurationReader.setConfigurationProperty("event_receiver_tls", "false");
+    cetpEventReceiver = new CetpEventReceiver();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    cetpEventReceiver.stop();
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty("event_receiver_address", "");
+    configurationReader.setConfigurationProperty("event_receiver_tls", "");
+    configurationReader.setConfigurationProperty("event_receiver_keystore", "");
+    configurationReader.setConfigurationProperty("event_receiver_keystore_password", "");
+    configurationReader.setConfigurationProperty("event_receiver_truststore", "");
+    configurationReader.setConfigurationProperty("event_receiver_truststore_password", "");
+  }
+
+  @Test
+  public void shouldDispatchEventsInOrder() throws Exception {
+    cetpEventReceiver.start(receivedEvents::add);
+
+    try (CetpEventEmitter cetpEventEmitter =
+        new CetpEventEmitter(cetpEventReceiver.getLocalPort(), false)) {
+      cetpEventEmitter.emit(
+          createEvent("CARD/INSERTED", "card_handle_1"),
+          createEvent("CARD/REMOVED", "card_handle_1"));
+      cetpEventEmitter.emitSlowly(createEvent("CT/DISCONNECTED", "card_handle_2"));
+
+      assertEvent(receivedEvents.poll(5, TimeUnit.SECONDS), "CARD/INSERTED", "card_handle_1");
+      assertEvent(receivedEvents.poll(5, TimeUnit.SECONDS), "CARD/REMOVED", "card_handle_1");
+      assertEvent(receivedEvents.poll(5, TimeUnit.SECONDS), "CT/DISCONNECTED", "card_handle_2");
+    }
+    assertThat(cetpEventReceiver.getReceivedEvents()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldReceiveEventsOverTls() throws Exception {
+    enableTls();
+    cetpEventReceiver.start(receivedEvents::add);
+
+    try (CetpEventEmitter cetpEventEmitter =
+        new CetpEventEmitter(cetpEventReceiver.getLocalPort(), true)) {
+      cetpEventEmitter.emit(createEvent("CARD/INSERTED", "card_handle_1"));
+
+      assertEvent(receivedEvents.poll(5, TimeUnit.SECONDS), "CARD/INSERTED", "card_handle_1");
+    }
+  }
+
+  @Test
+  public void shouldRejectConnectionsWithoutClientCertificate() throws Exception {
+    enableTls();
+    cetpEventReceiver.start(receivedEvents::add);
+
+    try (CetpEventEmitter cetpEventEmitter =
+        new CetpEventEmitter(cetpEventReceiver.getLocalPort(), true, false)) {
+      cetpEventEmitter.emit(createEvent("CARD/INSERTED", "card_handle_1"));
+
+      assertThat(cetpEventEmitter.awaitClose()).isTrue();
+    } catch (IOException exception) {
+      // der Empfänger bricht den Handshake ab, je nach TLS-Version bereits beim Aufbau oder erst
+      // beim Senden
+    }
+    assertThat(receivedEvents.poll(200, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  public void shouldStopReadingWhileQueueIsFull() throws Exception {
+    CountDownLatch released = new CountDownLatch(1);
+    cetpEventReceiver.queueCapacity = 1;
+    cetpEventReceiver.start(
+        event -> {
+          try {
+            released.await();
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          }
+          receivedEvents.add(event);
+        });
+
+    try (CetpEventEmitter cetpEventEmitter =
+        new CetpEventEmitter(cetpEventReceiver.getLocalPort(), false)) {
+      for (int i = 0; i < 5; i++) {
+        cetpEventEmitter.emit(createEvent("CARD/INSERTED", "card_handle_" + i));
+      }
+      Thread.sleep(200);
+      assertThat(cetpEventReceiver.getQueueDepth()).isLessThanOrEqualTo(1);
+      assertThat(receivedEvents).isEmpty();
+
+      released.countDown();
+      for (int i = 0; i < 5; i++) {
+        assertEvent(receivedEvents.poll(5, TimeUnit.SECONDS), "CARD/INSERTED", "card_handle_" + i);
+      }
+    }
+  }
+
+  @Test
+  public void shouldCloseConnectionOnInvalidFrame() throws Exception {
+    cetpEventReceiver.start(receivedEvents::add);
+
+    try (CetpEventEmitter cetpEventEmitter =
+        new CetpEventEmitter(cetpEventReceiver.getLocalPort(), false)) {
+      cetpEventEmitter.emitRaw("HTTP/1.1 200 OK\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+      assertThat(cetpEventEmitter.awaitClose()).isTrue();
+    }
+    assertThat(cetpEventReceiver.getRejectedFrames()).isEqualTo(1);
+    assertThat(receivedEvents).isEmpty();
+  }
+
+  @Test
+  public void shouldRestartOnSamePort() throws Exception {
+    cetpEventReceiver.start(receivedEvents::add);
+    int port = cetpEventReceiver.getLocalPort();
+    cetpEventReceiver.stop();
+    ConfigurationReader.getInstance()
+        .setConfigurationProperty("event_receiver_address", "cetp://127.0.0.1:" + port);
+
+    cetpEventReceiver.start(receivedEvents::add);
+
+    try (CetpEventEmitter cetpEventEmitter = new CetpEventEmitter(port, false)) {
+      cetpEventEmitter.emit(createEvent("CARD/INSERTED", "card_handle_1"));
+
+      assertEvent(receivedEvents.poll(5, TimeUnit.SECONDS), "CARD/INSERTED", "card_handle_1");
+    }
+  }
+
+  @Test
+  public void shouldNotStartWithoutHost() throws IOException {
+    ConfigurationReader.getInstance()
+        .setConfigurationProperty("event_receiver_address", "cetp://:8585");
+
+    Assert.assertThrows(IOException.class, () -> cetpEventReceiver.start(receivedEvents::add));
+    assertThat(cetpEventReceiver.isRunning()).isFalse();
+  }
+
+  /**
+   * Der Empfänger weist sich im Test mit dem Client-Zertifikat aus, mit dem sich auch der
+   * CetpEventEmitter ausweist, und vertraut ihm.
+   */
+  private static void enableTls() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    String clientKeystore = configurationReader.getPathToClientKeystore();
+    String clientKeystorePassword = configurationReader.getClientKeystorePassword();
+    configurationReader.setConfigurationProperty("event_receiver_tls", "true");
+    configurationReader.setConfigurationProperty("event_receiver_keystore", clientKeystore);
+    configurationReader.setConfigurationProperty(
+        "event_receiver_keystore_password", clientKeystorePassword);
+    configurationReader.setConfigurationProperty("event_receiver_truststore", clientKeystore);
+    configurationReader.setConfigurationProperty(
+        "event_receiver_truststore_password", clientKeystorePassword);
+  }
+
+  private static Event createEvent(String topic, String cardHandle) {
+    Event.Message.Parameter parameter = new Event.Message.Parameter();
+    parameter.setKey(EventHelper.PARAMETER_CARD_HANDLE);
+    parameter.setValue(cardHandle);
+    Event event = new Event();
+    event.setTopic(topic);
+    event.setSubscriptionID("subscription-1");
+    event.setMessage(new Event.Message());
+    event.getMessage().getParameter().add(parameter);
+    return event;
+  }
+
+  private static void assertEvent(Event event, String topic, String cardHandle) {
+    assertThat(event).isNotNull();
+    assertThat(event.getTopic()).isEqualTo(topic);
+    assertThat(EventHelper.determineParameter(event, EventHelper.PARAMETER_CARD_HANDLE))
+        .isEqualTo(cardHandle);
+  }
+}
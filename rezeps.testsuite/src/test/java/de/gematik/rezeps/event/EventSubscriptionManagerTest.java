@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import de.gematik.ws.conn.eventservice.v7.RenewSubscriptionsResponse;
+import de.gematik.ws.conn.eventservice.v7.SubscribeResponse;
+import de.gematik.ws.conn.eventservice.v7.SubscriptionRenewal;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EventSubscriptionManagerTest {
+
+  private static final String EVENT_RECEIVER_ADDRESS = "cetp://127.0.0.1:8585";
+  private static final long NOW_MILLIS = 1_600_000_000_000L;
+
+  private InvocationContext invocationContext;
+  private PerformSubscribe performSubscribe;
+  private PerformRenewSubscriptions performRenewSubscriptions;
+  private EventListener eventListener;
+  private EventSubscriptionManager eventSubscriptionManager;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    invocationContext = new InvocationContext("mandant001", "clientSystem001", "workplace001");
+    performSubscribe = mock(PerformSubscribe.class);
+    performRenewSubscriptions = mock(PerformRenewSubscriptions.class);
+    eventListener = mock(EventListener.class);
+    eventSubscriptionManager = new EventSubscriptionManager();
+    eventSubscriptionManager.performSubscribe = performSubscribe;
+    eventSubscriptionManager.performRenewSubscriptions = performRenewSubscriptions;
+    eventSubscriptionManager.clock = () -> NOW_MILLIS;
+    ConfigurationReader.getInstance()
+        .setConfigurationProperty("event_receiver_address", EVENT_RECEIVER_ADDRESS);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    eventSubscriptionManager.unsubscribeAll();
+    ConfigurationReader.getInstance().setConfigurationProperty("event_receiver_address", "");
+  }
+
+  @Test
+  public void shouldNotSubscribeWithoutEventReceiver() throws IOException {
+    ConfigurationReader.getInstance().setConfigurationProperty("event_receiver_address", "");
+
+    assertThat(eventSubscriptionManager.subscribe(invocationContext, "CARD", eventListener))
+        .isNull();
+    verify(performSubscribe, never()).performSubscribe(any(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldDispatchEventToSubscriber() throws Exception {
+    mockSubscribe("subscription-1", NOW_MILLIS + 3_600_000);
+    String subscriptionId =
+        eventSubscriptionManager.subscribe(invocationContext, "CARD", eventListener);
+    Event event = createEvent("subscription-1");
+
+    assertThat(subscriptionId).isEqualTo("subscription-1");
+    assertThat(eventSubscriptionManager.isSubscribed(subscriptionId)).isTrue();
+    assertThat(eventSubscriptionManager.dispatch(event)).isTrue();
+    assertThat(eventSubscriptionManager.dispatch(createEvent("subscription-2"))).isFalse();
+    verify(eventListener).handleEvent(event);
+  }
+
+  @Test
+  public void shouldNotifyObserversOfSubscribedEvents() throws Exception {
+    EventObserver eventObserver = mock(EventObserver.class);
+    eventSubscriptionManager.eventObservers = Collections.singletonList(eventObserver);
+    mockSubscribe("subscription-1", NOW_MILLIS + 3_600_000);
+    eventSubscriptionManager.subscribe(invocationContext, "CARD", eventListener);
+    Event event = createEvent("subscription-1");
+
+    eventSubscriptionManager.dispatch(event);
+    eventSubscriptionManager.dispatch(createEvent("subscription-2"));
+
+    verify(eventObserver).observeEvent(event);
+    verify(eventObserver, times(1)).observeEvent(any());
+  }
+
+  @Test
+  public void shouldNotSubscribeWhenEventReceiverCannotStart() throws IOException {
+    CetpEventReceiver cetpEventReceiver = mock(CetpEventReceiver.class);
+    doThrow(new IOException("Port belegt")).when(cetpEventReceiver).start(any());
+    eventSubscriptionManager.cetpEventReceiver = cetpEventReceiver;
+
+    assertThat(eventSubscriptionManager.subscribe(invocationContext, "CARD", eventListener))
+        .isNull();
+    verify(performSubscribe, never()).performSubscribe(any(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldRenewOnlySubscriptionsDueForRenewal() throws Exception {
+    mockSubscribe("subscription-1", NOW_MILLIS + 60_000);
+    eventSubscriptionManager.subscribe(invocationContext, "CARD", eventListener);
+    mockSubscribe("subscription-2", NOW_MILLIS + 3_600_000);
+    eventSubscriptionManager.subscribe(invocationContext, "CT", eventListener);
+    RenewSubscriptionsResponse renewSubscriptionsResponse = new RenewSubscriptionsResponse();
+    renewSubscriptionsResponse.setStatus(createStatus("OK"));
+    renewSubscriptionsResponse.setSubscribeRenewals(
+        new RenewSubscriptionsResponse.SubscribeRenewals());
+    SubscriptionRenewal subscriptionRenewal = new SubscriptionRenewal();
+    subscriptionRenewal.setSubscriptionID("subscription-1");
+    subscriptionRenewal.setTerminationTime(createTime(NOW_MILLIS + 3_600_000));
+    renewSubscriptionsResponse
+        .getSubscribeRenewals()
+        .getSubscriptionRenewal()
+        .add(subscriptionRenewal);
+    when(performRenewSubscriptions.performRenewSubscriptions(
+            invocationContext, Collections.singletonList("subscription-1")))
+        .thenReturn(renewSubscriptionsResponse);
+
+    eventSubscriptionManager.renewSubscriptions();
+    eventSubscriptionManager.clock = () -> NOW_MILLIS + 120_000;
+
+    assertThat(eventSubscriptionManager.isSubscribed("subscription-1")).isTrue();
+    verify(performRenewSubscriptions)
+        .performRenewSubscriptions(invocationContext, Collections.singletonList("subscription-1"));
+    verify(eventListener, never()).handleSubscriptionLost();
+  }
+
+  @Test
+  public void shouldReportLostSubscriptionWhenRenewalFails() throws Exception {
+    mockSubscribe("subscription-1", NOW_MILLIS + 60_000);
+    eventSubscriptionManager.subscribe(invocationContext, "CARD", eventListener);
+    when(performRenewSubscriptions.performRenewSubscriptions(eq(invocationContext), any()))
+        .thenThrow(new IOException("Konnektor nicht erreichbar"));
+
+    eventSubscriptionManager.renewSubscriptions();
+
+    assertThat(eventSubscriptionManager.isSubscribed("subscription-1")).isFalse();
+    assertThat(eventSubscriptionManager.dispatch(createEvent("subscription-1"))).isFalse();
+    verify(eventListener).handleSubscriptionLost();
+  }
+
+  private void mockSubscribe(String subscriptionId, long terminationMillis) throws Exception {
+    SubscribeResponse subscribeResponse = new SubscribeResponse();
+    subscribeResponse.setStatus(createStatus("OK"));
+    subscribeResponse.setSubscriptionID(subscriptionId);
+    subscribeResponse.setTerminationTime(createTime(terminationMillis));
+    when(performSubscribe.performSubscribe(
+            eq(invocationContext), eq(EVENT_RECEIVER_ADDRESS), anyString()))
+        .thenReturn(subscribeResponse);
+  }
+
+  private static Event createEvent(String subscriptionId) {
+    Event event = new Event();
+    event.setTopic("CARD/INSERTED");
+    event.setSubscriptionID(subscriptionId);
+    return event;
+  }
+
+  private static Status createStatus(String result) {
+    Status status = new Status();
+    status.setResult(result);
+    return status;
+  }
+
+  private static XMLGregorianCalendar createTime(long millis)
+      throws DatatypeConfigurationException {
+    GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+    calendar.setTimeInMillis(millis);
+    return DatatypeFactory.newInstance().newXMLGregorianCalendar(calendar);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.gematik.rezeps.event;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.KonnektorHelper;
+import de.gematik.rezeps.KonnektorPool;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class KonnektorAffinityObserverTest {
+
+  private static final String KONNEKTOR_POOL = "konnektor_pool";
+
+  private KonnektorPool konnektorPool;
+  private String primaryEndpoint;
+  private KonnektorPool.Konnektor secondaryKonnektor;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    ConfigurationReader.getInstance().setConfigurationProperty(KONNEKTOR_POOL, "127.0.0.2:443");
+    konnektorPool = KonnektorHelper.determineKonnektorPool();
+    primaryEndpoint = konnektorPool.getKonnektors().get(0).getKonnektorEndpoint();
+    secondaryKonnektor = konnektorPool.getKonnektors().get(1);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    ConfigurationReader.getInstance().setConfigurationProperty(KONNEKTOR_POOL, "");
+  }
+
+  @Test
+  public void shouldUnbindRemovedCard() {
+    konnektorPool.bind("HBA-1", secondaryKonnektor);
+    new KonnektorAffinityObserver()
+        .observeEvent(
+            createEvent(
+                EventHelper.TOPIC_CARD_REMOVED, EventHelper.PARAMETER_CARD_HANDLE, "HBA-1"));
+    Assert.assertEquals(primaryEndpoint, konnektorPool.determineKonnektorEndpoint("HBA-1"));
+  }
+
+  @Test
+  public void shouldUnbindDisconnectedCardTerminal() {
+    konnektorPool.bind("CT-1", secondaryKonnektor);
+    new KonnektorAffinityObserver()
+        .observeEvent(
+            createEvent(EventHelper.TOPIC_CT_DISCONNECTED, EventHelper.PARAMETER_CT_ID, "CT-1"));
+    Assert.assertEquals(primaryEndpoint, konnektorPool.determineKonnektorEndpoint("CT-1"));
+  }
+
+  @Test
+  public void shouldKeepBindingOnOtherEvents() {
+    konnektorPool.bind("HBA-1", secondaryKonnektor);
+    new KonnektorAffinityObserver()
+        .observeEvent(
+            createEvent(
+                EventHelper.TOPIC_CARD_INSERTED, EventHelper.PARAMETER_CARD_HANDLE, "HBA-1"));
+    Assert.assertEquals(
+        secondaryKonnektor.getKonnektorEndpoint(),
+        konnektorPool.determineKonnektorEndpoint("HBA-1"));
+  }
+
+  private static Event createEvent(String topic, String key, String value) {
+    Event.Message.Parameter parameter = new Event.Message.Parameter();
+    parameter.setKey(key);
+    parameter.setValue(value);
+    Event event = new Event();
+    event.setTopic(topic);
+    event.setMessage(new Event.Message());
+    event.getMessage().getParameter().add(parameter);
+    return event;
+  }
+}
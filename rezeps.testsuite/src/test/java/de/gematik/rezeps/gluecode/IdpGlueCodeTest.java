@@ -28,7 +28,11 @@ import de.gematik.rezeps.InvocationContext;
 import de.gematik.rezeps.authentication.ExternalAuthenticateResult;
 import de.gematik.rezeps.authentication.ExternalAuthenticator;
 import de.gematik.rezeps.certificate.CardCertificateReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.function.Function;
 import javax.xml.bind.DatatypeConverter;
@@ -76,6 +80,13 @@ public class IdpGlueCodeTest {
       DatatypeConverter.parseHexBinary(
           "20b71a57a80df028321e5c3d116e9d89a5d6bc7049562bbaceece11446fd4fee");
 
+  private static X509Certificate createCertificate() throws CertificateException {
+    return (X509Certificate)
+        CertificateFactory.getInstance("X.509")
+            .generateCertificate(
+                new ByteArrayInputStream(X509_CERT.getBytes(StandardCharsets.US_ASCII)));
+  }
+
   @Before
   public void setup() {
     externalAuthenticator = mock(ExternalAuthenticator.class);
@@ -112,12 +123,12 @@ public class IdpGlueCodeTest {
   }
 
   @Test
-  public void shouldObtainAccessTokenWithHbaHandle() throws IOException {
+  public void shouldObtainAccessTokenWithHbaHandle() throws IOException, CertificateException {
     TestcaseData testcaseData = TestcaseData.getInstance();
     testcaseData.setHbaHandle("test-hba-handle");
 
-    when(cardCertificateReader.readCardCertificate(any(), eq("test-hba-handle")))
-        .thenReturn(X509_CERT.getBytes());
+    when(cardCertificateReader.readAutCertificate(any(), eq("test-hba-handle")))
+        .thenReturn(createCertificate());
     ExternalAuthenticateResult externalAuthenticateResult =
         new ExternalAuthenticateResult(STATUS_OK, FINAL_HASH);
     when(externalAuthenticator.authenticateExternally(any(), eq("test-hba-handle"), eq(HASH)))
@@ -132,13 +143,13 @@ public class IdpGlueCodeTest {
   }
 
   @Test
-  public void shouldObtainAccessTokenWithSmcBHandle() throws IOException {
+  public void shouldObtainAccessTokenWithSmcBHandle() throws IOException, CertificateException {
     TestcaseData testcaseData = TestcaseData.getInstance();
     testcaseData.setHbaHandle(null);
     testcaseData.setSmcBHandle("test-smc-b-handle");
 
-    when(cardCertificateReader.readCardCertificate(any(), eq("test-smc-b-handle")))
-        .thenReturn(X509_CERT.getBytes());
+    when(cardCertificateReader.readAutCertificate(any(), eq("test-smc-b-handle")))
+        .thenReturn(createCertificate());
     ExternalAuthenticateResult externalAuthenticateResult =
         new ExternalAuthenticateResult(STATUS_OK, FINAL_HASH);
     when(externalAuthenticator.authenticateExternally(any(), eq("test-smc-b-handle"), eq(HASH)))
@@ -164,12 +175,12 @@ public class IdpGlueCodeTest {
 
   @Test
   public void shouldObtainAccessTokenDispensingEntityWithValidCardHandle()
-      throws IOException, MissingPreconditionException {
+      throws IOException, MissingPreconditionException, CertificateException {
     TestcaseData testcaseData = TestcaseData.getInstance();
     testcaseData.setSmcBHandle("test-smc-b-handle");
 
-    when(cardCertificateReader.readCardCertificate(any(), eq("test-smc-b-handle")))
-        .thenReturn(X509_CERT.getBytes());
+    when(cardCertificateReader.readAutCertificate(any(), eq("test-smc-b-handle")))
+        .thenReturn(createCertificate());
     ExternalAuthenticateResult externalAuthenticateResult =
         new ExternalAuthenticateResult(STATUS_OK, FINAL_HASH);
     when(externalAuthenticator.authenticateExternally(any(), eq("test-smc-b-handle"), eq(HASH)))
@@ -195,12 +206,12 @@ public class IdpGlueCodeTest {
 
   @Test
   public void shouldObtainAccessTokenPrescribingEntityWithValidCardHandle()
-      throws IOException, MissingPreconditionException {
+      throws IOException, MissingPreconditionException, CertificateException {
     TestcaseData testcaseData = TestcaseData.getInstance();
     testcaseData.setHbaHandle("test-hba-handle");
 
-    when(cardCertificateReader.readCardCertificate(any(), eq("test-hba-handle")))
-        .thenReturn(X509_CERT.getBytes());
+    when(cardCertificateReader.readAutCertificate(any(), eq("test-hba-handle")))
+        .thenReturn(createCertificate());
     ExternalAuthenticateResult externalAuthenticateResult =
         new ExternalAuthenticateResult(STATUS_OK, FINAL_HASH);
     when(externalAuthenticator.authenticateExternally(any(), eq("test-hba-handle"), eq(HASH)))
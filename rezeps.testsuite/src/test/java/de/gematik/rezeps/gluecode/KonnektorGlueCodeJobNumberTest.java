@@ -33,6 +33,7 @@ public class KonnektorGlueCodeJobNumberTest {
   private static final String CLIENT_SYSTEM = "client_system001";
   private static final String WORKPLACE = "workplace001";
   private static final String JOB_NUMBER = "4711";
+  private static final String CARD_HANDLE = "HBA-1";
 
   @Test
   public void shouldDetermineJobNumber() throws IOException, MissingPreconditionException {
@@ -47,7 +48,29 @@ public class KonnektorGlueCodeJobNumberTest {
 
     InvocationContext invocationContext = new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE);
     TestcaseData.getInstance().setInvocationContext(invocationContext);
-    when(jobNumberFinder.performGetJobNumber(invocationContext)).thenReturn(JOB_NUMBER);
+    TestcaseData.getInstance().setHbaHandle(null);
+    when(jobNumberFinder.determineJobNumber(invocationContext, null)).thenReturn(JOB_NUMBER);
+
+    konnektorGlueCode.determineJobNumber();
+    Assert.assertEquals(JOB_NUMBER, TestcaseData.getInstance().getJobNumber());
+  }
+
+  @Test
+  public void shouldDetermineJobNumberOnKonnektorOfHba()
+      throws IOException, MissingPreconditionException {
+    ConfigurableApplicationContext connfigurableApplicationContext =
+        mock(ConfigurableApplicationContext.class);
+    KonnektorGlueCode konnektorGlueCode = new KonnektorGlueCode(connfigurableApplicationContext);
+
+    JobNumberFinder jobNumberFinder = mock(JobNumberFinder.class);
+    ConfigurableListableBeanFactory beanFactory = mock(ConfigurableListableBeanFactory.class);
+    when(beanFactory.getBean(JobNumberFinder.class)).thenReturn(jobNumberFinder);
+    when(connfigurableApplicationContext.getBeanFactory()).thenReturn(beanFactory);
+
+    InvocationContext invocationContext = new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE);
+    TestcaseData.getInstance().setInvocationContext(invocationContext);
+    TestcaseData.getInstance().setHbaHandle(CARD_HANDLE);
+    when(jobNumberFinder.determineJobNumber(invocationContext, CARD_HANDLE)).thenReturn(JOB_NUMBER);
 
     konnektorGlueCode.determineJobNumber();
     Assert.assertEquals(JOB_NUMBER, TestcaseData.getInstance().getJobNumber());
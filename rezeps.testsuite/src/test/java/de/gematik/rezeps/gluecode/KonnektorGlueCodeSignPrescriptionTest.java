@@ -23,12 +23,16 @@ import static org.mockito.Mockito.when;
 
 import de.gematik.rezeps.InvocationContext;
 import de.gematik.rezeps.bundle.BundleHelper;
+import de.gematik.rezeps.signature.JobNumberFinder;
 import de.gematik.rezeps.signature.PrescriptionSigner;
 import de.gematik.rezeps.signature.SignDocumentResult;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import javax.xml.parsers.ParserConfigurationException;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.xml.sax.SAXException;
@@ -81,6 +85,85 @@ public class KonnektorGlueCodeSignPrescriptionTest {
         SIGNED_PRESCRIPTION, testcaseData.getSignDocumentResult().getSignedBundle());
   }
 
+  @Test
+  public void shouldSignPrescriptions()
+      throws MissingPreconditionException, IOException, ParserConfigurationException, SAXException {
+    ConfigurableApplicationContext connfigurableApplicationContext =
+        mock(ConfigurableApplicationContext.class);
+
+    PrescriptionSigner prescriptionSigner = mock(PrescriptionSigner.class);
+    JobNumberFinder jobNumberFinder = mock(JobNumberFinder.class);
+
+    ConfigurableListableBeanFactory beanFactory = mock(ConfigurableListableBeanFactory.class);
+    when(beanFactory.getBean(PrescriptionSigner.class)).thenReturn(prescriptionSigner);
+    when(beanFactory.getBean(JobNumberFinder.class)).thenReturn(jobNumberFinder);
+    when(connfigurableApplicationContext.getBeanFactory()).thenReturn(beanFactory);
+
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
+
+    TestcaseData testcaseData = TestcaseData.getInstance();
+    testcaseData.setHbaHandle(CARD_HANDLE);
+    testcaseData.setInvocationContext(invocationContext);
+    SignDocumentResult signDocumentResult =
+        new SignDocumentResult(
+            SignDocumentResult.STATUS_OK,
+            SignDocumentResult.MIME_TYPE_BASE_64_DATA,
+            SignDocumentResult.MIME_TYPE_BASE_64_DATA,
+            SIGNED_PRESCRIPTION);
+    when(jobNumberFinder.determineJobNumber(invocationContext, CARD_HANDLE)).thenReturn(JOB_NUMBER);
+    when(prescriptionSigner.performSignPrescription(
+            eq(invocationContext), eq(CARD_HANDLE), anyString(), eq(JOB_NUMBER)))
+        .thenReturn(signDocumentResult);
+
+    KonnektorGlueCode konnektorGlueCode = new KonnektorGlueCode(connfigurableApplicationContext);
+    List<SignDocumentResult> signDocumentResults =
+        konnektorGlueCode.signPrescriptions(Arrays.asList("bundle001", "bundle002"));
+
+    Assert.assertEquals(2, signDocumentResults.size());
+    Assert.assertEquals(SIGNED_PRESCRIPTION, signDocumentResults.get(1).getSignedBundle());
+  }
+
+  @Test
+  public void shouldSignPrescriptionBatch() throws MissingPreconditionException, IOException {
+    ConfigurableApplicationContext connfigurableApplicationContext =
+        mock(ConfigurableApplicationContext.class);
+
+    PrescriptionSigner prescriptionSigner = mock(PrescriptionSigner.class);
+    JobNumberFinder jobNumberFinder = mock(JobNumberFinder.class);
+
+    ConfigurableListableBeanFactory beanFactory = mock(ConfigurableListableBeanFactory.class);
+    when(beanFactory.getBean(PrescriptionSigner.class)).thenReturn(prescriptionSigner);
+    when(beanFactory.getBean(JobNumberFinder.class)).thenReturn(jobNumberFinder);
+    when(connfigurableApplicationContext.getBeanFactory()).thenReturn(beanFactory);
+
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
+
+    TestcaseData testcaseData = TestcaseData.getInstance();
+    testcaseData.setHbaHandle(CARD_HANDLE);
+    testcaseData.setInvocationContext(invocationContext);
+    SignDocumentResult signDocumentResult =
+        new SignDocumentResult(
+            SignDocumentResult.STATUS_OK,
+            SignDocumentResult.MIME_TYPE_BASE_64_DATA,
+            SignDocumentResult.MIME_TYPE_BASE_64_DATA,
+            SIGNED_PRESCRIPTION);
+    List<String> prescriptions = Arrays.asList("bundle001", "bundle002");
+    when(jobNumberFinder.determineJobNumber(invocationContext, CARD_HANDLE)).thenReturn(JOB_NUMBER);
+    when(prescriptionSigner.performSignPrescriptions(
+            invocationContext, CARD_HANDLE, prescriptions, JOB_NUMBER))
+        .thenReturn(Arrays.asList(signDocumentResult, signDocumentResult));
+
+    KonnektorGlueCode konnektorGlueCode = new KonnektorGlueCode(connfigurableApplicationContext);
+    List<SignDocumentResult> signDocumentResults =
+        konnektorGlueCode.signPrescriptionBatch(prescriptions);
+
+    Assert.assertEquals(2, signDocumentResults.size());
+    Mockito.verify(jobNumberFinder, Mockito.times(1))
+        .determineJobNumber(invocationContext, CARD_HANDLE);
+  }
+
   @Test
   public void shouldVerifySignPrescription() throws MissingPreconditionException {
     KonnektorGlueCode konnektorGlueCode = new KonnektorGlueCode(null);
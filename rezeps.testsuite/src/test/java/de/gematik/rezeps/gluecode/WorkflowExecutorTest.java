@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.gluecode;
+
+import de.gematik.rezeps.Deadline;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WorkflowExecutorTest {
+
+  private static final String KONNEKTOR = "127.0.0.1:443";
+
+  @Test
+  public void shouldExecuteSequentiallyInCallingThread() throws Exception {
+    WorkflowExecutor workflowExecutor =
+        new WorkflowExecutor(WorkflowExecutor.MODE_SEQUENTIAL, 4, 2);
+    Thread callingThread = Thread.currentThread();
+    CompletableFuture<Boolean> result =
+        workflowExecutor.submit(KONNEKTOR, () -> Thread.currentThread() == callingThread);
+    Assert.assertEquals(WorkflowExecutor.MODE_SEQUENTIAL, workflowExecutor.getMode());
+    Assert.assertTrue(result.isDone());
+    Assert.assertTrue(result.get());
+  }
+
+  @Test
+  public void shouldFallBackToPlatformThreadsWithoutVirtualThreads() {
+    WorkflowExecutor workflowExecutor = new WorkflowExecutor(WorkflowExecutor.MODE_VIRTUAL, 4, 2);
+    try {
+      boolean virtualThreadsAvailable = Runtime.version().feature() >= 21;
+      Assert.assertEquals(
+          virtualThreadsAvailable ? WorkflowExecutor.MODE_VIRTUAL : WorkflowExecutor.MODE_PLATFORM,
+          workflowExecutor.getMode());
+    } finally {
+      workflowExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldLimitConcurrentRequestsPerKonnektor() throws Exception {
+    WorkflowExecutor workflowExecutor = new WorkflowExecutor(WorkflowExecutor.MODE_PLATFORM, 8, 2);
+    try {
+      AtomicInteger active = new AtomicInteger();
+      AtomicInteger maxActive = new AtomicInteger();
+      List<Callable<Integer>> tasks = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        int value = i;
+        tasks.add(
+            () -> {
+              maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+              Thread.sleep(20);
+              active.decrementAndGet();
+              return value;
+            });
+      }
+      List<Integer> results = workflowExecutor.invokeAll(KONNEKTOR, tasks);
+      Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), results);
+      Assert.assertTrue(maxActive.get() <= 2);
+      Assert.assertEquals(0, workflowExecutor.getActiveRequests(KONNEKTOR));
+    } finally {
+      workflowExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldPropagateFailureOfTask() {
+    WorkflowExecutor workflowExecutor = new WorkflowExecutor(WorkflowExecutor.MODE_PLATFORM, 2, 2);
+    try {
+      List<Callable<String>> tasks =
+          Arrays.asList(
+              () -> "ok",
+              () -> {
+                throw new IllegalStateException("Konnektor nicht erreichbar");
+              });
+      workflowExecutor.invokeAll(KONNEKTOR, tasks);
+      Assert.fail("ExecutionException expected");
+    } catch (ExecutionException exception) {
+      Assert.assertTrue(exception.getCause() instanceof IllegalStateException);
+    } catch (InterruptedException | TimeoutException exception) {
+      Assert.fail(exception.getMessage());
+    } finally {
+      workflowExecutor.shutdown();
+    }
+  }
+
+  @Test(expected = TimeoutException.class)
+  public void shouldStopWaitingAfterDeadline() throws Exception {
+    WorkflowExecutor workflowExecutor = new WorkflowExecutor(WorkflowExecutor.MODE_PLATFORM, 2, 2);
+    try {
+      List<Callable<String>> tasks =
+          Arrays.asList(
+              () -> {
+                Thread.sleep(5000);
+                return "zu spät";
+              });
+      Deadline.after(100).call(() -> workflowExecutor.invokeAll(KONNEKTOR, tasks));
+    } finally {
+      workflowExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldInterruptAndReleaseCancelledTask() throws Exception {
+    WorkflowExecutor workflowExecutor = new WorkflowExecutor(WorkflowExecutor.MODE_PLATFORM, 2, 1);
+    try {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch interrupted = new CountDownLatch(1);
+      CompletableFuture<String> result =
+          workflowExecutor.submit(
+              KONNEKTOR,
+              () -> {
+                started.countDown();
+                try {
+                  Thread.sleep(5000);
+                } catch (InterruptedException exception) {
+                  interrupted.countDown();
+                  throw exception;
+                }
+                return "zu spät";
+              });
+      Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(1, workflowExecutor.getActiveRequests(KONNEKTOR));
+      result.cancel(true);
+      Assert.assertEquals(0, workflowExecutor.getActiveRequests(KONNEKTOR));
+      Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(
+          "ok", workflowExecutor.submit(KONNEKTOR, () -> "ok").get(5, TimeUnit.SECONDS));
+      Assert.assertEquals(0, workflowExecutor.getActiveRequests(KONNEKTOR));
+    } finally {
+      workflowExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldLimitEachKonnektorSeparately() throws Exception {
+    WorkflowExecutor workflowExecutor = new WorkflowExecutor(WorkflowExecutor.MODE_PLATFORM, 4, 1);
+    try {
+      CountDownLatch bothRunning = new CountDownLatch(2);
+      Callable<Boolean> task =
+          () -> {
+            bothRunning.countDown();
+            return bothRunning.await(5, TimeUnit.SECONDS);
+          };
+      List<Boolean> results =
+          workflowExecutor.invokeAll(
+              Arrays.asList(KONNEKTOR, "127.0.0.2:443"), Arrays.asList(task, task));
+      Assert.assertEquals(Arrays.asList(true, true), results);
+    } finally {
+      workflowExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldPropagateDeadlineToTasks() throws Exception {
+    WorkflowExecutor workflowExecutor = new WorkflowExecutor(WorkflowExecutor.MODE_PLATFORM, 2, 2);
+    try {
+      Deadline deadline = Deadline.after(60000);
+      List<Callable<Deadline>> tasks = Arrays.asList(Deadline::current, Deadline::current);
+      List<Deadline> deadlines = deadline.call(() -> workflowExecutor.invokeAll(KONNEKTOR, tasks));
+      Assert.assertSame(deadline, deadlines.get(0));
+      Assert.assertSame(deadline, deadlines.get(1));
+    } finally {
+      workflowExecutor.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidConcurrencyLimit() {
+    new WorkflowExecutor(WorkflowExecutor.MODE_SEQUENTIAL, 1, 0);
+  }
+}
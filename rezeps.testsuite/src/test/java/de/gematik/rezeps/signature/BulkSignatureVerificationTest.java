@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import de.gematik.ws.conn.signatureservice.v7.VerificationResultType;
+import de.gematik.ws.conn.signatureservice.v7.VerifyDocumentResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ws.client.WebServiceIOException;
+
+public class BulkSignatureVerificationTest {
+
+  private static final InvocationContext INVOCATION_CONTEXT =
+      new InvocationContext("mandant001", "client_system001", "workplace001");
+  private static final String INVALID = "INVALID";
+
+  private PerformVerifyDocument performVerifyDocument;
+  private BulkSignatureVerification bulkSignatureVerification;
+
+  @Before
+  public void setUp() {
+    performVerifyDocument = mock(PerformVerifyDocument.class);
+    bulkSignatureVerification = new BulkSignatureVerification();
+    bulkSignatureVerification.performVerifyDocument = performVerifyDocument;
+    bulkSignatureVerification.maxConcurrentRequests = 2;
+  }
+
+  @Test
+  public void shouldReportResultsInOrderWithBoundedParallelism()
+      throws IOException, InterruptedException {
+    AtomicInteger activeRequests = new AtomicInteger();
+    AtomicInteger maxActiveRequests = new AtomicInteger();
+    when(performVerifyDocument.performVerifyDocumentAsync(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              byte[] signedPrescription = invocation.getArgument(1);
+              maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+              return CompletableFuture.supplyAsync(
+                  () -> {
+                    // frühere Rezepte antworten langsamer als spätere
+                    sleep(40 - 10 * signedPrescription[0]);
+                    activeRequests.decrementAndGet();
+                    return createVerifyDocumentResponse(
+                        SignatureVerification.VALIDATION_RESULT_VALID);
+                  });
+            });
+    List<byte[]> signedPrescriptions =
+        Arrays.asList(new byte[] {0}, new byte[] {1}, new byte[] {2}, new byte[] {3});
+    List<Integer> reportedIndexes = new ArrayList<>();
+
+    BulkVerificationResult bulkVerificationResult =
+        bulkSignatureVerification.verifySignatures(
+            INVOCATION_CONTEXT,
+            signedPrescriptions,
+            (index, signatureVerificationResult) -> reportedIndexes.add(index));
+
+    Assert.assertEquals(Arrays.asList(0, 1, 2, 3), reportedIndexes);
+    Assert.assertTrue(maxActiveRequests.get() <= 2);
+    Assert.assertEquals(4, bulkVerificationResult.getValidDocuments());
+  }
+
+  @Test
+  public void shouldReportHighLevelResultAndFailuresPerDocument()
+      throws IOException, InterruptedException {
+    byte[] valid = {0};
+    byte[] invalid = {1};
+    byte[] failing = {2};
+    when(performVerifyDocument.performVerifyDocumentAsync(INVOCATION_CONTEXT, valid))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                createVerifyDocumentResponse(SignatureVerification.VALIDATION_RESULT_VALID)));
+    when(performVerifyDocument.performVerifyDocumentAsync(INVOCATION_CONTEXT, invalid))
+        .thenReturn(CompletableFuture.completedFuture(createVerifyDocumentResponse(INVALID)));
+    CompletableFuture<VerifyDocumentResponse> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new WebServiceIOException("Konnektor nicht erreichbar"));
+    when(performVerifyDocument.performVerifyDocumentAsync(INVOCATION_CONTEXT, failing))
+        .thenReturn(failed);
+
+    BulkVerificationResult bulkVerificationResult =
+        bulkSignatureVerification.verifySignatures(
+            INVOCATION_CONTEXT, Arrays.asList(valid, invalid, failing), null);
+
+    List<SignatureVerificationResult> signatureVerificationResults =
+        bulkVerificationResult.getSignatureVerificationResults();
+    Assert.assertEquals(
+        SignatureVerification.VALIDATION_RESULT_VALID,
+        signatureVerificationResults.get(0).getHighLevelResult());
+    Assert.assertEquals(INVALID, signatureVerificationResults.get(1).getHighLevelResult());
+    Assert.assertNull(signatureVerificationResults.get(2).getStatus());
+    Assert.assertEquals(1, bulkVerificationResult.getValidDocuments());
+    Assert.assertEquals(1, bulkVerificationResult.getFailedDocuments());
+  }
+
+  @Test
+  public void shouldCancelPendingRequestsIfListenerFails() throws IOException {
+    List<CompletableFuture<VerifyDocumentResponse>> requests = new ArrayList<>();
+    when(performVerifyDocument.performVerifyDocumentAsync(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              byte[] signedPrescription = invocation.getArgument(1);
+              CompletableFuture<VerifyDocumentResponse> request =
+                  signedPrescription[0] == 0
+                      ? CompletableFuture.supplyAsync(
+                          () -> {
+                            sleep(50);
+                            return createVerifyDocumentResponse(
+                                SignatureVerification.VALIDATION_RESULT_VALID);
+                          })
+                      : new CompletableFuture<>();
+              requests.add(request);
+              return request;
+            });
+
+    try {
+      bulkSignatureVerification.verifySignatures(
+          INVOCATION_CONTEXT,
+          Arrays.asList(new byte[] {0}, new byte[] {1}),
+          (index, signatureVerificationResult) -> {
+            throw new IllegalStateException("Listener gescheitert");
+          });
+      Assert.fail("IllegalStateException erwartet");
+    } catch (IllegalStateException | InterruptedException exception) {
+      Assert.assertTrue(exception instanceof IllegalStateException);
+    }
+
+    Assert.assertTrue(requests.get(1).isCancelled());
+  }
+
+  private static VerifyDocumentResponse createVerifyDocumentResponse(String highLevelResult) {
+    VerifyDocumentResponse verifyDocumentResponse = new VerifyDocumentResponse();
+    Status status = new Status();
+    status.setResult(SignatureVerification.INVOCATION_RESULT_OK);
+    verifyDocumentResponse.setStatus(status);
+    VerificationResultType verificationResultType = new VerificationResultType();
+    verificationResultType.setHighLevelResult(highLevelResult);
+    verifyDocumentResponse.setVerificationResult(verificationResultType);
+    return verifyDocumentResponse;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -31,6 +31,7 @@ public class JobNumberFinderTest {
   private static final String CLIENT_SYSTEM = "client_system001";
   private static final String WORKPLACE = "workplace001";
   private static final String JOB_NUMBER = "4711";
+  private static final String CARD_HANDLE = "HBA-1";
 
   @Test
   public void shouldPerformGetJobNumber() throws IOException {
@@ -46,6 +47,33 @@ public class JobNumberFinderTest {
     Assert.assertEquals(JOB_NUMBER, jobNumber);
   }
 
+  @Test
+  public void shouldTakeJobNumberFromPool() throws IOException {
+    JobNumberFinder jobNumberFinder = new JobNumberFinder();
+
+    JobNumberPool jobNumberPool = mock(JobNumberPool.class);
+    InvocationContext invocationContext = new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE);
+    when(jobNumberPool.take(invocationContext, CARD_HANDLE)).thenReturn(JOB_NUMBER);
+    jobNumberFinder.jobNumberPool = jobNumberPool;
+
+    String jobNumber = jobNumberFinder.determineJobNumber(invocationContext, CARD_HANDLE);
+    Assert.assertEquals(JOB_NUMBER, jobNumber);
+  }
+
+  @Test
+  public void shouldPerformGetJobNumberOnKonnektorOfHbaWithoutPool() throws IOException {
+    JobNumberFinder jobNumberFinder = new JobNumberFinder();
+
+    PerformGetJobNumber performGetJobNumber = mock(PerformGetJobNumber.class);
+    InvocationContext invocationContext = new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE);
+    when(performGetJobNumber.performGetJobNumber(invocationContext, CARD_HANDLE))
+        .thenReturn(determineGetJobNumberResponse());
+    jobNumberFinder.performGetJobNumber = performGetJobNumber;
+
+    String jobNumber = jobNumberFinder.determineJobNumber(invocationContext, CARD_HANDLE);
+    Assert.assertEquals(JOB_NUMBER, jobNumber);
+  }
+
   private GetJobNumberResponse determineGetJobNumberResponse() {
     GetJobNumberResponse getJobNumberResponse = new GetJobNumberResponse();
     getJobNumberResponse.setJobNumber(JOB_NUMBER);
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.signatureservice.v7.GetJobNumberResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JobNumberPoolTest {
+
+  private static final InvocationContext INVOCATION_CONTEXT =
+      new InvocationContext("mandant001", "client_system001", "workplace001");
+  private static final String CARD_HANDLE = "HBA-1";
+
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger jobNumbers = new AtomicInteger();
+  private final List<CompletableFuture<GetJobNumberResponse>> pendingFetches = new ArrayList<>();
+  private PerformGetJobNumber performGetJobNumber;
+  private JobNumberPool jobNumberPool;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    performGetJobNumber = mock(PerformGetJobNumber.class);
+    when(performGetJobNumber.performGetJobNumber(INVOCATION_CONTEXT, CARD_HANDLE))
+        .thenAnswer(invocation -> createGetJobNumberResponse("SYNC"));
+    when(performGetJobNumber.performGetJobNumberAsync(INVOCATION_CONTEXT, CARD_HANDLE))
+        .thenAnswer(
+            invocation -> {
+              CompletableFuture<GetJobNumberResponse> future = new CompletableFuture<>();
+              pendingFetches.add(future);
+              return future;
+            });
+    jobNumberPool = new JobNumberPool();
+    jobNumberPool.performGetJobNumber = performGetJobNumber;
+    jobNumberPool.nanoClock = now::get;
+  }
+
+  @Test
+  public void shouldServePrefetchedJobNumbers() throws IOException {
+    Assert.assertEquals("SYNC", jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE));
+    Assert.assertEquals(1, pendingFetches.size());
+    completePendingFetches();
+    Assert.assertEquals(5, jobNumberPool.getAvailable(INVOCATION_CONTEXT, CARD_HANDLE));
+
+    Assert.assertEquals("1", jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE));
+    Assert.assertEquals("2", jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE));
+    verify(performGetJobNumber, times(1)).performGetJobNumber(INVOCATION_CONTEXT, CARD_HANDLE);
+  }
+
+  @Test
+  public void shouldRefillBelowWatermark() throws IOException {
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    completePendingFetches();
+
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    Assert.assertTrue(pendingFetches.isEmpty());
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    Assert.assertEquals(1, pendingFetches.size());
+    completePendingFetches();
+    Assert.assertEquals(5, jobNumberPool.getAvailable(INVOCATION_CONTEXT, CARD_HANDLE));
+  }
+
+  @Test
+  public void shouldDropStaleJobNumbers() throws IOException {
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    completePendingFetches();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(301));
+
+    Assert.assertEquals("SYNC", jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE));
+    Assert.assertEquals(0, jobNumberPool.getAvailable(INVOCATION_CONTEXT, CARD_HANDLE));
+    Assert.assertEquals(1, pendingFetches.size());
+  }
+
+  @Test
+  public void shouldFetchDirectlyWhileRefillIsPending() throws IOException {
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    Assert.assertEquals("SYNC", jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE));
+    Assert.assertEquals(1, pendingFetches.size());
+    verify(performGetJobNumber, times(2)).performGetJobNumber(INVOCATION_CONTEXT, CARD_HANDLE);
+  }
+
+  @Test
+  public void shouldKeepOneRefillInFlightPerContext() throws IOException {
+    for (int i = 0; i < 10; i++) {
+      jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    }
+    Assert.assertEquals(1, pendingFetches.size());
+    verify(performGetJobNumber, times(1)).performGetJobNumberAsync(INVOCATION_CONTEXT, CARD_HANDLE);
+  }
+
+  @Test
+  public void shouldResumeRefillAfterFailure() throws IOException {
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    pendingFetches.remove(0).completeExceptionally(new IOException("GetJobNumber failed"));
+    Assert.assertEquals(0, jobNumberPool.getAvailable(INVOCATION_CONTEXT, CARD_HANDLE));
+
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    Assert.assertEquals(1, pendingFetches.size());
+  }
+
+  @Test
+  public void shouldKeepSeparatePoolsPerHba() throws IOException {
+    jobNumberPool.take(INVOCATION_CONTEXT, CARD_HANDLE);
+    completePendingFetches();
+
+    Assert.assertEquals(0, jobNumberPool.getAvailable(INVOCATION_CONTEXT, "HBA-2"));
+    Assert.assertEquals(5, jobNumberPool.getAvailable(INVOCATION_CONTEXT, CARD_HANDLE));
+  }
+
+  private void completePendingFetches() {
+    while (!pendingFetches.isEmpty()) {
+      pendingFetches
+          .remove(0)
+          .complete(createGetJobNumberResponse(String.valueOf(jobNumbers.incrementAndGet())));
+    }
+  }
+
+  private static GetJobNumberResponse createGetJobNumberResponse(String jobNumber) {
+    GetJobNumberResponse getJobNumberResponse = new GetJobNumberResponse();
+    getJobNumberResponse.setJobNumber(jobNumber);
+    return getJobNumberResponse;
+  }
+}
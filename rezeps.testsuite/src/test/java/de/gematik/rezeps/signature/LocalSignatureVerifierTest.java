@@ -0,0 +1,568 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.certificate.PerformVerifyCertificate;
+import de.gematik.ws.conn.certificateservice.v6.VerificationResultType;
+import de.gematik.ws.conn.certificateservice.v6.VerifyCertificateResponse;
+import de.gematik.ws.conn.certificateservice.v6.VerifyCertificateResponse.VerificationStatus;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import javax.security.auth.x500.X500Principal;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LocalSignatureVerifierTest {
+
+  private static final InvocationContext INVOCATION_CONTEXT =
+      new InvocationContext("mandant001", "client_system001", "workplace001");
+  private static final String KEY_STORE = "src/test/resources/gematik_cs001.p12";
+  private static final String KEY_STORE_PASSWORD = "src/test/resources/gematik_cs001-password.txt";
+  private static final String UNRELATED_TRUST_STORE =
+      "src/test/resources/kops-client-truststore.p12";
+  private static final String UNRELATED_TRUST_STORE_PASSWORD = "654321";
+  private static final String KEY_ALIAS = "gematik_cs001";
+  private static final String TRUST_STORE_PASSWORD = "123456";
+  private static final String SIGNATURE_VERIFICATION_TRUSTSTORE =
+      "signature_verification_truststore";
+  private static final String SIGNATURE_VERIFICATION_TRUSTSTORE_PASSWORD =
+      "signature_verification_truststore_password";
+  private static final String SIGNING_TIME = "210601120000Z";
+  private static final String TIMESTAMP_TIME = "20210601120000.250Z";
+  private static final Instant VALIDATION_TIME = Instant.parse("2021-06-01T12:00:00Z");
+  private static final byte[] PRESCRIPTION = "<Bundle/>".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] OID_SHA_256 =
+      primitive(0x06, 0x60, 0x86, 0x48, 0x01, 0x65, 0x03, 0x04, 0x02, 0x01);
+  private static final byte[] OID_DATA =
+      primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x07, 0x01);
+  private static final byte[] OID_SIGNED_DATA =
+      primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x07, 0x02);
+  private static final byte[] OID_TST_INFO =
+      primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x09, 0x10, 0x01, 0x04);
+  private static final byte[] OID_SIGNATURE_TIME_STAMP_TOKEN =
+      primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x09, 0x10, 0x02, 0x0e);
+  private static final byte[] SHA_256_WITH_RSA =
+      der(
+          0x30,
+          primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x01, 0x0b),
+          primitive(0x05));
+  private static final byte[] DIGEST_ALGORITHM = der(0x30, OID_SHA_256, primitive(0x05));
+  private static final byte[] BASIC_CONSTRAINTS_CA =
+      der(
+          0x30,
+          primitive(0x06, 0x55, 0x1d, 0x13),
+          primitive(0x01, 0xff),
+          der(0x04, der(0x30, primitive(0x01, 0xff))));
+  private static final byte[] EXTENDED_KEY_USAGE_TIME_STAMPING =
+      der(
+          0x30,
+          primitive(0x06, 0x55, 0x1d, 0x25),
+          primitive(0x01, 0xff),
+          der(0x04, der(0x30, primitive(0x06, 0x2b, 0x06, 0x01, 0x05, 0x05, 0x07, 0x03, 0x08))));
+
+  private static PrivateKey privateKey;
+  private static Certificate[] certificateChain;
+  private static KeyPair caKeyPair;
+  private static X509Certificate caCertificate;
+  private static KeyPair tsaKeyPair;
+  private static X509Certificate tsaCertificate;
+  private static KeyPair otherSignerKeyPair;
+  private static X509Certificate otherSignerCertificate;
+
+  private final List<Path> trustStoreFiles = new ArrayList<>();
+  private String truststore;
+  private String truststorePassword;
+  private LocalSignatureVerifier localSignatureVerifier;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException, GeneralSecurityException {
+    System.setProperty("CFG_PROPS", "unittest");
+    char[] password =
+        new String(Files.readAllBytes(Paths.get(KEY_STORE_PASSWORD)), StandardCharsets.UTF_8)
+            .trim()
+            .toCharArray();
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream inputStream = new FileInputStream(KEY_STORE)) {
+      keyStore.load(inputStream, password);
+    }
+    privateKey = (PrivateKey) keyStore.getKey(KEY_ALIAS, password);
+    certificateChain = keyStore.getCertificateChain(KEY_ALIAS);
+
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    caKeyPair = keyPairGenerator.generateKeyPair();
+    caCertificate =
+        createCertificate(
+            "CN=Test CA", caKeyPair.getPublic(), "CN=Test CA", caKeyPair, BASIC_CONSTRAINTS_CA);
+    tsaKeyPair = keyPairGenerator.generateKeyPair();
+    tsaCertificate =
+        createCertificate(
+            "CN=Test TSA",
+            tsaKeyPair.getPublic(),
+            "CN=Test CA",
+            caKeyPair,
+            EXTENDED_KEY_USAGE_TIME_STAMPING);
+    otherSignerKeyPair = keyPairGenerator.generateKeyPair();
+    otherSignerCertificate =
+        createCertificate(
+            "CN=Test Signer", otherSignerKeyPair.getPublic(), "CN=Test CA", caKeyPair, null);
+  }
+
+  @Before
+  public void setUp() throws IOException, GeneralSecurityException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    truststore = configurationReader.getSignatureVerificationTruststore();
+    truststorePassword = configurationReader.getSignatureVerificationTruststorePassword();
+    configureTrustStore(certificateChain[certificateChain.length - 1], caCertificate);
+    localSignatureVerifier = new LocalSignatureVerifier();
+    localSignatureVerifier.clock = VALIDATION_TIME::toEpochMilli;
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty(
+        SIGNATURE_VERIFICATION_TRUSTSTORE, truststore == null ? "" : truststore);
+    configurationReader.setConfigurationProperty(
+        SIGNATURE_VERIFICATION_TRUSTSTORE_PASSWORD,
+        truststorePassword == null ? "" : truststorePassword);
+    for (Path trustStoreFile : trustStoreFiles) {
+      Files.deleteIfExists(trustStoreFile);
+    }
+  }
+
+  @Test
+  public void shouldVerifyValidSignature() throws IOException, GeneralSecurityException {
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT, createSignedData(PRESCRIPTION, PRESCRIPTION));
+    Assert.assertTrue(signatureVerificationResult.isValidSignature());
+  }
+
+  @Test
+  public void shouldDetectTamperedContent() throws IOException, GeneralSecurityException {
+    byte[] tamperedPrescription = "<Bundle></Bundle>".getBytes(StandardCharsets.UTF_8);
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT, createSignedData(PRESCRIPTION, tamperedPrescription));
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        signatureVerificationResult.getHighLevelResult());
+  }
+
+  @Test
+  public void shouldRejectUntrustedCertificate() throws IOException, GeneralSecurityException {
+    configureTrustStore(createUnrelatedAnchor());
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT, createSignedData(PRESCRIPTION, PRESCRIPTION));
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        signatureVerificationResult.getHighLevelResult());
+  }
+
+  @Test
+  public void shouldReloadTrustStoreOnConfigurationChange()
+      throws IOException, GeneralSecurityException {
+    byte[] signedData = createSignedData(PRESCRIPTION, PRESCRIPTION);
+    Assert.assertTrue(
+        localSignatureVerifier.verifySignature(INVOCATION_CONTEXT, signedData).isValidSignature());
+
+    configureTrustStore(createUnrelatedAnchor());
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        localSignatureVerifier
+            .verifySignature(INVOCATION_CONTEXT, signedData)
+            .getHighLevelResult());
+  }
+
+  @Test
+  public void shouldRejectMalformedSignature() throws IOException {
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(INVOCATION_CONTEXT, PRESCRIPTION);
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        signatureVerificationResult.getHighLevelResult());
+  }
+
+  @Test
+  public void shouldNotTrustSigningTimeOfSigner() throws IOException, GeneralSecurityException {
+    // das Signaturzertifikat ist abgelaufen, die signierte Signaturzeit liegt in seiner Laufzeit
+    localSignatureVerifier.clock = System::currentTimeMillis;
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT, createSignedData(PRESCRIPTION, PRESCRIPTION));
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        signatureVerificationResult.getHighLevelResult());
+  }
+
+  @Test
+  public void shouldValidateCertificateAtTrustedTimestamp()
+      throws IOException, GeneralSecurityException {
+    localSignatureVerifier.clock = System::currentTimeMillis;
+    byte[] signedAttributes = createSignedAttributes(OID_DATA, PRESCRIPTION);
+    byte[] signatureValue = sign(privateKey, signedAttributes);
+    byte[] signerInfo =
+        createSignerInfo(
+            (X509Certificate) certificateChain[0],
+            signedAttributes,
+            signatureValue,
+            createTimestampAttribute(signatureValue));
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT, createContentInfo(PRESCRIPTION, certificateChain, signerInfo));
+    Assert.assertTrue(signatureVerificationResult.isValidSignature());
+  }
+
+  @Test
+  public void shouldRejectTimestampOfOtherSignature() throws IOException, GeneralSecurityException {
+    localSignatureVerifier.clock = System::currentTimeMillis;
+    byte[] signedAttributes = createSignedAttributes(OID_DATA, PRESCRIPTION);
+    byte[] signerInfo =
+        createSignerInfo(
+            (X509Certificate) certificateChain[0],
+            signedAttributes,
+            sign(privateKey, signedAttributes),
+            createTimestampAttribute("other signature".getBytes(StandardCharsets.UTF_8)));
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT, createContentInfo(PRESCRIPTION, certificateChain, signerInfo));
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        signatureVerificationResult.getHighLevelResult());
+  }
+
+  @Test
+  public void shouldVerifyDetachedSignature() throws IOException, GeneralSecurityException {
+    byte[] detachedSignature = createSignedData(PRESCRIPTION, null);
+    Assert.assertTrue(
+        localSignatureVerifier
+            .verifySignature(INVOCATION_CONTEXT, detachedSignature, PRESCRIPTION)
+            .isValidSignature());
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        localSignatureVerifier
+            .verifySignature(INVOCATION_CONTEXT, detachedSignature)
+            .getHighLevelResult());
+  }
+
+  @Test
+  public void shouldReportRevocationStatusOfKonnektor()
+      throws IOException, GeneralSecurityException {
+    PerformVerifyCertificate performVerifyCertificate = mock(PerformVerifyCertificate.class);
+    when(performVerifyCertificate.performVerifyCertificate(any(), any(), any()))
+        .thenReturn(createVerifyCertificateResponse(VerificationResultType.INVALID));
+    localSignatureVerifier.performVerifyCertificate = performVerifyCertificate;
+
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT, createSignedData(PRESCRIPTION, PRESCRIPTION));
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        signatureVerificationResult.getHighLevelResult());
+  }
+
+  @Test
+  public void shouldCheckRevocationStatusOfAllSigners()
+      throws IOException, GeneralSecurityException {
+    PerformVerifyCertificate performVerifyCertificate = mock(PerformVerifyCertificate.class);
+    when(performVerifyCertificate.performVerifyCertificate(any(), any(), any()))
+        .thenReturn(createVerifyCertificateResponse(VerificationResultType.VALID))
+        .thenReturn(createVerifyCertificateResponse(VerificationResultType.INVALID));
+    localSignatureVerifier.performVerifyCertificate = performVerifyCertificate;
+
+    byte[] signedAttributes = createSignedAttributes(OID_DATA, PRESCRIPTION);
+    byte[] firstSignerInfo =
+        createSignerInfo(
+            (X509Certificate) certificateChain[0],
+            signedAttributes,
+            sign(privateKey, signedAttributes),
+            null);
+    byte[] secondSignerInfo =
+        createSignerInfo(
+            otherSignerCertificate,
+            signedAttributes,
+            sign(otherSignerKeyPair.getPrivate(), signedAttributes),
+            null);
+    Certificate[] certificates = {certificateChain[0], certificateChain[1], otherSignerCertificate};
+    SignatureVerificationResult signatureVerificationResult =
+        localSignatureVerifier.verifySignature(
+            INVOCATION_CONTEXT,
+            createContentInfo(PRESCRIPTION, certificates, firstSignerInfo, secondSignerInfo));
+    Assert.assertEquals(
+        LocalSignatureVerifier.HIGH_LEVEL_RESULT_INVALID,
+        signatureVerificationResult.getHighLevelResult());
+    verify(performVerifyCertificate, times(2)).performVerifyCertificate(any(), any(), any());
+  }
+
+  private static VerifyCertificateResponse createVerifyCertificateResponse(
+      VerificationResultType verificationResult) {
+    Status status = new Status();
+    status.setResult("OK");
+    VerificationStatus verificationStatus = new VerificationStatus();
+    verificationStatus.setVerificationResult(verificationResult);
+    VerifyCertificateResponse verifyCertificateResponse = new VerifyCertificateResponse();
+    verifyCertificateResponse.setStatus(status);
+    verifyCertificateResponse.setVerificationStatus(verificationStatus);
+    return verifyCertificateResponse;
+  }
+
+  /** Legt einen Truststore mit den Vertrauensankern an und trägt ihn in die Konfiguration ein. */
+  private void configureTrustStore(Certificate... anchors)
+      throws IOException, GeneralSecurityException {
+    KeyStore trustStore = KeyStore.getInstance("PKCS12");
+    trustStore.load(null, null);
+    for (int i = 0; i < anchors.length; i++) {
+      trustStore.setCertificateEntry("anchor" + i, anchors[i]);
+    }
+    Path trustStoreFile = Files.createTempFile("signature-verification-truststore", ".p12");
+    trustStoreFiles.add(trustStoreFile);
+    try (OutputStream outputStream = Files.newOutputStream(trustStoreFile)) {
+      trustStore.store(outputStream, TRUST_STORE_PASSWORD.toCharArray());
+    }
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty(
+        SIGNATURE_VERIFICATION_TRUSTSTORE, trustStoreFile.toString());
+    configurationReader.setConfigurationProperty(
+        SIGNATURE_VERIFICATION_TRUSTSTORE_PASSWORD, TRUST_STORE_PASSWORD);
+  }
+
+  /** Liefert ein Zertifikat aus einem anderen Truststore des Projekts als Vertrauensanker. */
+  private static Certificate createUnrelatedAnchor() throws IOException, GeneralSecurityException {
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream inputStream = new FileInputStream(UNRELATED_TRUST_STORE)) {
+      keyStore.load(inputStream, UNRELATED_TRUST_STORE_PASSWORD.toCharArray());
+    }
+    return keyStore.getCertificate(keyStore.aliases().nextElement());
+  }
+
+  /** Erzeugt ein X.509-Zertifikat, optional mit einer Erweiterung. */
+  private static X509Certificate createCertificate(
+      String subject, PublicKey publicKey, String issuer, KeyPair issuerKeyPair, byte[] extension)
+      throws GeneralSecurityException {
+    byte[] tbsCertificate =
+        der(
+            0x30,
+            der(0xa0, primitive(0x02, 0x02)),
+            der(0x02, BigInteger.valueOf(System.nanoTime()).toByteArray()),
+            SHA_256_WITH_RSA,
+            new X500Principal(issuer).getEncoded(),
+            der(
+                0x30,
+                der(0x17, "200101000000Z".getBytes(StandardCharsets.US_ASCII)),
+                der(0x17, "491231235959Z".getBytes(StandardCharsets.US_ASCII))),
+            new X500Principal(subject).getEncoded(),
+            publicKey.getEncoded(),
+            extension == null ? new byte[0] : der(0xa3, der(0x30, extension)));
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(issuerKeyPair.getPrivate());
+    signature.update(tbsCertificate);
+    byte[] certificate =
+        der(0x30, tbsCertificate, SHA_256_WITH_RSA, der(0x03, new byte[1], signature.sign()));
+    return (X509Certificate)
+        CertificateFactory.getInstance("X.509")
+            .generateCertificate(new ByteArrayInputStream(certificate));
+  }
+
+  /**
+   * Erzeugt eine CMS-Signatur (SignedData) mit signierten Attributen über signedContent, in die
+   * embeddedContent eingebettet wird. Ist embeddedContent null, wird eine Signatur ohne Inhalt
+   * (detached signature) erzeugt.
+   */
+  private static byte[] createSignedData(byte[] signedContent, byte[] embeddedContent)
+      throws GeneralSecurityException {
+    byte[] signedAttributes = createSignedAttributes(OID_DATA, signedContent);
+    byte[] signerInfo =
+        createSignerInfo(
+            (X509Certificate) certificateChain[0],
+            signedAttributes,
+            sign(privateKey, signedAttributes),
+            null);
+    return createContentInfo(embeddedContent, certificateChain, signerInfo);
+  }
+
+  private static byte[] createContentInfo(
+      byte[] embeddedContent, Certificate[] certificates, byte[]... signerInfos)
+      throws GeneralSecurityException {
+    return createContentInfo(OID_DATA, embeddedContent, certificates, signerInfos);
+  }
+
+  private static byte[] createContentInfo(
+      byte[] contentType, byte[] embeddedContent, Certificate[] certificates, byte[]... signerInfos)
+      throws GeneralSecurityException {
+    ByteArrayOutputStream encodedCertificates = new ByteArrayOutputStream();
+    for (Certificate certificate : certificates) {
+      encodedCertificates.writeBytes(certificate.getEncoded());
+    }
+    byte[] encapContentInfo =
+        embeddedContent == null
+            ? der(0x30, contentType)
+            : der(0x30, contentType, der(0xa0, der(0x04, embeddedContent)));
+    return der(
+        0x30,
+        OID_SIGNED_DATA,
+        der(
+            0xa0,
+            der(
+                0x30,
+                der(0x02, BigInteger.ONE.toByteArray()),
+                der(0x31, DIGEST_ALGORITHM),
+                encapContentInfo,
+                der(0xa0, encodedCertificates.toByteArray()),
+                der(0x31, signerInfos))));
+  }
+
+  /** Liefert die signierten Attribute ohne umschließendes SET. */
+  private static byte[] createSignedAttributes(byte[] contentType, byte[] signedContent)
+      throws GeneralSecurityException {
+    return concat(
+        der(
+            0x30,
+            primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x09, 0x03),
+            der(0x31, contentType)),
+        der(
+            0x30,
+            primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x09, 0x05),
+            der(0x31, der(0x17, SIGNING_TIME.getBytes(StandardCharsets.US_ASCII)))),
+        der(
+            0x30,
+            primitive(0x06, 0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x09, 0x04),
+            der(0x31, der(0x04, MessageDigest.getInstance("SHA-256").digest(signedContent)))));
+  }
+
+  private static byte[] sign(PrivateKey signingKey, byte[] signedAttributes)
+      throws GeneralSecurityException {
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(signingKey);
+    signature.update(der(0x31, signedAttributes));
+    return signature.sign();
+  }
+
+  private static byte[] createSignerInfo(
+      X509Certificate signerCertificate,
+      byte[] signedAttributes,
+      byte[] signatureValue,
+      byte[] unsignedAttributes) {
+    return der(
+        0x30,
+        primitive(0x02, 0x01),
+        der(
+            0x30,
+            signerCertificate.getIssuerX500Principal().getEncoded(),
+            der(0x02, signerCertificate.getSerialNumber().toByteArray())),
+        DIGEST_ALGORITHM,
+        der(0xa0, signedAttributes),
+        SHA_256_WITH_RSA,
+        der(0x04, signatureValue),
+        unsignedAttributes == null ? new byte[0] : der(0xa1, unsignedAttributes));
+  }
+
+  /** Erzeugt ein Attribut mit einem Zeitstempel nach RFC 3161 über einen Signaturwert. */
+  private static byte[] createTimestampAttribute(byte[] signatureValue)
+      throws GeneralSecurityException {
+    byte[] tstInfo =
+        der(
+            0x30,
+            primitive(0x02, 0x01),
+            primitive(0x06, 0x2a, 0x03, 0x04),
+            der(
+                0x30,
+                DIGEST_ALGORITHM,
+                der(0x04, MessageDigest.getInstance("SHA-256").digest(signatureValue))),
+            primitive(0x02, 0x2a),
+            der(0x18, TIMESTAMP_TIME.getBytes(StandardCharsets.US_ASCII)));
+    byte[] signedAttributes = createSignedAttributes(OID_TST_INFO, tstInfo);
+    byte[] signerInfo =
+        createSignerInfo(
+            tsaCertificate,
+            signedAttributes,
+            sign(tsaKeyPair.getPrivate(), signedAttributes),
+            null);
+    byte[] timestampToken =
+        createContentInfo(OID_TST_INFO, tstInfo, new Certificate[] {tsaCertificate}, signerInfo);
+    return der(0x30, OID_SIGNATURE_TIME_STAMP_TOKEN, der(0x31, timestampToken));
+  }
+
+  private static byte[] primitive(int tag, int... content) {
+    byte[] bytes = new byte[content.length];
+    for (int i = 0; i < content.length; i++) {
+      bytes[i] = (byte) content[i];
+    }
+    return der(tag, bytes);
+  }
+
+  private static byte[] der(int tag, byte[]... content) {
+    byte[] value = concat(content);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    outputStream.write(tag);
+    if (value.length < 0x80) {
+      outputStream.write(value.length);
+    } else {
+      byte[] length = BigInteger.valueOf(value.length).toByteArray();
+      int offset = length[0] == 0 ? 1 : 0;
+      outputStream.write(0x80 | (length.length - offset));
+      outputStream.write(length, offset, length.length - offset);
+    }
+    outputStream.writeBytes(value);
+    return outputStream.toByteArray();
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    for (byte[] part : parts) {
+      outputStream.writeBytes(part);
+    }
+    return outputStream.toByteArray();
+  }
+}
@@ -16,7 +16,11 @@
 
 package de.gematik.rezeps.signature;
 
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import de.gematik.rezeps.InvocationContext;
@@ -25,14 +29,19 @@ import de.gematik.ws.conn.signatureservice.v7.DocumentType;
 import de.gematik.ws.conn.signatureservice.v7.SignDocumentResponse;
 import de.gematik.ws.conn.signatureservice.v7.SignResponse;
 import de.gematik.ws.conn.signatureservice.v7.SignResponse.OptionalOutputs;
+import de.gematik.ws.conn.signatureservice.v7.StopSignatureResponse;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import oasis.names.tc.dss._1_0.core.schema.Base64Data;
 import oasis.names.tc.dss._1_0.core.schema.Base64Signature;
 import oasis.names.tc.dss._1_0.core.schema.SignatureObject;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.ws.client.WebServiceIOException;
 
 public class PrescriptionSignerTest {
 
@@ -65,17 +74,174 @@ public class PrescriptionSignerTest {
     Assert.assertEquals(SIGNED_PRESCRIPTION, signDocumentResult.getSignedBundle());
   }
 
-  private SignDocumentResponse determineSignDocumentResponse() {
+  @Test
+  public void shouldReturnTimedOutResultOnSocketTimeout() throws IOException {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
 
-    SignResponse signResponse = new SignResponse();
+    PerformSignDocument performSignDocument = mock(PerformSignDocument.class);
+    when(performSignDocument.performSignDocument(
+            invocationContext, CARD_HANDLE, PRESCRIPTIPN.getBytes(), JOB_NUMBER))
+        .thenThrow(
+            new WebServiceIOException("I/O error", new SocketTimeoutException("Read timed out")));
 
-    Status status = new Status();
-    status.setResult(SignDocumentResult.STATUS_OK);
-    signResponse.setStatus(status);
+    PrescriptionSigner prescriptionSigner = new PrescriptionSigner();
+    prescriptionSigner.performSignDocument = performSignDocument;
+    SignDocumentResult signDocumentResult =
+        prescriptionSigner.performSignPrescription(
+            invocationContext, CARD_HANDLE, PRESCRIPTIPN, JOB_NUMBER);
+    Assert.assertTrue(signDocumentResult.isTimedOut());
+    Assert.assertFalse(signDocumentResult.isValidResponse());
+  }
 
-    signResponse.setOptionalOutputs(determineOptionalOutputs());
+  @Test
+  public void shouldStopSignatureOnCancel() throws IOException {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
+    CompletableFuture<SignDocumentResponse> signDocumentResponse = new CompletableFuture<>();
+    PrescriptionSigner prescriptionSigner =
+        createAsyncPrescriptionSigner(invocationContext, signDocumentResponse);
+
+    SigningHandle signingHandle =
+        prescriptionSigner.performSignPrescriptionAsync(
+            invocationContext, CARD_HANDLE, PRESCRIPTIPN, JOB_NUMBER);
+    Assert.assertTrue(signingHandle.cancel());
+
+    Assert.assertTrue(signDocumentResponse.isCancelled());
+    Assert.assertTrue(signingHandle.getResult().isCancelled());
+    Assert.assertTrue(signingHandle.isStopped());
+    verify(prescriptionSigner.performStopSignature)
+        .performStopSignatureAsync(invocationContext, CARD_HANDLE, JOB_NUMBER);
+  }
+
+  @Test
+  public void shouldStopSignatureOnAsyncTimeout() throws IOException {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
+    CompletableFuture<SignDocumentResponse> signDocumentResponse = new CompletableFuture<>();
+    PrescriptionSigner prescriptionSigner =
+        createAsyncPrescriptionSigner(invocationContext, signDocumentResponse);
+
+    SigningHandle signingHandle =
+        prescriptionSigner.performSignPrescriptionAsync(
+            invocationContext, CARD_HANDLE, PRESCRIPTIPN, JOB_NUMBER);
+    signDocumentResponse.completeExceptionally(
+        new WebServiceIOException("I/O error", new SocketTimeoutException("Read timed out")));
+
+    Assert.assertTrue(signingHandle.getResult().join().isTimedOut());
+    verify(prescriptionSigner.performStopSignature)
+        .performStopSignatureAsync(invocationContext, CARD_HANDLE, JOB_NUMBER);
+  }
+
+  @Test
+  public void shouldNotStopCompletedSignature() throws IOException {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
+    CompletableFuture<SignDocumentResponse> signDocumentResponse = new CompletableFuture<>();
+    PrescriptionSigner prescriptionSigner =
+        createAsyncPrescriptionSigner(invocationContext, signDocumentResponse);
+
+    SigningHandle signingHandle =
+        prescriptionSigner.performSignPrescriptionAsync(
+            invocationContext, CARD_HANDLE, PRESCRIPTIPN, JOB_NUMBER);
+    signDocumentResponse.complete(determineSignDocumentResponse());
+
+    Assert.assertFalse(signingHandle.cancel());
+    Assert.assertEquals(SIGNED_PRESCRIPTION, signingHandle.getResult().join().getSignedBundle());
+    verify(prescriptionSigner.performStopSignature, never())
+        .performStopSignatureAsync(invocationContext, CARD_HANDLE, JOB_NUMBER);
+  }
+
+  @Test
+  public void shouldCorrelateBatchResultsByRequestId() throws IOException {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
 
-    signResponse.setSignatureObject(determineSignatureObject());
+    SignResponse secondSignResponse = determineSignResponse(SIGNED_PRESCRIPTION);
+    secondSignResponse.setRequestID(PerformSignDocument.determineRequestId(1));
+    byte[] firstSignedPrescription = "Signierte Beschreibung eines Hustensaftes".getBytes();
+    SignResponse firstSignResponse = determineSignResponse(firstSignedPrescription);
+    firstSignResponse.setRequestID(PerformSignDocument.determineRequestId(0));
+    SignDocumentResponse signDocumentResponse = mock(SignDocumentResponse.class);
+    when(signDocumentResponse.getSignResponse())
+        .thenReturn(Arrays.asList(secondSignResponse, firstSignResponse));
+
+    PerformSignDocument performSignDocument = mock(PerformSignDocument.class);
+    when(performSignDocument.performSignDocuments(
+            eq(invocationContext), eq(CARD_HANDLE), anyList(), eq(JOB_NUMBER)))
+        .thenReturn(signDocumentResponse);
+
+    PrescriptionSigner prescriptionSigner = new PrescriptionSigner();
+    prescriptionSigner.performSignDocument = performSignDocument;
+    List<SignDocumentResult> signDocumentResults =
+        prescriptionSigner.performSignPrescriptions(
+            invocationContext,
+            CARD_HANDLE,
+            Arrays.asList(PRESCRIPTIPN, PRESCRIPTIPN, PRESCRIPTIPN),
+            JOB_NUMBER);
+    Assert.assertEquals(3, signDocumentResults.size());
+    Assert.assertEquals(firstSignedPrescription, signDocumentResults.get(0).getSignedBundle());
+    Assert.assertEquals(SIGNED_PRESCRIPTION, signDocumentResults.get(1).getSignedBundle());
+    Assert.assertNull(signDocumentResults.get(2));
+  }
+
+  @Test
+  public void shouldReturnTimedOutResultsForBatchOnSocketTimeout() throws IOException {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
+
+    PerformSignDocument performSignDocument = mock(PerformSignDocument.class);
+    when(performSignDocument.performSignDocuments(
+            eq(invocationContext), eq(CARD_HANDLE), anyList(), eq(JOB_NUMBER)))
+        .thenThrow(
+            new WebServiceIOException("I/O error", new SocketTimeoutException("Read timed out")));
+
+    PrescriptionSigner prescriptionSigner = new PrescriptionSigner();
+    prescriptionSigner.performSignDocument = performSignDocument;
+    List<SignDocumentResult> signDocumentResults =
+        prescriptionSigner.performSignPrescriptions(
+            invocationContext, CARD_HANDLE, Arrays.asList(PRESCRIPTIPN, PRESCRIPTIPN), JOB_NUMBER);
+    Assert.assertEquals(2, signDocumentResults.size());
+    Assert.assertTrue(signDocumentResults.get(1).isTimedOut());
+  }
+
+  @Test(expected = WebServiceIOException.class)
+  public void shouldRethrowOtherIoErrors() throws IOException {
+    InvocationContext invocationContext =
+        new InvocationContext(MANDANT, CLIENT_SYSTEM, WORKPLACE, USER);
+
+    PerformSignDocument performSignDocument = mock(PerformSignDocument.class);
+    when(performSignDocument.performSignDocument(
+            invocationContext, CARD_HANDLE, PRESCRIPTIPN.getBytes(), JOB_NUMBER))
+        .thenThrow(new WebServiceIOException("I/O error", new IOException("Connection reset")));
+
+    PrescriptionSigner prescriptionSigner = new PrescriptionSigner();
+    prescriptionSigner.performSignDocument = performSignDocument;
+    prescriptionSigner.performSignPrescription(
+        invocationContext, CARD_HANDLE, PRESCRIPTIPN, JOB_NUMBER);
+  }
+
+  private PrescriptionSigner createAsyncPrescriptionSigner(
+      InvocationContext invocationContext,
+      CompletableFuture<SignDocumentResponse> signDocumentResponse)
+      throws IOException {
+    PerformSignDocument performSignDocument = mock(PerformSignDocument.class);
+    when(performSignDocument.performSignDocumentAsync(
+            invocationContext, CARD_HANDLE, PRESCRIPTIPN.getBytes(), JOB_NUMBER))
+        .thenReturn(signDocumentResponse);
+    PerformStopSignature performStopSignature = mock(PerformStopSignature.class);
+    when(performStopSignature.performStopSignatureAsync(invocationContext, CARD_HANDLE, JOB_NUMBER))
+        .thenReturn(CompletableFuture.completedFuture(new StopSignatureResponse()));
+
+    PrescriptionSigner prescriptionSigner = new PrescriptionSigner();
+    prescriptionSigner.performSignDocument = performSignDocument;
+    prescriptionSigner.performStopSignature = performStopSignature;
+    return prescriptionSigner;
+  }
+
+  private SignDocumentResponse determineSignDocumentResponse() {
+
+    SignResponse signResponse = determineSignResponse(SIGNED_PRESCRIPTION);
 
     List<SignResponse> signResponseList = new ArrayList<>();
     signResponseList.add(signResponse);
@@ -86,10 +252,23 @@ public class PrescriptionSignerTest {
     return signDocumentResponse;
   }
 
-  private SignatureObject determineSignatureObject() {
+  private SignResponse determineSignResponse(byte[] signedPrescription) {
+    SignResponse signResponse = new SignResponse();
+
+    Status status = new Status();
+    status.setResult(SignDocumentResult.STATUS_OK);
+    signResponse.setStatus(status);
+
+    signResponse.setOptionalOutputs(determineOptionalOutputs());
+
+    signResponse.setSignatureObject(determineSignatureObject(signedPrescription));
+    return signResponse;
+  }
+
+  private SignatureObject determineSignatureObject(byte[] signedPrescription) {
     Base64Signature base64Signature = new Base64Signature();
     base64Signature.setType(SignDocumentResult.TYPE_BASE_64_SIGNATURE);
-    base64Signature.setValue(SIGNED_PRESCRIPTION);
+    base64Signature.setValue(signedPrescription);
 
     SignatureObject signatureObject = new SignatureObject();
     signatureObject.setBase64Signature(base64Signature);
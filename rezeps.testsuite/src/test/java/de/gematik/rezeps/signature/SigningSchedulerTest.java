@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.rezeps.event.EventHelper;
+import de.gematik.ws.conn.eventservice.v7.Event;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ws.client.WebServiceIOException;
+
+public class SigningSchedulerTest {
+
+  private static final String HBA_1 = "hba_handle_1";
+  private static final String HBA_2 = "hba_handle_2";
+  private static final InvocationContext WORKPLACE_1 =
+      new InvocationContext("mandant", "clientSystem", "workplace1", "user");
+  private static final InvocationContext WORKPLACE_2 =
+      new InvocationContext("mandant", "clientSystem", "workplace2", "user");
+
+  private final Deque<Runnable> tasks = new ArrayDeque<>();
+  private final AtomicLong now = new AtomicLong();
+  private final List<String> signedBatches = new ArrayList<>();
+  private PrescriptionSigner prescriptionSigner;
+  private SigningScheduler signingScheduler;
+
+  @Before
+  public void setUp() throws IOException {
+    prescriptionSigner = mock(PrescriptionSigner.class);
+    when(prescriptionSigner.performSignPrescriptions(
+            any(InvocationContext.class), anyString(), anyList(), anyString()))
+        .thenAnswer(
+            invocation -> {
+              InvocationContext invocationContext = invocation.getArgument(0);
+              List<String> prescriptions = invocation.getArgument(2);
+              signedBatches.add(
+                  invocation.getArgument(1)
+                      + "/"
+                      + invocationContext.getWorkplace()
+                      + ":"
+                      + prescriptions);
+              List<SignDocumentResult> signDocumentResults = new ArrayList<>();
+              for (String prescription : prescriptions) {
+                signDocumentResults.add(
+                    new SignDocumentResult(
+                        SignDocumentResult.STATUS_OK, null, null, prescription.getBytes()));
+              }
+              return signDocumentResults;
+            });
+    JobNumberFinder jobNumberFinder = mock(JobNumberFinder.class);
+    when(jobNumberFinder.determineJobNumber(any(InvocationContext.class), anyString()))
+        .thenReturn("ABC-123");
+
+    signingScheduler = new SigningScheduler();
+    signingScheduler.prescriptionSigner = prescriptionSigner;
+    signingScheduler.jobNumberFinder = jobNumberFinder;
+    signingScheduler.executor = tasks::add;
+    signingScheduler.maxBatchSize = 2;
+    signingScheduler.nanoClock = now::get;
+  }
+
+  @Test
+  public void shouldCoalesceQueuedRequestsOfOneWorkplace()
+      throws IOException, ExecutionException, InterruptedException {
+    CompletableFuture<SignDocumentResult> first = signingScheduler.submit(WORKPLACE_1, HBA_1, "a");
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "b");
+    CompletableFuture<SignDocumentResult> third = signingScheduler.submit(WORKPLACE_1, HBA_1, "c");
+    Assert.assertEquals(1, tasks.size());
+    Assert.assertEquals(3, signingScheduler.getQueueDepth());
+
+    runAll();
+
+    Assert.assertEquals(
+        Arrays.asList(HBA_1 + "/workplace1:[a, b]", HBA_1 + "/workplace1:[c]"), signedBatches);
+    Assert.assertArrayEquals("a".getBytes(), first.get().getSignedBundle());
+    Assert.assertArrayEquals("c".getBytes(), third.get().getSignedBundle());
+    SigningQueue signingQueue = signingScheduler.getQueues().get(HBA_1);
+    Assert.assertEquals(0, signingQueue.getQueueDepth());
+    Assert.assertEquals(3, signingQueue.getProcessedRequests());
+    Assert.assertEquals(2, signingQueue.getBatches());
+  }
+
+  @Test
+  public void shouldServeWorkplacesAndCardsInTurn() throws IOException {
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "a");
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "b");
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "c");
+    signingScheduler.submit(WORKPLACE_2, HBA_1, "x");
+    signingScheduler.submit(WORKPLACE_1, HBA_2, "y");
+
+    runAll();
+
+    Assert.assertEquals(
+        Arrays.asList(
+            HBA_1 + "/workplace1:[a, b]",
+            HBA_2 + "/workplace1:[y]",
+            HBA_1 + "/workplace2:[x]",
+            HBA_1 + "/workplace1:[c]"),
+        signedBatches);
+  }
+
+  @Test
+  public void shouldMeasureWaitTime() throws IOException {
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "a");
+    now.addAndGet(4_000_000L);
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "b");
+    now.addAndGet(2_000_000L);
+
+    runAll();
+
+    SigningQueue signingQueue = signingScheduler.getQueues().get(HBA_1);
+    Assert.assertEquals(6, signingQueue.getMaxWaitMillis());
+    Assert.assertEquals(4, signingQueue.getAverageWaitMillis());
+  }
+
+  @Test
+  public void shouldCompleteBatchExceptionallyAndContinue() throws IOException {
+    when(prescriptionSigner.performSignPrescriptions(
+            eq(WORKPLACE_2), anyString(), anyList(), anyString()))
+        .thenThrow(new WebServiceIOException("Konnektor nicht erreichbar"));
+    CompletableFuture<SignDocumentResult> failed = signingScheduler.submit(WORKPLACE_2, HBA_1, "x");
+    CompletableFuture<SignDocumentResult> signed = signingScheduler.submit(WORKPLACE_1, HBA_1, "a");
+
+    runAll();
+
+    Assert.assertTrue(failed.isCompletedExceptionally());
+    Assert.assertTrue(signed.isDone());
+    Assert.assertFalse(signed.isCompletedExceptionally());
+  }
+
+  @Test
+  public void shouldSkipCancelledRequests() throws IOException {
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "a").cancel(true);
+    signingScheduler.submit(WORKPLACE_1, HBA_1, "b");
+
+    runAll();
+
+    Assert.assertEquals(Arrays.asList(HBA_1 + "/workplace1:[b]"), signedBatches);
+  }
+
+  @Test
+  public void shouldAbortQueuedRequestsOfRemovedHba() throws IOException {
+    CompletableFuture<SignDocumentResult> first = signingScheduler.submit(WORKPLACE_1, HBA_1, "a");
+    CompletableFuture<SignDocumentResult> second = signingScheduler.submit(WORKPLACE_2, HBA_1, "b");
+    CompletableFuture<SignDocumentResult> other = signingScheduler.submit(WORKPLACE_1, HBA_2, "x");
+
+    signingScheduler.observeEvent(createCardRemovedEvent(HBA_1));
+    runAll();
+
+    Assert.assertTrue(first.isCompletedExceptionally());
+    Assert.assertTrue(second.isCompletedExceptionally());
+    Assert.assertFalse(other.isCompletedExceptionally());
+    Assert.assertEquals(Arrays.asList(HBA_2 + "/workplace1:[x]"), signedBatches);
+    Assert.assertEquals(0, signingScheduler.getQueues().get(HBA_1).getQueueDepth());
+  }
+
+  private static Event createCardRemovedEvent(String cardHandle) {
+    Event.Message.Parameter parameter = new Event.Message.Parameter();
+    parameter.setKey(EventHelper.PARAMETER_CARD_HANDLE);
+    parameter.setValue(cardHandle);
+    Event event = new Event();
+    event.setTopic(EventHelper.TOPIC_CARD_REMOVED);
+    event.setMessage(new Event.Message());
+    event.getMessage().getParameter().add(parameter);
+    return event;
+  }
+
+  private void runAll() {
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+  }
+}
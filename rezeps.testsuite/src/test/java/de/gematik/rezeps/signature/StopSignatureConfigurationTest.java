@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.signatureservice.v7.StopSignature;
+import java.io.StringWriter;
+import javax.xml.transform.stream.StreamResult;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+public class StopSignatureConfigurationTest {
+
+  @Test
+  public void shouldMarshalStopSignature() {
+    Jaxb2Marshaller stopSignatureMarshaller =
+        new StopSignatureConfiguration().stopSignatureMarshaller();
+    StopSignature stopSignature = new StopSignature();
+    stopSignature.setContext(
+        new InvocationContext("mandant", "clientSystem", "workplace").convertToContextType());
+    stopSignature.setJobNumber("ABC-123");
+
+    StringWriter stringWriter = new StringWriter();
+    stopSignatureMarshaller.marshal(stopSignature, new StreamResult(stringWriter));
+
+    String xml = stringWriter.toString();
+    Assert.assertTrue(xml.contains("StopSignature"));
+    Assert.assertTrue(xml.contains("http://ws.gematik.de/conn/SignatureService/v7.5"));
+    Assert.assertTrue(xml.contains("ABC-123"));
+  }
+}
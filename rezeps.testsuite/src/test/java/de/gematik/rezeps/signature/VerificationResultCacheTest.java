@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2021 gematik GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.gematik.rezeps.signature;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.rezeps.ConfigurationReader;
+import de.gematik.rezeps.InvocationContext;
+import de.gematik.ws.conn.connectorcommon.v5.Status;
+import de.gematik.ws.conn.signatureservice.v7.VerificationResultType;
+import de.gematik.ws.conn.signatureservice.v7.VerifyDocumentResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class VerificationResultCacheTest {
+
+  private static final byte[] PRESCRIPTION_1 = "Rezept 1".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] PRESCRIPTION_2 = "Rezept 2".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] PRESCRIPTION_3 = "Rezept 3".getBytes(StandardCharsets.UTF_8);
+  private static final String PROFILE =
+      SignatureVerification.determineVerificationProfile(false, true);
+  private static final SignatureVerificationResult VALID =
+      new SignatureVerificationResult("OK", "VALID");
+
+  private final AtomicLong now = new AtomicLong();
+  private VerificationResultCache verificationResultCache;
+
+  @BeforeClass
+  public static void setUpClass() {
+    System.setProperty("CFG_PROPS", "unittest");
+  }
+
+  @Before
+  public void setUp() {
+    verificationResultCache = new VerificationResultCache();
+    verificationResultCache.nanoClock = now::get;
+    verificationResultCache.maxEntries = 2;
+  }
+
+  @Test
+  public void shouldReturnCachedResult() throws IOException {
+    Assert.assertNull(verificationResultCache.get(PROFILE, PRESCRIPTION_1));
+    verificationResultCache.put(PROFILE, PRESCRIPTION_1, VALID);
+    Assert.assertEquals(VALID, verificationResultCache.get(PROFILE, PRESCRIPTION_1));
+    Assert.assertEquals(1, verificationResultCache.getHits());
+    Assert.assertEquals(1, verificationResultCache.getMisses());
+    Assert.assertEquals(0.5, verificationResultCache.getHitRate(), 0.001);
+  }
+
+  @Test
+  public void shouldExpireResult() throws IOException {
+    verificationResultCache.put(PROFILE, PRESCRIPTION_1, VALID);
+    now.addAndGet(TimeUnit.SECONDS.toNanos(601));
+    Assert.assertNull(verificationResultCache.get(PROFILE, PRESCRIPTION_1));
+    Assert.assertEquals(0, verificationResultCache.size());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedResult() throws IOException {
+    verificationResultCache.put(PROFILE, PRESCRIPTION_1, VALID);
+    verificationResultCache.put(PROFILE, PRESCRIPTION_2, VALID);
+    verificationResultCache.get(PROFILE, PRESCRIPTION_1);
+    verificationResultCache.put(PROFILE, PRESCRIPTION_3, VALID);
+
+    Assert.assertEquals(VALID, verificationResultCache.get(PROFILE, PRESCRIPTION_1));
+    Assert.assertNull(verificationResultCache.get(PROFILE, PRESCRIPTION_2));
+    Assert.assertEquals(VALID, verificationResultCache.get(PROFILE, PRESCRIPTION_3));
+    Assert.assertEquals(1, verificationResultCache.getEvictions());
+  }
+
+  @Test
+  public void shouldNotCacheInconclusiveResult() throws IOException {
+    verificationResultCache.put(
+        PROFILE, PRESCRIPTION_1, new SignatureVerificationResult("OK", "INCONCLUSIVE"));
+    verificationResultCache.put(
+        PROFILE, PRESCRIPTION_2, new SignatureVerificationResult(null, null));
+    Assert.assertEquals(0, verificationResultCache.size());
+  }
+
+  @Test
+  public void shouldVerifySamePrescriptionOnlyOnce() throws IOException {
+    VerifyDocumentResponse verifyDocumentResponse = new VerifyDocumentResponse();
+    Status status = new Status();
+    status.setResult(SignatureVerification.INVOCATION_RESULT_OK);
+    verifyDocumentResponse.setStatus(status);
+    VerificationResultType verificationResultType = new VerificationResultType();
+    verificationResultType.setHighLevelResult(SignatureVerification.VALIDATION_RESULT_VALID);
+    verifyDocumentResponse.setVerificationResult(verificationResultType);
+    PerformVerifyDocument performVerifyDocument = mock(PerformVerifyDocument.class);
+    when(performVerifyDocument.performVerifyDocument(any(), any()))
+        .thenReturn(verifyDocumentResponse);
+
+    SignatureVerification signatureVerification = new SignatureVerification();
+    signatureVerification.performVerifyDocument = performVerifyDocument;
+    signatureVerification.verificationResultCache = verificationResultCache;
+    InvocationContext invocationContext =
+        new InvocationContext("mandant001", "client_system001", "workplace001");
+
+    Assert.assertEquals(
+        VALID, signatureVerification.verifySignature(invocationContext, PRESCRIPTION_1.clone()));
+    Assert.assertEquals(
+        VALID, signatureVerification.verifySignature(invocationContext, PRESCRIPTION_1.clone()));
+    verify(performVerifyDocument, times(1)).performVerifyDocument(any(), any());
+
+    ConfigurationReader configurationReader = ConfigurationReader.getInstance();
+    configurationReader.setConfigurationProperty(
+        "signature_verification_check_revocation", "false");
+    try {
+      Assert.assertEquals(
+          VALID, signatureVerification.verifySignature(invocationContext, PRESCRIPTION_1.clone()));
+      verify(performVerifyDocument, times(2)).performVerifyDocument(any(), any());
+    } finally {
+      configurationReader.setConfigurationProperty("signature_verification_check_revocation", "");
+    }
+  }
+
+  @Test
+  public void shouldSeparateResultsOfVerificationProfiles() throws IOException {
+    verificationResultCache.put(PROFILE, PRESCRIPTION_1, VALID);
+    Assert.assertNull(
+        verificationResultCache.get(
+            SignatureVerification.determineVerificationProfile(true, true), PRESCRIPTION_1));
+    Assert.assertNull(
+        verificationResultCache.get(
+            SignatureVerification.determineVerificationProfile(false, false), PRESCRIPTION_1));
+    Assert.assertEquals(VALID, verificationResultCache.get(PROFILE, PRESCRIPTION_1));
+  }
+}